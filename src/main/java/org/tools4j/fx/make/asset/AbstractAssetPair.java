@@ -28,6 +28,8 @@ import java.util.Objects;
 abstract public class AbstractAssetPair<B extends Asset, T extends Asset> implements AssetPair<B, T> {
 	private final B base;
 	private final T terms;
+	private final int hashCode;
+	private int id = -1;//benign race, the registry returns the same id for equal pairs
 
 	public AbstractAssetPair(B base, T terms) {
 		this.base = Objects.requireNonNull(base, "base is null");
@@ -35,6 +37,7 @@ abstract public class AbstractAssetPair<B extends Asset, T extends Asset> implem
 		if (base.equals(terms)) {
 			throw new IllegalArgumentException("base equals terms: " + base + "/" + terms);
 		}
+		this.hashCode = 31*base.hashCode() + terms.hashCode();
 	}
 
 	public B getBase() {
@@ -45,6 +48,16 @@ abstract public class AbstractAssetPair<B extends Asset, T extends Asset> implem
 		return terms;
 	}
 
+	@Override
+	public int getId() {
+		int pairId = id;
+		if (pairId < 0) {
+			pairId = AssetRegistry.getPairId(this);
+			id = pairId;
+		}
+		return pairId;
+	}
+
 	@Override
 	public String toString() {
 		return getBase() + "/" + getTerms();
@@ -52,7 +65,7 @@ abstract public class AbstractAssetPair<B extends Asset, T extends Asset> implem
 
 	@Override
 	public int hashCode() {
-		return 31*base.hashCode() + terms.hashCode();
+		return hashCode;
 	}
 
 	@Override
@@ -64,7 +77,14 @@ abstract public class AbstractAssetPair<B extends Asset, T extends Asset> implem
 		if (getClass() != obj.getClass())
 			return false;
 		final AbstractAssetPair<?, ?> other = (AbstractAssetPair<?, ?>) obj;
-		return base.equals(other.base) && terms.equals(other.terms);
+		//registered pairs compare by dense id, getId() would recurse via the registry
+		final int pairId = id;
+		final int otherPairId = other.id;
+		if (pairId >= 0 & otherPairId >= 0)
+			return pairId == otherPairId;
+		if (hashCode != other.hashCode)
+			return false;
+		return base.id() == other.base.id() && terms.id() == other.terms.id();
 	}
 
 }
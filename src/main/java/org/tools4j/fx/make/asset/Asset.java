@@ -40,4 +40,13 @@ public interface Asset {
 	 * @return the asset types
 	 */
 	AssetType type();
+
+	/**
+	 * The dense id of this asset as assigned by the {@link AssetRegistry}.
+	 * 
+	 * @return the non-negative asset id, unique for all assets
+	 */
+	default int id() {
+		return AssetRegistry.getAssetId(this);
+	}
 }
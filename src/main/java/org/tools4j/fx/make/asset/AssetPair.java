@@ -26,4 +26,14 @@ package org.tools4j.fx.make.asset;
 public interface AssetPair<B extends Asset, T extends Asset> {
 	B getBase();
 	T getTerms();
+
+	/**
+	 * The dense id of this asset pair as assigned by the {@link AssetRegistry};
+	 * equal pairs have the same id.
+	 * 
+	 * @return the non-negative asset pair id
+	 */
+	default int getId() {
+		return AssetRegistry.getPairId(this);
+	}
 }
@@ -0,0 +1,221 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.asset;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry assigning a dense int id to every {@link Asset} and every
+ * {@link AssetPair}. Ids start at zero and are never reused, hence hot path
+ * structures can be plain arrays indexed by id. Currencies use their ordinal
+ * as id; other assets and all asset pairs are numbered in order of
+ * registration.
+ * <p>
+ * Assets other than currencies are interned via
+ * {@link #valueOf(AssetType, String)}, and asset pairs via
+ * {@link #intern(AssetPair)} or {@link CurrencyPair#valueOf(Currency, Currency)}.
+ * Interned pairs can be compared by identity.
+ * <p>
+ * The class is thread safe. Lookups of registered assets and pairs are lock
+ * free; registration of a new asset or pair is synchronized.
+ */
+public final class AssetRegistry {
+
+	private static final Currency[] CURRENCIES = Currency.values();
+
+	private static final Object LOCK = new Object();
+	private static final Map<Asset, Integer> idByAsset = new ConcurrentHashMap<>();
+	private static final Map<AssetType, Map<String, NamedAsset>> namedAssetByType = new ConcurrentHashMap<>();
+	private static final Map<AssetPair<?, ?>, Integer> idByPair = new ConcurrentHashMap<>();
+	private static volatile Asset[] assetById = Arrays.copyOf(CURRENCIES, CURRENCIES.length, Asset[].class);
+	private static volatile AssetPair<?, ?>[] pairById = new AssetPair<?, ?>[0];
+
+	/**
+	 * Returns the asset with the given type and name. Currencies are resolved
+	 * via {@link Currency#valueOf(String)}; all other assets are created and
+	 * registered on first use and the same instance is returned for
+	 * subsequent calls.
+	 * 
+	 * @param type
+	 *            the asset type
+	 * @param name
+	 *            the asset name such as "AUD", "XAU", or "GOOG"
+	 * @return the interned asset
+	 * @throws IllegalArgumentException
+	 *             if type is CURRENCY but the name is not an ISO currency code
+	 */
+	public static Asset valueOf(AssetType type, String name) {
+		Objects.requireNonNull(type, "type is null");
+		Objects.requireNonNull(name, "name is null");
+		if (type == AssetType.CURRENCY) {
+			return Currency.valueOf(name);
+		}
+		final Map<String, NamedAsset> byName = namedAssetByType.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
+		final NamedAsset asset = byName.get(name);
+		if (asset != null) {
+			return asset;
+		}
+		synchronized (LOCK) {
+			final NamedAsset existing = byName.get(name);
+			if (existing != null) {
+				return existing;
+			}
+			final NamedAsset created = new NamedAsset(name, type, assetById.length);
+			register(created);
+			byName.put(name, created);
+			return created;
+		}
+	}
+
+	/**
+	 * Returns the id of the specified asset, registering the asset if
+	 * necessary.
+	 * 
+	 * @param asset
+	 *            the asset
+	 * @return the non-negative dense asset id
+	 */
+	public static int getAssetId(Asset asset) {
+		if (asset instanceof Currency) {
+			return ((Currency) asset).ordinal();
+		}
+		if (asset instanceof NamedAsset) {
+			return ((NamedAsset) asset).id();
+		}
+		final Integer id = idByAsset.get(Objects.requireNonNull(asset, "asset is null"));
+		if (id != null) {
+			return id.intValue();
+		}
+		synchronized (LOCK) {
+			final Integer existing = idByAsset.get(asset);
+			return existing != null ? existing.intValue() : register(asset);
+		}
+	}
+
+	private static int register(Asset asset) {
+		final Asset[] cur = assetById;
+		final Asset[] assets = Arrays.copyOf(cur, cur.length + 1);
+		assets[cur.length] = asset;
+		assetById = assets;
+		idByAsset.put(asset, cur.length);
+		return cur.length;
+	}
+
+	/**
+	 * Returns the asset for the given id.
+	 * 
+	 * @param id
+	 *            the asset id
+	 * @return the asset with this id
+	 * @throws IndexOutOfBoundsException
+	 *             if no asset has been registered with the given id
+	 */
+	public static Asset getAsset(int id) {
+		return assetById[id];
+	}
+
+	/**
+	 * Returns the number of registered assets; all asset ids are less than
+	 * this number.
+	 * 
+	 * @return the number of assets registered so far
+	 */
+	public static int getAssetCount() {
+		return assetById.length;
+	}
+
+	/**
+	 * Returns the id of the specified asset pair, registering the pair if
+	 * necessary. Equal pairs have the same id.
+	 * 
+	 * @param assetPair
+	 *            the asset pair
+	 * @return the non-negative dense asset pair id
+	 */
+	public static int getPairId(AssetPair<?, ?> assetPair) {
+		final Integer id = idByPair.get(Objects.requireNonNull(assetPair, "assetPair is null"));
+		if (id != null) {
+			return id.intValue();
+		}
+		synchronized (LOCK) {
+			final Integer existing = idByPair.get(assetPair);
+			if (existing != null) {
+				return existing.intValue();
+			}
+			final AssetPair<?, ?>[] cur = pairById;
+			final AssetPair<?, ?>[] pairs = Arrays.copyOf(cur, cur.length + 1);
+			pairs[cur.length] = assetPair;
+			pairById = pairs;
+			idByPair.put(assetPair, cur.length);
+			return cur.length;
+		}
+	}
+
+	/**
+	 * Returns the interned asset pair for the given id.
+	 * 
+	 * @param id
+	 *            the asset pair id
+	 * @return the interned asset pair with this id
+	 * @throws IndexOutOfBoundsException
+	 *             if no pair has been registered with the given id
+	 */
+	public static AssetPair<?, ?> getPair(int id) {
+		return pairById[id];
+	}
+
+	/**
+	 * Returns the number of registered asset pairs; all pair ids are less than
+	 * this number.
+	 * 
+	 * @return the number of asset pairs registered so far
+	 */
+	public static int getPairCount() {
+		return pairById.length;
+	}
+
+	/**
+	 * Returns the canonical instance equal to the given asset pair, which is
+	 * the first instance that was registered for this pair.
+	 * 
+	 * @param <P>
+	 *            the asset pair type
+	 * @param assetPair
+	 *            the asset pair
+	 * @return the interned instance equal to {@code assetPair}
+	 */
+	@SuppressWarnings("unchecked")
+	public static <P extends AssetPair<?, ?>> P intern(P assetPair) {
+		//equal pairs are of the same class
+		return (P) getPair(assetPair.getId());
+	}
+
+	// no instances
+	private AssetRegistry() {
+		super();
+	}
+}
@@ -39,9 +39,185 @@ public enum Currency implements Asset {
 	//others
 	JPY,
 	CHF,
-	CAD;
+	CAD,
+	//remaining ISO 4217 codes
+	AED,
+	AFN,
+	ALL,
+	AMD,
+	ANG,
+	AOA,
+	ARS,
+	AWG,
+	AZN,
+	BAM,
+	BBD,
+	BDT,
+	BGN,
+	BHD,
+	BIF,
+	BMD,
+	BND,
+	BOB,
+	BOV,
+	BRL,
+	BSD,
+	BTN,
+	BYN,
+	BZD,
+	CDF,
+	CHE,
+	CHW,
+	CLF,
+	CLP,
+	CNY,
+	COP,
+	COU,
+	CRC,
+	CUC,
+	CUP,
+	CVE,
+	CZK,
+	DJF,
+	DKK,
+	DOP,
+	DZD,
+	EGP,
+	ERN,
+	ETB,
+	FKP,
+	GEL,
+	GHS,
+	GIP,
+	GMD,
+	GNF,
+	GTQ,
+	GYD,
+	HKD,
+	HNL,
+	HTG,
+	HUF,
+	IDR,
+	ILS,
+	INR,
+	IQD,
+	IRR,
+	ISK,
+	JMD,
+	JOD,
+	KES,
+	KGS,
+	KHR,
+	KMF,
+	KPW,
+	KRW,
+	KWD,
+	KYD,
+	KZT,
+	LAK,
+	LBP,
+	LKR,
+	LRD,
+	LSL,
+	LYD,
+	MAD,
+	MDL,
+	MGA,
+	MKD,
+	MMK,
+	MNT,
+	MOP,
+	MRU,
+	MUR,
+	MVR,
+	MWK,
+	MXN,
+	MXV,
+	MYR,
+	MZN,
+	NAD,
+	NGN,
+	NIO,
+	NOK,
+	NPR,
+	OMR,
+	PAB,
+	PEN,
+	PHP,
+	PKR,
+	PLN,
+	PYG,
+	QAR,
+	RON,
+	RSD,
+	RUB,
+	RWF,
+	SAR,
+	SCR,
+	SDG,
+	SEK,
+	SGD,
+	SHP,
+	SLE,
+	SOS,
+	SRD,
+	SSP,
+	STN,
+	SVC,
+	SYP,
+	SZL,
+	THB,
+	TJS,
+	TMT,
+	TND,
+	TRY,
+	TTD,
+	TWD,
+	TZS,
+	UAH,
+	UGX,
+	USN,
+	UYI,
+	UYU,
+	UYW,
+	UZS,
+	VED,
+	VES,
+	VND,
+	VUV,
+	XAF,
+	XAG,
+	XAU,
+	XBA,
+	XBB,
+	XBC,
+	XBD,
+	XCD,
+	XDR,
+	XOF,
+	XPD,
+	XPF,
+	XPT,
+	XSU,
+	XTS,
+	XUA,
+	XXX,
+	YER,
+	ZAR,
+	ZMW,
+	ZWG;
 	@Override
 	public AssetType type() {
 		return AssetType.CURRENCY;
 	}
+	/**
+	 * Returns the ordinal which is also the {@link AssetRegistry registry} id
+	 * of a currency.
+	 * 
+	 * @return the ordinal of this currency
+	 */
+	@Override
+	public int id() {
+		return ordinal();
+	}
 }
@@ -37,15 +37,52 @@ import static org.tools4j.fx.make.asset.Currency.USD;
 import static org.tools4j.fx.make.asset.Currency.WST;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class CurrencyPair extends AbstractAssetPair<Currency, Currency> {
 
 	private static final List<Currency> PRECEDENCE = asList(EUR, GBP, AUD, NZD, FJD, TOP, WST, PGK, BWP, SBD, USD);
+	private static final int CURRENCY_COUNT = Currency.values().length;
+	private static final int[] PRECEDENCE_BY_ORDINAL = new int[CURRENCY_COUNT];
+	private static final AtomicReferenceArray<CurrencyPair> INTERNED = new AtomicReferenceArray<>(CURRENCY_COUNT * CURRENCY_COUNT);
+	
+	static {
+		for (int i = 0; i < CURRENCY_COUNT; i++) {
+			PRECEDENCE_BY_ORDINAL[i] = Integer.MAX_VALUE;
+		}
+		for (int i = 0; i < PRECEDENCE.size(); i++) {
+			PRECEDENCE_BY_ORDINAL[PRECEDENCE.get(i).ordinal()] = i;
+		}
+	}
 
 	public CurrencyPair(Currency base, Currency terms) {
 		super(base, terms);
 	}
 
+	/**
+	 * Returns the interned currency pair for base and terms currency. The same
+	 * instance is returned for every call with the same currencies, and it is
+	 * the instance registered with the {@link AssetRegistry}.
+	 * 
+	 * @param base
+	 *            the base currency
+	 * @param terms
+	 *            the terms currency
+	 * @return the interned currency pair
+	 * @throws IllegalArgumentException
+	 *             if base equals terms
+	 */
+	public static CurrencyPair valueOf(Currency base, Currency terms) {
+		final int index = base.ordinal() * CURRENCY_COUNT + terms.ordinal();
+		final CurrencyPair pair = INTERNED.get(index);
+		if (pair != null) {
+			return pair;
+		}
+		final CurrencyPair interned = AssetRegistry.intern(new CurrencyPair(base, terms));
+		INTERNED.lazySet(index, interned);
+		return interned;
+	}
+
 	public static CurrencyPair toMarketConvention(Currency currency) {
 		return toMarketConvention(currency, Currency.USD);
 	}
@@ -55,18 +92,17 @@ public class CurrencyPair extends AbstractAssetPair<Currency, Currency> {
 		final int index2 = precedence(currency2);
 		if (index1 >= 0 | index2 >= 0) {
 			if (index1 < index2) {
-				return new CurrencyPair(currency1, currency2);
+				return valueOf(currency1, currency2);
 			}
 			if (index1 > index2) {
-				return new CurrencyPair(currency2, currency1);
+				return valueOf(currency2, currency1);
 			}
 		}
 		throw new IllegalArgumentException("market convention undefined for: " + currency1 + "/" + currency2);
 	}
 
 	private static int precedence(Currency currency) {
-		final int index = PRECEDENCE.indexOf(currency);
-		return index >= 0 ? index : Integer.MAX_VALUE;
+		return PRECEDENCE_BY_ORDINAL[currency.ordinal()];
 	}
 
 	/**
@@ -0,0 +1,62 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.asset;
+
+/**
+ * An asset other than a currency such as an equity or a commodity. Instances
+ * are interned and obtained through {@link AssetRegistry#valueOf(AssetType, String)};
+ * hence two named assets are equal if and only if they are the same instance.
+ */
+public final class NamedAsset implements Asset {
+
+	private final String name;
+	private final AssetType type;
+	private final int id;
+
+	NamedAsset(String name, AssetType type, int id) {
+		this.name = name;
+		this.type = type;
+		this.id = id;
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public AssetType type() {
+		return type;
+	}
+
+	@Override
+	public int id() {
+		return id;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,177 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToDoubleFunction;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.backtest.ResultTable.Aggregation;
+
+/**
+ * Aggregates backtest results of pair and period partitions as they complete
+ * and produces PnL, deal count and water mark tables with one row per pair
+ * and one column per period.
+ * <p>
+ * The class is thread safe; results can be added concurrently while tables
+ * are produced from the results added so far.
+ */
+public class BacktestResults {
+
+	private final List<AssetPair<?, ?>> pairs;
+	private final ConcurrentMap<AssetPair<?, ?>, ConcurrentMap<YearMonth, SweepResult>> resultsByPair = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor with the pairs in the order of the table rows.
+	 * 
+	 * @param pairs
+	 *            the asset pairs of the results to aggregate
+	 */
+	public BacktestResults(List<? extends AssetPair<?, ?>> pairs) {
+		this.pairs = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(pairs)));
+		for (final AssetPair<?, ?> pair : this.pairs) {
+			resultsByPair.putIfAbsent(Objects.requireNonNull(pair, "pair is null"), new ConcurrentHashMap<>());
+		}
+	}
+
+	public List<AssetPair<?, ?>> getPairs() {
+		return pairs;
+	}
+
+	/**
+	 * Adds the result for a pair and period.
+	 * 
+	 * @param pair
+	 *            the asset pair of the partition
+	 * @param period
+	 *            the period of the partition
+	 * @param result
+	 *            the partition result
+	 * @throws IllegalArgumentException
+	 *             if the pair is unknown or if a result for this partition
+	 *             has already been added
+	 */
+	public void add(AssetPair<?, ?> pair, YearMonth period, SweepResult result) {
+		Objects.requireNonNull(period, "period is null");
+		Objects.requireNonNull(result, "result is null");
+		if (getResults(pair).putIfAbsent(period, result) != null) {
+			throw new IllegalArgumentException("duplicate result for " + pair + " in " + period);
+		}
+	}
+
+	/**
+	 * Returns the result for a pair and period.
+	 * 
+	 * @param pair
+	 *            the asset pair of the partition
+	 * @param period
+	 *            the period of the partition
+	 * @return the result or null if no result has been added for this
+	 *         partition
+	 */
+	public SweepResult getResult(AssetPair<?, ?> pair, YearMonth period) {
+		return getResults(pair).get(Objects.requireNonNull(period, "period is null"));
+	}
+
+	/**
+	 * Returns the number of results added so far.
+	 * 
+	 * @return the number of partition results
+	 */
+	public int size() {
+		int size = 0;
+		for (final Map<YearMonth, SweepResult> results : resultsByPair.values()) {
+			size += results.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Returns all periods with at least one result in ascending order.
+	 * 
+	 * @return the ascending periods
+	 */
+	public List<YearMonth> getPeriods() {
+		final TreeSet<YearMonth> periods = new TreeSet<>();
+		for (final Map<YearMonth, SweepResult> results : resultsByPair.values()) {
+			periods.addAll(results.keySet());
+		}
+		return new ArrayList<>(periods);
+	}
+
+	public ResultTable getPnlTable() {
+		return getTable("pnl", Aggregation.SUM, SweepResult::getPnl);
+	}
+
+	public ResultTable getDealCountTable() {
+		return getTable("deals", Aggregation.SUM, result -> result.getDealCount());
+	}
+
+	public ResultTable getHighWaterMarkTable() {
+		return getTable("high", Aggregation.MAX, SweepResult::getHighWaterMark);
+	}
+
+	public ResultTable getLowWaterMarkTable() {
+		return getTable("low", Aggregation.MIN, SweepResult::getLowWaterMark);
+	}
+
+	private ResultTable getTable(String name, Aggregation aggregation, ToDoubleFunction<? super SweepResult> value) {
+		final List<YearMonth> periods = getPeriods();
+		final double[] values = new double[pairs.size() * periods.size()];
+		Arrays.fill(values, Double.NaN);
+		for (int r = 0; r < pairs.size(); r++) {
+			final Map<YearMonth, SweepResult> results = resultsByPair.get(pairs.get(r));
+			for (int c = 0; c < periods.size(); c++) {
+				final SweepResult result = results.get(periods.get(c));
+				if (result != null) {
+					values[r * periods.size() + c] = value.applyAsDouble(result);
+				}
+			}
+		}
+		return new ResultTable(name, aggregation, pairs, periods, values);
+	}
+
+	private ConcurrentMap<YearMonth, SweepResult> getResults(AssetPair<?, ?> pair) {
+		final ConcurrentMap<YearMonth, SweepResult> results = resultsByPair.get(Objects.requireNonNull(pair, "pair is null"));
+		if (results == null) {
+			throw new IllegalArgumentException("unknown pair " + pair + ", expected one of " + pairs);
+		}
+		return results;
+	}
+
+	@Override
+	public String toString() {
+		return getPnlTable() + "\n" + getDealCountTable();
+	}
+}
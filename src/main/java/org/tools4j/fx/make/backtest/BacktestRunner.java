@@ -0,0 +1,253 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.flow.TickData;
+import org.tools4j.fx.make.flow.TickFileIndex;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Runs one maker configuration against CSV tick files of several pairs,
+ * partitioned by pair and month. Every file is indexed once with a
+ * {@link TickFileIndex}; the partitions are then run as tasks of a
+ * work-stealing {@link ForkJoinPool}, each reading only its month's slice of
+ * the file and matching it with an independent engine. Partition results are
+ * added to {@link BacktestResults} as they complete.
+ * <p>
+ * The class is immutable and can be run multiple times.
+ */
+public class BacktestRunner {
+
+	private final String makerName;
+	private final MakerFactory makerFactory;
+	private final List<AssetPair<?, ?>> pairs;
+	private final List<File> files;
+	private final double spreadPips;
+	private final long maxQuantity;
+	private final YearMonth fromPeriod;
+	private final YearMonth toPeriod;
+	private final RiskLimits riskLimits;
+	private final Currency valuationCurrency;
+
+	private BacktestRunner(Builder builder) {
+		this.makerName = builder.makerName;
+		this.makerFactory = builder.makerFactory;
+		this.pairs = new ArrayList<>(builder.pairs);
+		this.files = new ArrayList<>(builder.files);
+		this.spreadPips = builder.spreadPips;
+		this.maxQuantity = builder.maxQuantity;
+		this.fromPeriod = builder.fromPeriod;
+		this.toPeriod = builder.toPeriod;
+		this.riskLimits = builder.riskLimits;
+		this.valuationCurrency = builder.valuationCurrency;
+		if (files.isEmpty()) {
+			throw new IllegalArgumentException("at least one file is required");
+		}
+	}
+
+	public static Builder builder(String makerName, MakerFactory makerFactory) {
+		return new Builder(makerName, makerFactory);
+	}
+
+	/**
+	 * Returns the spread quoted for the given pair: the spread in pips times
+	 * the pip size of 0.01 for JPY pairs and 0.0001 otherwise.
+	 * 
+	 * @param assetPair
+	 *            the asset pair
+	 * @return the absolute spread for the pair
+	 */
+	public double getSpread(AssetPair<?, ?> assetPair) {
+		final boolean isJPY = assetPair.getBase() == Currency.JPY || assetPair.getTerms() == Currency.JPY;
+		return spreadPips * (isJPY ? 0.01 : 0.0001);
+	}
+
+	/**
+	 * Runs all partitions in the common fork join pool.
+	 * 
+	 * @return the aggregated results of all partitions
+	 */
+	public BacktestResults run() {
+		return run(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Indexes all files and runs all partitions in the given pool, waiting
+	 * for all of them to complete.
+	 * 
+	 * @param pool
+	 *            the pool to use
+	 * @return the aggregated results of all partitions
+	 */
+	public BacktestResults run(ForkJoinPool pool) {
+		Objects.requireNonNull(pool, "pool is null");
+		final List<Callable<TickFileIndex>> indexTasks = new ArrayList<>(files.size());
+		for (final File file : files) {
+			indexTasks.add(() -> TickFileIndex.build(file));
+		}
+		final List<TickFileIndex> indices = getAll(pool.invokeAll(indexTasks));
+		final BacktestResults results = new BacktestResults(pairs);
+		final List<Callable<SweepResult>> partitionTasks = new ArrayList<>();
+		for (int i = 0; i < indices.size(); i++) {
+			final AssetPair<?, ?> pair = pairs.get(i);
+			final TickFileIndex index = indices.get(i);
+			for (final YearMonth period : index.getMonths()) {
+				if (isSelected(period)) {
+					partitionTasks.add(() -> {
+						final TickData tickData = index.load(pair, period);
+						final SweepResult result = SweepRunner.run(tickData, makerName, makerFactory, getSpread(pair), maxQuantity, riskLimits, valuationCurrency);
+						results.add(pair, period, result);
+						return result;
+					});
+				}
+			}
+		}
+		getAll(pool.invokeAll(partitionTasks));
+		return results;
+	}
+
+	private boolean isSelected(YearMonth period) {
+		return (fromPeriod == null || !period.isBefore(fromPeriod)) & (toPeriod == null || !period.isAfter(toPeriod));
+	}
+
+	private static <T> List<T> getAll(List<Future<T>> futures) {
+		final List<T> values = new ArrayList<>(futures.size());
+		for (final Future<T> future : futures) {
+			try {
+				values.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("interrupted while waiting for backtest results", e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("backtest failed, e=" + e.getCause(), e.getCause());
+			}
+		}
+		return values;
+	}
+
+	public static final class Builder {
+		private final String makerName;
+		private final MakerFactory makerFactory;
+		private final List<AssetPair<?, ?>> pairs = new ArrayList<>();
+		private final List<File> files = new ArrayList<>();
+		private double spreadPips = 10;
+		private long maxQuantity = 1000000;
+		private YearMonth fromPeriod;
+		private YearMonth toPeriod;
+		private RiskLimits riskLimits = RiskLimits.UNLIMITED;
+		private Currency valuationCurrency = Currency.USD;
+
+		private Builder(String makerName, MakerFactory makerFactory) {
+			this.makerName = Objects.requireNonNull(makerName, "makerName is null");
+			this.makerFactory = Objects.requireNonNull(makerFactory, "makerFactory is null");
+		}
+
+		/**
+		 * Adds a CSV tick file for the given pair. Several files can be added
+		 * for the same pair as long as they contain different months.
+		 * 
+		 * @param assetPair
+		 *            the asset pair of the ticks in the file
+		 * @param file
+		 *            the CSV tick file
+		 * @return this builder
+		 */
+		public Builder addFile(AssetPair<?, ?> assetPair, File file) {
+			pairs.add(Objects.requireNonNull(assetPair, "assetPair is null"));
+			files.add(Objects.requireNonNull(file, "file is null"));
+			return this;
+		}
+
+		/**
+		 * Sets the spread in pips, 10 by default.
+		 * 
+		 * @param spreadPips
+		 *            the spread in pips
+		 * @return this builder
+		 * @see BacktestRunner#getSpread(AssetPair)
+		 */
+		public Builder withSpreadPips(double spreadPips) {
+			if (!(spreadPips >= 0)) {
+				throw new IllegalArgumentException("spread must not be negative: " + spreadPips);
+			}
+			this.spreadPips = spreadPips;
+			return this;
+		}
+
+		public Builder withMaxQuantity(long maxQuantity) {
+			if (maxQuantity <= 0) {
+				throw new IllegalArgumentException("max quantity must be positive: " + maxQuantity);
+			}
+			this.maxQuantity = maxQuantity;
+			return this;
+		}
+
+		/**
+		 * Restricts the backtest to the given periods.
+		 * 
+		 * @param fromPeriod
+		 *            the first period, inclusive
+		 * @param toPeriod
+		 *            the last period, inclusive
+		 * @return this builder
+		 */
+		public Builder forPeriods(YearMonth fromPeriod, YearMonth toPeriod) {
+			Objects.requireNonNull(fromPeriod, "fromPeriod is null");
+			Objects.requireNonNull(toPeriod, "toPeriod is null");
+			if (fromPeriod.isAfter(toPeriod)) {
+				throw new IllegalArgumentException("fromPeriod " + fromPeriod + " is after toPeriod " + toPeriod);
+			}
+			this.fromPeriod = fromPeriod;
+			this.toPeriod = toPeriod;
+			return this;
+		}
+
+		public Builder withRiskLimits(RiskLimits riskLimits) {
+			this.riskLimits = Objects.requireNonNull(riskLimits, "riskLimits is null");
+			return this;
+		}
+
+		public Builder withValuationCurrency(Currency valuationCurrency) {
+			this.valuationCurrency = Objects.requireNonNull(valuationCurrency, "valuationCurrency is null");
+			return this;
+		}
+
+		public BacktestRunner build() {
+			return new BacktestRunner(this);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.flow.TickData;
+
+/**
+ * Generates paths by block bootstrap of historical ticks. Log returns of the
+ * mid price, relative spreads, volumes and time steps of the historical ticks
+ * are resampled in blocks of consecutive ticks drawn uniformly with
+ * replacement; blocks preserve short term dependencies such as volatility
+ * clustering and the co-movement of returns, spreads and volumes. Every path
+ * starts with the first historical tick.
+ * <p>
+ * The class is immutable and hence thread safe.
+ */
+public class BlockBootstrapGenerator implements PathGenerator {
+
+	private final AssetPair<?, ?> assetPair;
+	private final int blockLength;
+	private final int pathLength;
+	private final long startTime;
+	private final double startMid;
+	private final double startSpread;
+	private final long startBidVolume;
+	private final long startAskVolume;
+	//step i leads from historical tick i to tick i+1
+	private final double[] logReturns;
+	private final double[] relativeSpreads;
+	private final long[] bidVolumes;
+	private final long[] askVolumes;
+	private final long[] timeSteps;
+
+	/**
+	 * Constructor with historical ticks.
+	 * 
+	 * @param history
+	 *            the historical ticks to resample, at least blockLength+1 ticks
+	 * @param blockLength
+	 *            the number of consecutive ticks per block
+	 * @param pathLength
+	 *            the number of ticks per generated path
+	 */
+	public BlockBootstrapGenerator(TickData history, int blockLength, int pathLength) {
+		Objects.requireNonNull(history, "history is null");
+		if (blockLength <= 0) {
+			throw new IllegalArgumentException("block length must be positive: " + blockLength);
+		}
+		if (pathLength <= 0) {
+			throw new IllegalArgumentException("path length must be positive: " + pathLength);
+		}
+		if (history.size() <= blockLength) {
+			throw new IllegalArgumentException("history must have more than " + blockLength + " ticks but has " + history.size());
+		}
+		this.assetPair = history.getAssetPair();
+		this.blockLength = blockLength;
+		this.pathLength = pathLength;
+		final int steps = history.size() - 1;
+		this.logReturns = new double[steps];
+		this.relativeSpreads = new double[steps];
+		this.bidVolumes = new long[steps];
+		this.askVolumes = new long[steps];
+		this.timeSteps = new long[steps];
+		double mid = getMid(history, 0);
+		for (int i = 0; i < steps; i++) {
+			final double next = getMid(history, i + 1);
+			logReturns[i] = Math.log(next / mid);
+			relativeSpreads[i] = (history.getAsk(i + 1) - history.getBid(i + 1)) / next;
+			bidVolumes[i] = history.getBidVolume(i + 1);
+			askVolumes[i] = history.getAskVolume(i + 1);
+			timeSteps[i] = history.getTime(i + 1) - history.getTime(i);
+			mid = next;
+		}
+		this.startTime = history.getTime(0);
+		this.startMid = getMid(history, 0);
+		this.startSpread = history.getAsk(0) - history.getBid(0);
+		this.startBidVolume = history.getBidVolume(0);
+		this.startAskVolume = history.getAskVolume(0);
+	}
+
+	private static double getMid(TickData history, int index) {
+		return (history.getBid(index) + history.getAsk(index)) / 2;
+	}
+
+	@Override
+	public AssetPair<?, ?> getAssetPair() {
+		return assetPair;
+	}
+
+	@Override
+	public int getPathLength() {
+		return pathLength;
+	}
+
+	public int getBlockLength() {
+		return blockLength;
+	}
+
+	@Override
+	public TickData generate(String name, SplittableRandom random) {
+		final TickData.Builder builder = TickData.builder(assetPair, name);
+		builder.add(startTime, startMid - startSpread / 2, startMid + startSpread / 2, startBidVolume, startAskVolume);
+		final int blocks = logReturns.length - blockLength + 1;
+		long time = startTime;
+		double mid = startMid;
+		int blockStart = 0;
+		int offset = blockLength;
+		for (int tick = 1; tick < pathLength; tick++) {
+			if (offset == blockLength) {
+				blockStart = random.nextInt(blocks);
+				offset = 0;
+			}
+			final int step = blockStart + offset++;
+			time += timeSteps[step];
+			mid *= Math.exp(logReturns[step]);
+			final double halfSpread = mid * relativeSpreads[step] / 2;
+			builder.add(time, mid - halfSpread, mid + halfSpread, bidVolumes[step], askVolumes[step]);
+		}
+		return builder.build();
+	}
+}
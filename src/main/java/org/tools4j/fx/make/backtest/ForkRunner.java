@@ -0,0 +1,279 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.flow.TickData;
+import org.tools4j.fx.make.market.MakerState;
+import org.tools4j.fx.make.market.MarketMaker;
+import org.tools4j.fx.make.match.MatchingEngine;
+import org.tools4j.fx.make.match.MatchingEngine.MatchingState;
+import org.tools4j.fx.make.match.MatchingEngineImpl;
+import org.tools4j.fx.make.position.PositionKeeperImpl;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Runs what-if branches forking off a shared trunk, for instance to answer
+ * "what if the spread had been widened at 14:00". The ticks up to the fork
+ * point are matched only once by a trunk engine with the trunk maker. At the
+ * fork point the trunk maker's state is captured via
+ * {@link MarketMaker#snapshotState()} and restored into every branch maker,
+ * and every branch engine continues from a copy of the trunk engine's state,
+ * see {@link MatchingEngine.Builder#forkFrom(MatchingState)}. The branches
+ * then run in parallel over the ticks after the fork point only.
+ * <p>
+ * Branch makers hence start with the positions and market observations of
+ * the trunk maker and branch results cover the whole path: PnL, deal count
+ * and water marks include the trunk deals. Trunk and branch makers must
+ * support state snapshots.
+ * <p>
+ * The class is immutable and can be run multiple times.
+ */
+public class ForkRunner {
+
+	private final TickData tickData;
+	private final String party;
+	private final Branch trunk;
+	private final int forkIndex;
+	private final List<Branch> branches;
+	private final RiskLimits riskLimits;
+	private final Currency valuationCurrency;
+
+	private static final class Branch {
+		private final String name;
+		private final MakerFactory makerFactory;
+		private final double spread;
+		private final long maxQuantity;
+		Branch(String name, MakerFactory makerFactory, double spread, long maxQuantity) {
+			this.name = Objects.requireNonNull(name, "name is null");
+			this.makerFactory = Objects.requireNonNull(makerFactory, "makerFactory is null");
+			if (!(spread >= 0)) {
+				throw new IllegalArgumentException("spread must not be negative: " + spread);
+			}
+			if (maxQuantity <= 0) {
+				throw new IllegalArgumentException("max quantity must be positive: " + maxQuantity);
+			}
+			this.spread = spread;
+			this.maxQuantity = maxQuantity;
+		}
+		MarketMaker createMaker(RiskLimits riskLimits, AssetPair<?, ?> assetPair, String party) {
+			return makerFactory.create(new PositionKeeperImpl(riskLimits), assetPair, party, spread, maxQuantity);
+		}
+	}
+
+	private ForkRunner(Builder builder) {
+		this.tickData = builder.tickData;
+		this.party = builder.party;
+		this.trunk = builder.trunk;
+		this.forkIndex = builder.forkIndex;
+		this.branches = Collections.unmodifiableList(new ArrayList<>(builder.branches));
+		this.riskLimits = builder.riskLimits;
+		this.valuationCurrency = builder.valuationCurrency;
+		if (branches.isEmpty()) {
+			throw new IllegalArgumentException("at least one branch is required");
+		}
+		if (forkIndex < 0 | forkIndex >= tickData.size()) {
+			throw new IllegalArgumentException("fork index " + forkIndex + " is not in [0, " + tickData.size() + ")");
+		}
+	}
+
+	/**
+	 * Returns a builder for a fork runner.
+	 * 
+	 * @param tickData
+	 *            the ticks to match
+	 * @param party
+	 *            the party of the trunk and branch makers
+	 * @param trunkFactory
+	 *            the factory for the trunk maker
+	 * @param spread
+	 *            the spread of the trunk maker
+	 * @param maxQuantity
+	 *            the max quantity of the trunk maker
+	 * @return a new builder
+	 */
+	public static Builder builder(TickData tickData, String party, MakerFactory trunkFactory, double spread, long maxQuantity) {
+		return new Builder(tickData, party, new Branch(party, trunkFactory, spread, maxQuantity));
+	}
+
+	/**
+	 * Returns the index of the first tick matched by the branches.
+	 * 
+	 * @return the fork index
+	 */
+	public int getForkIndex() {
+		return forkIndex;
+	}
+
+	/**
+	 * Runs the trunk and then all branches in the common fork join pool.
+	 * 
+	 * @return the results in the order of the branches
+	 */
+	public List<SweepResult> run() {
+		return run(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs the trunk in the calling thread and then all branches in the given
+	 * pool, waiting for all branch results.
+	 * 
+	 * @param pool
+	 *            the pool to use for the branches
+	 * @return the results in the order of the branches
+	 */
+	public List<SweepResult> run(ForkJoinPool pool) {
+		Objects.requireNonNull(pool, "pool is null");
+		final AssetPair<?, ?> assetPair = tickData.getAssetPair();
+		MatchingState trunkState = null;
+		MakerState trunkMakerState = null;
+		if (forkIndex > 0) {
+			final MarketMaker trunkMaker = trunk.createMaker(riskLimits, assetPair, party);
+			//one round per tick, the fork point is right after the round of the last trunk tick
+			trunkState = MatchingEngineImpl.builder()//
+					.addOrderFlow(tickData.orderFlow(0, forkIndex))//
+					.addMarketMaker(trunkMaker)//
+					.build().matchFirst();
+			while (trunkState.getMatchIndex() < forkIndex - 1) {
+				trunkState = trunkState.matchNext();
+			}
+			trunkMakerState = trunkMaker.snapshotState();
+		}
+		//branch engines copy the trunk state on this thread
+		final List<Callable<SweepResult>> tasks = new ArrayList<>(branches.size());
+		for (final Branch branch : branches) {
+			final MarketMaker maker = branch.createMaker(riskLimits, assetPair, party);
+			if (trunkMakerState != null) {
+				maker.restoreState(trunkMakerState);
+			}
+			final MatchingEngine engine = MatchingEngineImpl.builder()//
+					.addOrderFlow(tickData.orderFlow(forkIndex, tickData.size()))//
+					.addMarketMaker(maker)//
+					.forkFrom(trunkState)//
+					.build();
+			tasks.add(() -> SweepRunner.toResult(engine.matchAll(), party, branch.name, assetPair, branch.spread, branch.maxQuantity, valuationCurrency));
+		}
+		final List<SweepResult> results = new ArrayList<>(tasks.size());
+		for (final Future<SweepResult> future : pool.invokeAll(tasks)) {
+			try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("interrupted while waiting for branch results of " + tickData, e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("branch failed for " + tickData + ", e=" + e.getCause(), e.getCause());
+			}
+		}
+		return results;
+	}
+
+	public static final class Builder {
+		private final TickData tickData;
+		private final String party;
+		private final Branch trunk;
+		private final List<Branch> branches = new ArrayList<>();
+		private int forkIndex;
+		private RiskLimits riskLimits = RiskLimits.UNLIMITED;
+		private Currency valuationCurrency = Currency.USD;
+
+		private Builder(TickData tickData, String party, Branch trunk) {
+			this.tickData = Objects.requireNonNull(tickData, "tickData is null");
+			this.party = Objects.requireNonNull(party, "party is null");
+			this.trunk = Objects.requireNonNull(trunk, "trunk is null");
+			if (party.equals(tickData.getName())) {
+				throw new IllegalArgumentException("party must differ from tick data name: " + party);
+			}
+		}
+
+		/**
+		 * Sets the fork point to the first tick at or after the given time.
+		 * 
+		 * @param time
+		 *            the fork time in milliseconds since the epoch
+		 * @return this builder
+		 */
+		public Builder forkAt(long time) {
+			return forkAtIndex(tickData.indexOf(time));
+		}
+
+		/**
+		 * Sets the fork point to the given tick index; the trunk matches the
+		 * ticks before this index.
+		 * 
+		 * @param forkIndex
+		 *            the index of the first tick matched by the branches
+		 * @return this builder
+		 */
+		public Builder forkAtIndex(int forkIndex) {
+			if (forkIndex < 0 | forkIndex >= tickData.size()) {
+				throw new IllegalArgumentException("fork index " + forkIndex + " is not in [0, " + tickData.size() + ")");
+			}
+			this.forkIndex = forkIndex;
+			return this;
+		}
+
+		/**
+		 * Adds a branch continuing after the fork point with a maker created
+		 * by the given factory.
+		 * 
+		 * @param name
+		 *            the branch name used in the result
+		 * @param makerFactory
+		 *            the factory for the branch maker
+		 * @param spread
+		 *            the spread of the branch maker
+		 * @param maxQuantity
+		 *            the max quantity of the branch maker
+		 * @return this builder
+		 */
+		public Builder addBranch(String name, MakerFactory makerFactory, double spread, long maxQuantity) {
+			branches.add(new Branch(name, makerFactory, spread, maxQuantity));
+			return this;
+		}
+
+		public Builder withRiskLimits(RiskLimits riskLimits) {
+			this.riskLimits = Objects.requireNonNull(riskLimits, "riskLimits is null");
+			return this;
+		}
+
+		public Builder withValuationCurrency(Currency valuationCurrency) {
+			this.valuationCurrency = Objects.requireNonNull(valuationCurrency, "valuationCurrency is null");
+			return this;
+		}
+
+		public ForkRunner build() {
+			return new ForkRunner(this);
+		}
+	}
+}
@@ -0,0 +1,360 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.flow.TickData;
+
+/**
+ * Generates paths with ticks at a fixed interval whose mid price follows a
+ * geometric Brownian motion with optional normally distributed jumps arriving
+ * as a Poisson process (Merton jump diffusion). Bid and ask are at a constant
+ * relative spread around the mid; bid and ask volumes are constant.
+ * <p>
+ * Drift, volatility and jump intensity are per second; jump mean and standard
+ * deviation refer to the log return of a jump. Parameters can be set with a
+ * {@link #builder(AssetPair) builder} or {@link #calibrate(TickData, int)
+ * calibrated} from historical ticks.
+ * <p>
+ * The class is immutable and hence thread safe.
+ */
+public class JumpDiffusionGenerator implements PathGenerator {
+
+	/** Returns beyond this many standard deviations are considered jumps when calibrating */
+	public static final double JUMP_THRESHOLD = 4;
+
+	private final AssetPair<?, ?> assetPair;
+	private final int pathLength;
+	private final long startTime;
+	private final long tickIntervalMillis;
+	private final double startMid;
+	private final double drift;
+	private final double volatility;
+	private final double jumpIntensity;
+	private final double jumpMean;
+	private final double jumpStdDev;
+	private final double relativeSpread;
+	private final long bidVolume;
+	private final long askVolume;
+
+	private JumpDiffusionGenerator(Builder builder) {
+		this.assetPair = builder.assetPair;
+		this.pathLength = builder.pathLength;
+		this.startTime = builder.startTime;
+		this.tickIntervalMillis = builder.tickIntervalMillis;
+		this.startMid = builder.startMid;
+		this.drift = builder.drift;
+		this.volatility = builder.volatility;
+		this.jumpIntensity = builder.jumpIntensity;
+		this.jumpMean = builder.jumpMean;
+		this.jumpStdDev = builder.jumpStdDev;
+		this.relativeSpread = builder.relativeSpread;
+		this.bidVolume = builder.bidVolume;
+		this.askVolume = builder.askVolume;
+		if (!(startMid > 0)) {
+			throw new IllegalArgumentException("start mid must be positive: " + startMid);
+		}
+	}
+
+	public static Builder builder(AssetPair<?, ?> assetPair) {
+		return new Builder(assetPair);
+	}
+
+	/**
+	 * Calibrates drift, volatility and jumps from the log returns of the mid
+	 * price of historical ticks, and tick interval, spread and volumes from
+	 * their averages. Returns further than {@link #JUMP_THRESHOLD} standard
+	 * deviations from the mean are treated as jumps; drift and volatility
+	 * are estimated from the remaining returns. Paths start with the first
+	 * historical tick.
+	 * 
+	 * @param history
+	 *            the historical ticks, for instance loaded from a file
+	 * @param pathLength
+	 *            the number of ticks per generated path
+	 * @return a generator builder with calibrated parameters
+	 */
+	public static Builder calibrate(TickData history, int pathLength) {
+		Objects.requireNonNull(history, "history is null");
+		final int steps = history.size() - 1;
+		if (steps < 2) {
+			throw new IllegalArgumentException("at least 3 ticks are required for calibration but found " + history.size());
+		}
+		final double seconds = (history.getTime(steps) - history.getTime(0)) / 1000.0;
+		if (!(seconds > 0)) {
+			throw new IllegalArgumentException("historical ticks must span a positive time interval: " + history);
+		}
+		final double dt = seconds / steps;
+		//all returns
+		double sum = 0;
+		double sumSq = 0;
+		double spreadSum = 0;
+		double bidVolumeSum = 0;
+		double askVolumeSum = 0;
+		for (int i = 0; i < steps; i++) {
+			final double r = logReturn(history, i);
+			sum += r;
+			sumSq += r * r;
+		}
+		for (int i = 0; i <= steps; i++) {
+			spreadSum += (history.getAsk(i) - history.getBid(i)) / mid(history, i);
+			bidVolumeSum += history.getBidVolume(i);
+			askVolumeSum += history.getAskVolume(i);
+		}
+		final double mean = sum / steps;
+		final double threshold = JUMP_THRESHOLD * Math.sqrt(Math.max(0, sumSq / steps - mean * mean));
+		//split diffusion and jump returns
+		int jumps = 0;
+		double jumpSum = 0;
+		double jumpSumSq = 0;
+		double diffusionSum = 0;
+		double diffusionSumSq = 0;
+		for (int i = 0; i < steps; i++) {
+			final double r = logReturn(history, i);
+			if (Math.abs(r - mean) > threshold & threshold > 0) {
+				jumps++;
+				jumpSum += r;
+				jumpSumSq += r * r;
+			} else {
+				diffusionSum += r;
+				diffusionSumSq += r * r;
+			}
+		}
+		final int diffusions = steps - jumps;
+		final double diffusionMean = diffusionSum / diffusions;
+		final double variance = Math.max(0, diffusionSumSq / diffusions - diffusionMean * diffusionMean);
+		final double jumpMean = jumps == 0 ? 0 : jumpSum / jumps;
+		final double jumpVariance = jumps == 0 ? 0 : Math.max(0, jumpSumSq / jumps - jumpMean * jumpMean);
+		return builder(history.getAssetPair())//
+				.withPathLength(pathLength)//
+				.withStart(history.getTime(0), mid(history, 0))//
+				.withTickInterval(Math.max(1, Math.round(dt * 1000)))//
+				.withDiffusion(diffusionMean / dt + variance / dt / 2, Math.sqrt(variance / dt))//
+				.withJumps(jumps / seconds, jumpMean, Math.sqrt(jumpVariance))//
+				.withRelativeSpread(spreadSum / (steps + 1))//
+				.withVolumes(Math.max(1, Math.round(bidVolumeSum / (steps + 1))), Math.max(1, Math.round(askVolumeSum / (steps + 1))));
+	}
+
+	private static double mid(TickData ticks, int index) {
+		return (ticks.getBid(index) + ticks.getAsk(index)) / 2;
+	}
+
+	private static double logReturn(TickData ticks, int index) {
+		return Math.log(mid(ticks, index + 1) / mid(ticks, index));
+	}
+
+	@Override
+	public AssetPair<?, ?> getAssetPair() {
+		return assetPair;
+	}
+
+	@Override
+	public int getPathLength() {
+		return pathLength;
+	}
+
+	public long getTickIntervalMillis() {
+		return tickIntervalMillis;
+	}
+
+	public double getDrift() {
+		return drift;
+	}
+
+	public double getVolatility() {
+		return volatility;
+	}
+
+	public double getJumpIntensity() {
+		return jumpIntensity;
+	}
+
+	public double getJumpMean() {
+		return jumpMean;
+	}
+
+	public double getJumpStdDev() {
+		return jumpStdDev;
+	}
+
+	public double getRelativeSpread() {
+		return relativeSpread;
+	}
+
+	@Override
+	public TickData generate(String name, SplittableRandom random) {
+		final TickData.Builder builder = TickData.builder(assetPair, name);
+		final double dt = tickIntervalMillis / 1000.0;
+		final double diffusionDrift = (drift - volatility * volatility / 2) * dt;
+		final double diffusionScale = volatility * Math.sqrt(dt);
+		final double jumpProbability = jumpIntensity * dt;
+		final double halfSpread = relativeSpread / 2;
+		double mid = startMid;
+		for (int tick = 0; tick < pathLength; tick++) {
+			if (tick > 0) {
+				double r = diffusionDrift + diffusionScale * nextGaussian(random);
+				if (jumpProbability > 0 && random.nextDouble() < jumpProbability) {
+					r += jumpMean + jumpStdDev * nextGaussian(random);
+				}
+				mid *= Math.exp(r);
+			}
+			builder.add(startTime + tick * tickIntervalMillis, mid * (1 - halfSpread), mid * (1 + halfSpread), bidVolume, askVolume);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Standard normal variate using the polar method.
+	 */
+	static double nextGaussian(SplittableRandom random) {
+		double u, v, s;
+		do {
+			u = 2 * random.nextDouble() - 1;
+			v = 2 * random.nextDouble() - 1;
+			s = u * u + v * v;
+		} while (s >= 1 || s == 0);
+		return u * Math.sqrt(-2 * Math.log(s) / s);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{" + assetPair + ", pathLength=" + pathLength + ", tickInterval=" + tickIntervalMillis + "ms, drift=" + drift + ", volatility=" + volatility + ", jumpIntensity=" + jumpIntensity + ", jumpMean=" + jumpMean + ", jumpStdDev=" + jumpStdDev + ", relativeSpread=" + relativeSpread + "}";
+	}
+
+	public static final class Builder {
+		private final AssetPair<?, ?> assetPair;
+		private int pathLength = 1000;
+		private long startTime;
+		private long tickIntervalMillis = 1000;
+		private double startMid = 1;
+		private double drift;
+		private double volatility;
+		private double jumpIntensity;
+		private double jumpMean;
+		private double jumpStdDev;
+		private double relativeSpread;
+		private long bidVolume = 1000000;
+		private long askVolume = 1000000;
+
+		private Builder(AssetPair<?, ?> assetPair) {
+			this.assetPair = Objects.requireNonNull(assetPair, "assetPair is null");
+		}
+
+		public Builder withPathLength(int pathLength) {
+			if (pathLength <= 0) {
+				throw new IllegalArgumentException("path length must be positive: " + pathLength);
+			}
+			this.pathLength = pathLength;
+			return this;
+		}
+
+		public Builder withStart(long startTime, double startMid) {
+			if (!(startMid > 0)) {
+				throw new IllegalArgumentException("start mid must be positive: " + startMid);
+			}
+			this.startTime = startTime;
+			this.startMid = startMid;
+			return this;
+		}
+
+		public Builder withTickInterval(long tickIntervalMillis) {
+			if (tickIntervalMillis <= 0) {
+				throw new IllegalArgumentException("tick interval must be positive: " + tickIntervalMillis);
+			}
+			this.tickIntervalMillis = tickIntervalMillis;
+			return this;
+		}
+
+		/**
+		 * Sets drift and volatility of the diffusion, both per second.
+		 * 
+		 * @param drift
+		 *            the drift per second
+		 * @param volatility
+		 *            the volatility per square root of a second
+		 * @return this builder
+		 */
+		public Builder withDiffusion(double drift, double volatility) {
+			if (!(volatility >= 0)) {
+				throw new IllegalArgumentException("volatility must not be negative: " + volatility);
+			}
+			this.drift = drift;
+			this.volatility = volatility;
+			return this;
+		}
+
+		/**
+		 * Sets the jump parameters, zero intensity for no jumps.
+		 * 
+		 * @param intensity
+		 *            the expected number of jumps per second
+		 * @param mean
+		 *            the mean log return of a jump
+		 * @param stdDev
+		 *            the standard deviation of the log return of a jump
+		 * @return this builder
+		 */
+		public Builder withJumps(double intensity, double mean, double stdDev) {
+			if (!(intensity >= 0) | !(stdDev >= 0)) {
+				throw new IllegalArgumentException("jump intensity and standard deviation must not be negative: intensity=" + intensity + ", stdDev=" + stdDev);
+			}
+			this.jumpIntensity = intensity;
+			this.jumpMean = mean;
+			this.jumpStdDev = stdDev;
+			return this;
+		}
+
+		/**
+		 * Sets the spread relative to the mid price, for instance 0.0002 for
+		 * a spread of 2 basis points.
+		 * 
+		 * @param relativeSpread
+		 *            the spread divided by the mid price
+		 * @return this builder
+		 */
+		public Builder withRelativeSpread(double relativeSpread) {
+			if (!(relativeSpread >= 0)) {
+				throw new IllegalArgumentException("relative spread must not be negative: " + relativeSpread);
+			}
+			this.relativeSpread = relativeSpread;
+			return this;
+		}
+
+		public Builder withVolumes(long bidVolume, long askVolume) {
+			if (bidVolume <= 0 | askVolume <= 0) {
+				throw new IllegalArgumentException("volumes must be positive: bidVolume=" + bidVolume + ", askVolume=" + askVolume);
+			}
+			this.bidVolume = bidVolume;
+			this.askVolume = askVolume;
+			return this;
+		}
+
+		public JumpDiffusionGenerator build() {
+			return new JumpDiffusionGenerator(this);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.market.MarketMaker;
+import org.tools4j.fx.make.position.PositionKeeper;
+
+/**
+ * Factory for market makers of one type with varying parameters. The
+ * constructors of the standard market makers can be used as factories, for
+ * instance {@code MidMarketMaker::new}.
+ */
+@FunctionalInterface
+public interface MakerFactory {
+	/**
+	 * Creates a new market maker.
+	 * 
+	 * @param positionKeeper
+	 *            the position keeper for the new maker
+	 * @param assetPair
+	 *            the asset pair to quote
+	 * @param party
+	 *            the party of the maker
+	 * @param spread
+	 *            the spread to quote
+	 * @param maxQuantity
+	 *            the maximum quantity to quote
+	 * @return a new market maker
+	 */
+	MarketMaker create(PositionKeeper positionKeeper, AssetPair<?, ?> assetPair, String party, double spread, long maxQuantity);
+}
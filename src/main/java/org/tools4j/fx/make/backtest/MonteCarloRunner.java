@@ -0,0 +1,200 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.flow.TickData;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Runs one maker configuration against many synthetic paths from a
+ * {@link PathGenerator} and returns the {@link PnlStatistics} over all paths.
+ * Every path is generated and matched by an independent engine in a task of a
+ * work-stealing {@link ForkJoinPool}; no state is shared between tasks except
+ * for the immutable generator.
+ * <p>
+ * Every path draws from its own random split off a root random with the
+ * configured seed before the tasks are started; results are hence
+ * reproducible independent of the number of threads.
+ * <p>
+ * The class is immutable and can be run multiple times.
+ */
+public class MonteCarloRunner {
+
+	private final PathGenerator pathGenerator;
+	private final String makerName;
+	private final MakerFactory makerFactory;
+	private final double spread;
+	private final long maxQuantity;
+	private final int paths;
+	private final long seed;
+	private final RiskLimits riskLimits;
+	private final Currency valuationCurrency;
+
+	private MonteCarloRunner(Builder builder) {
+		this.pathGenerator = builder.pathGenerator;
+		this.makerName = builder.makerName;
+		this.makerFactory = builder.makerFactory;
+		this.spread = builder.spread;
+		this.maxQuantity = builder.maxQuantity;
+		this.paths = builder.paths;
+		this.seed = builder.seed;
+		this.riskLimits = builder.riskLimits;
+		this.valuationCurrency = builder.valuationCurrency;
+	}
+
+	/**
+	 * Returns a builder for a Monte Carlo runner.
+	 * 
+	 * @param pathGenerator
+	 *            the generator of the paths
+	 * @param makerName
+	 *            the name of the maker, used as its party
+	 * @param makerFactory
+	 *            the factory for the maker
+	 * @param spread
+	 *            the spread of the maker
+	 * @param maxQuantity
+	 *            the max quantity of the maker
+	 * @return a new builder
+	 */
+	public static Builder builder(PathGenerator pathGenerator, String makerName, MakerFactory makerFactory, double spread, long maxQuantity) {
+		return new Builder(pathGenerator, makerName, makerFactory, spread, maxQuantity);
+	}
+
+	public int getPathCount() {
+		return paths;
+	}
+
+	/**
+	 * Runs all paths in the common fork join pool.
+	 * 
+	 * @return the PnL statistics over all paths
+	 */
+	public PnlStatistics run() {
+		return run(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs all paths in the given pool and waits for all of them to complete.
+	 * 
+	 * @param pool
+	 *            the pool to use
+	 * @return the PnL statistics over all paths
+	 */
+	public PnlStatistics run(ForkJoinPool pool) {
+		Objects.requireNonNull(pool, "pool is null");
+		final double[] pnls = new double[paths];
+		final long[] dealCounts = new long[paths];
+		final SplittableRandom root = new SplittableRandom(seed);
+		final List<Callable<Void>> tasks = new ArrayList<>(paths);
+		for (int i = 0; i < paths; i++) {
+			final int path = i;
+			final SplittableRandom random = root.split();
+			tasks.add(() -> {
+				final TickData tickData = pathGenerator.generate("path[" + path + "]", random);
+				final SweepResult result = SweepRunner.run(tickData, makerName, makerFactory, spread, maxQuantity, riskLimits, valuationCurrency);
+				pnls[path] = result.getPnl();
+				dealCounts[path] = result.getDealCount();
+				return null;
+			});
+		}
+		for (final Future<Void> future : pool.invokeAll(tasks)) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("interrupted while waiting for monte carlo paths", e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("monte carlo path failed, e=" + e.getCause(), e.getCause());
+			}
+		}
+		return new PnlStatistics(valuationCurrency, pnls, dealCounts);
+	}
+
+	public static final class Builder {
+		private final PathGenerator pathGenerator;
+		private final String makerName;
+		private final MakerFactory makerFactory;
+		private final double spread;
+		private final long maxQuantity;
+		private int paths = 1000;
+		private long seed = 42;
+		private RiskLimits riskLimits = RiskLimits.UNLIMITED;
+		private Currency valuationCurrency = Currency.USD;
+
+		private Builder(PathGenerator pathGenerator, String makerName, MakerFactory makerFactory, double spread, long maxQuantity) {
+			this.pathGenerator = Objects.requireNonNull(pathGenerator, "pathGenerator is null");
+			this.makerName = Objects.requireNonNull(makerName, "makerName is null");
+			this.makerFactory = Objects.requireNonNull(makerFactory, "makerFactory is null");
+			if (!(spread >= 0)) {
+				throw new IllegalArgumentException("spread must not be negative: " + spread);
+			}
+			if (maxQuantity <= 0) {
+				throw new IllegalArgumentException("max quantity must be positive: " + maxQuantity);
+			}
+			if (makerName.startsWith("path[")) {
+				throw new IllegalArgumentException("maker name must differ from path names: " + makerName);
+			}
+			this.spread = spread;
+			this.maxQuantity = maxQuantity;
+		}
+
+		public Builder withPaths(int paths) {
+			if (paths <= 0) {
+				throw new IllegalArgumentException("number of paths must be positive: " + paths);
+			}
+			this.paths = paths;
+			return this;
+		}
+
+		public Builder withSeed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		public Builder withRiskLimits(RiskLimits riskLimits) {
+			this.riskLimits = Objects.requireNonNull(riskLimits, "riskLimits is null");
+			return this;
+		}
+
+		public Builder withValuationCurrency(Currency valuationCurrency) {
+			this.valuationCurrency = Objects.requireNonNull(valuationCurrency, "valuationCurrency is null");
+			return this;
+		}
+
+		public MonteCarloRunner build() {
+			return new MonteCarloRunner(this);
+		}
+	}
+}
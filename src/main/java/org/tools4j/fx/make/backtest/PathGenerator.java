@@ -0,0 +1,63 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.util.SplittableRandom;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.flow.TickData;
+
+/**
+ * Generator of synthetic tick paths for Monte Carlo simulations. A path is
+ * fully determined by the random passed to {@link #generate(String, SplittableRandom)},
+ * hence paths can be generated in parallel and reproduced from their seeds.
+ * <p>
+ * Implementations must be thread safe; they are usually immutable.
+ */
+public interface PathGenerator {
+	/**
+	 * Returns the asset pair of the generated ticks.
+	 * 
+	 * @return the asset pair of the paths
+	 */
+	AssetPair<?, ?> getAssetPair();
+
+	/**
+	 * Returns the number of ticks of every generated path.
+	 * 
+	 * @return the path length in ticks
+	 */
+	int getPathLength();
+
+	/**
+	 * Generates a new path.
+	 * 
+	 * @param name
+	 *            the name of the tick data, used as party of replayed orders
+	 * @param random
+	 *            the random source for this path, used by the calling thread only
+	 * @return the ticks of the generated path
+	 */
+	TickData generate(String name, SplittableRandom random);
+}
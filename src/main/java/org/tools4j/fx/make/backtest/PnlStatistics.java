@@ -0,0 +1,189 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.util.StringUtil;
+
+/**
+ * Distribution statistics of the PnL over many simulated paths, as produced
+ * by a {@link MonteCarloRunner}.
+ * <p>
+ * The class is immutable.
+ */
+public final class PnlStatistics {
+
+	private final Currency valuationCurrency;
+	private final double[] sortedPnls;
+	private final double mean;
+	private final double standardDeviation;
+	private final double meanDealCount;
+
+	/**
+	 * Constructor with PnL and deal count per path; the arrays are copied.
+	 * 
+	 * @param valuationCurrency
+	 *            the currency of the PnL values
+	 * @param pnls
+	 *            the PnL of every path
+	 * @param dealCounts
+	 *            the deal count of every path
+	 */
+	public PnlStatistics(Currency valuationCurrency, double[] pnls, long[] dealCounts) {
+		this.valuationCurrency = Objects.requireNonNull(valuationCurrency, "valuationCurrency is null");
+		if (pnls.length == 0 | pnls.length != dealCounts.length) {
+			throw new IllegalArgumentException("expected equal non-zero number of pnls and deal counts but found " + pnls.length + " and " + dealCounts.length);
+		}
+		this.sortedPnls = pnls.clone();
+		Arrays.sort(sortedPnls);
+		double sum = 0;
+		long deals = 0;
+		for (int i = 0; i < pnls.length; i++) {
+			sum += pnls[i];
+			deals += dealCounts[i];
+		}
+		this.mean = sum / pnls.length;
+		double sumSq = 0;
+		for (final double pnl : pnls) {
+			sumSq += (pnl - mean) * (pnl - mean);
+		}
+		this.standardDeviation = pnls.length > 1 ? Math.sqrt(sumSq / (pnls.length - 1)) : 0;
+		this.meanDealCount = ((double) deals) / pnls.length;
+	}
+
+	public Currency getValuationCurrency() {
+		return valuationCurrency;
+	}
+
+	public int getPathCount() {
+		return sortedPnls.length;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * Returns the sample standard deviation, zero for a single path.
+	 * 
+	 * @return the standard deviation of the PnL
+	 */
+	public double getStandardDeviation() {
+		return standardDeviation;
+	}
+
+	public double getMin() {
+		return sortedPnls[0];
+	}
+
+	public double getMax() {
+		return sortedPnls[sortedPnls.length - 1];
+	}
+
+	public double getMeanDealCount() {
+		return meanDealCount;
+	}
+
+	/**
+	 * Returns the given percentile, linearly interpolated between the closest
+	 * ranks.
+	 * 
+	 * @param percentile
+	 *            the percentile in [0, 100]
+	 * @return the PnL at the given percentile
+	 */
+	public double getPercentile(double percentile) {
+		if (!(percentile >= 0 & percentile <= 100)) {
+			throw new IllegalArgumentException("percentile must be in [0, 100]: " + percentile);
+		}
+		final double rank = percentile / 100 * (sortedPnls.length - 1);
+		final int lower = (int) rank;
+		if (lower == sortedPnls.length - 1) {
+			return sortedPnls[lower];
+		}
+		return sortedPnls[lower] + (rank - lower) * (sortedPnls[lower + 1] - sortedPnls[lower]);
+	}
+
+	public double getMedian() {
+		return getPercentile(50);
+	}
+
+	/**
+	 * Returns the value at risk as a positive loss, that is, the negated
+	 * PnL percentile at 1 - confidence.
+	 * 
+	 * @param confidence
+	 *            the confidence level, for instance 0.95
+	 * @return the value at risk, positive for a loss
+	 */
+	public double getValueAtRisk(double confidence) {
+		checkConfidence(confidence);
+		return -getPercentile(100 * (1 - confidence));
+	}
+
+	/**
+	 * Returns the expected shortfall as a positive loss, that is, the negated
+	 * average PnL of the worst 1 - confidence paths, at least of one path.
+	 * 
+	 * @param confidence
+	 *            the confidence level, for instance 0.95
+	 * @return the expected shortfall, positive for a loss
+	 */
+	public double getExpectedShortfall(double confidence) {
+		checkConfidence(confidence);
+		final int tail = Math.max(1, (int) Math.floor((1 - confidence) * sortedPnls.length));
+		double sum = 0;
+		for (int i = 0; i < tail; i++) {
+			sum += sortedPnls[i];
+		}
+		return -sum / tail;
+	}
+
+	/**
+	 * Returns the fraction of paths with a negative PnL.
+	 * 
+	 * @return the probability of a loss in [0, 1]
+	 */
+	public double getProbabilityOfLoss() {
+		int losses = 0;
+		while (losses < sortedPnls.length && sortedPnls[losses] < 0) {
+			losses++;
+		}
+		return ((double) losses) / sortedPnls.length;
+	}
+
+	private static void checkConfidence(double confidence) {
+		if (!(confidence > 0 & confidence < 1)) {
+			throw new IllegalArgumentException("confidence must be in (0, 1): " + confidence);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{paths=" + getPathCount() + ", pnl[" + valuationCurrency + "]: mean=" + StringUtil.formatQuantity((long) mean) + ", stdDev=" + StringUtil.formatQuantity((long) standardDeviation) + ", min=" + StringUtil.formatQuantity((long) getMin()) + ", median=" + StringUtil.formatQuantity((long) getMedian()) + ", max=" + StringUtil.formatQuantity((long) getMax()) + ", VaR95=" + StringUtil.formatQuantity((long) getValueAtRisk(0.95)) + ", ES95=" + StringUtil.formatQuantity((long) getExpectedShortfall(0.95)) + ", P(loss)=" + getProbabilityOfLoss() + ", deals=" + meanDealCount + "}";
+	}
+}
@@ -0,0 +1,193 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.util.StringUtil;
+
+/**
+ * Table with one row per asset pair and one column per period, as produced by
+ * {@link BacktestResults}. Cells without a result are NaN. Row, column and
+ * overall totals are computed with the table's {@link Aggregation} and ignore
+ * missing cells.
+ * <p>
+ * The class is immutable.
+ */
+public final class ResultTable {
+
+	/**
+	 * Aggregation used to compute totals.
+	 */
+	public static enum Aggregation {
+		SUM {
+			@Override
+			double apply(double total, double value) {
+				return total + value;
+			}
+		},
+		MAX {
+			@Override
+			double apply(double total, double value) {
+				return Math.max(total, value);
+			}
+		},
+		MIN {
+			@Override
+			double apply(double total, double value) {
+				return Math.min(total, value);
+			}
+		};
+		abstract double apply(double total, double value);
+	}
+
+	private final String name;
+	private final Aggregation aggregation;
+	private final List<AssetPair<?, ?>> rows;
+	private final List<YearMonth> columns;
+	private final double[] values;
+
+	ResultTable(String name, Aggregation aggregation, List<AssetPair<?, ?>> rows, List<YearMonth> columns, double[] values) {
+		this.name = Objects.requireNonNull(name, "name is null");
+		this.aggregation = Objects.requireNonNull(aggregation, "aggregation is null");
+		this.rows = Collections.unmodifiableList(rows);
+		this.columns = Collections.unmodifiableList(columns);
+		this.values = values;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Aggregation getAggregation() {
+		return aggregation;
+	}
+
+	public List<AssetPair<?, ?>> getRows() {
+		return rows;
+	}
+
+	public List<YearMonth> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Returns the value for the given pair and period.
+	 * 
+	 * @param row
+	 *            the asset pair
+	 * @param column
+	 *            the period
+	 * @return the value, or NaN if there is no result for this cell
+	 * @throws IllegalArgumentException
+	 *             if the row or column is not part of this table
+	 */
+	public double getValue(AssetPair<?, ?> row, YearMonth column) {
+		return values[rowIndex(row) * columns.size() + columnIndex(column)];
+	}
+
+	public double getRowTotal(AssetPair<?, ?> row) {
+		final int r = rowIndex(row);
+		double total = Double.NaN;
+		for (int c = 0; c < columns.size(); c++) {
+			total = aggregate(total, values[r * columns.size() + c]);
+		}
+		return total;
+	}
+
+	public double getColumnTotal(YearMonth column) {
+		final int c = columnIndex(column);
+		double total = Double.NaN;
+		for (int r = 0; r < rows.size(); r++) {
+			total = aggregate(total, values[r * columns.size() + c]);
+		}
+		return total;
+	}
+
+	public double getTotal() {
+		double total = Double.NaN;
+		for (final double value : values) {
+			total = aggregate(total, value);
+		}
+		return total;
+	}
+
+	private double aggregate(double total, double value) {
+		if (Double.isNaN(value)) {
+			return total;
+		}
+		return Double.isNaN(total) ? value : aggregation.apply(total, value);
+	}
+
+	private int rowIndex(AssetPair<?, ?> row) {
+		final int index = rows.indexOf(Objects.requireNonNull(row, "row is null"));
+		if (index < 0) {
+			throw new IllegalArgumentException("no such row in " + name + " table: " + row);
+		}
+		return index;
+	}
+
+	private int columnIndex(YearMonth column) {
+		final int index = columns.indexOf(Objects.requireNonNull(column, "column is null"));
+		if (index < 0) {
+			throw new IllegalArgumentException("no such column in " + name + " table: " + column);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the table formatted with tab separated columns, a header line
+	 * and a total column and row.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(name);
+		for (final YearMonth column : columns) {
+			sb.append('\t').append(column);
+		}
+		sb.append("\ttotal\n");
+		for (final AssetPair<?, ?> row : rows) {
+			sb.append(row);
+			for (final YearMonth column : columns) {
+				sb.append('\t').append(format(getValue(row, column)));
+			}
+			sb.append('\t').append(format(getRowTotal(row))).append('\n');
+		}
+		sb.append("total");
+		for (final YearMonth column : columns) {
+			sb.append('\t').append(format(getColumnTotal(column)));
+		}
+		sb.append('\t').append(format(getTotal())).append('\n');
+		return sb.toString();
+	}
+
+	private static String format(double value) {
+		return Double.isNaN(value) ? "" : StringUtil.formatQuantity((long) value);
+	}
+}
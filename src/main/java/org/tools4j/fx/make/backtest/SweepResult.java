@@ -0,0 +1,147 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.util.StringUtil;
+
+/**
+ * Result of a single configuration run by a {@link SweepRunner}.
+ * <p>
+ * The class is immutable.
+ */
+public final class SweepResult {
+
+	private final String maker;
+	private final double spread;
+	private final long maxQuantity;
+	private final Currency valuationCurrency;
+	private final double pnl;
+	private final long dealCount;
+	private final double highWaterMark;
+	private final double lowWaterMark;
+	private final long matchRounds;
+
+	public SweepResult(String maker, double spread, long maxQuantity, Currency valuationCurrency, double pnl, long dealCount, double highWaterMark, double lowWaterMark, long matchRounds) {
+		this.maker = Objects.requireNonNull(maker, "maker is null");
+		this.spread = spread;
+		this.maxQuantity = maxQuantity;
+		this.valuationCurrency = Objects.requireNonNull(valuationCurrency, "valuationCurrency is null");
+		this.pnl = pnl;
+		this.dealCount = dealCount;
+		this.highWaterMark = highWaterMark;
+		this.lowWaterMark = lowWaterMark;
+		this.matchRounds = matchRounds;
+	}
+
+	/**
+	 * The name of the maker type as registered with the sweep runner.
+	 * 
+	 * @return the maker name
+	 */
+	public String getMaker() {
+		return maker;
+	}
+
+	public double getSpread() {
+		return spread;
+	}
+
+	public long getMaxQuantity() {
+		return maxQuantity;
+	}
+
+	public Currency getValuationCurrency() {
+		return valuationCurrency;
+	}
+
+	/**
+	 * The value of the maker's positions at the end of the run in
+	 * {@link #getValuationCurrency() valuation currency}; since makers start
+	 * flat this is the PnL of the run.
+	 * 
+	 * @return the PnL of the maker
+	 */
+	public double getPnl() {
+		return pnl;
+	}
+
+	public long getDealCount() {
+		return dealCount;
+	}
+
+	/**
+	 * The highest position reached in the base asset of the swept pair.
+	 * 
+	 * @return the high water mark of the base asset position
+	 */
+	public double getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	/**
+	 * The lowest position reached in the base asset of the swept pair.
+	 * 
+	 * @return the low water mark of the base asset position
+	 */
+	public double getLowWaterMark() {
+		return lowWaterMark;
+	}
+
+	public long getMatchRounds() {
+		return matchRounds;
+	}
+
+	/**
+	 * Formats the given results as a tab separated table with a header line
+	 * and one line per result.
+	 * 
+	 * @param results
+	 *            the results to format
+	 * @return the results table
+	 */
+	public static String toTable(List<? extends SweepResult> results) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("maker\tspread\tmaxQuantity\tpnl\tdeals\thigh\tlow\n");
+		for (final SweepResult result : results) {
+			sb.append(result.maker);
+			sb.append('\t').append(StringUtil.formatPrice(result.spread));
+			sb.append('\t').append(StringUtil.formatQuantity(result.maxQuantity));
+			sb.append('\t').append(StringUtil.formatQuantity((long) result.pnl));
+			sb.append('\t').append(result.dealCount);
+			sb.append('\t').append(StringUtil.formatQuantity((long) result.highWaterMark));
+			sb.append('\t').append(StringUtil.formatQuantity((long) result.lowWaterMark));
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{maker=" + maker + ", spread=" + StringUtil.formatPrice(spread) + ", maxQuantity=" + StringUtil.formatQuantity(maxQuantity) + ", pnl[" + valuationCurrency + "]=" + StringUtil.formatQuantity((long) pnl) + ", deals=" + dealCount + ", high/low=" + StringUtil.formatQuantity((long) highWaterMark) + ".." + StringUtil.formatQuantity((long) lowWaterMark) + "}";
+	}
+}
@@ -0,0 +1,261 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.flow.TickData;
+import org.tools4j.fx.make.market.MarketMaker;
+import org.tools4j.fx.make.match.MatchingEngine;
+import org.tools4j.fx.make.match.MatchingEngine.MatchingState;
+import org.tools4j.fx.make.match.MatchingEngine.PartyState;
+import org.tools4j.fx.make.match.MatchingEngineImpl;
+import org.tools4j.fx.make.position.AssetPositions;
+import org.tools4j.fx.make.position.BatchValuatorImpl;
+import org.tools4j.fx.make.position.PositionKeeperImpl;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Runs the cartesian product of maker types, spreads and maximum quantities
+ * against the same {@link TickData}. Every configuration is matched by an
+ * independent {@link MatchingEngine} replaying the shared in-memory ticks;
+ * configurations are run as tasks of a work-stealing {@link ForkJoinPool}.
+ * <p>
+ * The class is immutable and can be run multiple times.
+ */
+public class SweepRunner {
+
+	private final TickData tickData;
+	private final Map<String, MakerFactory> makers;
+	private final double[] spreads;
+	private final long[] maxQuantities;
+	private final RiskLimits riskLimits;
+	private final Currency valuationCurrency;
+
+	private SweepRunner(Builder builder) {
+		this.tickData = builder.tickData;
+		this.makers = Collections.unmodifiableMap(new LinkedHashMap<>(builder.makers));
+		this.spreads = toDoubleArray(builder.spreads);
+		this.maxQuantities = toLongArray(builder.maxQuantities);
+		this.riskLimits = builder.riskLimits;
+		this.valuationCurrency = builder.valuationCurrency;
+		if (makers.isEmpty() | spreads.length == 0 | maxQuantities.length == 0) {
+			throw new IllegalArgumentException("at least one maker, spread and max quantity is required: makers=" + makers.keySet() + ", spreads=" + builder.spreads + ", maxQuantities=" + builder.maxQuantities);
+		}
+	}
+
+	public static Builder builder(TickData tickData) {
+		return new Builder(tickData);
+	}
+
+	public TickData getTickData() {
+		return tickData;
+	}
+
+	/**
+	 * Returns the number of configurations, that is, the product of the
+	 * number of makers, spreads and maximum quantities.
+	 * 
+	 * @return the number of configurations run by this sweep
+	 */
+	public int getConfigurationCount() {
+		return makers.size() * spreads.length * maxQuantities.length;
+	}
+
+	/**
+	 * Runs all configurations in the common fork join pool.
+	 * 
+	 * @return the results in the order of makers, spreads and max quantities
+	 */
+	public List<SweepResult> run() {
+		return run(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs all configurations in the given pool and waits for all results.
+	 * 
+	 * @param pool
+	 *            the pool to use
+	 * @return the results in the order of makers, spreads and max quantities
+	 */
+	public List<SweepResult> run(ForkJoinPool pool) {
+		Objects.requireNonNull(pool, "pool is null");
+		final List<Callable<SweepResult>> tasks = new ArrayList<>(getConfigurationCount());
+		for (final Map.Entry<String, MakerFactory> maker : makers.entrySet()) {
+			for (final double spread : spreads) {
+				for (final long maxQuantity : maxQuantities) {
+					tasks.add(() -> run(maker.getKey(), maker.getValue(), spread, maxQuantity));
+				}
+			}
+		}
+		final List<SweepResult> results = new ArrayList<>(tasks.size());
+		for (final Future<SweepResult> future : pool.invokeAll(tasks)) {
+			try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("interrupted while waiting for sweep results of " + tickData, e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("sweep failed for " + tickData + ", e=" + e.getCause(), e.getCause());
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Runs a single configuration in the calling thread.
+	 * 
+	 * @param name
+	 *            the maker name used in the result
+	 * @param makerFactory
+	 *            the factory for the maker
+	 * @param spread
+	 *            the spread passed to the maker
+	 * @param maxQuantity
+	 *            the max quantity passed to the maker
+	 * @return the result for the given configuration
+	 */
+	public SweepResult run(String name, MakerFactory makerFactory, double spread, long maxQuantity) {
+		return run(tickData, name, makerFactory, spread, maxQuantity, riskLimits, valuationCurrency);
+	}
+
+	static SweepResult run(TickData tickData, String name, MakerFactory makerFactory, double spread, long maxQuantity, RiskLimits riskLimits, Currency valuationCurrency) {
+		final AssetPair<?, ?> assetPair = tickData.getAssetPair();
+		final MarketMaker marketMaker = makerFactory.create(new PositionKeeperImpl(riskLimits), assetPair, name, spread, maxQuantity);
+		final MatchingEngine engine = MatchingEngineImpl.builder()//
+				.addOrderFlow(tickData.orderFlow())//
+				.addMarketMaker(marketMaker)//
+				.build();
+		return toResult(engine.matchAll(), name, name, assetPair, spread, maxQuantity, valuationCurrency);
+	}
+
+	/**
+	 * Returns the result of the maker party in the given final state.
+	 */
+	static SweepResult toResult(MatchingState state, String party, String name, AssetPair<?, ?> assetPair, double spread, long maxQuantity, Currency valuationCurrency) {
+		final PartyState partyState = state.getPartyState(party);
+		if (partyState == null) {
+			return new SweepResult(name, spread, maxQuantity, valuationCurrency, 0, 0, 0, 0, state.getMatchIndex());
+		}
+		final Map<String, AssetPositions> positions = Collections.singletonMap(party, partyState.getAssetPositions());
+		final double pnl = new BatchValuatorImpl(Collections.singletonList(valuationCurrency)).getValuations(positions, state.getMarketSnapshot()).getValuation(party, valuationCurrency);
+		return new SweepResult(name, spread, maxQuantity, valuationCurrency, pnl, partyState.getDealCount(), partyState.getHighWaterMark(assetPair.getBase()), partyState.getLowWaterMark(assetPair.getBase()), state.getMatchIndex());
+	}
+
+	private static double[] toDoubleArray(List<Double> values) {
+		final double[] array = new double[values.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+		return array;
+	}
+
+	private static long[] toLongArray(List<Long> values) {
+		final long[] array = new long[values.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+		return array;
+	}
+
+	public static final class Builder {
+		private final TickData tickData;
+		private final Map<String, MakerFactory> makers = new LinkedHashMap<>();
+		private final List<Double> spreads = new ArrayList<>();
+		private final List<Long> maxQuantities = new ArrayList<>();
+		private RiskLimits riskLimits = RiskLimits.UNLIMITED;
+		private Currency valuationCurrency = Currency.USD;
+
+		private Builder(TickData tickData) {
+			this.tickData = Objects.requireNonNull(tickData, "tickData is null");
+		}
+
+		/**
+		 * Adds a maker type; the name is used as party of the maker and must
+		 * differ from the tick data name.
+		 * 
+		 * @param name
+		 *            the maker name
+		 * @param makerFactory
+		 *            the factory creating makers of this type
+		 * @return this builder
+		 */
+		public Builder addMaker(String name, MakerFactory makerFactory) {
+			Objects.requireNonNull(name, "name is null");
+			Objects.requireNonNull(makerFactory, "makerFactory is null");
+			if (name.equals(tickData.getName())) {
+				throw new IllegalArgumentException("maker name must differ from tick data name: " + name);
+			}
+			if (makers.putIfAbsent(name, makerFactory) != null) {
+				throw new IllegalArgumentException("duplicate maker name: " + name);
+			}
+			return this;
+		}
+
+		public Builder addSpreads(double... spreads) {
+			for (final double spread : spreads) {
+				if (!(spread >= 0)) {
+					throw new IllegalArgumentException("spread must not be negative: " + spread);
+				}
+				this.spreads.add(spread);
+			}
+			return this;
+		}
+
+		public Builder addMaxQuantities(long... maxQuantities) {
+			for (final long maxQuantity : maxQuantities) {
+				if (maxQuantity <= 0) {
+					throw new IllegalArgumentException("max quantity must be positive: " + maxQuantity);
+				}
+				this.maxQuantities.add(maxQuantity);
+			}
+			return this;
+		}
+
+		public Builder withRiskLimits(RiskLimits riskLimits) {
+			this.riskLimits = Objects.requireNonNull(riskLimits, "riskLimits is null");
+			return this;
+		}
+
+		public Builder withValuationCurrency(Currency valuationCurrency) {
+			this.valuationCurrency = Objects.requireNonNull(valuationCurrency, "valuationCurrency is null");
+			return this;
+		}
+
+		public SweepRunner build() {
+			return new SweepRunner(this);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.execution;
+
+import org.tools4j.fx.make.asset.AssetPair;
+
+/**
+ * An execution report informs the owner of an order about a (partial) fill of
+ * that order. Unlike a {@link Deal} which is published to all market
+ * observers, an execution report is only delivered to the
+ * {@link ExecutionListener} registered for the party of the filled order.
+ */
+public interface ExecutionReport {
+	/**
+	 * Returns the ID of the filled order.
+	 * 
+	 * @return the order ID
+	 */
+	long getOrderId();
+
+	/**
+	 * Returns the party of the filled order.
+	 * 
+	 * @return the order's party
+	 */
+	String getParty();
+
+	/**
+	 * Returns the side of the filled order.
+	 * 
+	 * @return the order side
+	 */
+	Side getSide();
+
+	/**
+	 * Returns the asset pair of the filled order.
+	 * 
+	 * @return the traded asset pair
+	 */
+	AssetPair<?, ?> getAssetPair();
+
+	/**
+	 * Returns the deal which caused this fill.
+	 * 
+	 * @return the deal of this fill
+	 */
+	Deal getDeal();
+
+	/**
+	 * Returns the fill price, that is, the {@link Deal#getPrice() deal price}.
+	 * 
+	 * @return the price of this fill
+	 */
+	double getPrice();
+
+	/**
+	 * Returns the quantity filled with this execution.
+	 * 
+	 * @return the filled quantity, positive
+	 */
+	long getFilledQuantity();
+
+	/**
+	 * Returns the quantity of the order still open after this execution.
+	 * 
+	 * @return the leaves quantity, zero if the order is fully filled
+	 */
+	long getLeavesQuantity();
+
+	/**
+	 * Returns true if no quantity of the order is left open.
+	 * 
+	 * @return true if the order is fully filled
+	 */
+	default boolean isFullyFilled() {
+		return getLeavesQuantity() == 0;
+	}
+
+	/**
+	 * Returns a string of the form: BUY:AUD/USD[1.2M@1.246370]
+	 * @return a short string with side, symbol, filled quantity and price
+	 */
+	String toShortString();
+}
@@ -0,0 +1,118 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.execution;
+
+import static org.tools4j.fx.make.util.StringUtil.formatQuantityAndPrice;
+
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.AssetPair;
+
+/**
+ * An immutable {@link ExecutionReport} for one side of a {@link Deal}.
+ */
+public class ExecutionReportImpl implements ExecutionReport {
+
+	private final Deal deal;
+	private final Side side;
+	private final long leavesQuantity;
+
+	public ExecutionReportImpl(Deal deal, Side side, long leavesQuantity) {
+		this.deal = Objects.requireNonNull(deal, "deal is null");
+		this.side = Objects.requireNonNull(side, "side is null");
+		if (leavesQuantity < 0) {
+			throw new IllegalArgumentException("leaves quantity must not be negative: " + leavesQuantity);
+		}
+		this.leavesQuantity = leavesQuantity;
+	}
+
+	/**
+	 * Creates the report for the given order filled by the specified deal.
+	 * 
+	 * @param deal
+	 *            the deal filling the order
+	 * @param order
+	 *            the filled order with its quantity before the fill
+	 */
+	public ExecutionReportImpl(Deal deal, Order order) {
+		this(deal, order.getSide(), order.getQuantity() - deal.getQuantity());
+		final long orderId = side == Side.BUY ? deal.getBuyOrderId() : deal.getSellOrderId();
+		if (orderId != order.getId()) {
+			throw new IllegalArgumentException("order " + order.getId() + " is not part of deal: " + deal);
+		}
+	}
+
+	@Override
+	public long getOrderId() {
+		return side == Side.BUY ? deal.getBuyOrderId() : deal.getSellOrderId();
+	}
+
+	@Override
+	public String getParty() {
+		return side == Side.BUY ? deal.getBuyParty() : deal.getSellParty();
+	}
+
+	@Override
+	public Side getSide() {
+		return side;
+	}
+
+	@Override
+	public AssetPair<?, ?> getAssetPair() {
+		return deal.getAssetPair();
+	}
+
+	@Override
+	public Deal getDeal() {
+		return deal;
+	}
+
+	@Override
+	public double getPrice() {
+		return deal.getPrice();
+	}
+
+	@Override
+	public long getFilledQuantity() {
+		return deal.getQuantity();
+	}
+
+	@Override
+	public long getLeavesQuantity() {
+		return leavesQuantity;
+	}
+
+	@Override
+	public String toShortString() {
+		return getSide() + ":" + getAssetPair() + "[" + formatQuantityAndPrice(getFilledQuantity(), getPrice()) + "]";
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{orderId=" + getOrderId() + ", party=" + getParty() + ", side=" + side
+				+ ", assetPair=" + getAssetPair() + ", price=" + getPrice() + ", filledQuantity="
+				+ getFilledQuantity() + ", leavesQuantity=" + leavesQuantity + ", dealId=" + deal.getId() + "}";
+	}
+
+}
@@ -32,7 +32,9 @@ import org.tools4j.fx.make.asset.AssetPair;
  */
 public interface Order {
 	/**
-	 * The order ID unique among all orders even across different parties.
+	 * The order ID unique among all orders even across different parties. The
+	 * remaining part of a partially filled order keeps the ID of the original
+	 * order.
 	 * 
 	 * @return unique order ID
 	 */
@@ -34,7 +34,7 @@ import org.tools4j.fx.make.asset.AssetPair;
  */
 public class OrderImpl implements Order {
 
-	private final long id = ID_GENERATOR.incrementAndGet();
+	private final long id;
 	private final AssetPair<?, ?> assetPair;
 	private final String party;
 	private final Side side;
@@ -42,6 +42,25 @@ public class OrderImpl implements Order {
 	private final long quantity;
 
 	public OrderImpl(AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity) {
+		this(ID_GENERATOR.incrementAndGet(), assetPair, party, side, price, quantity);
+	}
+
+	/**
+	 * Constructor for the remaining part of a partially filled order; the
+	 * returned order keeps the ID of the original order.
+	 * 
+	 * @param order
+	 *            the partially filled order
+	 * @param remainingQuantity
+	 *            the quantity left open
+	 */
+	public OrderImpl(Order order, long remainingQuantity) {
+		this(order.getId(), order.getAssetPair(), order.getParty(), order.getSide(), order.getPrice(),
+				validateRemainingQuantity(order, remainingQuantity));
+	}
+
+	private OrderImpl(long id, AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity) {
+		this.id = id;
 		this.assetPair = Objects.requireNonNull(assetPair, "assetPair is null");
 		this.party = Objects.requireNonNull(party, "party is null");
 		this.side = Objects.requireNonNull(side, "side is null");
@@ -55,11 +74,6 @@ public class OrderImpl implements Order {
 		this.quantity = quantity;
 	}
 
-	public OrderImpl(Order order, long remainingQuantity) {
-		this(order.getAssetPair(), order.getParty(), order.getSide(), order.getPrice(),
-				validateRemainingQuantity(order, remainingQuantity));
-	}
-
 	private static long validateRemainingQuantity(Order order, long remainingQuantity) {
 		if (remainingQuantity > order.getQuantity()) {
 			throw new IllegalArgumentException(
@@ -0,0 +1,161 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.flow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.tools4j.fx.make.execution.Order;
+
+/**
+ * An order flow fed by concurrent producers such as feed handlers or strategy
+ * threads. Orders are {@link #offer(Order) offered} into a bounded lock-free
+ * multi-producer single-consumer ring buffer and drained in batches by the
+ * thread invoking {@link #nextOrders()}, typically the matching engine thread.
+ * <p>
+ * Producers claim a slot by advancing the producer index with a CAS and then
+ * publish the order into the slot; the consumer frees slots in order and
+ * advances the consumer index. No locks are involved on either side.
+ * <p>
+ * The {@link #offer(Order)} method is thread safe. The {@link #nextOrders()}
+ * method must be invoked by a single consumer thread.
+ */
+public class GatewayOrderFlow implements OrderFlow {
+
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+	public static final int DEFAULT_BATCH_SIZE = 256;
+
+	private final AtomicReferenceArray<Order> buffer;
+	private final int mask;
+	private final int batchSize;
+	private final AtomicLong producerIndex = new AtomicLong();
+	private final AtomicLong consumerIndex = new AtomicLong();
+	private volatile long producerLimit;
+	private final List<Order> batch;
+
+	public GatewayOrderFlow() {
+		this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Constructor with capacity and batch size.
+	 * 
+	 * @param capacity
+	 *            the ring buffer capacity, a power of two
+	 * @param batchSize
+	 *            the maximum number of orders returned by a single call to
+	 *            {@link #nextOrders()}
+	 */
+	public GatewayOrderFlow(int capacity, int batchSize) {
+		if (capacity < 2 | Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+		}
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+		}
+		this.buffer = new AtomicReferenceArray<>(capacity);
+		this.mask = capacity - 1;
+		this.batchSize = batchSize;
+		this.producerLimit = capacity;
+		this.batch = new ArrayList<>(Math.min(capacity, batchSize));
+	}
+
+	/**
+	 * Returns the capacity of the ring buffer.
+	 * 
+	 * @return the maximum number of pending orders
+	 */
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Offers an order to the gateway. Can be invoked by any thread.
+	 * 
+	 * @param order
+	 *            the order to publish
+	 * @return true if the order was published and false if the ring buffer is
+	 *         full
+	 */
+	public boolean offer(Order order) {
+		Objects.requireNonNull(order, "order is null");
+		long limit = producerLimit;
+		long index;
+		do {
+			index = producerIndex.get();
+			if (index >= limit) {
+				limit = consumerIndex.get() + mask + 1;
+				if (index >= limit) {
+					return false;
+				}
+				producerLimit = limit;
+			}
+		} while (!producerIndex.compareAndSet(index, index + 1));
+		buffer.lazySet((int) index & mask, order);
+		return true;
+	}
+
+	/**
+	 * Returns the number of orders offered but not yet drained. The value is
+	 * an estimate if producers or the consumer are active concurrently.
+	 * 
+	 * @return the number of pending orders
+	 */
+	public int size() {
+		return (int) Math.max(0, producerIndex.get() - consumerIndex.get());
+	}
+
+	/**
+	 * Drains up to batch size pending orders. Must be invoked by a single
+	 * consumer thread. The returned list is reused and only valid until the
+	 * next invocation; the {@link org.tools4j.fx.make.market.CompositeOrderFlow
+	 * CompositeOrderFlow} used by the matching engine copies the orders.
+	 */
+	@Override
+	public List<Order> nextOrders() {
+		batch.clear();
+		long index = consumerIndex.get();
+		while (batch.size() < batchSize) {
+			final int slot = (int) index & mask;
+			Order order = buffer.get(slot);
+			if (order == null) {
+				if (index >= producerIndex.get()) {
+					break;
+				}
+				//slot claimed but order not yet published
+				do {
+					order = buffer.get(slot);
+				} while (order == null);
+			}
+			buffer.lazySet(slot, null);
+			index++;
+			consumerIndex.lazySet(index);
+			batch.add(order);
+		}
+		return batch;
+	}
+}
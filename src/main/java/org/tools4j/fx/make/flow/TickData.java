@@ -0,0 +1,330 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.flow;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.AssetPair;
+
+/**
+ * Tick data of one asset pair held in memory in primitive arrays, one array
+ * per column. Ticks are loaded once, for instance from a CSV file in the
+ * format supported by {@link CsvOrderFlow}, and can then be replayed any
+ * number of times by independent {@link TickDataOrderFlow}s.
+ * <p>
+ * Tick times are milliseconds since the epoch in UTC and must be ascending.
+ * Volumes are stored in units of the base asset, that is, CSV volumes are
+ * multiplied by one million as in {@link CsvOrderFlow}. Ticks without any
+ * volume are skipped.
+ * <p>
+ * The class is immutable and hence thread safe.
+ */
+public final class TickData {
+
+	private static final String HEADER_LINE = "Time,Ask,Bid,AskVolume,BidVolume";
+
+	private final AssetPair<?, ?> assetPair;
+	private final String name;
+	private final int size;
+	private final long[] times;
+	private final double[] bids;
+	private final double[] asks;
+	private final long[] bidVolumes;
+	private final long[] askVolumes;
+
+	private TickData(Builder builder) {
+		this.assetPair = builder.assetPair;
+		this.name = builder.name;
+		this.size = builder.size;
+		this.times = Arrays.copyOf(builder.times, size);
+		this.bids = Arrays.copyOf(builder.bids, size);
+		this.asks = Arrays.copyOf(builder.asks, size);
+		this.bidVolumes = Arrays.copyOf(builder.bidVolumes, size);
+		this.askVolumes = Arrays.copyOf(builder.askVolumes, size);
+	}
+
+	public static TickData load(AssetPair<?, ?> assetPair, File file) throws IOException {
+		try (final Reader reader = new FileReader(file)) {
+			return load(assetPair, file.getName(), reader);
+		}
+	}
+
+	/**
+	 * Loads all ticks from a reader with CSV data in the format described in
+	 * {@link CsvOrderFlow}. The reader is not closed.
+	 * 
+	 * @param assetPair
+	 *            the asset pair of the ticks
+	 * @param name
+	 *            the name of the tick data, used as party for replayed orders
+	 * @param reader
+	 *            the reader with CSV tick data
+	 * @return the tick data with all ticks read
+	 * @throws IOException
+	 *             if reading failed
+	 */
+	public static TickData load(AssetPair<?, ?> assetPair, String name, Reader reader) throws IOException {
+		final Builder builder = builder(assetPair, name);
+		builder.addCsv(reader);
+		return builder.build();
+	}
+
+	public static Builder builder(AssetPair<?, ?> assetPair, String name) {
+		return new Builder(assetPair, name);
+	}
+
+	public AssetPair<?, ?> getAssetPair() {
+		return assetPair;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long getTime(int index) {
+		return times[checkIndex(index)];
+	}
+
+	public double getBid(int index) {
+		return bids[checkIndex(index)];
+	}
+
+	public double getAsk(int index) {
+		return asks[checkIndex(index)];
+	}
+
+	public long getBidVolume(int index) {
+		return bidVolumes[checkIndex(index)];
+	}
+
+	public long getAskVolume(int index) {
+		return askVolumes[checkIndex(index)];
+	}
+
+	/**
+	 * Returns the index of the first tick at or after the given time, or
+	 * {@link #size()} if all ticks are before that time.
+	 * 
+	 * @param time
+	 *            the time in milliseconds since the epoch
+	 * @return the index of the first tick not before time
+	 */
+	public int indexOf(long time) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (times[mid] < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns a new order flow replaying all ticks.
+	 * 
+	 * @return a new order flow starting with the first tick
+	 */
+	public TickDataOrderFlow orderFlow() {
+		return new TickDataOrderFlow(this, 0, size);
+	}
+
+	/**
+	 * Returns a new order flow replaying ticks in the given index range.
+	 * 
+	 * @param fromIndex
+	 *            the index of the first tick, inclusive
+	 * @param toIndex
+	 *            the index of the last tick, exclusive
+	 * @return a new order flow for the specified ticks
+	 */
+	public TickDataOrderFlow orderFlow(int fromIndex, int toIndex) {
+		if (fromIndex < 0 | toIndex > size | fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("range [" + fromIndex + ", " + toIndex + ") is not in [0, " + size + ")");
+		}
+		return new TickDataOrderFlow(this, fromIndex, toIndex);
+	}
+
+	private int checkIndex(int index) {
+		if (index < 0 | index >= size) {
+			throw new IndexOutOfBoundsException("tick index " + index + " is not in [0, " + size + ")");
+		}
+		return index;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{" + name + ": " + assetPair + ", size=" + size + "}";
+	}
+
+	/**
+	 * Builder to collect ticks, for instance from a CSV reader or generated
+	 * ticks. Arrays grow as needed and are trimmed when the tick data is
+	 * built.
+	 */
+	public static final class Builder {
+		private final AssetPair<?, ?> assetPair;
+		private final String name;
+		private int size;
+		private long[] times = new long[1024];
+		private double[] bids = new double[1024];
+		private double[] asks = new double[1024];
+		private long[] bidVolumes = new long[1024];
+		private long[] askVolumes = new long[1024];
+
+		private Builder(AssetPair<?, ?> assetPair, String name) {
+			this.assetPair = Objects.requireNonNull(assetPair, "assetPair is null");
+			this.name = Objects.requireNonNull(name, "name is null");
+		}
+
+		public Builder add(long time, double bid, double ask, long bidVolume, long askVolume) {
+			if (bidVolume < 0 | askVolume < 0) {
+				throw new IllegalArgumentException("volume cannot be negative: bidVolume=" + bidVolume + ", askVolume=" + askVolume);
+			}
+			if (size > 0 && time < times[size - 1]) {
+				throw new IllegalArgumentException("tick time " + time + " is before previous tick time " + times[size - 1]);
+			}
+			if (bidVolume == 0 & askVolume == 0) {
+				return this;
+			}
+			if (size == times.length) {
+				final int capacity = 2 * size;
+				times = Arrays.copyOf(times, capacity);
+				bids = Arrays.copyOf(bids, capacity);
+				asks = Arrays.copyOf(asks, capacity);
+				bidVolumes = Arrays.copyOf(bidVolumes, capacity);
+				askVolumes = Arrays.copyOf(askVolumes, capacity);
+			}
+			times[size] = time;
+			bids[size] = bid;
+			asks[size] = ask;
+			bidVolumes[size] = bidVolume;
+			askVolumes[size] = askVolume;
+			size++;
+			return this;
+		}
+
+		/**
+		 * Adds all ticks from a reader with CSV data in the format described
+		 * in {@link CsvOrderFlow}. The reader is not closed.
+		 * 
+		 * @param reader
+		 *            the reader with CSV tick data
+		 * @return this builder
+		 * @throws IOException
+		 *             if reading failed
+		 */
+		public Builder addCsv(Reader reader) throws IOException {
+			final BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+			long lineNo = 0;
+			String line;
+			while ((line = lines.readLine()) != null) {
+				lineNo++;
+				if (line.isEmpty() || HEADER_LINE.equals(line.trim())) {
+					continue;
+				}
+				try {
+					addCsvLine(line);
+				} catch (RuntimeException e) {
+					throw new IOException("[line=" + lineNo + "] error reading " + assetPair + " csv data '" + name + "', e=" + e, e);
+				}
+			}
+			return this;
+		}
+
+		private void addCsvLine(String line) {
+			final int c1 = line.indexOf(',');
+			final int c2 = line.indexOf(',', c1 + 1);
+			final int c3 = line.indexOf(',', c2 + 1);
+			final int c4 = line.indexOf(',', c3 + 1);
+			if (c4 < 0) {
+				throw new IllegalArgumentException("expected 5 columns: " + line);
+			}
+			final long time = parseTime(line);
+			final double ask = Double.parseDouble(line.substring(c1 + 1, c2));
+			final double bid = Double.parseDouble(line.substring(c2 + 1, c3));
+			final long askVol = parseVolume(line.substring(c3 + 1, c4));
+			final long bidVol = parseVolume(line.substring(c4 + 1));
+			add(time, bid, ask, bidVol, askVol);
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public TickData build() {
+			return new TickData(this);
+		}
+	}
+
+	/**
+	 * Parses the time at the start of a CSV line formatted as
+	 * {@code yyyy-MM-dd HH:mm:ss.SSS} in UTC.
+	 * 
+	 * @param line
+	 *            the CSV line starting with the tick time
+	 * @return the time in milliseconds since the epoch
+	 */
+	static long parseTime(String line) {
+		final int yyyy = parseInt(line, 0, 4);
+		final int mM = parseInt(line, 5, 7);
+		final int dd = parseInt(line, 8, 10);
+		final int hh = parseInt(line, 11, 13);
+		final int mm = parseInt(line, 14, 16);
+		final int ss = parseInt(line, 17, 19);
+		final int ms = parseInt(line, 20, 23);
+		final long day = LocalDate.of(yyyy, mM, dd).toEpochDay();
+		return (((day * 24 + hh) * 60 + mm) * 60 + ss) * 1000 + ms;
+	}
+
+	private static int parseInt(String line, int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			final int digit = line.charAt(i) - '0';
+			if (digit < 0 | digit > 9) {
+				throw new NumberFormatException("expected digit at position " + i + ": " + line);
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	private static long parseVolume(String vol) {
+		return Math.round(Double.parseDouble(vol) * 1000000.0);
+	}
+}
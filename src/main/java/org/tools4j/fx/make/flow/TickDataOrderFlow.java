@@ -0,0 +1,107 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.flow;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.OrderImpl;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * Order flow replaying a range of {@link TickData}. Every tick results in a
+ * bid and an ask order as for {@link CsvOrderFlow}; the orders are issued by a
+ * party named after the tick data. Many flows can replay the same tick data
+ * concurrently since the tick data is immutable.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public class TickDataOrderFlow implements OrderFlow {
+
+	private final TickData tickData;
+	private final AssetPair<?, ?> assetPair;
+	private final String party;
+	private final int toIndex;
+	private int index;
+
+	TickDataOrderFlow(TickData tickData, int fromIndex, int toIndex) {
+		this.tickData = Objects.requireNonNull(tickData, "tickData is null");
+		this.assetPair = tickData.getAssetPair();
+		this.party = tickData.getName();
+		this.index = fromIndex;
+		this.toIndex = toIndex;
+	}
+
+	public TickData getTickData() {
+		return tickData;
+	}
+
+	/**
+	 * Returns the index of the next tick to replay.
+	 * 
+	 * @return the next tick index, the end index if all ticks have been replayed
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the time of the last replayed tick in nanoseconds, for instance
+	 * as clock for time-decayed indicators in reproducible backtests. Before
+	 * the first tick of the range has been replayed, the time of the tick
+	 * preceding the range is returned, or of the first tick for a range
+	 * starting at the first tick.
+	 * 
+	 * @return the tick time in nanoseconds since the epoch
+	 */
+	public long getTimeNanos() {
+		return TimeUnit.MILLISECONDS.toNanos(tickData.getTime(Math.max(index - 1, 0)));
+	}
+
+	@Override
+	public List<Order> nextOrders() {
+		if (index >= toIndex) {
+			return Collections.emptyList();
+		}
+		final int i = index++;
+		final long bidVol = tickData.getBidVolume(i);
+		final long askVol = tickData.getAskVolume(i);
+		if (bidVol > 0 & askVol > 0) {
+			return Arrays.asList(createOrder(Side.BUY, tickData.getBid(i), bidVol), createOrder(Side.SELL, tickData.getAsk(i), askVol));
+		}
+		if (bidVol > 0) {
+			return Collections.singletonList(createOrder(Side.BUY, tickData.getBid(i), bidVol));
+		}
+		return Collections.singletonList(createOrder(Side.SELL, tickData.getAsk(i), askVol));
+	}
+
+	private Order createOrder(Side side, double rate, long quantity) {
+		return new OrderImpl(assetPair, party, side, rate, quantity);
+	}
+}
@@ -0,0 +1,258 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.flow;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.AssetPair;
+
+/**
+ * Seek index for a CSV tick file in the format described in
+ * {@link CsvOrderFlow}. The file is scanned once to record the byte offset
+ * and line count of every month; the ticks of a single month can then be
+ * loaded into {@link TickData} by reading only the month's slice of the file.
+ * <p>
+ * Tick times in the file must be ascending.
+ * <p>
+ * The class is immutable and hence thread safe; concurrent loads use
+ * independent file handles.
+ */
+public final class TickFileIndex {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int NO_MONTH = -1;
+
+	private final File file;
+	private final List<YearMonth> months;
+	private final long[] offsets;
+	private final long[] lineCounts;
+
+	private TickFileIndex(File file, List<YearMonth> months, long[] offsets, long[] lineCounts) {
+		this.file = file;
+		this.months = Collections.unmodifiableList(months);
+		this.offsets = offsets;
+		this.lineCounts = lineCounts;
+	}
+
+	/**
+	 * Scans the given file and returns the index of its months.
+	 * 
+	 * @param file
+	 *            the CSV tick file
+	 * @return the index for the file
+	 * @throws IOException
+	 *             if reading failed or if the months in the file are not
+	 *             ascending
+	 */
+	public static TickFileIndex build(File file) throws IOException {
+		Objects.requireNonNull(file, "file is null");
+		final Scan scan = new Scan(file);
+		try (final InputStream in = new FileInputStream(file)) {
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			long offset = 0;
+			long lineStart = 0;
+			int column = 0;
+			int year = 0;
+			int month = 0;
+			boolean dated = true;
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				for (int i = 0; i < read; i++, offset++) {
+					final byte b = buffer[i];
+					if (b == '\n') {
+						scan.endLine(lineStart, dated & column >= 7 ? year * 12 + month - 1 : NO_MONTH);
+						lineStart = offset + 1;
+						column = 0;
+						year = 0;
+						month = 0;
+						dated = true;
+						continue;
+					}
+					if (column < 7 & dated) {
+						if (column == 4) {
+							dated = b == '-';
+						} else if (b >= '0' & b <= '9') {
+							if (column < 4) {
+								year = year * 10 + (b - '0');
+							} else {
+								month = month * 10 + (b - '0');
+							}
+						} else {
+							dated = false;
+						}
+					}
+					column++;
+				}
+			}
+			//last line without line terminator
+			scan.endLine(lineStart, dated & column >= 7 ? year * 12 + month - 1 : NO_MONTH);
+			return scan.toIndex(offset);
+		}
+	}
+
+	private static final class Scan {
+		private final File file;
+		private final List<YearMonth> months = new ArrayList<>();
+		private long[] offsets = new long[16];
+		private long[] lineCounts = new long[16];
+		private int current = NO_MONTH;
+
+		Scan(File file) {
+			this.file = file;
+		}
+
+		void endLine(long lineStart, int key) throws IOException {
+			if (key == NO_MONTH) {
+				return;
+			}
+			if (key != current) {
+				if (key < current) {
+					throw new IOException("months not ascending in " + file + " at offset " + lineStart);
+				}
+				if (months.size() == offsets.length) {
+					offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+					lineCounts = Arrays.copyOf(lineCounts, 2 * lineCounts.length);
+				}
+				offsets[months.size()] = lineStart;
+				months.add(YearMonth.of(key / 12, key % 12 + 1));
+				current = key;
+			}
+			lineCounts[months.size() - 1]++;
+		}
+
+		TickFileIndex toIndex(long fileLength) {
+			final long[] bounds = Arrays.copyOf(offsets, months.size() + 1);
+			bounds[months.size()] = fileLength;
+			return new TickFileIndex(file, months, bounds, Arrays.copyOf(lineCounts, months.size()));
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the months present in the file in ascending order.
+	 * 
+	 * @return the ascending months with ticks in the file
+	 */
+	public List<YearMonth> getMonths() {
+		return months;
+	}
+
+	public boolean contains(YearMonth month) {
+		return indexOf(month) >= 0;
+	}
+
+	/**
+	 * Returns the byte offset of the first line of the given month.
+	 * 
+	 * @param month
+	 *            the month of interest
+	 * @return the file offset where the month starts
+	 * @throws IllegalArgumentException
+	 *             if the month is not in the file
+	 */
+	public long getOffset(YearMonth month) {
+		return offsets[checkedIndexOf(month)];
+	}
+
+	/**
+	 * Returns the length in bytes of the given month's slice of the file.
+	 * 
+	 * @param month
+	 *            the month of interest
+	 * @return the number of bytes of this month's lines
+	 * @throws IllegalArgumentException
+	 *             if the month is not in the file
+	 */
+	public long getLength(YearMonth month) {
+		final int index = checkedIndexOf(month);
+		return offsets[index + 1] - offsets[index];
+	}
+
+	public long getLineCount(YearMonth month) {
+		return lineCounts[checkedIndexOf(month)];
+	}
+
+	/**
+	 * Loads the ticks of a single month reading only the month's slice of the
+	 * file. The tick data is named after the file and the month.
+	 * 
+	 * @param assetPair
+	 *            the asset pair of the ticks
+	 * @param month
+	 *            the month to load
+	 * @return the ticks of the given month
+	 * @throws IOException
+	 *             if reading failed
+	 * @throws IllegalArgumentException
+	 *             if the month is not in the file
+	 */
+	public TickData load(AssetPair<?, ?> assetPair, YearMonth month) throws IOException {
+		final int index = checkedIndexOf(month);
+		final long length = offsets[index + 1] - offsets[index];
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("month " + month + " of " + file + " is too large: " + length + " bytes");
+		}
+		final byte[] slice = new byte[(int) length];
+		try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			raf.seek(offsets[index]);
+			raf.readFully(slice);
+		}
+		final TickData.Builder builder = TickData.builder(assetPair, file.getName() + "[" + month + "]");
+		builder.addCsv(new InputStreamReader(new ByteArrayInputStream(slice), StandardCharsets.US_ASCII));
+		return builder.build();
+	}
+
+	private int indexOf(YearMonth month) {
+		return Collections.binarySearch(months, Objects.requireNonNull(month, "month is null"));
+	}
+
+	private int checkedIndexOf(YearMonth month) {
+		final int index = indexOf(month);
+		if (index < 0) {
+			throw new IllegalArgumentException("month " + month + " not found in " + file + ", months=" + months);
+		}
+		return index;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{" + file.getName() + ", months=" + months + "}";
+	}
+}
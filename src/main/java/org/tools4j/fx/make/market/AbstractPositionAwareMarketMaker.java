@@ -23,14 +23,16 @@
  */
 package org.tools4j.fx.make.market;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
+import org.tools4j.fx.make.asset.Asset;
 import org.tools4j.fx.make.asset.AssetPair;
-import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.ExecutionReport;
 import org.tools4j.fx.make.execution.Order;
 import org.tools4j.fx.make.execution.OrderImpl;
 import org.tools4j.fx.make.execution.Side;
@@ -43,13 +45,43 @@ import org.tools4j.fx.make.position.PositionKeeper;
  * bid and offered quantities are adjusted and one or both sides are omitted in
  * the making activity if necessary.
  * <p>
+ * Positions are updated from {@link ExecutionReport}s of the maker's own
+ * fills, public deals are only used as market information.
+ * <p>
+ * If a {@link QuoteManager} is {@link #setQuoteManager(QuoteManager) set}, the
+ * maker keeps one resting quote per side and amends it in place when bid or
+ * offer change; a side is cancelled if the position leaves no quantity to
+ * quote. {@link #nextOrders()} returns no orders in this case.
+ * <p>
+ * A maker can also quote a {@link #setLadder(int, double) ladder} of several
+ * price levels per side, each level offering the desired quantity at a price
+ * a constant spacing further away from the top level. Level prices and
+ * quantities are kept in primitive arrays. With a quote manager, only levels
+ * whose price or quantity changed are amended, placed or cancelled when bid or
+ * offer change. Without a quote manager orders do not rest, hence
+ * {@link #nextOrders()} returns all levels of a side in every round in which
+ * the side is {@link #isDue(Side) due}, even if no level has changed.
+ * <p>
+ * Several makers of the same party can share a single
+ * {@link org.tools4j.fx.make.position.ConcurrentPositionKeeper
+ * ConcurrentPositionKeeper}, for instance to apply common limits on the USD
+ * leg of all USD pairs even if the makers are driven by different threads.
+ * <p>
  * The class is NOT thread safe.
  */
 abstract public class AbstractPositionAwareMarketMaker implements MarketMaker {
 
+	private static final long NO_QUOTE = 0;
+	/** Relative tolerance for level prices computed from different mid rates */
+	private static final double PRICE_TOLERANCE = 1e-12;
+
 	protected final PositionKeeper positionKeeper;
 	protected final AssetPair<?, ?> assetPair;
 	protected final String party;
+	private QuoteManager quoteManager;
+	private double levelSpacing = 0;
+	private Ladder bidLadder = new Ladder(1);
+	private Ladder askLadder = new Ladder(1);
 
 	public AbstractPositionAwareMarketMaker(PositionKeeper positionKeeper, AssetPair<?, ?> assetPair, String party) {
 		this.positionKeeper = Objects.requireNonNull(positionKeeper, "positionKeeper is null");
@@ -62,8 +94,68 @@ abstract public class AbstractPositionAwareMarketMaker implements MarketMaker {
 		return Collections.singleton(assetPair);
 	}
 
+	@Override
+	public Set<String> getParties() {
+		return Collections.singleton(party);
+	}
+
+	/**
+	 * Subscribes to best orders and deals of the maker's asset pair.
+	 */
+	@Override
+	public boolean isSubscribed(AssetPair<?, ?> assetPair, EventType eventType) {
+		return eventType != EventType.ORDER & eventType != EventType.DEPTH && this.assetPair.equals(assetPair);
+	}
+
+	@Override
+	public void setQuoteManager(QuoteManager quoteManager) {
+		this.quoteManager = quoteManager;
+	}
+
+	/**
+	 * Sets the number of price levels quoted per side, one by default. Level
+	 * {@code i} is priced {@code i * levelSpacing} below the top bid or above
+	 * the top offer, respectively. Must be set before the first quote is made.
+	 * 
+	 * @param levels
+	 *            the number of price levels per side, at least one
+	 * @param levelSpacing
+	 *            the price difference between adjacent levels, non-negative
+	 */
+	public void setLadder(int levels, double levelSpacing) {
+		if (levels < 1) {
+			throw new IllegalArgumentException("levels must be at least one: " + levels);
+		}
+		if (!(levelSpacing >= 0) | Double.isInfinite(levelSpacing)) {
+			throw new IllegalArgumentException("invalid level spacing: " + levelSpacing);
+		}
+		this.levelSpacing = levelSpacing;
+		this.bidLadder = new Ladder(levels);
+		this.askLadder = new Ladder(levels);
+	}
+
+	/**
+	 * Returns the number of price levels quoted per side.
+	 * 
+	 * @return the number of ladder levels, one for a single bid and offer
+	 */
+	public int getLadderLevels() {
+		return bidLadder.ids.length;
+	}
+
 	@Override
 	public List<Order> nextOrders() {
+		if (quoteManager != null) {
+			nextQuotes(Side.BUY, bidLadder);
+			nextQuotes(Side.SELL, askLadder);
+			return Collections.emptyList();
+		}
+		if (getLadderLevels() > 1) {
+			final List<Order> orders = new ArrayList<>(2 * getLadderLevels());
+			nextLadderOrders(Side.BUY, bidLadder, orders);
+			nextLadderOrders(Side.SELL, askLadder, orders);
+			return orders;
+		}
 		final Order bid = nextOrder(Side.BUY);
 		final Order ask = nextOrder(Side.SELL);
 		if (bid != null & ask != null) {
@@ -77,6 +169,9 @@ abstract public class AbstractPositionAwareMarketMaker implements MarketMaker {
 	}
 
 	protected Order nextOrder(Side side) {
+		if (!isDue(side)) {
+			return null;
+		}
 		final String party = nextParty(side);
 		final long desiredQuantity = nextQuantity(side, party);
 		final double price = nextPrice(side, party, desiredQuantity);
@@ -84,6 +179,68 @@ abstract public class AbstractPositionAwareMarketMaker implements MarketMaker {
 		return constrainedQuantity > 0 ? new OrderImpl(assetPair, party, side, price, constrainedQuantity) : null;
 	}
 
+	private void nextLadderOrders(Side side, Ladder ladder, List<Order> orders) {
+		if (isDue(side)) {
+			final String party = nextParty(side);
+			final int levels = nextLevels(side, party, ladder);
+			for (int i = 0; i < levels; i++) {
+				orders.add(new OrderImpl(assetPair, party, side, ladder.nextPrices[i], ladder.nextQuantities[i]));
+			}
+		}
+	}
+
+	private void nextQuotes(Side side, Ladder ladder) {
+		if (isDue(side)) {
+			final String party = nextParty(side);
+			final int levels = nextLevels(side, party, ladder);
+			ladder.update(quoteManager, assetPair, party, side, levels);
+		}
+	}
+
+	/**
+	 * Computes the next level prices and quantities into the ladder's next
+	 * arrays. The position constraint applies to the cumulative quantity of
+	 * all levels, hence outer levels are omitted first.
+	 * 
+	 * @return the number of levels with a positive quantity
+	 */
+	private int nextLevels(Side side, String party, Ladder ladder) {
+		final long desiredQuantity = nextQuantity(side, party);
+		final double price = nextPrice(side, party, desiredQuantity);
+		final int maxLevels = ladder.ids.length;
+		long cumulativeQuantity = 0;
+		int levels = 0;
+		while (levels < maxLevels) {
+			final double levelPrice = side == Side.BUY ? price - levels * levelSpacing : price + levels * levelSpacing;
+			if (levels > 0 && (levelPrice <= 0 | Double.isInfinite(levelPrice) | levelPrice == ladder.nextPrices[levels - 1])) {
+				//no more distinct valid prices
+				break;
+			}
+			final long constrainedQuantity = nextConnstrainedQuantity(side, party, cumulativeQuantity + desiredQuantity, levelPrice);
+			final long levelQuantity = constrainedQuantity - cumulativeQuantity;
+			if (levelQuantity <= 0) {
+				break;
+			}
+			ladder.nextPrices[levels] = levelPrice;
+			ladder.nextQuantities[levels] = levelQuantity;
+			cumulativeQuantity += levelQuantity;
+			levels++;
+		}
+		return levels;
+	}
+
+	/**
+	 * Returns true if a new bid or offer should be made for the given side,
+	 * and false if the current one is still good. Always true by default.
+	 * 
+	 * @param side
+	 *            the maker side
+	 * @return true if a new order or quote is due for this side
+	 */
+	protected boolean isDue(Side side) {
+		return true;
+	}
+
 	abstract protected String nextParty(Side side);
 
 	abstract protected long nextQuantity(Side side, String party);
@@ -97,12 +254,123 @@ abstract public class AbstractPositionAwareMarketMaker implements MarketMaker {
 		return maxQuantity == -1 ? desiredQuantity : Math.min(desiredQuantity, maxQuantity);
 	}
 	
+	/**
+	 * Returns a state with the positions of this maker.
+	 */
 	@Override
-	public void onDeal(Deal deal) {
-		if (party.equals(deal.getBuyParty())) {
-			positionKeeper.updatePosition(deal, Side.BUY);
-		} else if (party.equals(deal.getSellParty())) {
-			positionKeeper.updatePosition(deal, Side.SELL);
+	public MakerState snapshotState() {
+		return new MakerState(positionKeeper, null, null);
+	}
+
+	/**
+	 * Replaces the positions of this maker with those of the given state.
+	 * Resting quotes are not part of the state, the ladders are cleared.
+	 */
+	@Override
+	public void restoreState(MakerState state) {
+		positionKeeper.resetPositions();
+		for (final Asset asset : state.getAssets()) {
+			positionKeeper.setPosition(asset, state.getPosition(asset));
+		}
+		bidLadder = new Ladder(bidLadder.ids.length);
+		askLadder = new Ladder(askLadder.ids.length);
+	}
+
+	@Override
+	public void onExecution(ExecutionReport executionReport) {
+		positionKeeper.updatePosition(executionReport.getDeal(), executionReport.getSide());
+		final Ladder ladder = executionReport.getSide() == Side.BUY ? bidLadder : askLadder;
+		ladder.onFill(executionReport.getOrderId(), executionReport.getLeavesQuantity());
+	}
+
+	/**
+	 * The resting quotes of one side. Slots hold quote ID, price and quantity
+	 * of a resting quote; the slot order is arbitrary. The next arrays hold
+	 * the levels to quote next, best level first.
+	 */
+	private static final class Ladder {
+		private final long[] ids;
+		private final double[] prices;
+		private final long[] quantities;
+		private final boolean[] kept;
+		private final double[] nextPrices;
+		private final long[] nextQuantities;
+		private final boolean[] unchanged;
+
+		Ladder(int levels) {
+			this.ids = new long[levels];
+			this.prices = new double[levels];
+			this.quantities = new long[levels];
+			this.kept = new boolean[levels];
+			this.nextPrices = new double[levels];
+			this.nextQuantities = new long[levels];
+			this.unchanged = new boolean[levels];
+		}
+
+		void update(QuoteManager quoteManager, AssetPair<?, ?> assetPair, String party, Side side, int levels) {
+			Arrays.fill(kept, false);
+			Arrays.fill(unchanged, false);
+			//keep quotes with unchanged price and quantity
+			for (int i = 0; i < levels; i++) {
+				for (int slot = 0; slot < ids.length; slot++) {
+					if (!kept[slot] & ids[slot] != NO_QUOTE && isSamePrice(prices[slot], nextPrices[i]) & quantities[slot] == nextQuantities[i]) {
+						kept[slot] = true;
+						unchanged[i] = true;
+						break;
+					}
+				}
+			}
+			//amend other quotes to changed levels, or place new quotes
+			for (int i = 0; i < levels; i++) {
+				if (!unchanged[i]) {
+					final int slot = nextSlot();
+					if (ids[slot] == NO_QUOTE || !quoteManager.amendQuote(ids[slot], nextPrices[i], nextQuantities[i])) {
+						ids[slot] = quoteManager.placeQuote(assetPair, party, side, nextPrices[i], nextQuantities[i]);
+					}
+					prices[slot] = nextPrices[i];
+					quantities[slot] = nextQuantities[i];
+					kept[slot] = true;
+				}
+			}
+			//cancel quotes of levels no longer quoted
+			for (int slot = 0; slot < ids.length; slot++) {
+				if (!kept[slot] & ids[slot] != NO_QUOTE) {
+					quoteManager.cancelQuote(ids[slot]);
+					ids[slot] = NO_QUOTE;
+				}
+			}
+		}
+
+		private static boolean isSamePrice(double price, double nextPrice) {
+			return price == nextPrice || Math.abs(price - nextPrice) <= PRICE_TOLERANCE * Math.abs(nextPrice);
+		}
+
+		/** Returns a slot not kept yet, preferring slots with a resting quote */
+		private int nextSlot() {
+			int free = -1;
+			for (int slot = 0; slot < ids.length; slot++) {
+				if (!kept[slot]) {
+					if (ids[slot] != NO_QUOTE) {
+						return slot;
+					}
+					if (free < 0) {
+						free = slot;
+					}
+				}
+			}
+			return free;
+		}
+
+		void onFill(long quoteId, long leavesQuantity) {
+			for (int slot = 0; slot < ids.length; slot++) {
+				if (ids[slot] == quoteId & quoteId != NO_QUOTE) {
+					quantities[slot] = leavesQuantity;
+					if (leavesQuantity == 0) {
+						ids[slot] = NO_QUOTE;
+					}
+					return;
+				}
+			}
 		}
 	}
 	
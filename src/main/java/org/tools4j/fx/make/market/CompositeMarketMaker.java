@@ -23,29 +23,207 @@
  */
 package org.tools4j.fx.make.market;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.tools4j.fx.make.asset.AssetPair;
 import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.ExecutionListener;
+import org.tools4j.fx.make.execution.ExecutionReport;
 import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.Side;
 
 /**
  * A {@link MarketMaker} composite of multiple underlying makers. Provides an
  * easy way to support multiply asset-pairs by simply composing
  * single-asset-pair makers.
+ * <p>
+ * Market events are only routed to the underlying makers subscribed to the
+ * event's asset pair and type, see {@link MarketEventRouter}. Best order
+ * changes and deals mark the underlying makers for the affected asset pair as
+ * due; other underlying makers are skipped when orders are requested.
+ * Execution reports are routed to the underlying makers of the report's party.
+ * <p>
+ * Orders of the underlying makers can be computed concurrently, see
+ * {@link #setConcurrentQuoting(Executor, long, TimeUnit)}. Underlying makers
+ * never receive events and their quotes are never modified while they are
+ * computing orders, hence they need not be thread safe.
  */
 public class CompositeMarketMaker extends CompositeOrderFlow implements MarketMaker {
 
+	private final MarketEventRouter router;
+	private final Gate[] gates;
+	private final Map<String, Gate[]> gatesByParty;
+	private final List<CompletableFuture<List<Order>>> pendingOrders;
+	private final long[] pendingRounds;
+	private int pendingCount;
+	private Executor executor;
+	private long deadlineNanos;
+	private long round;
+	private long missedDeadlines;
+
 	public CompositeMarketMaker(MarketMaker... marketMakers) {
 		super(marketMakers);
+		this.gates = new Gate[marketMakers.length];
+		for (int i = 0; i < marketMakers.length; i++) {
+			gates[i] = new Gate(marketMakers[i]);
+		}
+		this.router = new MarketEventRouter(gates);
+		this.gatesByParty = groupByParty(gates);
+		this.pendingOrders = new ArrayList<>(Collections.nCopies(marketMakers.length, null));
+		this.pendingRounds = new long[marketMakers.length];
 	}
 
 	public CompositeMarketMaker(Collection<? extends MarketMaker> marketMakers) {
 		this(marketMakers.toArray(new MarketMaker[marketMakers.size()]));
 	}
 
+	/**
+	 * Enables concurrent computation of the orders of the underlying makers.
+	 * Due makers are invoked on the given executor, for instance a fork-join
+	 * pool, and their orders are gathered in the order of the makers. Makers
+	 * missing the deadline of the round contribute no orders to this round and
+	 * are not invoked again while still busy. A result completed after the
+	 * deadline of the round it was started in is stale and discarded; the
+	 * maker is invoked again in the round the stale result is found.
+	 * <p>
+	 * Market events and execution reports for a maker computing orders are
+	 * held back and delivered on the calling thread once its orders have been
+	 * gathered or discarded; makers are hence never accessed by two threads at
+	 * the same time.
+	 * <p>
+	 * If a {@link QuoteManager} is set, quotes placed, amended or cancelled by
+	 * a maker computing orders are recorded and applied on the calling thread
+	 * when its result is gathered. The resting quotes of a maker missing the
+	 * deadline are left alone, that is, the maker keeps its previous quotes
+	 * until a result is gathered in time. Recorded quote changes of a stale
+	 * result are not applied on their own but merged with the changes of the
+	 * maker invoked again.
+	 * 
+	 * @param executor
+	 *            the executor computing orders, null to compute orders on the
+	 *            calling thread
+	 * @param deadline
+	 *            the maximum time to wait for the orders of a round
+	 * @param unit
+	 *            the time unit of the deadline argument
+	 */
+	public void setConcurrentQuoting(Executor executor, long deadline, TimeUnit unit) {
+		if (deadline < 0) {
+			throw new IllegalArgumentException("deadline is negative: " + deadline);
+		}
+		this.executor = executor;
+		this.deadlineNanos = unit.toNanos(deadline);
+	}
+
+	/**
+	 * Returns the number of times an underlying maker missed the deadline for
+	 * concurrently computed orders.
+	 * 
+	 * @return the number of missed deadlines
+	 */
+	public long getMissedDeadlines() {
+		return missedDeadlines;
+	}
+
+	@Override
+	public List<Order> nextOrders() {
+		if (executor == null & pendingCount == 0) {
+			return super.nextOrders();
+		}
+		final Executor executor = this.executor == null ? Runnable::run : this.executor;
+		final long deadline = System.nanoTime() + deadlineNanos;
+		round++;
+		for (int i = 0; i < orderFlows.length; i++) {
+			final CompletableFuture<List<Order>> pending = pendingOrders.get(i);
+			if (pending == null) {
+				if (pollDue(i)) {
+					invoke(i, executor);
+				}
+			} else if (pending.isDone()) {
+				//stale result completed after the deadline of its round
+				discard(i);
+				pollDue(i);
+				invoke(i, executor);
+			} else {
+				//still computing, no orders for this maker in this round
+				missedDeadlines++;
+			}
+		}
+		orders.clear();
+		for (int i = 0; i < orderFlows.length; i++) {
+			if (pendingOrders.get(i) != null && pendingRounds[i] == round) {
+				awaitOrders(i, deadline, orders);
+			}
+		}
+		return orders;
+	}
+
+	private void invoke(int index, Executor executor) {
+		gates[index].hold();
+		pendingOrders.set(index, CompletableFuture.supplyAsync(orderFlows[index]::nextOrders, executor));
+		pendingRounds[index] = round;
+		pendingCount++;
+	}
+
+	private void discard(int index) {
+		final CompletableFuture<List<Order>> pending = pendingOrders.get(index);
+		pendingOrders.set(index, null);
+		pendingCount--;
+		try {
+			pending.get();
+			//quote changes are kept and merged with those of the next invocation
+			gates[index].releaseEvents();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while discarding orders of " + orderFlows[index], e);
+		} catch (final ExecutionException e) {
+			throw failed(index, e);
+		}
+	}
+
+	private void awaitOrders(int index, long deadline, List<Order> orders) {
+		final CompletableFuture<List<Order>> pending = pendingOrders.get(index);
+		try {
+			final List<Order> result = pending.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			pendingOrders.set(index, null);
+			pendingCount--;
+			gates[index].release();
+			orders.addAll(result);
+		} catch (final TimeoutException e) {
+			//no orders for this maker in this round, its quotes are left alone
+			missedDeadlines++;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for orders of " + orderFlows[index], e);
+		} catch (final ExecutionException e) {
+			pendingOrders.set(index, null);
+			pendingCount--;
+			throw failed(index, e);
+		}
+	}
+
+	private RuntimeException failed(int index, ExecutionException e) {
+		gates[index].discardQuotes();
+		gates[index].releaseEvents();
+		if (e.getCause() instanceof RuntimeException) {
+			return (RuntimeException) e.getCause();
+		}
+		return new IllegalStateException("computing orders failed for " + orderFlows[index] + ": " + e.getCause(), e.getCause());
+	}
+
 	@Override
 	public Set<? extends AssetPair<?, ?>> getAssetPairs() {
 		final Set<AssetPair<?, ?>> assetPairs = new LinkedHashSet<>();
@@ -55,24 +233,268 @@ public class CompositeMarketMaker extends CompositeOrderFlow implements MarketMa
 		return assetPairs;
 	}
 
+	@Override
+	public Set<String> getParties() {
+		return gatesByParty.keySet();
+	}
+
+	@Override
+	public boolean isSubscribed(AssetPair<?, ?> assetPair, EventType eventType) {
+		return router.isSubscribed(assetPair, eventType);
+	}
+
 	@Override
 	public void onOrder(Order order) {
-		for (final MarketMaker marketMaker : (MarketMaker[]) orderFlows) {
-			marketMaker.onOrder(order);
-		}
+		router.onOrder(order);
 	}
 
 	@Override
 	public void onDeal(Deal deal) {
-		for (final MarketMaker marketMaker : (MarketMaker[]) orderFlows) {
-			marketMaker.onDeal(deal);
-		}
+		router.onDeal(deal);
+		markUpdated(deal.getAssetPair());
 	}
 	
 	@Override
 	public void onBest(Order order) {
-		for (final MarketMaker marketMaker : (MarketMaker[]) orderFlows) {
-			marketMaker.onBest(order);
+		router.onBest(order);
+		markUpdated(order.getAssetPair());
+	}
+
+	@Override
+	public void onDepth(DepthUpdate depthUpdate) {
+		router.onDepth(depthUpdate);
+	}
+
+	@Override
+	public void setQuoteManager(QuoteManager quoteManager) {
+		for (final Gate gate : gates) {
+			gate.setQuoteManager(quoteManager);
+		}
+	}
+
+	@Override
+	public void onExecution(ExecutionReport executionReport) {
+		final Gate[] partyGates = gatesByParty.get(executionReport.getParty());
+		if (partyGates != null) {
+			for (final Gate gate : partyGates) {
+				gate.onExecution(executionReport);
+			}
+		}
+	}
+
+	private static Map<String, Gate[]> groupByParty(Gate[] gates) {
+		final Map<String, List<Gate>> gatesByParty = new LinkedHashMap<>();
+		for (final Gate gate : gates) {
+			for (final String party : gate.marketMaker.getParties()) {
+				gatesByParty.computeIfAbsent(party, k -> new ArrayList<>()).add(gate);
+			}
+		}
+		final Map<String, Gate[]> result = new LinkedHashMap<>();
+		gatesByParty.forEach((party, partyGates) -> result.put(party, partyGates.toArray(new Gate[partyGates.size()])));
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * Delivers events to an underlying maker, or holds them back while the
+	 * maker is computing orders on another thread. Quote changes of the maker
+	 * are passed to the quote manager, or recorded while the maker is
+	 * computing orders and applied on release.
+	 */
+	private static final class Gate implements MarketObserver, ExecutionListener, QuoteManager {
+		private final MarketMaker marketMaker;
+		private final List<Runnable> held = new ArrayList<>();
+		private final Map<Long, Quote> quotes = new LinkedHashMap<>();
+		private QuoteManager quoteManager;
+		private boolean holding;
+
+		Gate(MarketMaker marketMaker) {
+			this.marketMaker = marketMaker;
+		}
+
+		void setQuoteManager(QuoteManager quoteManager) {
+			this.quoteManager = quoteManager;
+			marketMaker.setQuoteManager(quoteManager == null ? null : this);
+		}
+
+		void hold() {
+			holding = true;
+		}
+
+		void release() {
+			//still holding: executions of the applied quotes are delivered after held events
+			for (final Map.Entry<Long, Quote> entry : quotes.entrySet()) {
+				final long quoteId = entry.getKey();
+				final Quote quote = entry.getValue();
+				if (quote.cancelled) {
+					quoteManager.cancelQuote(quoteId);
+				} else if (quote.assetPair != null) {
+					quoteManager.placeQuote(quoteId, quote.assetPair, quote.party, quote.side, quote.price, quote.quantity);
+				} else {
+					quoteManager.amendQuote(quoteId, quote.price, quote.quantity);
+				}
+			}
+			quotes.clear();
+			releaseEvents();
+		}
+
+		void releaseEvents() {
+			holding = false;
+			for (int i = 0; i < held.size(); i++) {
+				held.get(i).run();
+			}
+			held.clear();
+		}
+
+		void discardQuotes() {
+			quotes.clear();
+		}
+
+		@Override
+		public long placeQuote(AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity) {
+			if (!holding) {
+				return quoteManager.placeQuote(assetPair, party, side, price, quantity);
+			}
+			validate(price, quantity);
+			final long quoteId = Order.ID_GENERATOR.incrementAndGet();
+			quotes.put(quoteId, new Quote(Objects.requireNonNull(assetPair, "assetPair is null"), Objects.requireNonNull(party, "party is null"), Objects.requireNonNull(side, "side is null"), price, quantity));
+			return quoteId;
+		}
+
+		@Override
+		public void placeQuote(long quoteId, AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity) {
+			if (!holding) {
+				quoteManager.placeQuote(quoteId, assetPair, party, side, price, quantity);
+				return;
+			}
+			validate(price, quantity);
+			if (quotes.containsKey(quoteId)) {
+				throw new IllegalArgumentException("quote ID is in use: " + quoteId);
+			}
+			quotes.put(quoteId, new Quote(Objects.requireNonNull(assetPair, "assetPair is null"), Objects.requireNonNull(party, "party is null"), Objects.requireNonNull(side, "side is null"), price, quantity));
+		}
+
+		@Override
+		public boolean amendQuote(long quoteId, double price, long quantity) {
+			if (!holding) {
+				return quoteManager.amendQuote(quoteId, price, quantity);
+			}
+			validate(price, quantity);
+			final Quote quote = quotes.get(quoteId);
+			if (quote == null) {
+				//assumed resting, fills while computing are delivered on release
+				quotes.put(quoteId, new Quote(null, null, null, price, quantity));
+				return true;
+			}
+			if (quote.cancelled) {
+				return false;
+			}
+			quote.price = price;
+			quote.quantity = quantity;
+			return true;
+		}
+
+		@Override
+		public boolean cancelQuote(long quoteId) {
+			if (!holding) {
+				return quoteManager.cancelQuote(quoteId);
+			}
+			final Quote quote = quotes.get(quoteId);
+			if (quote == null) {
+				final Quote cancelled = new Quote(null, null, null, Double.NaN, 0);
+				cancelled.cancelled = true;
+				quotes.put(quoteId, cancelled);
+				return true;
+			}
+			if (quote.cancelled) {
+				return false;
+			}
+			if (quote.assetPair != null) {
+				//never placed
+				quotes.remove(quoteId);
+			} else {
+				quote.cancelled = true;
+			}
+			return true;
+		}
+
+		private static void validate(double price, long quantity) {
+			if (price < 0 | Double.isNaN(price)) {
+				throw new IllegalArgumentException("illegal price: " + price);
+			}
+			if (quantity <= 0) {
+				throw new IllegalArgumentException("illegal quantity: " + quantity);
+			}
+		}
+
+		@Override
+		public boolean isSubscribed(AssetPair<?, ?> assetPair, EventType eventType) {
+			return marketMaker.isSubscribed(assetPair, eventType);
+		}
+
+		@Override
+		public void onOrder(Order order) {
+			if (holding) {
+				held.add(() -> marketMaker.onOrder(order));
+			} else {
+				marketMaker.onOrder(order);
+			}
+		}
+
+		@Override
+		public void onDeal(Deal deal) {
+			if (holding) {
+				held.add(() -> marketMaker.onDeal(deal));
+			} else {
+				marketMaker.onDeal(deal);
+			}
+		}
+
+		@Override
+		public void onBest(Order order) {
+			if (holding) {
+				held.add(() -> marketMaker.onBest(order));
+			} else {
+				marketMaker.onBest(order);
+			}
+		}
+
+		@Override
+		public void onDepth(DepthUpdate depthUpdate) {
+			if (holding) {
+				held.add(() -> marketMaker.onDepth(depthUpdate));
+			} else {
+				marketMaker.onDepth(depthUpdate);
+			}
+		}
+
+		@Override
+		public void onExecution(ExecutionReport executionReport) {
+			if (holding) {
+				held.add(() -> marketMaker.onExecution(executionReport));
+			} else {
+				marketMaker.onExecution(executionReport);
+			}
+		}
+	}
+
+	/**
+	 * A recorded quote change; asset pair, party and side are only set for
+	 * new quotes.
+	 */
+	private static final class Quote {
+		private final AssetPair<?, ?> assetPair;
+		private final String party;
+		private final Side side;
+		private double price;
+		private long quantity;
+		private boolean cancelled;
+
+		Quote(AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity) {
+			this.assetPair = assetPair;
+			this.party = party;
+			this.side = side;
+			this.price = price;
+			this.quantity = quantity;
 		}
 	}
 
@@ -28,6 +28,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+import org.tools4j.fx.make.asset.AssetPair;
 import org.tools4j.fx.make.execution.Order;
 import org.tools4j.fx.make.flow.OrderFlow;
 
@@ -35,16 +36,30 @@ import org.tools4j.fx.make.flow.OrderFlow;
  * A {@link OrderFlow} composite of multiple underlying flows. Provides an easy
  * way to construct a single multiply asset-pair flow from single-asset-pair
  * flows.
+ * <p>
+ * Underlying {@link MarketMaker}s are only asked for orders if a market update
+ * for one of their asset pairs has been signalled via
+ * {@link #markUpdated(AssetPair)} since they were last asked; other flows are
+ * asked for orders every time. Flows are asked in the order they were passed
+ * to the constructor.
+ * <p>
+ * The list returned by {@link #nextOrders()} is reused and only valid until
+ * the next invocation.
+ * <p>
+ * The class is NOT thread safe.
  */
 public class CompositeOrderFlow implements OrderFlow {
 
 	protected final OrderFlow[] orderFlows;
+	protected final List<Order> orders = new ArrayList<>();
+	private final MarketMakerScheduler scheduler;
 
 	public CompositeOrderFlow(OrderFlow... orderFlows) {
 		this.orderFlows = Arrays.copyOf(orderFlows, orderFlows.length);
 		if (Arrays.stream(orderFlows).anyMatch(x -> x == null)) {
 			throw new IllegalArgumentException("at least one element in array is null: " + Arrays.toString(orderFlows));
 		}
+		this.scheduler = new MarketMakerScheduler(this.orderFlows);
 	}
 
 	public CompositeOrderFlow(Collection<? extends OrderFlow> orderFlows) {
@@ -53,10 +68,36 @@ public class CompositeOrderFlow implements OrderFlow {
 
 	@Override
 	public List<Order> nextOrders() {
-		final ArrayList<Order> orders = new ArrayList<>();
-		for (final OrderFlow orderFlow : orderFlows) {
-			orders.addAll(orderFlow.nextOrders());
+		orders.clear();
+		for (int i = 0; i < orderFlows.length; i++) {
+			if (pollDue(i)) {
+				orders.addAll(orderFlows[i].nextOrders());
+			}
 		}
 		return orders;
 	}
+
+	/**
+	 * Returns true if the order flow at the given index should be asked for
+	 * orders in this round and clears its due flag.
+	 * 
+	 * @param index
+	 *            the index of the order flow
+	 * @return true if the flow is due
+	 */
+	protected boolean pollDue(int index) {
+		return scheduler.pollDue(index);
+	}
+
+	/**
+	 * Signals a market update such as a best order change or a deal for the
+	 * given asset pair. Market makers for this pair will be asked for orders
+	 * in the next call to {@link #nextOrders()}.
+	 * 
+	 * @param assetPair
+	 *            the asset pair with a market update
+	 */
+	public void markUpdated(AssetPair<?, ?> assetPair) {
+		scheduler.markUpdated(assetPair);
+	}
 }
@@ -0,0 +1,98 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * Imbalance between time-decayed buy and sell volumes, updated in constant
+ * time without allocation. The imbalance is
+ * {@code (buyVolume - sellVolume) / (buyVolume + sellVolume)}, ranging from -1
+ * if only sells to +1 if only buys have been seen recently.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public final class DecayingImbalance {
+
+	private final DecayingSum buyVolume;
+	private final DecayingSum sellVolume;
+
+	public DecayingImbalance(long halfLife, TimeUnit unit) {
+		this.buyVolume = new DecayingSum(halfLife, unit);
+		this.sellVolume = new DecayingSum(halfLife, unit);
+	}
+
+	/**
+	 * Adds volume for the given side.
+	 * 
+	 * @param side
+	 *            the side initiating the trade
+	 * @param quantity
+	 *            the traded quantity
+	 * @param time
+	 *            the time in nanoseconds
+	 */
+	public void update(Side side, double quantity, long time) {
+		Objects.requireNonNull(side, "side is null");
+		buyVolume.add(side == Side.BUY ? quantity : 0, time);
+		sellVolume.add(side == Side.SELL ? quantity : 0, time);
+	}
+
+	/**
+	 * Returns the imbalance of buy and sell volume. Both volumes decay at the
+	 * same rate, hence the imbalance only changes with new volume.
+	 * 
+	 * @return the imbalance in [-1, 1], zero if no volume has been seen
+	 */
+	public double getImbalance() {
+		final double buy = buyVolume.getSum(Long.MIN_VALUE);
+		final double sell = sellVolume.getSum(Long.MIN_VALUE);
+		final double total = buy + sell;
+		return total > 0 ? (buy - sell) / total : 0;
+	}
+
+	/**
+	 * Returns the total buy and sell volume decayed to the given time.
+	 * 
+	 * @param time
+	 *            the time in nanoseconds
+	 * @return the decayed volume
+	 */
+	public double getVolume(long time) {
+		return buyVolume.getSum(time) + sellVolume.getSum(time);
+	}
+
+	public void reset() {
+		buyVolume.reset();
+		sellVolume.reset();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{imbalance=" + getImbalance() + "}";
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sum of values decaying exponentially with a half life, updated in constant
+ * time without allocation. Used for instance to count quote arrivals and to
+ * derive the arrival rate.
+ * <p>
+ * Times are in nanoseconds from an arbitrary origin, for instance the tick
+ * time of replayed data or {@link System#nanoTime()}, and must not decrease.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public final class DecayingSum {
+
+	private static final double LN2 = Math.log(2);
+
+	private final long halfLifeNanos;
+	private final double decayPerNano;
+	private double sum;
+	private long lastTime = Long.MIN_VALUE;
+
+	public DecayingSum(long halfLife, TimeUnit unit) {
+		this.halfLifeNanos = unit.toNanos(halfLife);
+		if (halfLifeNanos <= 0) {
+			throw new IllegalArgumentException("halfLife must be positive: " + halfLife + " " + unit);
+		}
+		this.decayPerNano = LN2 / halfLifeNanos;
+	}
+
+	private double decayed(long time) {
+		if (lastTime == Long.MIN_VALUE | time <= lastTime) {
+			return sum;
+		}
+		return sum * Math.exp(-decayPerNano * (time - lastTime));
+	}
+
+	public void add(double value, long time) {
+		sum = decayed(time) + value;
+		lastTime = Math.max(time, lastTime);
+	}
+
+	/**
+	 * Returns the sum decayed to the given time.
+	 * 
+	 * @param time
+	 *            the time in nanoseconds
+	 * @return the decayed sum
+	 */
+	public double getSum(long time) {
+		return decayed(time);
+	}
+
+	/**
+	 * Returns the rate of the added values per second at the given time.
+	 * For values added at a constant rate the decayed sum converges to the
+	 * rate times the mean life {@code halfLife / ln(2)}.
+	 * 
+	 * @param time
+	 *            the time in nanoseconds
+	 * @return the rate per second
+	 */
+	public double getRatePerSecond(long time) {
+		return decayed(time) * decayPerNano * TimeUnit.SECONDS.toNanos(1);
+	}
+
+	public long getHalfLifeNanos() {
+		return halfLifeNanos;
+	}
+
+	public void reset() {
+		sum = 0;
+		lastTime = Long.MIN_VALUE;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{halfLifeNanos=" + halfLifeNanos + ", sum=" + sum + "}";
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * An incremental level-2 update for one price level of an order book. The
+ * update carries the new aggregate quantity and order count of the level; a
+ * zero quantity indicates that the level has been removed or has moved out of
+ * the published depth.
+ */
+public interface DepthUpdate {
+	/**
+	 * The asset pair of the order book.
+	 * 
+	 * @return the asset pair
+	 */
+	AssetPair<?, ?> getAssetPair();
+
+	/**
+	 * The side of the price level.
+	 * 
+	 * @return the book side
+	 */
+	Side getSide();
+
+	/**
+	 * The price of the level.
+	 * 
+	 * @return the level price
+	 */
+	double getPrice();
+
+	/**
+	 * The new aggregate quantity of all orders in the level.
+	 * 
+	 * @return the level quantity, zero if the level was removed
+	 */
+	long getQuantity();
+
+	/**
+	 * The new number of orders in the level.
+	 * 
+	 * @return the order count, zero if the level was removed
+	 */
+	int getOrderCount();
+
+	/**
+	 * Returns true if the level was removed.
+	 * 
+	 * @return true if the quantity is zero
+	 */
+	default boolean isRemoved() {
+		return getQuantity() == 0;
+	}
+
+	/**
+	 * Returns a string of the form: BUY:AUD/USD[1.2M@1.246370]#3
+	 * @return a short string with side, symbol, quantity, price and order count
+	 */
+	String toShortString();
+}
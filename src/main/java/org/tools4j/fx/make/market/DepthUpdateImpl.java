@@ -0,0 +1,94 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import static org.tools4j.fx.make.util.StringUtil.formatQuantityAndPrice;
+
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * An immutable {@link DepthUpdate}.
+ */
+public class DepthUpdateImpl implements DepthUpdate {
+
+	private final AssetPair<?, ?> assetPair;
+	private final Side side;
+	private final double price;
+	private final long quantity;
+	private final int orderCount;
+
+	public DepthUpdateImpl(AssetPair<?, ?> assetPair, Side side, double price, long quantity, int orderCount) {
+		this.assetPair = Objects.requireNonNull(assetPair, "assetPair is null");
+		this.side = Objects.requireNonNull(side, "side is null");
+		if (quantity < 0) {
+			throw new IllegalArgumentException("quantity is negative: " + quantity);
+		}
+		if (orderCount < 0) {
+			throw new IllegalArgumentException("orderCount is negative: " + orderCount);
+		}
+		this.price = price;
+		this.quantity = quantity;
+		this.orderCount = orderCount;
+	}
+
+	@Override
+	public AssetPair<?, ?> getAssetPair() {
+		return assetPair;
+	}
+
+	@Override
+	public Side getSide() {
+		return side;
+	}
+
+	@Override
+	public double getPrice() {
+		return price;
+	}
+
+	@Override
+	public long getQuantity() {
+		return quantity;
+	}
+
+	@Override
+	public int getOrderCount() {
+		return orderCount;
+	}
+
+	@Override
+	public String toShortString() {
+		return side + ":" + assetPair + "[" + formatQuantityAndPrice(quantity, price) + "]#" + orderCount;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{assetPair=" + assetPair + ", side=" + side + ", price=" + price
+				+ ", quantity=" + quantity + ", orderCount=" + orderCount + "}";
+	}
+
+}
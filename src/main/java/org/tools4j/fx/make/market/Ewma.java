@@ -0,0 +1,97 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+/**
+ * Exponentially weighted moving average updated in constant time without
+ * allocation. The first value initialises the average.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public final class Ewma {
+
+	private final double alpha;
+	private double value = Double.NaN;
+	private long count;
+
+	/**
+	 * Constructor with smoothing factor.
+	 * 
+	 * @param alpha
+	 *            the weight of a new value, in (0, 1]
+	 */
+	public Ewma(double alpha) {
+		if (!(alpha > 0 & alpha <= 1)) {
+			throw new IllegalArgumentException("alpha must be in (0, 1]: " + alpha);
+		}
+		this.alpha = alpha;
+	}
+
+	/**
+	 * Returns an EWMA whose weights correspond to a simple moving average of
+	 * the given length, that is, {@code alpha = 2 / (length + 1)}.
+	 * 
+	 * @param length
+	 *            the equivalent window length, positive
+	 * @return a new EWMA
+	 */
+	public static Ewma withLength(int length) {
+		if (length < 1) {
+			throw new IllegalArgumentException("length must be positive: " + length);
+		}
+		return new Ewma(2.0 / (length + 1));
+	}
+
+	public void update(double value) {
+		if (count == 0) {
+			this.value = value;
+		} else {
+			this.value += alpha * (value - this.value);
+		}
+		count++;
+	}
+
+	/**
+	 * Returns the current average, NaN if no value has been added.
+	 * 
+	 * @return the average
+	 */
+	public double getValue() {
+		return value;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void reset() {
+		value = Double.NaN;
+		count = 0;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{alpha=" + alpha + ", value=" + value + ", count=" + count + "}";
+	}
+}
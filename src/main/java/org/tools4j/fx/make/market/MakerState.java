@@ -0,0 +1,117 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.tools4j.fx.make.asset.Asset;
+import org.tools4j.fx.make.position.AssetPositions;
+
+/**
+ * Snapshot of the state of a market maker: its positions and the market
+ * observations driving its quotes, such as last bid and offer of a
+ * {@link MidSource} and the own fill trend of a {@link TrendSkew}. A state
+ * captured from one maker can be restored into another maker, for instance a
+ * maker with a different spread continuing a backtest from the state reached
+ * by the first maker; components not present in the state or in the maker are
+ * left alone.
+ * <p>
+ * Resting quotes and shared market indicators are not part of the state.
+ * <p>
+ * The class is immutable.
+ * 
+ * @see MarketMaker#snapshotState()
+ * @see MarketMaker#restoreState(MakerState)
+ */
+public final class MakerState {
+
+	private final Map<Asset, Double> positionByAsset;
+	private final MidSource midSource;
+	private final TrendSkew trendSkew;
+
+	/**
+	 * Constructor with positions and optional pricing stages, all copied.
+	 * 
+	 * @param positions
+	 *            the positions of the maker
+	 * @param midSource
+	 *            the mid source of the maker, or null if none
+	 * @param trendSkew
+	 *            the trend skew of the maker, or null if none
+	 */
+	public MakerState(AssetPositions positions, MidSource midSource, TrendSkew trendSkew) {
+		Objects.requireNonNull(positions, "positions is null");
+		final Map<Asset, Double> positionByAsset = new HashMap<>();
+		for (final Asset asset : positions.getAssets()) {
+			positionByAsset.put(asset, positions.getPosition(asset));
+		}
+		this.positionByAsset = Collections.unmodifiableMap(positionByAsset);
+		this.midSource = midSource == null ? null : midSource.copy();
+		this.trendSkew = trendSkew == null ? null : trendSkew.copy();
+	}
+
+	public Set<Asset> getAssets() {
+		return positionByAsset.keySet();
+	}
+
+	public double getPosition(Asset asset) {
+		final Double position = positionByAsset.get(asset);
+		return position == null ? 0 : position.doubleValue();
+	}
+
+	/**
+	 * Copies the state of the mid source into the given mid source, if this
+	 * state has a mid source.
+	 * 
+	 * @param midSource
+	 *            the mid source to restore
+	 */
+	void restore(MidSource midSource) {
+		if (this.midSource != null) {
+			midSource.copyFrom(this.midSource);
+		}
+	}
+
+	/**
+	 * Copies the state of the trend skew into the given trend skew, if this
+	 * state has a trend skew.
+	 * 
+	 * @param trendSkew
+	 *            the trend skew to restore
+	 */
+	void restore(TrendSkew trendSkew) {
+		if (this.trendSkew != null) {
+			trendSkew.copyFrom(this.trendSkew);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + positionByAsset;
+	}
+}
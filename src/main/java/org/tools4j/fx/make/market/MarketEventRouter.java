@@ -0,0 +1,125 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.Order;
+
+/**
+ * Routes market events to subscribed {@link MarketObserver}s only. Subscriber
+ * arrays are kept per {@link AssetPair#getId() asset pair id} and
+ * {@link MarketObserver.EventType event type}; they are resolved via
+ * {@link MarketObserver#isSubscribed(AssetPair, EventType)} when an asset pair
+ * is first seen. Subscribers receive events in the order in which they were
+ * passed to the constructor.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public class MarketEventRouter implements MarketObserver {
+
+	private static final EventType[] EVENT_TYPES = EventType.values();
+	private static final MarketObserver[] NONE = new MarketObserver[0];
+
+	private final MarketObserver[] observers;
+	private MarketObserver[][] subscribersByPairIdAndType = new MarketObserver[0][];
+
+	public MarketEventRouter(MarketObserver... observers) {
+		this.observers = Arrays.copyOf(observers, observers.length, MarketObserver[].class);
+		if (Arrays.stream(observers).anyMatch(x -> x == null)) {
+			throw new IllegalArgumentException("at least one element in array is null: " + Arrays.toString(observers));
+		}
+	}
+
+	public MarketEventRouter(Collection<? extends MarketObserver> observers) {
+		this(observers.toArray(new MarketObserver[observers.size()]));
+	}
+
+	/**
+	 * Returns true if any of the underlying observers is subscribed to the
+	 * given asset pair and event type.
+	 */
+	@Override
+	public boolean isSubscribed(AssetPair<?, ?> assetPair, EventType eventType) {
+		return getSubscribers(assetPair, eventType).length > 0;
+	}
+
+	@Override
+	public void onOrder(Order order) {
+		for (final MarketObserver observer : getSubscribers(order.getAssetPair(), EventType.ORDER)) {
+			observer.onOrder(order);
+		}
+	}
+
+	@Override
+	public void onBest(Order order) {
+		for (final MarketObserver observer : getSubscribers(order.getAssetPair(), EventType.BEST)) {
+			observer.onBest(order);
+		}
+	}
+
+	@Override
+	public void onDeal(Deal deal) {
+		for (final MarketObserver observer : getSubscribers(deal.getAssetPair(), EventType.DEAL)) {
+			observer.onDeal(deal);
+		}
+	}
+
+	@Override
+	public void onDepth(DepthUpdate depthUpdate) {
+		for (final MarketObserver observer : getSubscribers(depthUpdate.getAssetPair(), EventType.DEPTH)) {
+			observer.onDepth(depthUpdate);
+		}
+	}
+
+	private MarketObserver[] getSubscribers(AssetPair<?, ?> assetPair, EventType eventType) {
+		Objects.requireNonNull(assetPair, "assetPair is null");
+		final int index = assetPair.getId() * EVENT_TYPES.length + eventType.ordinal();
+		if (index >= subscribersByPairIdAndType.length) {
+			subscribersByPairIdAndType = Arrays.copyOf(subscribersByPairIdAndType, Math.max(index + EVENT_TYPES.length, 2 * subscribersByPairIdAndType.length));
+		}
+		MarketObserver[] subscribers = subscribersByPairIdAndType[index];
+		if (subscribers == null) {
+			subscribers = resolveSubscribers(assetPair, eventType);
+			subscribersByPairIdAndType[index] = subscribers;
+		}
+		return subscribers;
+	}
+
+	private MarketObserver[] resolveSubscribers(AssetPair<?, ?> assetPair, EventType eventType) {
+		final List<MarketObserver> subscribers = new ArrayList<>();
+		for (final MarketObserver observer : observers) {
+			if (observer.isSubscribed(assetPair, eventType)) {
+				subscribers.add(observer);
+			}
+		}
+		return subscribers.isEmpty() ? NONE : subscribers.toArray(new MarketObserver[subscribers.size()]);
+	}
+}
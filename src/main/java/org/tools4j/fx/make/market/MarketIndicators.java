@@ -0,0 +1,196 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * Streaming market indicators for a single asset pair, fed from market events
+ * and updated in constant time without allocation:
+ * <ul>
+ * <li><b>volatility:</b> {@link RollingVariance rolling} standard deviation of
+ * log returns between consecutive deals</li>
+ * <li><b>average price:</b> {@link Ewma} of deal prices</li>
+ * <li><b>trade imbalance:</b> {@link DecayingImbalance} of deal quantities,
+ * classified as buy or sell initiated by comparing the deal price with the
+ * mid of the last best bid and offer (tick rule if no mid is known)</li>
+ * <li><b>quote rate:</b> {@link DecayingSum time-decayed} arrival rate of best
+ * orders</li>
+ * </ul>
+ * One instance per pair is added to the matching engine as
+ * {@link MarketObserver} and shared by all makers of the pair, for instance
+ * via {@link PricingMarketMaker.Builder#withVolatilitySpread(MarketIndicators, double)},
+ * instead of each maker recomputing the same statistics.
+ * <p>
+ * Trade imbalance and quote rate decay in the time of the clock passed to the
+ * constructor. There is no wall-clock default: backtests pass a clock driven
+ * by the replayed data, for instance
+ * {@link org.tools4j.fx.make.flow.TickDataOrderFlow#getTimeNanos()}, to get
+ * reproducible results, live makers pass {@code System::nanoTime}.
+ * <p>
+ * The class is NOT thread safe; it is updated by the engine thread and must be
+ * read by makers invoked from that thread.
+ */
+public class MarketIndicators implements MarketObserver {
+
+	public static final int DEFAULT_WINDOW = 100;
+	public static final long DEFAULT_HALF_LIFE_MILLIS = 1000;
+
+	private final AssetPair<?, ?> assetPair;
+	private final LongSupplier clock;
+	private final RollingVariance logReturns;
+	private final Ewma averagePrice;
+	private final DecayingImbalance tradeImbalance;
+	private final DecayingSum quoteArrivals;
+	private double lastDealPrice = Double.NaN;
+	private double bestBid = Double.NaN;
+	private double bestAsk = Double.NaN;
+
+	/**
+	 * Constructor with default window and half life.
+	 * 
+	 * @param assetPair
+	 *            the asset pair
+	 * @param clock
+	 *            the clock returning the current time in nanoseconds
+	 */
+	public MarketIndicators(AssetPair<?, ?> assetPair, LongSupplier clock) {
+		this(assetPair, DEFAULT_WINDOW, DEFAULT_HALF_LIFE_MILLIS, TimeUnit.MILLISECONDS, clock);
+	}
+
+	/**
+	 * Constructor with all indicator parameters.
+	 * 
+	 * @param assetPair
+	 *            the asset pair
+	 * @param window
+	 *            the number of deals for volatility and average price
+	 * @param halfLife
+	 *            the half life for trade imbalance and quote rate
+	 * @param unit
+	 *            the time unit of the half life
+	 * @param clock
+	 *            the clock returning the current time in nanoseconds
+	 */
+	public MarketIndicators(AssetPair<?, ?> assetPair, int window, long halfLife, TimeUnit unit, LongSupplier clock) {
+		this.assetPair = Objects.requireNonNull(assetPair, "assetPair is null");
+		this.clock = Objects.requireNonNull(clock, "clock is null");
+		this.logReturns = new RollingVariance(window);
+		this.averagePrice = Ewma.withLength(window);
+		this.tradeImbalance = new DecayingImbalance(halfLife, unit);
+		this.quoteArrivals = new DecayingSum(halfLife, unit);
+	}
+
+	public AssetPair<?, ?> getAssetPair() {
+		return assetPair;
+	}
+
+	/**
+	 * Subscribes to best orders and deals of the indicator's asset pair.
+	 */
+	@Override
+	public boolean isSubscribed(AssetPair<?, ?> assetPair, EventType eventType) {
+		return (eventType == EventType.BEST | eventType == EventType.DEAL) && this.assetPair.equals(assetPair);
+	}
+
+	@Override
+	public void onOrder(Order order) {
+		// only best orders
+	}
+
+	@Override
+	public void onBest(Order order) {
+		if (order.getSide() == Side.BUY) {
+			bestBid = order.getPrice();
+		} else {
+			bestAsk = order.getPrice();
+		}
+		quoteArrivals.add(1, clock.getAsLong());
+	}
+
+	@Override
+	public void onDeal(Deal deal) {
+		final double price = deal.getPrice();
+		final double mid = (bestBid + bestAsk) / 2;
+		final double reference = Double.isNaN(mid) | Double.isInfinite(mid) ? lastDealPrice : mid;
+		if (lastDealPrice > 0 & price > 0) {
+			logReturns.update(Math.log(price / lastDealPrice));
+		}
+		if (price != reference & !Double.isNaN(reference)) {
+			tradeImbalance.update(price > reference ? Side.BUY : Side.SELL, deal.getQuantity(), clock.getAsLong());
+		}
+		averagePrice.update(price);
+		lastDealPrice = price;
+	}
+
+	/**
+	 * Returns the standard deviation of log returns between consecutive deals
+	 * in the window.
+	 * 
+	 * @return the deal-to-deal volatility, NaN for less than three deals
+	 */
+	public double getVolatility() {
+		return logReturns.getStdDev();
+	}
+
+	/**
+	 * Returns the exponentially weighted average deal price.
+	 * 
+	 * @return the average price, NaN if no deal has been seen
+	 */
+	public double getAveragePrice() {
+		return averagePrice.getValue();
+	}
+
+	/**
+	 * Returns the imbalance of buy and sell initiated deal volume.
+	 * 
+	 * @return the imbalance in [-1, 1], positive if buyers dominate
+	 */
+	public double getTradeImbalance() {
+		return tradeImbalance.getImbalance();
+	}
+
+	/**
+	 * Returns the arrival rate of best orders.
+	 * 
+	 * @return the time-decayed number of best orders per second
+	 */
+	public double getQuoteRate() {
+		return quoteArrivals.getRatePerSecond(clock.getAsLong());
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{assetPair=" + assetPair + ", volatility=" + getVolatility() + ", averagePrice="
+				+ getAveragePrice() + ", tradeImbalance=" + getTradeImbalance() + "}";
+	}
+}
@@ -23,17 +23,22 @@
  */
 package org.tools4j.fx.make.market;
 
+import java.util.Collections;
 import java.util.Set;
 
 import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.ExecutionListener;
+import org.tools4j.fx.make.execution.ExecutionReport;
 import org.tools4j.fx.make.flow.OrderFlow;
 
 /**
  * A market maker is an {@link OrderFlow} as he provides a stream of making
  * orders (aka BID and OFFER prices); he is also a {@link MarketObserver} as he
  * usually bases the market making activity on observed orders and deals.
+ * Fills of the maker's own orders are delivered as {@link ExecutionReport}s for
+ * the maker's {@link #getParties() parties}.
  */
-public interface MarketMaker extends OrderFlow, MarketObserver {
+public interface MarketMaker extends OrderFlow, MarketObserver, ExecutionListener {
 	/**
 	 * Returns a set with asset-pairs this maker is willing to make a market
 	 * for.
@@ -41,4 +46,73 @@ public interface MarketMaker extends OrderFlow, MarketObserver {
 	 * @return the set of active asset-pairs for this maker
 	 */
 	Set<? extends AssetPair<?, ?>> getAssetPairs();
+
+	/**
+	 * Market makers subscribe to all events except for depth updates for
+	 * their {@link #getAssetPairs() asset pairs} by default.
+	 */
+	@Override
+	default boolean isSubscribed(AssetPair<?, ?> assetPair, EventType eventType) {
+		return eventType != EventType.DEPTH && getAssetPairs().contains(assetPair);
+	}
+
+	/**
+	 * Returns the parties on whose behalf this maker places orders. The
+	 * matching engine delivers execution reports for orders of these parties
+	 * to {@link #onExecution(ExecutionReport)}. Empty by default.
+	 * 
+	 * @return the parties of this maker's orders
+	 */
+	default Set<String> getParties() {
+		return Collections.emptySet();
+	}
+
+	/**
+	 * Provides a quote manager to maintain resting quotes instead of
+	 * returning new orders from {@link #nextOrders()}. Invoked by the
+	 * matching engine if resting quotes are enabled. Makers not supporting
+	 * resting quotes ignore the quote manager, which is the default.
+	 * 
+	 * @param quoteManager
+	 *            the quote manager to place, amend and cancel quotes
+	 */
+	default void setQuoteManager(QuoteManager quoteManager) {
+		// no-op by default
+	}
+
+	/**
+	 * Returns a snapshot of the state of this maker, for instance to continue
+	 * a backtest with other makers from the state reached by this maker. Not
+	 * supported by default.
+	 * 
+	 * @return the current state of this maker
+	 * @throws UnsupportedOperationException
+	 *             if the maker does not support state snapshots
+	 * @see #restoreState(MakerState)
+	 */
+	default MakerState snapshotState() {
+		throw new UnsupportedOperationException("state snapshots not supported by " + getClass().getName());
+	}
+
+	/**
+	 * Restores the given state captured from this or another maker. Not
+	 * supported by default.
+	 * 
+	 * @param state
+	 *            the state to restore
+	 * @throws UnsupportedOperationException
+	 *             if the maker does not support state snapshots
+	 * @see #snapshotState()
+	 */
+	default void restoreState(MakerState state) {
+		throw new UnsupportedOperationException("state snapshots not supported by " + getClass().getName());
+	}
+
+	/**
+	 * Ignores execution reports by default.
+	 */
+	@Override
+	default void onExecution(ExecutionReport executionReport) {
+		// no-op by default
+	}
 }
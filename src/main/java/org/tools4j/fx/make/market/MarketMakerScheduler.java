@@ -0,0 +1,109 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.Arrays;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.flow.OrderFlow;
+
+/**
+ * Keeps track of the {@link MarketMaker}s among a set of order flows which
+ * have a pending market update on one of their asset pairs. Only those makers
+ * need to be asked for new orders; flows that are not market makers are
+ * always due.
+ * <p>
+ * Makers are indexed by {@link AssetPair#getId() asset pair id} when the
+ * scheduler is constructed, hence the asset pairs of a maker must not change
+ * afterwards. All makers are initially due.
+ * <p>
+ * The class is NOT thread safe.
+ */
+final class MarketMakerScheduler {
+
+	private static final int[] NONE = new int[0];
+
+	private final boolean[] isMaker;
+	private final boolean[] dirty;
+	private final int[][] makersByPairId;
+
+	MarketMakerScheduler(OrderFlow[] orderFlows) {
+		this.isMaker = new boolean[orderFlows.length];
+		this.dirty = new boolean[orderFlows.length];
+		int[][] makers = new int[0][];
+		for (int i = 0; i < orderFlows.length; i++) {
+			if (orderFlows[i] instanceof MarketMaker) {
+				isMaker[i] = true;
+				dirty[i] = true;
+				for (final AssetPair<?, ?> assetPair : ((MarketMaker) orderFlows[i]).getAssetPairs()) {
+					final int pairId = assetPair.getId();
+					if (pairId >= makers.length) {
+						final int oldLength = makers.length;
+						makers = Arrays.copyOf(makers, pairId + 1);
+						Arrays.fill(makers, oldLength, makers.length, NONE);
+					}
+					makers[pairId] = Arrays.copyOf(makers[pairId], makers[pairId].length + 1);
+					makers[pairId][makers[pairId].length - 1] = i;
+				}
+			}
+		}
+		this.makersByPairId = makers;
+	}
+
+	/**
+	 * Marks all makers for the specified asset pair as due.
+	 * 
+	 * @param assetPair
+	 *            the asset pair with a market update such as a best order
+	 *            change or a deal
+	 */
+	void markUpdated(AssetPair<?, ?> assetPair) {
+		final int pairId = assetPair.getId();
+		if (pairId < makersByPairId.length) {
+			final int[] makers = makersByPairId[pairId];
+			for (int i = 0; i < makers.length; i++) {
+				dirty[makers[i]] = true;
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the order flow at the specified index is due and resets
+	 * the pending update flag if it is a maker.
+	 * 
+	 * @param index
+	 *            the index of the order flow
+	 * @return true if the flow should be asked for new orders
+	 */
+	boolean pollDue(int index) {
+		if (!isMaker[index]) {
+			return true;
+		}
+		if (dirty[index]) {
+			dirty[index] = false;
+			return true;
+		}
+		return false;
+	}
+}
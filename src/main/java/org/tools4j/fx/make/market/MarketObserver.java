@@ -23,13 +23,49 @@
  */
 package org.tools4j.fx.make.market;
 
+import org.tools4j.fx.make.asset.AssetPair;
 import org.tools4j.fx.make.execution.Deal;
 import org.tools4j.fx.make.execution.Order;
 
 /**
- * Someone who is looking what's on in the market.
+ * Someone who is looking what's on in the market. An observer can restrict
+ * the events it receives to certain asset pairs and event types via
+ * {@link #isSubscribed(AssetPair, EventType)}. Orders passed to an observer
+ * are immutable and can be retained after the callback.
  */
 public interface MarketObserver {
+	/**
+	 * The type of market event, one per callback method.
+	 */
+	enum EventType {
+		/** Event type for {@link MarketObserver#onOrder(Order)} */
+		ORDER,
+		/** Event type for {@link MarketObserver#onBest(Order)} */
+		BEST,
+		/** Event type for {@link MarketObserver#onDeal(Deal)} */
+		DEAL,
+		/** Event type for {@link MarketObserver#onDepth(DepthUpdate)} */
+		DEPTH;
+	}
+
+	/**
+	 * Returns true if this observer wants to receive events of the given type
+	 * for the specified asset pair. The result is evaluated once per asset
+	 * pair and event type when the pair is first seen and must not change
+	 * afterwards. Returns true for all pairs and types by default except for
+	 * {@link EventType#DEPTH DEPTH} which has to be subscribed explicitly.
+	 * 
+	 * @param assetPair
+	 *            the asset pair of the events
+	 * @param eventType
+	 *            the type of the events
+	 * @return true if events of this type and pair should be delivered
+	 * @see MarketEventRouter
+	 */
+	default boolean isSubscribed(AssetPair<?, ?> assetPair, EventType eventType) {
+		return eventType != EventType.DEPTH;
+	}
+
 	/**
 	 * An order has been placed in the market. Only unmatched orders are seen
 	 * that do not directly lead to deals. Orders crossing the spread usually
@@ -60,4 +96,16 @@ public interface MarketObserver {
 	 *            {@link MarketMaker}
 	 */
 	void onBest(Order order);
+
+	/**
+	 * A price level of an order book has changed. Depth updates are conflated
+	 * per matching round and only delivered if subscribed via
+	 * {@link #isSubscribed(AssetPair, EventType)}. Ignored by default.
+	 * 
+	 * @param depthUpdate
+	 *            the new aggregate quantity and order count of a price level
+	 */
+	default void onDepth(DepthUpdate depthUpdate) {
+		// no-op by default
+	}
 }
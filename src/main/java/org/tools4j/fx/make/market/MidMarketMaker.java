@@ -24,9 +24,6 @@
 package org.tools4j.fx.make.market;
 
 import org.tools4j.fx.make.asset.AssetPair;
-import org.tools4j.fx.make.execution.Deal;
-import org.tools4j.fx.make.execution.Order;
-import org.tools4j.fx.make.execution.Side;
 import org.tools4j.fx.make.position.PositionKeeper;
 
 /**
@@ -38,97 +35,16 @@ import org.tools4j.fx.make.position.PositionKeeper;
  * constrains the order making bid and offered quantities are adjusted and one
  * or both sides are omitted in the making activity if necessary.
  * <p>
- * The class is NOT thread safe.
+ * A {@link PricingMarketMaker} without position and trend skew. The class is
+ * NOT thread safe.
  */
-public class MidMarketMaker extends AbstractPositionAwareMarketMaker {
-
-	private final double spread;
-	private final long maxQuantity;
-	private volatile double lastBid = Double.NaN;
-	private volatile double lastAsk = Double.NaN;
-	private volatile int bidsUpdatesSinceLast = 1; 
-	private volatile int asksUpdatesSinceLast = 1; 
+public class MidMarketMaker extends PricingMarketMaker {
 
 	public MidMarketMaker(PositionKeeper positionKeeper, AssetPair<?, ?> assetPair, double spread, long maxQuantity) {
 		this(positionKeeper, assetPair, MidMarketMaker.class.getSimpleName(), spread, maxQuantity);
 	}
 	public MidMarketMaker(PositionKeeper positionKeeper, AssetPair<?, ?> assetPair, String party, double spread, long maxQuantity) {
-		super(positionKeeper, assetPair, party);
-		if (spread < 0) {
-			throw new IllegalArgumentException("spread is negative: " + spread);
-		}
-		if (maxQuantity < 0) {
-			throw new IllegalArgumentException("maxQuantity is negative: " + maxQuantity);
-		}
-		this.spread = spread;
-		this.maxQuantity = maxQuantity;
-	}
-
-	@Override
-	protected String nextParty(Side side) {
-		return party;
-	}
-	
-	@Override
-	protected long nextQuantity(Side side, String party) {
-		return maxQuantity;
-	}
-	
-	@Override
-	protected double nextPrice(Side side, String party, long desiredQuantity) {
-		final double mid = getMid();
-		if (side == Side.BUY) {
-			return Double.isNaN(mid) ? 0 : mid - spread / 2;
-		} else {
-			return Double.isNaN(mid) ? Double.POSITIVE_INFINITY : mid + spread / 2;
-		}
-	}
-	
-	@Override
-	protected Order nextOrder(Side side) {
-		if (side == Side.BUY) {
-			if (bidsUpdatesSinceLast == 0) {
-				return null;
-			}
-			bidsUpdatesSinceLast = 0;
-		} else {
-			if (asksUpdatesSinceLast == 0) {
-				return null;
-			}
-			asksUpdatesSinceLast = 0;
-		}
-		return super.nextOrder(side);
-	}
-
-	public double getMid() {
-		return (lastBid + lastAsk) / 2;
-	}
-
-	@Override
-	public void onOrder(Order order) {
-		//we only take best
-	}
-	
-	@Override
-	public void onBest(Order order) {
-		if (!party.equals(order.getParty())) {
-			if (order.getSide() == Side.BUY) {
-				lastBid = order.getPrice();
-				bidsUpdatesSinceLast++; 
-			} else {
-				lastAsk = order.getPrice();
-				asksUpdatesSinceLast++; 
-			}
-		}
-	}
-
-	@Override
-	public void onDeal(Deal deal) {
-		super.onDeal(deal);
-		lastBid = deal.getPrice();
-		lastAsk = deal.getPrice();
-		bidsUpdatesSinceLast++; 
-		asksUpdatesSinceLast++;
+		super(positionKeeper, assetPair, party, spread, maxQuantity, PositionSkew.NONE, TrendSkew.none());
 	}
 
 }
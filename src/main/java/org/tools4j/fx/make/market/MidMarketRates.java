@@ -23,11 +23,14 @@
  */
 package org.tools4j.fx.make.market;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
 import org.tools4j.fx.make.execution.Deal;
 import org.tools4j.fx.make.execution.Order;
 import org.tools4j.fx.make.execution.Side;
@@ -38,14 +41,89 @@ import org.tools4j.fx.make.position.MarketSnapshotImpl;
  * Observes the market and registers deals and best orders as last market rates.
  * The market rate is either a deal or the mid price of two best orders, whichever
  * occurred last.
+ * <p>
+ * Bid and ask rates are kept in a primitive table updated in place; table
+ * slots are looked up by {@link AssetPair#getId() asset pair id}. Every
+ * update increments a version; {@link #getMarketSnapshot()} materialises a new
+ * snapshot only if the version changed since the last call and returns the
+ * cached snapshot otherwise.
+ * <p>
+ * The market observer methods must be invoked by a single thread, typically
+ * the matching engine thread. The read methods can be invoked by any thread;
+ * they use a sequence lock to read consistent rates without blocking the
+ * writer.
  */
 public class MidMarketRates implements MarketObserver {
 	
-	private final Map<AssetPair<?, ?>, double[]> lastBidAskRates = new ConcurrentHashMap<>();
+	private static final int BID = 0;
+	private static final int ASK = 1;
+	
+	private final Currency vehicleCurrency;
+	private volatile int[] slotByPairId = new int[0];
+	private final AtomicLong sequence = new AtomicLong();
+	private volatile Table table = new Table(new AssetPair<?, ?>[8], 0);
+	private volatile VersionedSnapshot snapshot = new VersionedSnapshot(0, new MarketSnapshotImpl(Collections.emptyMap()));
+	
+	private static final class Table {
+		private final AssetPair<?, ?>[] pairs;
+		private final AtomicLongArray bidAsk;
+		private final int size;
+		public Table(AssetPair<?, ?>[] pairs, int size) {
+			this.pairs = pairs;
+			this.bidAsk = new AtomicLongArray(2 * pairs.length);
+			this.size = size;
+		}
+		public double get(int slot, int side) {
+			return Double.longBitsToDouble(bidAsk.get(2 * slot + side));
+		}
+		public void set(int slot, int side, double rate) {
+			bidAsk.lazySet(2 * slot + side, Double.doubleToRawLongBits(rate));
+		}
+	}
+	
+	private static final class VersionedSnapshot {
+		private final long version;
+		private final MarketSnapshot snapshot;
+		public VersionedSnapshot(long version, MarketSnapshot snapshot) {
+			this.version = version;
+			this.snapshot = snapshot;
+		}
+	}
+	
+	public MidMarketRates() {
+		this(Currency.USD);
+	}
+	
+	public MidMarketRates(Currency vehicleCurrency) {
+		this.vehicleCurrency = Objects.requireNonNull(vehicleCurrency, "vehicleCurrency is null");
+	}
+
+	/**
+	 * Constructor for a copy of the bid and ask rates of the given rates. Must
+	 * be invoked by the thread updating the source rates.
+	 * 
+	 * @param source
+	 *            the rates to copy
+	 */
+	public MidMarketRates(MidMarketRates source) {
+		this(source.vehicleCurrency);
+		final Table sourceTable = source.table;
+		for (int i = 0; i < sourceTable.size; i++) {
+			final int slot = getOrCreateSlot(sourceTable.pairs[i]);
+			final long seq = beginWrite();
+			table.set(slot, BID, sourceTable.get(i, BID));
+			table.set(slot, ASK, sourceTable.get(i, ASK));
+			endWrite(seq);
+		}
+	}
 	
 	@Override
 	public void onDeal(Deal deal) {
-		lastBidAskRates.put(deal.getAssetPair(), new double[]{deal.getPrice(), deal.getPrice()});
+		final int slot = getOrCreateSlot(deal.getAssetPair());
+		final long seq = beginWrite();
+		table.set(slot, BID, deal.getPrice());
+		table.set(slot, ASK, deal.getPrice());
+		endWrite(seq);
 	}
 	
 	@Override
@@ -55,17 +133,128 @@ public class MidMarketRates implements MarketObserver {
 	
 	@Override
 	public void onBest(Order order) {
-		final double[] rates = lastBidAskRates.computeIfAbsent(order.getAssetPair(), k -> new double[] {0, Double.POSITIVE_INFINITY});
-		rates[order.getSide() == Side.BUY ? 0 : 1] = order.getPrice();
+		final int slot = getOrCreateSlot(order.getAssetPair());
+		final long seq = beginWrite();
+		table.set(slot, order.getSide() == Side.BUY ? BID : ASK, order.getPrice());
+		endWrite(seq);
+	}
+	
+	private int getOrCreateSlot(AssetPair<?, ?> assetPair) {
+		final int pairId = assetPair.getId();
+		final int slot = getSlot(pairId);
+		if (slot >= 0) {
+			return slot;
+		}
+		final Table cur = table;
+		final int newSlot = cur.size;
+		final Table newTable = new Table(newSlot < cur.pairs.length ? cur.pairs : Arrays.copyOf(cur.pairs, 2 * cur.pairs.length), newSlot + 1);
+		newTable.pairs[newSlot] = assetPair;
+		for (int i = 0; i < newSlot; i++) {
+			newTable.set(i, BID, cur.get(i, BID));
+			newTable.set(i, ASK, cur.get(i, ASK));
+		}
+		newTable.set(newSlot, BID, 0);
+		newTable.set(newSlot, ASK, Double.POSITIVE_INFINITY);
+		final long seq = beginWrite();
+		table = newTable;
+		endWrite(seq);
+		final int[] curSlots = slotByPairId;
+		final int[] slots = pairId < curSlots.length ? curSlots.clone() : Arrays.copyOf(curSlots, Math.max(pairId + 1, 2 * curSlots.length));
+		if (pairId >= curSlots.length) {
+			Arrays.fill(slots, curSlots.length, slots.length, -1);
+		}
+		slots[pairId] = newSlot;
+		slotByPairId = slots;
+		return newSlot;
+	}
+	
+	private int getSlot(int pairId) {
+		final int[] slots = slotByPairId;
+		return pairId < slots.length ? slots[pairId] : -1;
+	}
+	
+	private long beginWrite() {
+		final long seq = sequence.get() + 1;
+		sequence.lazySet(seq);
+		return seq;
+	}
+	
+	private void endWrite(long seq) {
+		sequence.lazySet(seq + 1);
+	}
+	
+	/**
+	 * Returns the version of the rates, incremented with every rate update.
+	 * 
+	 * @return the current version of the rates
+	 */
+	public long getVersion() {
+		return sequence.get() >>> 1;
+	}
+	
+	/**
+	 * Returns the last mid rate for the given asset pair, NaN if no rate has
+	 * been observed for this pair yet. The rate is infinite as long as only
+	 * bids but no offers have been seen.
+	 * 
+	 * @param assetPair
+	 *            the asset pair of interest
+	 * @return the last mid rate or NaN if unknown
+	 */
+	public double getMidRate(AssetPair<?, ?> assetPair) {
+		// slot is published after the table containing it
+		final int slot = getSlot(assetPair.getId());
+		if (slot < 0) {
+			return Double.NaN;
+		}
+		while (true) {
+			final long seq = sequence.get();
+			if ((seq & 1) == 0) {
+				final Table t = table;
+				final double mid = getMid(t.get(slot, BID), t.get(slot, ASK));
+				if (seq == sequence.get()) {
+					return mid;
+				}
+			}
+		}
 	}
 	
+	/**
+	 * Returns a snapshot of the current mid rates. The snapshot is immutable;
+	 * the same snapshot instance is returned as long as no rates have changed.
+	 * 
+	 * @return an immutable snapshot of the current mid rates
+	 */
 	public MarketSnapshot getMarketSnapshot() {
-		final Map<AssetPair<?, ?>, Double> lastMidRates = lastBidAskRates.keySet().stream().collect(Collectors.toMap(k -> k, k -> getMid(lastBidAskRates.get(k))));
-		return new MarketSnapshotImpl(lastMidRates);
+		final VersionedSnapshot cached = snapshot;
+		if (cached.version == sequence.get()) {
+			return cached.snapshot;
+		}
+		AssetPair<?, ?>[] pairs = new AssetPair<?, ?>[0];
+		double[] mids = new double[0];
+		while (true) {
+			final long seq = sequence.get();
+			if ((seq & 1) == 0) {
+				final Table t = table;
+				if (pairs.length < t.size) {
+					pairs = new AssetPair<?, ?>[t.size];
+					mids = new double[t.size];
+				}
+				for (int i = 0; i < t.size; i++) {
+					pairs[i] = t.pairs[i];
+					mids[i] = getMid(t.get(i, BID), t.get(i, ASK));
+				}
+				if (seq == sequence.get()) {
+					final VersionedSnapshot materialised = new VersionedSnapshot(seq, new MarketSnapshotImpl(pairs, mids, t.size, vehicleCurrency));
+					snapshot = materialised;
+					return materialised.snapshot;
+				}
+			}
+		}
 	}
 	
-	private static final double getMid(final double[] bidAsk) {
-		return (bidAsk[0] + bidAsk[1]) / 2;
+	private static final double getMid(final double bid, final double ask) {
+		return (bid + ask) / 2;
 	}
 	
 }
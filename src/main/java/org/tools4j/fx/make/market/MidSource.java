@@ -0,0 +1,132 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.Objects;
+
+import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * Pricing stage tracking the mid rate from best orders of other parties and
+ * from deals. It also counts market updates per side since the last quote of
+ * that side to decide whether a new quote is due.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public final class MidSource {
+
+	private final String party;
+	private double lastBid = Double.NaN;
+	private double lastAsk = Double.NaN;
+	private int bidUpdatesSinceLast = 1;
+	private int askUpdatesSinceLast = 1;
+
+	/**
+	 * Constructor with the maker's own party whose best orders are ignored.
+	 * 
+	 * @param party
+	 *            the maker's party
+	 */
+	public MidSource(String party) {
+		this.party = Objects.requireNonNull(party, "party is null");
+	}
+
+	/**
+	 * Returns a copy of this mid source with the same party and state.
+	 * 
+	 * @return a new mid source
+	 */
+	public MidSource copy() {
+		final MidSource copy = new MidSource(party);
+		copy.copyFrom(this);
+		return copy;
+	}
+
+	/**
+	 * Copies last bid, offer and update counts of the given mid source; the
+	 * party of this mid source is unchanged.
+	 * 
+	 * @param source
+	 *            the mid source to copy from
+	 */
+	public void copyFrom(MidSource source) {
+		this.lastBid = source.lastBid;
+		this.lastAsk = source.lastAsk;
+		this.bidUpdatesSinceLast = source.bidUpdatesSinceLast;
+		this.askUpdatesSinceLast = source.askUpdatesSinceLast;
+	}
+
+	public void onBest(Order order) {
+		if (!party.equals(order.getParty())) {
+			if (order.getSide() == Side.BUY) {
+				lastBid = order.getPrice();
+				bidUpdatesSinceLast++;
+			} else {
+				lastAsk = order.getPrice();
+				askUpdatesSinceLast++;
+			}
+		}
+	}
+
+	public void onDeal(Deal deal) {
+		lastBid = deal.getPrice();
+		lastAsk = deal.getPrice();
+		bidUpdatesSinceLast++;
+		askUpdatesSinceLast++;
+	}
+
+	/**
+	 * Returns the mid rate, NaN if no bid or no offer has been seen yet.
+	 * 
+	 * @return the mid of last bid and offer
+	 */
+	public double getMid() {
+		return (lastBid + lastAsk) / 2;
+	}
+
+	/**
+	 * Returns true and resets the update count if the market has been updated
+	 * since the last call for the given side.
+	 * 
+	 * @param side
+	 *            the maker side
+	 * @return true if a new quote is due for this side
+	 */
+	public boolean pollDue(Side side) {
+		if (side == Side.BUY) {
+			if (bidUpdatesSinceLast == 0) {
+				return false;
+			}
+			bidUpdatesSinceLast = 0;
+		} else {
+			if (askUpdatesSinceLast == 0) {
+				return false;
+			}
+			askUpdatesSinceLast = 0;
+		}
+		return true;
+	}
+}
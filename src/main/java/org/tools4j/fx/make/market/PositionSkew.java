@@ -0,0 +1,90 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.position.PositionKeeper;
+
+/**
+ * Pricing stage widening the spread on the side increasing the position and
+ * narrowing it on the side reducing the position, see {@link SkewTable}. The
+ * position is measured in the non-USD asset of the pair.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public final class PositionSkew {
+
+	/** Position skew with neutral factor for both sides */
+	public static final PositionSkew NONE = new PositionSkew();
+
+	private final PositionKeeper positionKeeper;
+	private final AssetPair<?, ?> assetPair;
+	private final boolean isBaseUSD;
+	private final SkewTable skewTable;
+
+	private PositionSkew() {
+		this.positionKeeper = null;
+		this.assetPair = null;
+		this.isBaseUSD = false;
+		this.skewTable = null;
+	}
+
+	public PositionSkew(PositionKeeper positionKeeper, AssetPair<?, ?> assetPair, SkewTable skewTable) {
+		this.positionKeeper = Objects.requireNonNull(positionKeeper, "positionKeeper is null");
+		this.assetPair = Objects.requireNonNull(assetPair, "assetPair is null");
+		this.skewTable = Objects.requireNonNull(skewTable, "skewTable is null");
+		if (assetPair.getBase() != Currency.USD && assetPair.getTerms() != Currency.USD) {
+			throw new IllegalArgumentException("base or terms must be USD: " + assetPair);
+		}
+		this.isBaseUSD = assetPair.getBase() == Currency.USD;
+	}
+
+	private double getPosition() {
+		if (isBaseUSD) {
+			return -positionKeeper.getPosition(assetPair.getTerms());
+		} else {
+			return positionKeeper.getPosition(assetPair.getBase());
+		}
+	}
+
+	/**
+	 * Returns the spread multiplier for the given maker side.
+	 * 
+	 * @param side
+	 *            the maker side
+	 * @return the spread multiplier, one if disabled
+	 */
+	public double getFactor(Side side) {
+		if (skewTable == null) {
+			return 1;
+		}
+		final double pos = getPosition();
+		final boolean increasing = (side == Side.BUY) == (pos > 0);
+		return increasing ? skewTable.getIncreasingPositionSkew(pos) : skewTable.getDecreasingPositionSkew(pos);
+	}
+}
@@ -0,0 +1,236 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.ExecutionReport;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.position.PositionKeeper;
+
+/**
+ * A {@link MarketMaker} for a single symbol and party composing its prices from
+ * pricing stages assembled at construction:
+ * <ul>
+ * <li>a {@link MidSource} tracking the mid rate and deciding when quotes are
+ * due</li>
+ * <li>a {@link PositionSkew} and a {@link TrendSkew} multiplying the half
+ * spread of each side</li>
+ * <li>a {@link VolatilitySpread}, constant or widened by volatility</li>
+ * <li>a constant quantity</li>
+ * </ul>
+ * Bid and offer are {@code mid -/+ spread/2 * positionFactor * trendFactor},
+ * floored at zero; zero and infinity are quoted as long as no mid is known.
+ * All stages are final classes referenced through final fields, hence calls
+ * from the pricing path are monomorphic and can be inlined.
+ * <p>
+ * Stages can be combined freely via {@link #builder(PositionKeeper, AssetPair)};
+ * {@link MidMarketMaker}, {@link SkewedMarketMaker},
+ * {@link TrendingMarketMaker} and {@link PosTrendingMarketMaker} are
+ * predefined configurations.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public class PricingMarketMaker extends AbstractPositionAwareMarketMaker {
+
+	private final VolatilitySpread spread;
+	private final long maxQuantity;
+	private final MidSource midSource;
+	private final PositionSkew positionSkew;
+	private final TrendSkew trendSkew;
+
+	public PricingMarketMaker(PositionKeeper positionKeeper, AssetPair<?, ?> assetPair, String party, double spread, long maxQuantity, PositionSkew positionSkew, TrendSkew trendSkew) {
+		this(positionKeeper, assetPair, party, new VolatilitySpread(spread), maxQuantity, positionSkew, trendSkew);
+	}
+
+	public PricingMarketMaker(PositionKeeper positionKeeper, AssetPair<?, ?> assetPair, String party, VolatilitySpread spread, long maxQuantity, PositionSkew positionSkew, TrendSkew trendSkew) {
+		super(positionKeeper, assetPair, party);
+		if (maxQuantity < 0) {
+			throw new IllegalArgumentException("maxQuantity is negative: " + maxQuantity);
+		}
+		this.spread = Objects.requireNonNull(spread, "spread is null");
+		this.maxQuantity = maxQuantity;
+		this.midSource = new MidSource(party);
+		this.positionSkew = Objects.requireNonNull(positionSkew, "positionSkew is null");
+		this.trendSkew = Objects.requireNonNull(trendSkew, "trendSkew is null");
+	}
+
+	public static Builder builder(PositionKeeper positionKeeper, AssetPair<?, ?> assetPair) {
+		return new Builder(positionKeeper, assetPair);
+	}
+
+	@Override
+	protected final String nextParty(Side side) {
+		return party;
+	}
+
+	@Override
+	protected final long nextQuantity(Side side, String party) {
+		return maxQuantity;
+	}
+
+	@Override
+	protected final double nextPrice(Side side, String party, long desiredQuantity) {
+		final double mid = midSource.getMid();
+		if (Double.isNaN(mid)) {
+			return side == Side.BUY ? 0 : Double.POSITIVE_INFINITY;
+		}
+		final double skewedHalfSpread = spread.getSpread(mid) / 2 * positionSkew.getFactor(side) * trendSkew.getFactor(side);
+		return Math.max(0, side == Side.BUY ? mid - skewedHalfSpread : mid + skewedHalfSpread);
+	}
+
+	@Override
+	protected final boolean isDue(Side side) {
+		return midSource.pollDue(side);
+	}
+
+	public double getMid() {
+		return midSource.getMid();
+	}
+
+	@Override
+	public void onOrder(Order order) {
+		// we only want best orders
+	}
+
+	@Override
+	public void onBest(Order order) {
+		midSource.onBest(order);
+	}
+
+	@Override
+	public void onDeal(Deal deal) {
+		midSource.onDeal(deal);
+		trendSkew.onDeal();
+	}
+
+	@Override
+	public void onExecution(ExecutionReport executionReport) {
+		super.onExecution(executionReport);
+		trendSkew.onOwnFill(executionReport.getSide());
+	}
+
+	/**
+	 * Returns a state with positions, mid source and trend skew of this
+	 * maker; the state of shared market indicators is not included.
+	 */
+	@Override
+	public MakerState snapshotState() {
+		return new MakerState(positionKeeper, midSource, trendSkew);
+	}
+
+	@Override
+	public void restoreState(MakerState state) {
+		super.restoreState(state);
+		state.restore(midSource);
+		state.restore(trendSkew);
+	}
+
+	/**
+	 * Builder for a {@link PricingMarketMaker}, without position and trend
+	 * skew by default.
+	 */
+	public static class Builder {
+		private final PositionKeeper positionKeeper;
+		private final AssetPair<?, ?> assetPair;
+		private String party = PricingMarketMaker.class.getSimpleName();
+		private double spread;
+		private MarketIndicators indicators;
+		private double volatilityMultiplier;
+		private long maxQuantity;
+		private boolean positionSkew;
+		private boolean trendSkew;
+		private boolean followOwnFills;
+
+		public Builder(PositionKeeper positionKeeper, AssetPair<?, ?> assetPair) {
+			this.positionKeeper = Objects.requireNonNull(positionKeeper, "positionKeeper is null");
+			this.assetPair = Objects.requireNonNull(assetPair, "assetPair is null");
+		}
+
+		public Builder withParty(String party) {
+			this.party = Objects.requireNonNull(party, "party is null");
+			return this;
+		}
+
+		public Builder withSpread(double spread) {
+			this.spread = spread;
+			return this;
+		}
+
+		public Builder withMaxQuantity(long maxQuantity) {
+			this.maxQuantity = maxQuantity;
+			return this;
+		}
+
+		/**
+		 * Widens the spread by the volatility of the given shared indicators,
+		 * see {@link VolatilitySpread}.
+		 * 
+		 * @param indicators
+		 *            the market indicators of the maker's asset pair
+		 * @param multiplier
+		 *            the spread per unit of volatility times mid
+		 * @return this builder
+		 */
+		public Builder withVolatilitySpread(MarketIndicators indicators, double multiplier) {
+			this.indicators = Objects.requireNonNull(indicators, "indicators is null");
+			this.volatilityMultiplier = multiplier;
+			return this;
+		}
+
+		/**
+		 * Enables the {@link PositionSkew}; requires a USD pair.
+		 * 
+		 * @return this builder
+		 */
+		public Builder withPositionSkew() {
+			this.positionSkew = true;
+			return this;
+		}
+
+		/**
+		 * Enables the {@link TrendSkew}.
+		 * 
+		 * @param followOwnFills
+		 *            true to narrow and false to widen the spread on the side
+		 *            of the last own fill
+		 * @return this builder
+		 */
+		public Builder withTrendSkew(boolean followOwnFills) {
+			this.trendSkew = true;
+			this.followOwnFills = followOwnFills;
+			return this;
+		}
+
+		public PricingMarketMaker build() {
+			final SkewTable skewTable = SkewTable.forMaker(assetPair, maxQuantity);
+			return new PricingMarketMaker(positionKeeper, assetPair, party, new VolatilitySpread(spread, indicators, volatilityMultiplier), maxQuantity, //
+					positionSkew ? new PositionSkew(positionKeeper, assetPair, skewTable) : PositionSkew.NONE, //
+					trendSkew ? new TrendSkew(skewTable, followOwnFills) : TrendSkew.none());
+		}
+	}
+}
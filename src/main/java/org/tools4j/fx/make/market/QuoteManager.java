@@ -0,0 +1,109 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * Order management for market makers quoting into a resting book. A quote is
+ * placed once and then amended in place or cancelled via its quote ID, which
+ * is also the {@link Order#getId() order ID} of the resting order. Fills of a
+ * quote are reported to the maker as execution reports; a fully filled quote
+ * is removed from the book.
+ * <p>
+ * A quote manager is provided to market makers by the matching engine if
+ * resting quotes are enabled, see
+ * {@link MarketMaker#setQuoteManager(QuoteManager)}.
+ */
+public interface QuoteManager {
+	/**
+	 * Places a new quote.
+	 * 
+	 * @param assetPair
+	 *            the asset pair of the quote
+	 * @param party
+	 *            the party placing the quote
+	 * @param side
+	 *            the quote side
+	 * @param price
+	 *            the quote price, not negative
+	 * @param quantity
+	 *            the quote quantity, positive
+	 * @return the quote ID used to amend or cancel the quote
+	 * @throws IllegalArgumentException
+	 *             if price or quantity is invalid
+	 */
+	long placeQuote(AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity);
+
+	/**
+	 * Places a new quote with a quote ID allocated by the caller from
+	 * {@link Order#ID_GENERATOR}, for instance for quotes computed on another
+	 * thread and placed later on the thread owning the quote manager.
+	 * 
+	 * @param quoteId
+	 *            the ID of the new quote, not used by any resting order
+	 * @param assetPair
+	 *            the asset pair of the quote
+	 * @param party
+	 *            the party placing the quote
+	 * @param side
+	 *            the quote side
+	 * @param price
+	 *            the quote price, not negative
+	 * @param quantity
+	 *            the quote quantity, positive
+	 * @throws IllegalArgumentException
+	 *             if price or quantity is invalid or if the quote ID is in use
+	 */
+	void placeQuote(long quoteId, AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity);
+
+	/**
+	 * Amends price and quantity of a resting quote. The quote keeps its time
+	 * priority if only the quantity is reduced.
+	 * 
+	 * @param quoteId
+	 *            the ID of the quote to amend
+	 * @param price
+	 *            the new quote price, not negative
+	 * @param quantity
+	 *            the new quote quantity, positive
+	 * @return true if the quote was amended, false if no such quote rests in
+	 *         the book, for instance because it has been fully filled
+	 * @throws IllegalArgumentException
+	 *             if price or quantity is invalid
+	 */
+	boolean amendQuote(long quoteId, double price, long quantity);
+
+	/**
+	 * Cancels a resting quote.
+	 * 
+	 * @param quoteId
+	 *            the ID of the quote to cancel
+	 * @return true if the quote was cancelled, false if no such quote rests in
+	 *         the book
+	 */
+	boolean cancelQuote(long quoteId);
+}
@@ -0,0 +1,123 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+/**
+ * Mean and sample variance over the last N values kept in a ring buffer. Both
+ * are updated in constant time without allocation; the variance is maintained
+ * with Welford's method, removing the oldest value when the window is full.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public final class RollingVariance {
+
+	private final double[] values;
+	private int next;
+	private int count;
+	private double mean;
+	private double m2;
+
+	/**
+	 * Constructor with window size.
+	 * 
+	 * @param window
+	 *            the number of values in the window, at least two
+	 */
+	public RollingVariance(int window) {
+		if (window < 2) {
+			throw new IllegalArgumentException("window must be at least two: " + window);
+		}
+		this.values = new double[window];
+	}
+
+	public void update(double value) {
+		if (count < values.length) {
+			count++;
+			final double delta = value - mean;
+			mean += delta / count;
+			m2 += delta * (value - mean);
+		} else {
+			final double old = values[next];
+			final double oldMean = mean;
+			mean += (value - old) / count;
+			m2 += (value - old) * (value - mean + old - oldMean);
+		}
+		values[next] = value;
+		next = next + 1 == values.length ? 0 : next + 1;
+	}
+
+	public int getWindow() {
+		return values.length;
+	}
+
+	/**
+	 * Returns the number of values in the window.
+	 * 
+	 * @return the count, at most the window size
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the mean of the values in the window, NaN if empty.
+	 * 
+	 * @return the window mean
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * Returns the sample variance of the values in the window, NaN for less
+	 * than two values.
+	 * 
+	 * @return the window variance
+	 */
+	public double getVariance() {
+		return count < 2 ? Double.NaN : Math.max(0, m2 / (count - 1));
+	}
+
+	/**
+	 * Returns the sample standard deviation of the values in the window, NaN
+	 * for less than two values.
+	 * 
+	 * @return the square root of the variance
+	 */
+	public double getStdDev() {
+		return Math.sqrt(getVariance());
+	}
+
+	public void reset() {
+		next = 0;
+		count = 0;
+		mean = 0;
+		m2 = 0;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{window=" + values.length + ", count=" + count + ", mean=" + getMean() + ", variance=" + getVariance() + "}";
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
+
+/**
+ * Precomputed skew multipliers for position and trend aware pricing. The
+ * spread multipliers are
+ * <ul>
+ * <li><b>position skew:</b> {@code 1.15^max(0, ln(|pos| / scale))} for the side
+ * increasing the position and its reciprocal for the side reducing it, where
+ * the scale is the maker's max quantity, 100 times for JPY pairs</li>
+ * <li><b>trend skew:</b> {@code 1.05^(10 - updatesSinceOwn)} and its
+ * reciprocal, neutral after 10 updates since the maker's own last fill</li>
+ * </ul>
+ * Position multipliers are tabulated in buckets of 1/64 of the scale up to 64
+ * times the scale and linearly interpolated between buckets; larger positions
+ * are computed directly. Trend multipliers are tabulated per update count.
+ * The tables are shared by all instances, a skew table instance only holds the
+ * position scale of a maker.
+ * <p>
+ * This class is immutable and thread safe.
+ */
+public final class SkewTable {
+
+	public static final double POSITION_SKEW_BASE = 1.15;
+	public static final double TREND_SKEW_BASE = 1.05;
+	public static final int MAX_TREND_UPDATES = 10;
+
+	private static final int BUCKETS_PER_SCALE = 64;
+	private static final int MAX_SCALES = 64;
+	private static final double[] POSITION_INCREASING = new double[BUCKETS_PER_SCALE * MAX_SCALES + 1];
+	private static final double[] POSITION_DECREASING = new double[POSITION_INCREASING.length];
+	private static final double[] TREND_INCREASING = new double[MAX_TREND_UPDATES];
+	private static final double[] TREND_DECREASING = new double[MAX_TREND_UPDATES];
+
+	static {
+		for (int i = 0; i < POSITION_INCREASING.length; i++) {
+			POSITION_INCREASING[i] = positionSkew((double) i / BUCKETS_PER_SCALE);
+			POSITION_DECREASING[i] = 1 / POSITION_INCREASING[i];
+		}
+		for (int updates = 0; updates < MAX_TREND_UPDATES; updates++) {
+			TREND_INCREASING[updates] = Math.pow(TREND_SKEW_BASE, MAX_TREND_UPDATES - updates);
+			TREND_DECREASING[updates] = Math.pow(TREND_SKEW_BASE, updates - MAX_TREND_UPDATES);
+		}
+	}
+
+	private final double positionScale;
+	private final double inversePositionScale;
+
+	/**
+	 * Constructor with position scale.
+	 * 
+	 * @param positionScale
+	 *            the position size from which on the position skew applies,
+	 *            positive
+	 */
+	public SkewTable(double positionScale) {
+		if (!(positionScale > 0)) {
+			throw new IllegalArgumentException("positionScale must be positive: " + positionScale);
+		}
+		this.positionScale = positionScale;
+		this.inversePositionScale = 1 / positionScale;
+	}
+
+	/**
+	 * Returns a skew table for a maker of the given asset pair with the
+	 * position scale resolved from the max quantity, 100 times the max
+	 * quantity for pairs involving JPY.
+	 * 
+	 * @param assetPair
+	 *            the maker's asset pair
+	 * @param maxQuantity
+	 *            the maker's max quantity
+	 * @return a skew table for the maker
+	 */
+	public static SkewTable forMaker(AssetPair<?, ?> assetPair, long maxQuantity) {
+		Objects.requireNonNull(assetPair, "assetPair is null");
+		final boolean isJPY = assetPair.getBase() == Currency.JPY || assetPair.getTerms() == Currency.JPY;
+		return new SkewTable(Math.max(1, isJPY ? 100 * maxQuantity : maxQuantity));
+	}
+
+	private static double positionSkew(double ratio) {
+		return Math.pow(POSITION_SKEW_BASE, Math.max(0, Math.log(ratio)));
+	}
+
+	public double getPositionScale() {
+		return positionScale;
+	}
+
+	/**
+	 * Returns the spread multiplier for the side increasing the position.
+	 * 
+	 * @param position
+	 *            the current position
+	 * @return the multiplier, at least one
+	 */
+	public double getIncreasingPositionSkew(double position) {
+		return lookup(POSITION_INCREASING, position, false);
+	}
+
+	/**
+	 * Returns the spread multiplier for the side reducing the position.
+	 * 
+	 * @param position
+	 *            the current position
+	 * @return the multiplier, at most one
+	 */
+	public double getDecreasingPositionSkew(double position) {
+		return lookup(POSITION_DECREASING, position, true);
+	}
+
+	private double lookup(double[] table, double position, boolean reciprocal) {
+		final double ratio = Math.abs(position) * inversePositionScale;
+		if (!(ratio > 1)) {
+			return 1;
+		}
+		final double bucket = ratio * BUCKETS_PER_SCALE;
+		if (bucket >= table.length - 1) {
+			final double skew = positionSkew(ratio);
+			return reciprocal ? 1 / skew : skew;
+		}
+		final int index = (int) bucket;
+		final double weight = bucket - index;
+		return table[index] + weight * (table[index + 1] - table[index]);
+	}
+
+	/**
+	 * Returns the spread multiplier for the side following the trend.
+	 * 
+	 * @param updatesSinceOwn
+	 *            the number of market updates since the maker's own last fill
+	 * @return the multiplier, one if the trend has expired
+	 */
+	public double getIncreasingTrendSkew(int updatesSinceOwn) {
+		return updatesSinceOwn >= 0 & updatesSinceOwn < MAX_TREND_UPDATES ? TREND_INCREASING[updatesSinceOwn] : 1;
+	}
+
+	/**
+	 * Returns the spread multiplier for the side against the trend.
+	 * 
+	 * @param updatesSinceOwn
+	 *            the number of market updates since the maker's own last fill
+	 * @return the multiplier, one if the trend has expired
+	 */
+	public double getDecreasingTrendSkew(int updatesSinceOwn) {
+		return updatesSinceOwn >= 0 & updatesSinceOwn < MAX_TREND_UPDATES ? TREND_DECREASING[updatesSinceOwn] : 1;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{positionScale=" + positionScale + "}";
+	}
+}
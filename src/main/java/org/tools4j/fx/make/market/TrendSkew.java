@@ -0,0 +1,124 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.Objects;
+
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * Pricing stage skewing the spread after an own fill, decaying with every deal
+ * in the market since, see {@link SkewTable}. Depending on configuration the
+ * side of the last own fill is either widened, pulling off the price after
+ * being hit, or narrowed, following the own fills.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public final class TrendSkew {
+
+	private final SkewTable skewTable;
+	private final boolean followOwnFills;
+	private Side lastSide = null;
+	private int updatesSinceOwn = 0;
+
+	/**
+	 * Returns a trend skew with neutral factor for both sides.
+	 * 
+	 * @return a disabled trend skew
+	 */
+	public static TrendSkew none() {
+		return new TrendSkew();
+	}
+
+	private TrendSkew() {
+		this.skewTable = null;
+		this.followOwnFills = false;
+	}
+
+	/**
+	 * Constructor with skew table and trend direction.
+	 * 
+	 * @param skewTable
+	 *            the table with the trend multipliers
+	 * @param followOwnFills
+	 *            true to narrow and false to widen the spread on the side of
+	 *            the last own fill
+	 */
+	public TrendSkew(SkewTable skewTable, boolean followOwnFills) {
+		this.skewTable = Objects.requireNonNull(skewTable, "skewTable is null");
+		this.followOwnFills = followOwnFills;
+	}
+
+	private TrendSkew(TrendSkew source) {
+		this.skewTable = source.skewTable;
+		this.followOwnFills = source.followOwnFills;
+		copyFrom(source);
+	}
+
+	/**
+	 * Returns a copy of this trend skew with the same table and state.
+	 * 
+	 * @return a new trend skew
+	 */
+	public TrendSkew copy() {
+		return new TrendSkew(this);
+	}
+
+	/**
+	 * Copies last own fill side and update count of the given trend skew; the
+	 * skew table and trend direction of this trend skew are unchanged.
+	 * 
+	 * @param source
+	 *            the trend skew to copy from
+	 */
+	public void copyFrom(TrendSkew source) {
+		this.lastSide = source.lastSide;
+		this.updatesSinceOwn = source.updatesSinceOwn;
+	}
+
+	public void onDeal() {
+		updatesSinceOwn++;
+	}
+
+	public void onOwnFill(Side side) {
+		updatesSinceOwn = 0;
+		lastSide = side;
+	}
+
+	/**
+	 * Returns the spread multiplier for the given maker side.
+	 * 
+	 * @param side
+	 *            the maker side
+	 * @return the spread multiplier, one if disabled, without own fill or if
+	 *         the trend has expired
+	 */
+	public double getFactor(Side side) {
+		if (skewTable == null | lastSide == null) {
+			return 1;
+		}
+		final boolean widen = (side == lastSide) != followOwnFills;
+		return widen ? skewTable.getIncreasingTrendSkew(updatesSinceOwn) : skewTable.getDecreasingTrendSkew(updatesSinceOwn);
+	}
+}
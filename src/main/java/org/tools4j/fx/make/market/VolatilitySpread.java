@@ -0,0 +1,87 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.Objects;
+
+/**
+ * Pricing stage providing the spread, either constant or widened by the
+ * volatility of shared {@link MarketIndicators}:
+ * {@code spread = baseSpread + multiplier * volatility * mid}.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public final class VolatilitySpread {
+
+	private final double baseSpread;
+	private final MarketIndicators indicators;
+	private final double multiplier;
+
+	/**
+	 * Constructor for a constant spread.
+	 * 
+	 * @param spread
+	 *            the spread, non-negative
+	 */
+	public VolatilitySpread(double spread) {
+		this(spread, null, 0);
+	}
+
+	/**
+	 * Constructor for a spread widened by volatility.
+	 * 
+	 * @param baseSpread
+	 *            the spread without volatility, non-negative
+	 * @param indicators
+	 *            the indicators providing the volatility
+	 * @param multiplier
+	 *            the spread per unit of volatility times mid, non-negative
+	 */
+	public VolatilitySpread(double baseSpread, MarketIndicators indicators, double multiplier) {
+		if (baseSpread < 0) {
+			throw new IllegalArgumentException("spread is negative: " + baseSpread);
+		}
+		if (multiplier < 0) {
+			throw new IllegalArgumentException("multiplier is negative: " + multiplier);
+		}
+		this.baseSpread = baseSpread;
+		this.indicators = multiplier == 0 ? null : Objects.requireNonNull(indicators, "indicators is null");
+		this.multiplier = multiplier;
+	}
+
+	/**
+	 * Returns the spread for the given mid rate.
+	 * 
+	 * @param mid
+	 *            the current mid rate
+	 * @return the spread, the base spread as long as the volatility is unknown
+	 */
+	public double getSpread(double mid) {
+		if (indicators == null) {
+			return baseSpread;
+		}
+		final double volatility = indicators.getVolatility();
+		return Double.isNaN(volatility) ? baseSpread : baseSpread + multiplier * volatility * mid;
+	}
+}
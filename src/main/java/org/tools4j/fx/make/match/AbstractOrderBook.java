@@ -0,0 +1,494 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import static org.tools4j.fx.make.util.StringUtil.formatQuantityAndPrice;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.OrderImpl;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * Base class for {@link OrderBook} implementations. Orders are looked up by ID
+ * and held in intrusive doubly linked FIFO queues per price level; each level
+ * maintains its aggregate quantity and order count. Subclasses define how
+ * price levels are stored and navigated.
+ * <p>
+ * Orders returned by {@link #getOrder(long)}, {@link #getBest(Side)} and
+ * {@link #forEach(Side, Consumer)} are immutable snapshots; the mutable entries
+ * of the book are only exposed to the matching engine within this package.
+ * <p>
+ * The class is NOT thread safe.
+ */
+abstract public class AbstractOrderBook implements OrderBook {
+
+	private final AssetPair<?, ?> assetPair;
+	private final Map<Long, Entry> entryById = new HashMap<>();
+	private int bidCount;
+	private int askCount;
+	private final long[] polledBestId = new long[2];
+	private final double[] polledBestPrice = new double[2];
+	private final long[] polledBestQuantity = new long[2];
+
+	public AbstractOrderBook(AssetPair<?, ?> assetPair) {
+		this.assetPair = Objects.requireNonNull(assetPair, "assetPair is null");
+	}
+
+	/**
+	 * Returns the level for the given price, creating it if necessary.
+	 * 
+	 * @param side
+	 *            the book side
+	 * @param price
+	 *            the order price
+	 * @return the level for the price, never null
+	 */
+	abstract protected Level getOrCreateLevel(Side side, double price);
+
+	/**
+	 * Removes the given empty level.
+	 * 
+	 * @param level
+	 *            the level without orders
+	 */
+	abstract protected void removeLevel(Level level);
+
+	/**
+	 * Returns the best level of the given side.
+	 * 
+	 * @param side
+	 *            the book side
+	 * @return the best level, or null if the side is empty
+	 */
+	abstract protected Level getFirstLevel(Side side);
+
+	/**
+	 * Returns the next level after the given level in priority order.
+	 * 
+	 * @param level
+	 *            a level present in this book
+	 * @return the next worse level, or null if there is none
+	 */
+	abstract protected Level getNextLevel(Level level);
+
+	/**
+	 * Returns the price at which an order is kept in this book, the given
+	 * price by default. Subclasses can move prices onto a price grid.
+	 * 
+	 * @param side
+	 *            the order side
+	 * @param price
+	 *            the valid order price
+	 * @return the price of the resting order
+	 */
+	protected double toBookPrice(Side side, double price) {
+		return price;
+	}
+
+	@Override
+	public AssetPair<?, ?> getAssetPair() {
+		return assetPair;
+	}
+
+	@Override
+	public void add(Order order) {
+		if (!assetPair.equals(order.getAssetPair())) {
+			throw new IllegalArgumentException("asset pair " + order.getAssetPair() + " does not match book " + assetPair);
+		}
+		add(order.getId(), order.getParty(), order.getSide(), order.getPrice(), order.getQuantity());
+	}
+
+	@Override
+	public long add(String party, Side side, double price, long quantity) {
+		final long id = Order.ID_GENERATOR.incrementAndGet();
+		add(id, party, side, price, quantity);
+		return id;
+	}
+
+	void add(long id, String party, Side side, double price, long quantity) {
+		validate(price, quantity);
+		Objects.requireNonNull(side, "side is null");
+		final Entry entry = new Entry(id, Objects.requireNonNull(party, "party is null"), side, toBookPrice(side, price), quantity);
+		if (entryById.putIfAbsent(id, entry) != null) {
+			throw new IllegalArgumentException("order with id " + id + " is already resting in book " + assetPair);
+		}
+		link(entry);
+	}
+
+	@Override
+	public boolean amend(long orderId, double price, long quantity) {
+		validate(price, quantity);
+		final Entry entry = entryById.get(orderId);
+		if (entry == null) {
+			return false;
+		}
+		final double bookPrice = toBookPrice(entry.side, price);
+		if (entry.price == bookPrice & quantity <= entry.quantity) {
+			entry.level.quantity += quantity - entry.quantity;
+			entry.quantity = quantity;
+			return true;
+		}
+		unlink(entry);
+		entry.price = bookPrice;
+		entry.quantity = quantity;
+		link(entry);
+		return true;
+	}
+
+	@Override
+	public boolean cancel(long orderId) {
+		final Entry entry = entryById.remove(orderId);
+		if (entry == null) {
+			return false;
+		}
+		unlink(entry);
+		return true;
+	}
+
+	/**
+	 * Fills the given resting order and removes it from the book if it is fully
+	 * filled.
+	 * 
+	 * @param order
+	 *            the resting order returned by this book
+	 * @param quantity
+	 *            the fill quantity, not exceeding the order quantity
+	 * @return the quantity left after the fill
+	 */
+	long fill(Order order, long quantity) {
+		final Entry entry = entryById.get(order.getId());
+		if (entry == null) {
+			throw new IllegalArgumentException("order is not resting in book " + assetPair + ": " + order);
+		}
+		if (quantity <= 0 | quantity > entry.quantity) {
+			throw new IllegalArgumentException("invalid fill quantity " + quantity + " for " + entry);
+		}
+		entry.quantity -= quantity;
+		entry.level.quantity -= quantity;
+		if (entry.quantity == 0) {
+			entryById.remove(entry.id);
+			unlink(entry);
+		}
+		return entry.quantity;
+	}
+
+	@Override
+	public Order getOrder(long orderId) {
+		return snapshot(entryById.get(orderId));
+	}
+
+	@Override
+	public Order getBest(Side side) {
+		return snapshot(getRestingBest(side));
+	}
+
+	/**
+	 * Returns the live resting order with the given ID, changing as the order
+	 * is amended or filled.
+	 * 
+	 * @param orderId
+	 *            the order ID
+	 * @return the resting order or null if no such order rests in this book
+	 */
+	Order getRestingOrder(long orderId) {
+		return entryById.get(orderId);
+	}
+
+	/**
+	 * Returns the live best resting order of the given side.
+	 * 
+	 * @param side
+	 *            the book side
+	 * @return the best resting order, or null if this side is empty
+	 */
+	Order getRestingBest(Side side) {
+		final Level best = getFirstLevel(side);
+		return best == null ? null : best.head;
+	}
+
+	/**
+	 * Returns an immutable copy of the given order if it is a live resting
+	 * order of a book, and the order itself otherwise.
+	 * 
+	 * @param order
+	 *            the order, may be null
+	 * @return an order that does not change, null if order is null
+	 */
+	static Order snapshot(Order order) {
+		return order instanceof AbstractOrderBook.Entry ? new OrderImpl(order, order.getQuantity()) : order;
+	}
+
+	@Override
+	public int getOrderCount(Side side) {
+		return side == Side.BUY ? bidCount : askCount;
+	}
+
+	@Override
+	public void forEach(Side side, Consumer<? super Order> consumer) {
+		for (Level level = getFirstLevel(side); level != null; level = getNextLevel(level)) {
+			for (Entry entry = level.head; entry != null; entry = entry.next) {
+				consumer.accept(snapshot(entry));
+			}
+		}
+	}
+
+	@Override
+	public int getLevels(Side side, double[] prices, long[] quantities, int[] orderCounts) {
+		final int max = Math.min(prices.length, Math.min(quantities.length, orderCounts.length));
+		int count = 0;
+		for (Level level = getFirstLevel(side); level != null & count < max; level = getNextLevel(level)) {
+			prices[count] = level.price;
+			quantities[count] = level.quantity;
+			orderCounts[count] = level.orderCount;
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns a snapshot of the best order of the given side if it differs in
+	 * ID, price or quantity from the best order returned by the previous call
+	 * for this side.
+	 * 
+	 * @param side
+	 *            the book side
+	 * @return the best order if it has changed, null if unchanged or if the
+	 *         side is empty
+	 */
+	Order pollBestChange(Side side) {
+		final Order best = getRestingBest(side);
+		if (best == null) {
+			return null;
+		}
+		final int index = side == Side.BUY ? 0 : 1;
+		if (best.getId() == polledBestId[index] & best.getPrice() == polledBestPrice[index] & best.getQuantity() == polledBestQuantity[index]) {
+			return null;
+		}
+		polledBestId[index] = best.getId();
+		polledBestPrice[index] = best.getPrice();
+		polledBestQuantity[index] = best.getQuantity();
+		return snapshot(best);
+	}
+
+	/**
+	 * Returns a cursor iterating over the resting orders of the given side in
+	 * priority order. The order last returned by the cursor can be filled and
+	 * removed while iterating; other modifications of the book invalidate the
+	 * cursor.
+	 * 
+	 * @param side
+	 *            the book side
+	 * @return a cursor positioned before the best order
+	 */
+	Cursor cursor(Side side) {
+		return new Cursor(getFirstLevel(side));
+	}
+
+	private void link(Entry entry) {
+		final Level level = getOrCreateLevel(entry.side, entry.price);
+		entry.level = level;
+		entry.prev = level.tail;
+		entry.next = null;
+		if (level.tail == null) {
+			level.head = entry;
+		} else {
+			level.tail.next = entry;
+		}
+		level.tail = entry;
+		level.orderCount++;
+		level.quantity += entry.quantity;
+		if (entry.side == Side.BUY) {
+			bidCount++;
+		} else {
+			askCount++;
+		}
+	}
+
+	private void unlink(Entry entry) {
+		final Level level = entry.level;
+		if (entry.prev == null) {
+			level.head = entry.next;
+		} else {
+			entry.prev.next = entry.next;
+		}
+		if (entry.next == null) {
+			level.tail = entry.prev;
+		} else {
+			entry.next.prev = entry.prev;
+		}
+		level.orderCount--;
+		level.quantity -= entry.quantity;
+		if (level.head == null) {
+			removeLevel(level);
+		}
+		entry.level = null;
+		if (entry.side == Side.BUY) {
+			bidCount--;
+		} else {
+			askCount--;
+		}
+	}
+
+	private static void validate(double price, long quantity) {
+		if (price < 0 | Double.isNaN(price)) {
+			throw new IllegalArgumentException("illegal price: " + price);
+		}
+		if (quantity <= 0) {
+			throw new IllegalArgumentException("illegal quantity: " + quantity);
+		}
+	}
+
+	final class Cursor {
+		private Entry next;
+
+		private Cursor(Level first) {
+			this.next = first == null ? null : first.head;
+		}
+
+		boolean hasNext() {
+			return next != null;
+		}
+
+		Order peek() {
+			return next;
+		}
+
+		Order next() {
+			final Entry entry = next;
+			if (entry.next != null) {
+				next = entry.next;
+			} else {
+				final Level level = getNextLevel(entry.level);
+				next = level == null ? null : level.head;
+			}
+			return entry;
+		}
+	}
+
+	/**
+	 * A price level with a FIFO queue of resting orders.
+	 */
+	protected static class Level {
+		protected final Side side;
+		protected final double price;
+		private Entry head;
+		private Entry tail;
+		private int orderCount;
+		private long quantity;
+
+		protected Level(Side side, double price) {
+			this.side = side;
+			this.price = price;
+		}
+
+		/**
+		 * Returns the aggregate quantity of all orders in this level.
+		 * 
+		 * @return the sum of the order quantities
+		 */
+		public long getQuantity() {
+			return quantity;
+		}
+
+		/**
+		 * Returns the number of orders in this level.
+		 * 
+		 * @return the order count
+		 */
+		public int getOrderCount() {
+			return orderCount;
+		}
+	}
+
+	private final class Entry implements Order {
+		private final long id;
+		private final String party;
+		private final Side side;
+		private double price;
+		private long quantity;
+		private Level level;
+		private Entry prev;
+		private Entry next;
+
+		private Entry(long id, String party, Side side, double price, long quantity) {
+			this.id = id;
+			this.party = party;
+			this.side = side;
+			this.price = price;
+			this.quantity = quantity;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public AssetPair<?, ?> getAssetPair() {
+			return assetPair;
+		}
+
+		@Override
+		public String getParty() {
+			return party;
+		}
+
+		@Override
+		public Side getSide() {
+			return side;
+		}
+
+		@Override
+		public double getPrice() {
+			return price;
+		}
+
+		@Override
+		public long getQuantity() {
+			return quantity;
+		}
+
+		@Override
+		public String toShortString() {
+			return getSide() + ":" + getAssetPair() + "[" + formatQuantityAndPrice(getQuantity(), getPrice()) + "]";
+		}
+
+		@Override
+		public String toString() {
+			return "RestingOrder{id=" + id + ", assetPair=" + assetPair + ", party=" + party + ", side=" + side
+					+ ", price=" + price + ", quantity=" + quantity + "}";
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{assetPair=" + assetPair + ", bids=" + bidCount + ", asks=" + askCount + "}";
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.market.DepthUpdateImpl;
+import org.tools4j.fx.make.market.MarketObserver;
+
+/**
+ * Publishes incremental level-2 updates of order books. The publisher keeps
+ * the levels last published for every book side and compares them with the
+ * current levels of the book; only new, changed and removed levels are
+ * published. Levels beyond the configured depth are treated as removed.
+ * <p>
+ * The class is NOT thread safe.
+ */
+class DepthPublisher {
+
+	private final int maxLevels;
+	private final List<Levels> levelsByPairSide = new ArrayList<>();
+
+	/**
+	 * Constructor with maximum number of published levels per book side.
+	 * 
+	 * @param maxLevels
+	 *            the number of top levels to publish, -1 for all levels
+	 */
+	public DepthPublisher(int maxLevels) {
+		if (maxLevels == 0 | maxLevels < -1) {
+			throw new IllegalArgumentException("maxLevels must be positive or -1 for all levels: " + maxLevels);
+		}
+		this.maxLevels = maxLevels;
+	}
+
+	/**
+	 * Publishes the levels of the book that changed since the last call for
+	 * this book.
+	 * 
+	 * @param book
+	 *            the order book
+	 * @param observer
+	 *            the observer receiving the depth updates
+	 */
+	public void publish(AbstractOrderBook book, MarketObserver observer) {
+		publish(book, Side.BUY, observer);
+		publish(book, Side.SELL, observer);
+	}
+
+	private void publish(AbstractOrderBook book, Side side, MarketObserver observer) {
+		final AssetPair<?, ?> assetPair = book.getAssetPair();
+		final Levels prev = getLevels(assetPair, side);
+		final int depth = maxLevels < 0 ? book.getLevelCount(side) : maxLevels;
+		final Levels cur = prev.swap(depth);
+		cur.size = book.getLevels(side, cur.prices, cur.quantities, cur.orderCounts);
+		//both sides are sorted best price first
+		int i = 0;
+		int j = 0;
+		while (i < prev.size | j < cur.size) {
+			if (i < prev.size & j < cur.size && prev.prices[i] == cur.prices[j]) {
+				if (prev.quantities[i] != cur.quantities[j] | prev.orderCounts[i] != cur.orderCounts[j]) {
+					observer.onDepth(new DepthUpdateImpl(assetPair, side, cur.prices[j], cur.quantities[j], cur.orderCounts[j]));
+				}
+				i++;
+				j++;
+			} else if (i >= prev.size || (j < cur.size && isBetter(side, cur.prices[j], prev.prices[i]))) {
+				observer.onDepth(new DepthUpdateImpl(assetPair, side, cur.prices[j], cur.quantities[j], cur.orderCounts[j]));
+				j++;
+			} else {
+				observer.onDepth(new DepthUpdateImpl(assetPair, side, prev.prices[i], 0, 0));
+				i++;
+			}
+		}
+		setLevels(assetPair, side, cur);
+	}
+
+	private static boolean isBetter(Side side, double price, double other) {
+		return side == Side.BUY ? price > other : price < other;
+	}
+
+	private int index(AssetPair<?, ?> assetPair, Side side) {
+		return 2 * assetPair.getId() + (side == Side.BUY ? 0 : 1);
+	}
+
+	private Levels getLevels(AssetPair<?, ?> assetPair, Side side) {
+		final int index = index(assetPair, side);
+		while (levelsByPairSide.size() <= index) {
+			levelsByPairSide.add(new Levels(null));
+		}
+		return levelsByPairSide.get(index);
+	}
+
+	private void setLevels(AssetPair<?, ?> assetPair, Side side, Levels levels) {
+		levelsByPairSide.set(index(assetPair, side), levels);
+	}
+
+	/**
+	 * Level arrays, double buffered: the previous levels are kept while the
+	 * current levels are copied into the other buffer.
+	 */
+	private static final class Levels {
+		private double[] prices = new double[0];
+		private long[] quantities = new long[0];
+		private int[] orderCounts = new int[0];
+		private int size;
+		private Levels other;
+
+		Levels(Levels other) {
+			this.other = other;
+		}
+
+		Levels swap(int capacity) {
+			if (other == null) {
+				other = new Levels(this);
+			}
+			other.ensureCapacity(capacity);
+			other.size = 0;
+			return other;
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (prices.length < capacity) {
+				prices = new double[capacity];
+				quantities = new long[capacity];
+				orderCounts = new int[capacity];
+			}
+		}
+	}
+}
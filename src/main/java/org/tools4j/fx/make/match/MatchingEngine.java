@@ -25,24 +25,47 @@ package org.tools4j.fx.make.match;
 
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
 import org.tools4j.fx.make.asset.Asset;
+import org.tools4j.fx.make.asset.AssetPair;
 import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.ExecutionListener;
+import org.tools4j.fx.make.execution.ExecutionReport;
+import org.tools4j.fx.make.flow.GatewayOrderFlow;
 import org.tools4j.fx.make.flow.OrderFlow;
 import org.tools4j.fx.make.market.MidMarketRates;
 import org.tools4j.fx.make.market.MarketMaker;
 import org.tools4j.fx.make.market.MarketObserver;
+import org.tools4j.fx.make.market.QuoteManager;
 import org.tools4j.fx.make.position.AssetPositions;
 import org.tools4j.fx.make.position.MarketSnapshot;
 import org.tools4j.fx.make.risk.RiskLimits;
+import org.tools4j.fx.make.util.IdleStrategy;
 
 /**
  * A matching engine fetches orders from {@link OrderFlow} instances and matches
  * those orders if possible. The matching engine maintains a set of
  * {@link AssetPositions} for every party involved in a matching {@link Deal}.
  * To control the asset position size of a party, {@link RiskLimits} can be
- * registered via {@link Builder#setRiskLimits(String, RiskLimits)}
+ * registered via {@link Builder#setRiskLimits(String, RiskLimits)}; besides
+ * per-asset limits those can constrain the net open position and the gross
+ * notional of a party, both maintained incrementally by the engine. The engine
+ * also keeps realised and unrealised PnL of every party marked at the current
+ * mid rates, and a max loss limit stops a party out of increasing its net open
+ * position. Limits for parties without explicit limits can be set via
+ * {@link Builder#setDefaultRiskLimits(RiskLimits)}.
+ * <p>
+ * Every filled order results in an {@link ExecutionReport} delivered to the
+ * {@link ExecutionListener}s registered for the party of the order via
+ * {@link Builder#addExecutionListener(String, ExecutionListener)}; market
+ * makers added as market makers or market observers are registered for their
+ * {@link MarketMaker#getParties() parties} once, even if also added
+ * explicitly as execution listeners.
+ * <p>
+ * Orders are either matched in batch rounds or continuously one by one
+ * against resting orders, see {@link MatchingMode}.
  * <p>
  * After creating an engine via {@link Builder} (see
  * {@link MatchingEngineImpl#builder()}), matching can be performed
@@ -54,7 +77,15 @@ import org.tools4j.fx.make.risk.RiskLimits;
  * each step {@link MatchingState} can be consumed by the consumer argument</li>
  * <li><b>all at once:</b> via {@link #matchAll()} which returns a final
  * {@link MatchingState} object for inspection of positions etc.</li>
+ * <li><b>as a service:</b> via {@link #startService(IdleStrategy, ThreadFactory)}
+ * where a dedicated engine thread performs matching rounds until stopped,
+ * typically draining orders offered by concurrent producers to a
+ * {@link GatewayOrderFlow}</li>
  * </ul>
+ * The matching state and the party states are live objects which must only be
+ * accessed by the thread performing the matching. Other threads can poll the
+ * engine state through the {@link #getMonitor() monitor} while matching is in
+ * progress.
  */
 public interface MatchingEngine {
 
@@ -68,6 +99,14 @@ public interface MatchingEngine {
 	 */
 	MatchingState matchFirst();
 
+	/**
+	 * Returns a read-only view of the engine state which can be polled by any
+	 * thread while matching is in progress.
+	 * 
+	 * @return the monitor for this engine, never null
+	 */
+	MatchingMonitor getMonitor();
+
 	/**
 	 * Performs all matching steps until no order flow returns any more orders.
 	 * The final matching state object is returned.
@@ -102,6 +141,23 @@ public interface MatchingEngine {
 		consumer.accept(state);
 	}
 
+	/**
+	 * Starts a service performing matching rounds on a single engine thread
+	 * until the service is {@link MatchingEngineService#stop() stopped}.
+	 * Unlike {@link #matchAll()}, rounds continue when no order flow returns
+	 * any orders; the engine thread idles via the given idle strategy instead.
+	 * Concurrent producers publish orders through a {@link GatewayOrderFlow}
+	 * added to the engine as order flow.
+	 * 
+	 * @param idleStrategy
+	 *            the strategy invoked with the work count of every round
+	 * @param threadFactory
+	 *            factory for the engine thread, for instance to pin the thread
+	 *            to a CPU core
+	 * @return the running service
+	 */
+	MatchingEngineService startService(IdleStrategy idleStrategy, ThreadFactory threadFactory);
+
 	/**
 	 * A builder to construct a {@link MatchingEngine}, returned by
 	 * {@link MatchingEngineImpl#builder()}.
@@ -113,8 +169,87 @@ public interface MatchingEngine {
 
 		Builder setRiskLimits(String party, RiskLimits riskLimits);
 
+		Builder setDefaultRiskLimits(RiskLimits riskLimits);
+
 		Builder addMarketObserver(MarketObserver marketObserver);
 
+		Builder addExecutionListener(String party, ExecutionListener executionListener);
+
+		/**
+		 * Enables or disables resting quotes. If enabled, market makers
+		 * receive a {@link QuoteManager} to place, amend and cancel quotes
+		 * resting in the engine's {@link OrderBook order books}; resting
+		 * quotes take part in every matching round of their asset pair until
+		 * they are fully filled or cancelled. Disabled by default.
+		 * 
+		 * @param restingQuotes
+		 *            true to enable resting quotes
+		 * @return this builder
+		 */
+		Builder setRestingQuotes(boolean restingQuotes);
+
+		/**
+		 * Sets the matching mode, {@link MatchingMode#BATCH BATCH} by default.
+		 * In {@link MatchingMode#CONTINUOUS CONTINUOUS} mode all orders rest
+		 * in the engine's {@link OrderBook order books} and are matched one
+		 * by one as they arrive.
+		 * 
+		 * @param matchingMode
+		 *            the matching mode
+		 * @return this builder
+		 */
+		Builder setMatchingMode(MatchingMode matchingMode);
+
+		/**
+		 * Sets the tick size for an asset pair. Pairs with a tick size use a
+		 * {@link PriceLadderOrderBook} with constant time price level access;
+		 * in batch mode the incoming orders of a round are added to the ladder
+		 * instead of being sorted and expire at the end of the round. Order
+		 * prices off the tick grid are snapped to it, bids down and asks up,
+		 * and matched at the snapped price, see
+		 * {@link PriceLadderOrderBook#snapPrice(org.tools4j.fx.make.execution.Side, double, double)}.
+		 * 
+		 * @param assetPair
+		 *            the asset pair
+		 * @param tickSize
+		 *            the minimum price increment of the pair, positive
+		 * @return this builder
+		 */
+		Builder setTickSize(AssetPair<?, ?> assetPair, double tickSize);
+
+		/**
+		 * Limits the depth updates published to market observers subscribed
+		 * to {@link MarketObserver.EventType#DEPTH DEPTH} events to the given number of top
+		 * price levels per book side. All levels are published by default.
+		 * Depth updates reflect the engine's resting order books at the end of
+		 * each matching round.
+		 * 
+		 * @param depthLevels
+		 *            the number of top levels, positive or -1 for all levels
+		 * @return this builder
+		 */
+		Builder setDepthLevels(int depthLevels);
+
+		/**
+		 * Continues from a copy of the given state of another engine instead
+		 * of starting afresh, for instance to run what-if branches off a
+		 * common history without matching the history again for every
+		 * branch. Copied are the party states with positions, water marks,
+		 * deal counts and PnL, the market rates and the match index; the copy
+		 * is taken when the engine is built, hence the engine must be built by
+		 * the thread performing the matching of the given state. Copied
+		 * parties keep their risk limits unless set via
+		 * {@link #setRiskLimits(String, RiskLimits)}. Resting orders and
+		 * quotes are not copied, the order books are initially empty. The
+		 * state of market makers is not part of the engine state, see
+		 * {@link MarketMaker#snapshotState()}.
+		 * @param state
+		 *            the state of an engine built by
+		 *            {@link MatchingEngineImpl#builder()}, null to start afresh
+		 * @return this builder
+		 */
+		Builder forkFrom(MatchingState state);
+
 		MatchingEngine build();
 	}
 
@@ -154,6 +289,20 @@ public interface MatchingEngine {
 		 */
 		PartyState getPartyState(String party);
 
+		/**
+		 * Returns the book with resting quotes for the given asset pair.
+		 * Resting quotes are only maintained if enabled via
+		 * {@link Builder#setRestingQuotes(boolean)}; in
+		 * {@link MatchingMode#CONTINUOUS continuous} matching mode the book
+		 * also contains the resting orders of all order flows.
+		 * 
+		 * @param assetPair
+		 *            the asset pair
+		 * @return the order book, or null if no order or quote has been placed
+		 *         for this asset pair
+		 */
+		OrderBook getOrderBook(AssetPair<?, ?> assetPair);
+
 		/**
 		 * Returns the time-step index of the current match, zero after the
 		 * first round of matching.
@@ -235,5 +384,46 @@ public interface MatchingEngine {
 		 * @return the number of deals where this party was taking part
 		 */
 		long getDealCount();
+
+		/**
+		 * Returns the net open position of this party in the
+		 * {@link RiskLimits#getValuationCurrency() valuation currency} of its
+		 * risk limits. The value is maintained incrementally as deals occur
+		 * and rates move.
+		 * 
+		 * @return the net open position in valuation currency, not negative
+		 * @see RiskLimits#getMaxNetOpenPosition()
+		 */
+		double getNetOpenPosition();
+
+		/**
+		 * Returns the gross notional of all deals of this party in the
+		 * {@link RiskLimits#getValuationCurrency() valuation currency} of its
+		 * risk limits.
+		 * 
+		 * @return the gross notional in valuation currency, not negative
+		 * @see RiskLimits#getMaxGrossNotional()
+		 */
+		double getGrossNotional();
+
+		/**
+		 * Returns the PnL realised by this party through closing or reducing
+		 * positions, in the {@link RiskLimits#getValuationCurrency() valuation
+		 * currency} of its risk limits.
+		 * 
+		 * @return the realised PnL in valuation currency
+		 */
+		double getRealisedPnl();
+
+		/**
+		 * Returns the mark-to-market PnL of the open positions of this party,
+		 * in the {@link RiskLimits#getValuationCurrency() valuation currency}
+		 * of its risk limits. The value is maintained incrementally as deals
+		 * occur and rates move.
+		 * 
+		 * @return the unrealised PnL in valuation currency
+		 * @see RiskLimits#getMaxLoss()
+		 */
+		double getUnrealisedPnl();
 	}
 }
@@ -24,8 +24,10 @@
 package org.tools4j.fx.make.match;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -33,6 +35,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -42,41 +45,191 @@ import org.tools4j.fx.make.asset.Asset;
 import org.tools4j.fx.make.asset.AssetPair;
 import org.tools4j.fx.make.execution.Deal;
 import org.tools4j.fx.make.execution.DealImpl;
+import org.tools4j.fx.make.execution.ExecutionListener;
+import org.tools4j.fx.make.execution.ExecutionReportImpl;
 import org.tools4j.fx.make.execution.Order;
 import org.tools4j.fx.make.execution.OrderImpl;
 import org.tools4j.fx.make.execution.OrderPriceComparator;
 import org.tools4j.fx.make.execution.Side;
 import org.tools4j.fx.make.flow.OrderFlow;
 import org.tools4j.fx.make.market.CompositeOrderFlow;
+import org.tools4j.fx.make.market.MarketEventRouter;
 import org.tools4j.fx.make.market.MarketMaker;
 import org.tools4j.fx.make.market.MarketObserver;
+import org.tools4j.fx.make.market.MarketObserver.EventType;
 import org.tools4j.fx.make.market.MidMarketRates;
+import org.tools4j.fx.make.market.QuoteManager;
 import org.tools4j.fx.make.position.AssetPositions;
 import org.tools4j.fx.make.position.AssetPositionsImpl;
 import org.tools4j.fx.make.position.HighWaterMarkPositionKeeper;
+import org.tools4j.fx.make.position.IncrementalValuator;
 import org.tools4j.fx.make.position.MarketSnapshot;
 import org.tools4j.fx.make.risk.RiskLimits;
+import org.tools4j.fx.make.util.IdleStrategy;
 
 public class MatchingEngineImpl implements MatchingEngine {
 
+	private static final ExecutionListener[] NO_LISTENERS = new ExecutionListener[0];
+
 	private final List<OrderFlow> orderFlows;
 	private final Map<String, PartyStateImpl> partyStateByParty;
+	private final List<List<PartyStateImpl>> partyStatesByAssetId = new ArrayList<>();
 	private final List<MarketObserver> marketObservers;
+	private final RiskLimits defaultRiskLimits;
+	private final Map<String, ExecutionListener[]> executionListenersByParty;
+	private final List<MarketMaker> quotingMarketMakers;
+	private final MatchingMode matchingMode;
+	private final Map<AssetPair<?, ?>, Double> tickSizeByPair;
+	private final int depthLevels;
+	private final MatchingMonitorImpl monitor = new MatchingMonitorImpl();
+	private final MidMarketRates initialRates;
+	private final long initialMatchIndex;
+	private final List<AssetPair<?, ?>> initialDealtPairs;
 
 	public MatchingEngineImpl(List<? extends OrderFlow> orderFlows, Map<? extends String, ? extends RiskLimits> riskLimitsByParty, Collection<? extends MarketObserver> marketObservers) {
+		this(orderFlows, riskLimitsByParty, RiskLimits.UNLIMITED, marketObservers);
+	}
+	public MatchingEngineImpl(List<? extends OrderFlow> orderFlows, Map<? extends String, ? extends RiskLimits> riskLimitsByParty, RiskLimits defaultRiskLimits, Collection<? extends MarketObserver> marketObservers) {
+		this(orderFlows, riskLimitsByParty, defaultRiskLimits, marketObservers, Collections.emptyMap(), false, MatchingMode.BATCH, Collections.emptyMap(), -1);
+	}
+	/**
+	 * Constructor with all engine options.
+	 * 
+	 * @param orderFlows
+	 *            the order flows, including market makers
+	 * @param riskLimitsByParty
+	 *            explicit risk limits per party
+	 * @param defaultRiskLimits
+	 *            risk limits for parties without explicit limits
+	 * @param marketObservers
+	 *            observers notified about orders, best orders and deals;
+	 *            market makers among them also receive the execution reports
+	 *            of their parties
+	 * @param executionListenersByParty
+	 *            listeners for execution reports of the orders of a party
+	 * @param restingQuotes
+	 *            if true, market makers among the order flows are provided
+	 *            with a {@link QuoteManager} to maintain resting quotes
+	 * @param matchingMode
+	 *            batch or continuous matching
+	 * @param tickSizeByPair
+	 *            tick sizes of asset pairs using a {@link PriceLadderOrderBook}
+	 * @param depthLevels
+	 *            the number of top levels per book side published as depth
+	 *            updates, -1 for all levels
+	 */
+	public MatchingEngineImpl(List<? extends OrderFlow> orderFlows, Map<? extends String, ? extends RiskLimits> riskLimitsByParty, RiskLimits defaultRiskLimits, Collection<? extends MarketObserver> marketObservers, Map<? extends String, ? extends Collection<? extends ExecutionListener>> executionListenersByParty, boolean restingQuotes, MatchingMode matchingMode, Map<? extends AssetPair<?, ?>, Double> tickSizeByPair, int depthLevels) {
+		this(orderFlows, riskLimitsByParty, defaultRiskLimits, marketObservers, executionListenersByParty, restingQuotes, matchingMode, tickSizeByPair, depthLevels, null);
+	}
+	/**
+	 * Constructor with all engine options and an initial state.
+	 * 
+	 * @param orderFlows
+	 *            the order flows, including market makers
+	 * @param riskLimitsByParty
+	 *            explicit risk limits per party
+	 * @param defaultRiskLimits
+	 *            risk limits for parties without explicit limits
+	 * @param marketObservers
+	 *            observers notified about orders, best orders and deals;
+	 *            market makers among them also receive the execution reports
+	 *            of their parties
+	 * @param executionListenersByParty
+	 *            listeners for execution reports of the orders of a party
+	 * @param restingQuotes
+	 *            if true, market makers among the order flows are provided
+	 *            with a {@link QuoteManager} to maintain resting quotes
+	 * @param matchingMode
+	 *            batch or continuous matching
+	 * @param tickSizeByPair
+	 *            tick sizes of asset pairs using a {@link PriceLadderOrderBook}
+	 * @param depthLevels
+	 *            the number of top levels per book side published as depth
+	 *            updates, -1 for all levels
+	 * @param initialState
+	 *            the state of another engine to continue from, null to start
+	 *            afresh, see {@link Builder#forkFrom(MatchingState)}
+	 */
+	public MatchingEngineImpl(List<? extends OrderFlow> orderFlows, Map<? extends String, ? extends RiskLimits> riskLimitsByParty, RiskLimits defaultRiskLimits, Collection<? extends MarketObserver> marketObservers, Map<? extends String, ? extends Collection<? extends ExecutionListener>> executionListenersByParty, boolean restingQuotes, MatchingMode matchingMode, Map<? extends AssetPair<?, ?>, Double> tickSizeByPair, int depthLevels, MatchingState initialState) {
 		Objects.requireNonNull(orderFlows, "orderFlows is null");
 		Objects.requireNonNull(riskLimitsByParty, "riskLimitsByParty is null");
 		Objects.requireNonNull(marketObservers, "marketObservers is null");
+		Objects.requireNonNull(executionListenersByParty, "executionListenersByParty is null");
+		this.defaultRiskLimits = Objects.requireNonNull(defaultRiskLimits, "defaultRiskLimits is null");
+		this.matchingMode = Objects.requireNonNull(matchingMode, "matchingMode is null");
+		this.tickSizeByPair = new HashMap<>(Objects.requireNonNull(tickSizeByPair, "tickSizeByPair is null"));
+		if (depthLevels == 0 | depthLevels < -1) {
+			throw new IllegalArgumentException("depthLevels must be positive or -1 for all levels: " + depthLevels);
+		}
+		this.depthLevels = depthLevels;
 		this.orderFlows = new ArrayList<>(orderFlows);
+		this.executionListenersByParty = listenersByParty(executionListenersByParty, marketObservers);
+		this.quotingMarketMakers = !restingQuotes ? Collections.emptyList() : orderFlows.stream()
+				.filter(f -> f instanceof MarketMaker).map(f -> (MarketMaker) f).collect(Collectors.toList());
 		this.partyStateByParty = riskLimitsByParty.entrySet().stream()
 				.collect(Collectors.toMap(e -> e.getKey(), e -> new PartyStateImpl(e.getKey(), e.getValue())));
 		this.marketObservers = new ArrayList<>(marketObservers);
+		if (initialState == null) {
+			this.initialRates = null;
+			this.initialMatchIndex = -1;
+			this.initialDealtPairs = Collections.emptyList();
+		} else {
+			if (!(initialState instanceof MatchingStateImpl)) {
+				throw new IllegalArgumentException("initial state must be a state of a " + MatchingEngineImpl.class.getSimpleName() + ": " + initialState);
+			}
+			final MatchingStateImpl source = (MatchingStateImpl) initialState;
+			this.initialRates = new MidMarketRates(source.midMarketRates);
+			this.initialMatchIndex = source.getMatchIndex();
+			this.initialDealtPairs = new ArrayList<>(source.dealtPairs);
+			for (final PartyStateImpl sourceState : source.getPartyStates()) {
+				final String party = sourceState.getParty();
+				final RiskLimits riskLimits = riskLimitsByParty.containsKey(party) ? riskLimitsByParty.get(party) : sourceState.getRiskLimits();
+				final PartyStateImpl partyState = new PartyStateImpl(sourceState, riskLimits);
+				partyStateByParty.put(party, partyState);
+				for (final AssetPair<?, ?> assetPair : initialDealtPairs) {
+					if (partyState.isExposed(assetPair.getBase()) & partyState.isExposed(assetPair.getTerms())) {
+						monitor.updateParty(partyState, assetPair, partyState.positionKeeper.getPosition(assetPair.getBase()), partyState.positionKeeper.getPosition(assetPair.getTerms()));
+					}
+				}
+			}
+			monitor.updateMatchIndex(initialMatchIndex);
+		}
 	}
 	
+	/**
+	 * Returns the execution listeners per party, with market makers among the
+	 * market observers added as listeners for their own parties unless they
+	 * are registered for the party already. Makers only update their
+	 * positions from execution reports, hence a maker observing the market
+	 * must also receive the executions of its party.
+	 */
+	private static Map<String, ExecutionListener[]> listenersByParty(Map<? extends String, ? extends Collection<? extends ExecutionListener>> executionListenersByParty, Collection<? extends MarketObserver> marketObservers) {
+		final Map<String, List<ExecutionListener>> listeners = new LinkedHashMap<>();
+		executionListenersByParty.forEach((party, l) -> listeners.computeIfAbsent(party, k -> new ArrayList<>()).addAll(l));
+		for (final MarketObserver marketObserver : marketObservers) {
+			if (marketObserver instanceof MarketMaker) {
+				final MarketMaker marketMaker = (MarketMaker) marketObserver;
+				for (final String party : marketMaker.getParties()) {
+					final List<ExecutionListener> partyListeners = listeners.computeIfAbsent(party, k -> new ArrayList<>());
+					if (partyListeners.stream().noneMatch(l -> l == marketMaker)) {
+						partyListeners.add(marketMaker);
+					}
+				}
+			}
+		}
+		return listeners.entrySet().stream()
+				.collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue().toArray(new ExecutionListener[e.getValue().size()])));
+	}
+
 	public static Builder builder() {
 		return new BuilderImpl();
 	}
 
+	@Override
+	public MatchingMonitor getMonitor() {
+		return monitor;
+	}
+
 	@Override
 	public MatchingState matchFirst() {
 		final MatchingStateImpl matchingState = new MatchingStateImpl();
@@ -84,11 +237,46 @@ public class MatchingEngineImpl implements MatchingEngine {
 		return matchingState;
 	}
 
+	/**
+	 * Returns a new matching state before the first round. Must be invoked
+	 * by the thread performing the matching.
+	 * 
+	 * @return a new matching state
+	 */
+	MatchingStateImpl newMatchingState() {
+		return new MatchingStateImpl();
+	}
+
+	@Override
+	public MatchingEngineService startService(IdleStrategy idleStrategy, ThreadFactory threadFactory) {
+		final MatchingEngineService service = new MatchingEngineService(this, idleStrategy, threadFactory);
+		service.start();
+		return service;
+	}
+
 	private void match(MatchingStateImpl matchingState, AssetPair<?, ?> assetPair, List<Order> assetOrders) {
-		final Stream<Order> bidStream = assetOrders.stream().filter(o -> o.getSide() == Side.BUY).sorted(OrderPriceComparator.BUY);
-		final Stream<Order> askStream = assetOrders.stream().filter(o -> o.getSide() == Side.SELL).sorted(OrderPriceComparator.SELL);
-		final Iterator<Order> bids = bidStream.iterator();
-		final Iterator<Order> asks = askStream.iterator();
+		final AbstractOrderBook book;
+		final MergingOrderIterator bids;
+		final MergingOrderIterator asks;
+		if (tickSizeByPair.containsKey(assetPair)) {
+			//incoming orders are added to the price ladder instead of being sorted
+			book = matchingState.getOrCreateOrderBook(assetPair);
+			for (int i = 0; i < assetOrders.size(); i++) {
+				book.add(assetOrders.get(i));
+			}
+			bids = new MergingOrderIterator(Collections.emptyIterator(), book.cursor(Side.BUY), OrderPriceComparator.BUY);
+			asks = new MergingOrderIterator(Collections.emptyIterator(), book.cursor(Side.SELL), OrderPriceComparator.SELL);
+		} else {
+			final Stream<Order> bidStream = assetOrders.stream().filter(o -> o.getSide() == Side.BUY).sorted(OrderPriceComparator.BUY);
+			final Stream<Order> askStream = assetOrders.stream().filter(o -> o.getSide() == Side.SELL).sorted(OrderPriceComparator.SELL);
+			//incoming orders merged with resting quotes, if any
+			book = matchingState.getRestingBook(assetPair);
+			bids = new MergingOrderIterator(bidStream.iterator(), book == null ? null : book.cursor(Side.BUY), OrderPriceComparator.BUY);
+			asks = new MergingOrderIterator(askStream.iterator(), book == null ? null : book.cursor(Side.SELL), OrderPriceComparator.SELL);
+		}
+		if (book != null) {
+			matchingState.markTouched(book);
+		}
 		Order bid = matchingState.notifyAndReturnNextOrderOrNull(bids, true);
 		Order ask = matchingState.notifyAndReturnNextOrderOrNull(asks, true);
 		//match as long as possible
@@ -98,26 +286,24 @@ public class MatchingEngineImpl implements MatchingEngine {
 				final double midRate = (bid.getPrice() + ask.getPrice()) / 2;
 				final PartyStateImpl bidState = partyStateByParty.get(bid.getParty()); 
 				final PartyStateImpl askState = partyStateByParty.get(ask.getParty());
-				long bidQty = matchQty; 
-				long askQty = matchQty; 
-				if (bidState != null) {
-					final long maxBid = bidState.getAssetPositions().getMaxPossibleFillWithoutBreachingRiskLimits(bid.getAssetPair(), Side.BUY, midRate);
-					bidQty = maxBid >= 0 ? Math.min(matchQty, maxBid) : matchQty;
-				}
-				if (askState != null) {
-					final long maxAsk = askState.getAssetPositions().getMaxPossibleFillWithoutBreachingRiskLimits(ask.getAssetPair(), Side.SELL, midRate);
-					askQty = maxAsk >= 0 ? Math.min(matchQty, maxAsk) : matchQty;
-				}
+				//the bid party acts as counter party for the ask order and vice versa
+				final long bidQty = bidState != null ? bidState.getMaxPossibleFill(assetPair, Side.SELL, midRate, matchQty) : matchQty; 
+				final long askQty = askState != null ? askState.getMaxPossibleFill(assetPair, Side.BUY, midRate, matchQty) : matchQty; 
 				if (bidQty != 0 & askQty != 0) {
 					//match
 					final long fillQty = Math.min(bidQty, askQty);
 					final Deal deal = new DealImpl(assetPair, midRate, fillQty, bid.getId(), bid.getParty(), ask.getId(), ask.getParty());
-					getOrCreatePartyState(bid.getParty()).registerDeal(deal, Side.BUY);
-					getOrCreatePartyState(ask.getParty()).registerDeal(deal, Side.SELL);
+					final PartyStateImpl buyer = getOrCreatePartyState(bid.getParty());
+					final PartyStateImpl seller = getOrCreatePartyState(ask.getParty());
+					matchingState.registerDeal(buyer, deal, Side.BUY);
+					matchingState.registerDeal(seller, deal, Side.SELL);
 					matchingState.notifyAllMarketObservers(deal);
+					//private execution reports to the owners of the filled orders
+					buyer.notifyExecutionListeners(deal, bid);
+					seller.notifyExecutionListeners(deal, ask);
 					//carve out fillQty or go to next if fully filled
-					bid = matchingState.getRemainingOrderOrNext(deal, bid, bids);
-					ask = matchingState.getRemainingOrderOrNext(deal, ask, asks);
+					bid = matchingState.getRemainingOrderOrNext(deal, bid, bids, book);
+					ask = matchingState.getRemainingOrderOrNext(deal, ask, asks, book);
 				} else {
 					//no match due to risk limit breaches, try next
 					if (bidQty == 0) {
@@ -132,6 +318,8 @@ public class MatchingEngineImpl implements MatchingEngine {
 				break;
 			}
 		}
+		//the best remaining orders after matching are the top of book
+		monitor.updateTopOfBook(assetPair, bid, ask);
 		//notify market observers of the remaining unmatched orders
 		while (bid != null) {
 			bid = matchingState.notifyAndReturnNextOrderOrNull(bids, false);
@@ -139,12 +327,18 @@ public class MatchingEngineImpl implements MatchingEngine {
 		while (ask != null) {
 			ask = matchingState.notifyAndReturnNextOrderOrNull(asks, false);
 		}
+		if (tickSizeByPair.containsKey(assetPair)) {
+			//unmatched incoming orders expire at the end of the round
+			for (int i = 0; i < assetOrders.size(); i++) {
+				book.cancel(assetOrders.get(i).getId());
+			}
+		}
 	}
 	
 	private PartyStateImpl getOrCreatePartyState(String party) {
 		PartyStateImpl partyState = partyStateByParty.get(party);
 		if (partyState == null) {
-			partyState = new PartyStateImpl(party, RiskLimits.UNLIMITED);
+			partyState = new PartyStateImpl(party, defaultRiskLimits);
 			partyStateByParty.put(party, partyState);
 		}
 		return partyState;
@@ -153,11 +347,33 @@ public class MatchingEngineImpl implements MatchingEngine {
 	private class PartyStateImpl implements PartyState {
 		private final String party;
 		private final HighWaterMarkPositionKeeper positionKeeper;
+		private final IncrementalValuator valuator;
+		private final ExecutionListener[] executionListeners;
 		private final AtomicLong dealCount = new AtomicLong();
+		private final BitSet assetIds = new BitSet();
 
 		public PartyStateImpl(String party, RiskLimits riskLimits) {
 			this.party = Objects.requireNonNull(party, "party is null");
+			this.executionListeners = executionListenersByParty.getOrDefault(party, NO_LISTENERS);
 			this.positionKeeper = new HighWaterMarkPositionKeeper(riskLimits);
+			this.valuator = new IncrementalValuator(riskLimits.getValuationCurrency());
+		}
+
+		/**
+		 * Constructor for a copy of the state of a party of another engine.
+		 */
+		public PartyStateImpl(PartyStateImpl source, RiskLimits riskLimits) {
+			if (riskLimits.getValuationCurrency() != source.valuator.getValuationCurrency()) {
+				throw new IllegalArgumentException("valuation currency " + riskLimits.getValuationCurrency() + " differs from " + source.valuator.getValuationCurrency() + " of copied party " + source.party);
+			}
+			this.party = source.party;
+			this.executionListeners = executionListenersByParty.getOrDefault(party, NO_LISTENERS);
+			this.positionKeeper = new HighWaterMarkPositionKeeper(riskLimits, source.positionKeeper);
+			this.valuator = new IncrementalValuator(source.valuator);
+			this.dealCount.set(source.getDealCount());
+			for (int assetId = source.assetIds.nextSetBit(0); assetId >= 0; assetId = source.assetIds.nextSetBit(assetId + 1)) {
+				addExposure(assetId);
+			}
 		}
 		
 		@Override
@@ -190,17 +406,119 @@ public class MatchingEngineImpl implements MatchingEngine {
 			return dealCount.get();
 		}
 
+		@Override
+		public double getNetOpenPosition() {
+			return valuator.getNetOpenPosition();
+		}
+
+		@Override
+		public double getGrossNotional() {
+			return valuator.getGrossNotional();
+		}
+
+		@Override
+		public double getRealisedPnl() {
+			return valuator.getRealisedPnl();
+		}
+
+		@Override
+		public double getUnrealisedPnl() {
+			return valuator.getUnrealisedPnl();
+		}
+
+		public long getMaxPossibleFill(AssetPair<?, ?> assetPair, Side orderSide, double rate, long quantity) {
+			final RiskLimits riskLimits = positionKeeper.getRiskLimits();
+			final long maxQty = positionKeeper.getMaxPossibleFillWithoutBreachingRiskLimits(assetPair, orderSide, rate);
+			final long qty = maxQty >= 0 ? Math.min(quantity, maxQty) : quantity;
+			final long maxLoss = riskLimits.getMaxLoss();
+			//stopped out: only deals not increasing the net open position
+			final long maxNetOpenPosition = maxLoss >= 0 && valuator.getPnl() < -maxLoss ? 0 : riskLimits.getMaxNetOpenPosition();
+			final long maxGrossNotional = riskLimits.getMaxGrossNotional();
+			if (qty > 0 & (maxNetOpenPosition >= 0 | maxGrossNotional >= 0)) {
+				return valuator.getMaxPossibleFill(assetPair, orderSide, rate, qty, maxNetOpenPosition, maxGrossNotional);
+			}
+			return qty;
+		}
+
+		/**
+		 * Registers an exposure to the given asset, returns false if the
+		 * party was exposed already.
+		 */
+		public boolean addExposure(Asset asset) {
+			return addExposure(asset.id());
+		}
+
+		private boolean addExposure(int assetId) {
+			if (assetIds.get(assetId)) {
+				return false;
+			}
+			assetIds.set(assetId);
+			while (partyStatesByAssetId.size() <= assetId) {
+				partyStatesByAssetId.add(new ArrayList<>());
+			}
+			partyStatesByAssetId.get(assetId).add(this);
+			return true;
+		}
+
+		public boolean isExposed(Asset asset) {
+			return assetIds.get(asset.id());
+		}
+
 		public void registerDeal(Deal deal, Side side) {
 			positionKeeper.updatePosition(deal, side);
+			valuator.updatePosition(deal, side);
 			dealCount.incrementAndGet();
+			final AssetPair<?, ?> assetPair = deal.getAssetPair();
+			monitor.updateParty(this, assetPair, positionKeeper.getPosition(assetPair.getBase()), positionKeeper.getPosition(assetPair.getTerms()));
+		}
+
+		public void notifyExecutionListeners(Deal deal, Order order) {
+			if (executionListeners.length > 0) {
+				final ExecutionReportImpl executionReport = new ExecutionReportImpl(deal, order);
+				for (final ExecutionListener executionListener : executionListeners) {
+					executionListener.onExecution(executionReport);
+				}
+			}
+		}
+
+		public void updateRate(AssetPair<?, ?> assetPair, double rate) {
+			if (valuator.updateRate(assetPair, rate)) {
+				monitor.updatePnl(this);
+			}
 		}
 	}
 
-	private class MatchingStateImpl implements MatchingState {
-		private final AtomicLong index = new AtomicLong(-1);
+	class MatchingStateImpl implements MatchingState {
+		private final AtomicLong index = new AtomicLong(initialMatchIndex);
 		private final AtomicBoolean hasMore = new AtomicBoolean(true);
-		private final OrderFlow orderFlow = new CompositeOrderFlow(orderFlows);
-		private final MidMarketRates midMarketRates = new MidMarketRates();
+		private final CompositeOrderFlow orderFlow = new CompositeOrderFlow(orderFlows);
+		private final MarketEventRouter router = new MarketEventRouter(marketObservers);
+		private final MidMarketRates midMarketRates = initialRates == null ? new MidMarketRates() : new MidMarketRates(initialRates);
+		private final List<List<Order>> ordersByPairId = new ArrayList<>();
+		private final List<AbstractOrderBook> booksByPairId = new ArrayList<>();
+		private final BitSet scheduledPairIds = new BitSet();
+		private final List<AssetPair<?, ?>> assetPairs = new ArrayList<>();
+		private final List<Map<String, Long>> restingIdsByParty = new ArrayList<>();
+		private final QuoteManagerImpl quoteManager = new QuoteManagerImpl();
+		private final DepthPublisher depthPublisher = new DepthPublisher(depthLevels);
+		private final BitSet touchedPairIds = new BitSet();
+		private final List<AbstractOrderBook> touchedBooks = new ArrayList<>();
+		private final BitSet dealtPairIds = new BitSet();
+		private final List<List<AssetPair<?, ?>>> dealtPairsByAssetId = new ArrayList<>();
+		private final List<AssetPair<?, ?>> dealtPairs = new ArrayList<>();
+
+		public MatchingStateImpl() {
+			for (final MarketMaker marketMaker : quotingMarketMakers) {
+				marketMaker.setQuoteManager(quoteManager);
+			}
+			for (int i = 0; i < initialDealtPairs.size(); i++) {
+				addDealtPair(initialDealtPairs.get(i));
+			}
+		}
+
+		private Collection<PartyStateImpl> getPartyStates() {
+			return partyStateByParty.values();
+		}
 
 		@Override
 		public MarketSnapshot getMarketSnapshot() {
@@ -231,34 +549,305 @@ public class MatchingEngineImpl implements MatchingEngine {
 			if (!hasMore.compareAndSet(true, false)) {
 				throw new NoSuchElementException("no next match");
 			}
+			if (matchRound() == 0) {
+				//an explicitly requested round is a time step even if idle
+				monitor.updateMatchIndex(this.index.incrementAndGet());
+			}
+			return this;
+		}
+
+		/**
+		 * Performs a matching round regardless of {@link #hasNext()}, for
+		 * instance when new orders have arrived at a gateway after all flows
+		 * were exhausted. An idle round without orders and quote modifications
+		 * returns early without advancing the match index or publishing.
+		 * 
+		 * @return the number of orders and quote modifications in this round
+		 */
+		int matchRound() {
+			quoteManager.modifications = 0;
 			final List<Order> orders = orderFlow.nextOrders();
+			if (orders.isEmpty() & quoteManager.modifications == 0) {
+				this.hasMore.set(false);
+				return 0;
+			}
+			if (matchingMode == MatchingMode.CONTINUOUS) {
+				//match one order at a time in arrival order
+				for (int i = 0; i < orders.size(); i++) {
+					matchContinuous(orders.get(i));
+				}
+				publishDepth();
+				monitor.updateMatchIndex(this.index.incrementAndGet());
+				this.hasMore.set(true);
+				return orders.size() + quoteManager.modifications;
+			}
 			
-			//group by asset pair and match each group
-			final Set<AssetPair<?, ?>> assetPairs = orders.stream().map(o -> o.getAssetPair()).collect(Collectors.toSet());
-			for (final AssetPair<?, ?> assetPair : assetPairs) {
-				final List<Order> assetOrders = orders.stream().filter(o -> assetPair.equals(o.getAssetPair())).collect(Collectors.toList());
+			//group by asset pair id and match each group
+			for (int i = 0; i < orders.size(); i++) {
+				final Order order = orders.get(i);
+				getOrCreateGroup(order.getAssetPair()).add(order);
+			}
+			for (int i = 0; i < assetPairs.size(); i++) {
+				final AssetPair<?, ?> assetPair = assetPairs.get(i);
+				final List<Order> assetOrders = ordersByPairId.get(assetPair.getId());
 				match(this, assetPair, assetOrders);
+				assetOrders.clear();
 			}
-			this.index.incrementAndGet();
-			this.hasMore.set(!orders.isEmpty());
-			return this;
+			assetPairs.clear();
+			scheduledPairIds.clear();
+			publishDepth();
+			monitor.updateMatchIndex(this.index.incrementAndGet());
+			this.hasMore.set(true);
+			return orders.size() + quoteManager.modifications;
+		}
+
+		private void markTouched(AbstractOrderBook book) {
+			final int pairId = book.getAssetPair().getId();
+			if (!touchedPairIds.get(pairId)) {
+				touchedPairIds.set(pairId);
+				touchedBooks.add(book);
+			}
+		}
+
+		/**
+		 * Publishes depth updates for all books touched in this round, hence
+		 * level changes are conflated per round.
+		 */
+		private void publishDepth() {
+			for (int i = 0; i < touchedBooks.size(); i++) {
+				final AbstractOrderBook book = touchedBooks.get(i);
+				if (router.isSubscribed(book.getAssetPair(), EventType.DEPTH)) {
+					depthPublisher.publish(book, router);
+				}
+			}
+			touchedBooks.clear();
+			touchedPairIds.clear();
+		}
+
+		private void matchContinuous(Order order) {
+			final AbstractOrderBook book = getOrCreateOrderBook(order.getAssetPair());
+			notifyAllMarketObservers(order, false);
+			//the new order replaces the party's resting order on the same side
+			final Map<String, Long> restingIds = getRestingIdsByParty(order.getAssetPair(), order.getSide());
+			final Long previousId = restingIds.put(order.getParty(), order.getId());
+			if (previousId != null) {
+				book.cancel(previousId);
+			}
+			book.add(order);
+			sweep(book, book.getRestingOrder(order.getId()));
+		}
+
+		/**
+		 * Matches the given resting order against the opposite side of the
+		 * book as long as prices cross; deals are done at the price of the
+		 * opposite resting order. If risk limits stop the order while prices
+		 * still cross, its remaining quantity is cancelled like the remainder
+		 * of an IOC order so that the book is never left crossed.
+		 */
+		private void sweep(AbstractOrderBook book, Order aggressor) {
+			final AssetPair<?, ?> assetPair = book.getAssetPair();
+			final Side side = aggressor.getSide();
+			final AbstractOrderBook.Cursor resting = book.cursor(side.opposite());
+			markTouched(book);
+			while (aggressor.getQuantity() > 0 & resting.hasNext()) {
+				final Order contra = resting.peek();
+				final Order bid = side == Side.BUY ? aggressor : contra;
+				final Order ask = side == Side.BUY ? contra : aggressor;
+				final long matchQty = OrderMatcher.matchQuantity(bid, ask);
+				if (matchQty == 0) {
+					break;
+				}
+				resting.next();
+				final double price = contra.getPrice();
+				final PartyStateImpl aggressorState = partyStateByParty.get(aggressor.getParty());
+				final PartyStateImpl contraState = partyStateByParty.get(contra.getParty());
+				//each party acts as counter party for the other party's order
+				final long aggressorQty = aggressorState != null ? aggressorState.getMaxPossibleFill(assetPair, side.opposite(), price, matchQty) : matchQty;
+				if (aggressorQty == 0) {
+					break;
+				}
+				final long contraQty = contraState != null ? contraState.getMaxPossibleFill(assetPair, side, price, matchQty) : matchQty;
+				if (contraQty == 0) {
+					continue;
+				}
+				final long fillQty = Math.min(aggressorQty, contraQty);
+				final Deal deal = new DealImpl(assetPair, price, fillQty, bid.getId(), bid.getParty(), ask.getId(), ask.getParty());
+				final PartyStateImpl buyer = getOrCreatePartyState(bid.getParty());
+				final PartyStateImpl seller = getOrCreatePartyState(ask.getParty());
+				registerDeal(buyer, deal, Side.BUY);
+				registerDeal(seller, deal, Side.SELL);
+				notifyAllMarketObservers(deal);
+				buyer.notifyExecutionListeners(deal, bid);
+				seller.notifyExecutionListeners(deal, ask);
+				book.fill(contra, fillQty);
+				book.fill(aggressor, fillQty);
+			}
+			if (aggressor.getQuantity() > 0) {
+				final Order top = book.getRestingBest(side.opposite());
+				if (top != null && OrderMatcher.isMatchPossible(aggressor, top)) {
+					book.cancel(aggressor.getId());
+				}
+			}
+			notifyBestChanges(book);
+		}
+
+		private void notifyBestChanges(AbstractOrderBook book) {
+			final Order bid = book.pollBestChange(Side.BUY);
+			final Order ask = book.pollBestChange(Side.SELL);
+			if (bid != null) {
+				notifyBest(bid);
+			}
+			if (ask != null) {
+				notifyBest(ask);
+			}
+			if (bid != null | ask != null) {
+				monitor.updateTopOfBook(book.getAssetPair(), book.getRestingBest(Side.BUY), book.getRestingBest(Side.SELL));
+			}
+		}
+
+		private Map<String, Long> getRestingIdsByParty(AssetPair<?, ?> assetPair, Side side) {
+			final int index = 2 * assetPair.getId() + (side == Side.BUY ? 0 : 1);
+			while (restingIdsByParty.size() <= index) {
+				restingIdsByParty.add(new HashMap<>());
+			}
+			return restingIdsByParty.get(index);
+		}
+
+		private List<Order> getOrCreateGroup(AssetPair<?, ?> assetPair) {
+			final int pairId = assetPair.getId();
+			while (ordersByPairId.size() <= pairId) {
+				ordersByPairId.add(new ArrayList<>());
+			}
+			schedule(assetPair);
+			return ordersByPairId.get(pairId);
+		}
+
+		private void schedule(AssetPair<?, ?> assetPair) {
+			final int pairId = assetPair.getId();
+			if (!scheduledPairIds.get(pairId)) {
+				scheduledPairIds.set(pairId);
+				assetPairs.add(assetPair);
+			}
+		}
+
+		@Override
+		public OrderBook getOrderBook(AssetPair<?, ?> assetPair) {
+			return getRestingBook(assetPair);
+		}
+
+		private AbstractOrderBook getRestingBook(AssetPair<?, ?> assetPair) {
+			final int pairId = assetPair.getId();
+			return pairId < booksByPairId.size() ? booksByPairId.get(pairId) : null;
+		}
+
+		private AbstractOrderBook getOrCreateOrderBook(AssetPair<?, ?> assetPair) {
+			final int pairId = assetPair.getId();
+			while (booksByPairId.size() <= pairId) {
+				booksByPairId.add(null);
+			}
+			AbstractOrderBook book = booksByPairId.get(pairId);
+			if (book == null) {
+				final Double tickSize = tickSizeByPair.get(assetPair);
+				book = tickSize == null ? new OrderBookImpl(assetPair) : new PriceLadderOrderBook(assetPair, tickSize);
+				booksByPairId.set(pairId, book);
+			}
+			return book;
 		}
 
 		public void notifyAllMarketObservers(Order order, boolean isBest) {
+			final AssetPair<?, ?> assetPair = order.getAssetPair();
 			midMarketRates.onOrder(order);
-			for (final MarketObserver observer : marketObservers) {
-				observer.onOrder(order);
+			if (isBest) {
+				orderFlow.markUpdated(assetPair);
+			}
+			//observers never see resting orders of the books changing later
+			if (router.isSubscribed(assetPair, EventType.ORDER) | (isBest && router.isSubscribed(assetPair, EventType.BEST))) {
+				final Order snapshot = AbstractOrderBook.snapshot(order);
+				router.onOrder(snapshot);
 				if (isBest) {
-					observer.onBest(order);
+					router.onBest(snapshot);
 				}
 			}
 		}
 
+		private void notifyBest(Order order) {
+			orderFlow.markUpdated(order.getAssetPair());
+			router.onBest(order);
+		}
+
 		public void notifyAllMarketObservers(Deal deal) {
 			midMarketRates.onDeal(deal);
-			for (final MarketObserver observer : marketObservers) {
-				observer.onDeal(deal);
+			monitor.updateLastDeal(deal);
+			orderFlow.markUpdated(deal.getAssetPair());
+			addDealtPair(deal.getAssetPair());
+			updateRates(deal.getAssetPair());
+			router.onDeal(deal);
+		}
+
+		/**
+		 * Updates the rates of the parties exposed to either asset of the
+		 * pair; other parties have nothing to revalue.
+		 */
+		private void updateRates(AssetPair<?, ?> assetPair) {
+			final double midRate = midMarketRates.getMidRate(assetPair);
+			final List<PartyStateImpl> baseParties = getPartyStates(assetPair.getBase());
+			final List<PartyStateImpl> termsParties = getPartyStates(assetPair.getTerms());
+			for (int i = 0; i < baseParties.size(); i++) {
+				baseParties.get(i).updateRate(assetPair, midRate);
+			}
+			for (int i = 0; i < termsParties.size(); i++) {
+				final PartyStateImpl partyState = termsParties.get(i);
+				if (!partyState.isExposed(assetPair.getBase())) {
+					partyState.updateRate(assetPair, midRate);
+				}
+			}
+		}
+
+		private List<PartyStateImpl> getPartyStates(Asset asset) {
+			final int assetId = asset.id();
+			return assetId < partyStatesByAssetId.size() ? partyStatesByAssetId.get(assetId) : Collections.emptyList();
+		}
+
+		/**
+		 * Registers the deal with the party state. A party exposed to an asset
+		 * for the first time is valued at the current rates of all pairs of
+		 * the asset, as rates are only passed to exposed parties.
+		 */
+		private void registerDeal(PartyStateImpl partyState, Deal deal, Side side) {
+			final AssetPair<?, ?> assetPair = deal.getAssetPair();
+			if (partyState.addExposure(assetPair.getBase())) {
+				initRates(partyState, assetPair.getBase());
+			}
+			if (partyState.addExposure(assetPair.getTerms())) {
+				initRates(partyState, assetPair.getTerms());
+			}
+			partyState.registerDeal(deal, side);
+		}
+
+		private void initRates(PartyStateImpl partyState, Asset asset) {
+			final int assetId = asset.id();
+			if (assetId < dealtPairsByAssetId.size()) {
+				final List<AssetPair<?, ?>> pairs = dealtPairsByAssetId.get(assetId);
+				for (int i = 0; i < pairs.size(); i++) {
+					partyState.valuator.updateRate(pairs.get(i), midMarketRates.getMidRate(pairs.get(i)));
+				}
+			}
+		}
+
+		private void addDealtPair(AssetPair<?, ?> assetPair) {
+			if (!dealtPairIds.get(assetPair.getId())) {
+				dealtPairIds.set(assetPair.getId());
+				dealtPairs.add(assetPair);
+				addDealtPair(assetPair.getBase().id(), assetPair);
+				addDealtPair(assetPair.getTerms().id(), assetPair);
+			}
+		}
+
+		private void addDealtPair(int assetId, AssetPair<?, ?> assetPair) {
+			while (dealtPairsByAssetId.size() <= assetId) {
+				dealtPairsByAssetId.add(new ArrayList<>());
 			}
+			dealtPairsByAssetId.get(assetId).add(assetPair);
 		}
 
 		private Order notifyAndReturnNextOrderOrNull(Iterator<Order> orders, boolean isBest) {
@@ -269,19 +858,84 @@ public class MatchingEngineImpl implements MatchingEngine {
 			}
 			return null;
 		}
-		private Order getRemainingOrderOrNext(Deal deal, Order order, Iterator<Order> orders) {
-			if (deal.getQuantity() < order.getQuantity()) {
+		private Order getRemainingOrderOrNext(Deal deal, Order order, MergingOrderIterator orders, AbstractOrderBook book) {
+			if (orders.isLastResting()) {
+				//resting quotes are filled in place
+				if (book.fill(order, deal.getQuantity()) > 0) {
+					return order;
+				}
+			} else if (deal.getQuantity() < order.getQuantity()) {
 				return new OrderImpl(order, order.getQuantity() - deal.getQuantity());
 			}
 			return notifyAndReturnNextOrderOrNull(orders, false);
 		}
 
+		private class QuoteManagerImpl implements QuoteManager {
+			private final Map<Long, AbstractOrderBook> bookByQuoteId = new HashMap<>();
+			private int modifications;
+
+			@Override
+			public long placeQuote(AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity) {
+				final long quoteId = Order.ID_GENERATOR.incrementAndGet();
+				placeQuote(quoteId, assetPair, party, side, price, quantity);
+				return quoteId;
+			}
+
+			@Override
+			public void placeQuote(long quoteId, AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity) {
+				final AbstractOrderBook book = getOrCreateOrderBook(assetPair);
+				book.add(quoteId, party, side, price, quantity);
+				bookByQuoteId.put(quoteId, book);
+				modifications++;
+				onQuote(book, quoteId);
+			}
+
+			@Override
+			public boolean amendQuote(long quoteId, double price, long quantity) {
+				final AbstractOrderBook book = bookByQuoteId.get(quoteId);
+				if (book != null && book.amend(quoteId, price, quantity)) {
+					modifications++;
+					onQuote(book, quoteId);
+					return true;
+				}
+				//fully filled
+				bookByQuoteId.remove(quoteId);
+				return false;
+			}
+
+			private void onQuote(AbstractOrderBook book, long quoteId) {
+				if (matchingMode == MatchingMode.CONTINUOUS) {
+					sweep(book, book.getRestingOrder(quoteId));
+				} else {
+					schedule(book.getAssetPair());
+				}
+			}
+
+			@Override
+			public boolean cancelQuote(long quoteId) {
+				final AbstractOrderBook book = bookByQuoteId.remove(quoteId);
+				if (book != null && book.cancel(quoteId)) {
+					markTouched(book);
+					modifications++;
+					return true;
+				}
+				return false;
+			}
+		}
+
 	}
 	
 	private static class BuilderImpl implements Builder {
 		private final List<OrderFlow> orderFlows = new ArrayList<>();
 		private final Map<String, RiskLimits> riskLimitsByParty = new LinkedHashMap<>();
 		private final List<MarketObserver> marketObservers = new ArrayList<>();
+		private final Map<String, List<ExecutionListener>> executionListenersByParty = new LinkedHashMap<>();
+		private RiskLimits defaultRiskLimits = RiskLimits.UNLIMITED;
+		private boolean restingQuotes = false;
+		private MatchingMode matchingMode = MatchingMode.BATCH;
+		private final Map<AssetPair<?, ?>, Double> tickSizeByPair = new LinkedHashMap<>();
+		private int depthLevels = -1;
+		private MatchingState initialState;
 		
 		@Override
 		public Builder addOrderFlow(OrderFlow orderFlow) {
@@ -297,6 +951,13 @@ public class MatchingEngineImpl implements MatchingEngine {
 			return this;
 		}
 		@Override
+		public Builder addExecutionListener(String party, ExecutionListener executionListener) {
+			Objects.requireNonNull(party, "party is null");
+			Objects.requireNonNull(executionListener, "executionListener is null");
+			executionListenersByParty.computeIfAbsent(party, k -> new ArrayList<>()).add(executionListener);
+			return this;
+		}
+		@Override
 		public Builder setRiskLimits(String party, RiskLimits riskLimits) {
 			Objects.requireNonNull(party, "party is null");
 			Objects.requireNonNull(riskLimits, "riskLimits is null");
@@ -304,15 +965,52 @@ public class MatchingEngineImpl implements MatchingEngine {
 			return this;
 		}
 		@Override
+		public Builder setDefaultRiskLimits(RiskLimits riskLimits) {
+			defaultRiskLimits = Objects.requireNonNull(riskLimits, "riskLimits is null");
+			return this;
+		}
+		@Override
+		public Builder setRestingQuotes(boolean restingQuotes) {
+			this.restingQuotes = restingQuotes;
+			return this;
+		}
+		@Override
+		public Builder setMatchingMode(MatchingMode matchingMode) {
+			this.matchingMode = Objects.requireNonNull(matchingMode, "matchingMode is null");
+			return this;
+		}
+		@Override
+		public Builder setTickSize(AssetPair<?, ?> assetPair, double tickSize) {
+			Objects.requireNonNull(assetPair, "assetPair is null");
+			if (!(tickSize > 0) | Double.isInfinite(tickSize)) {
+				throw new IllegalArgumentException("invalid tick size: " + tickSize);
+			}
+			tickSizeByPair.put(assetPair, tickSize);
+			return this;
+		}
+		@Override
+		public Builder setDepthLevels(int depthLevels) {
+			if (depthLevels == 0 | depthLevels < -1) {
+				throw new IllegalArgumentException("depthLevels must be positive or -1 for all levels: " + depthLevels);
+			}
+			this.depthLevels = depthLevels;
+			return this;
+		}
+		@Override
 		public Builder addMarketObserver(MarketObserver marketObserver) {
 			Objects.requireNonNull(marketObserver, "marketObserver is null");
 			marketObservers.add(marketObserver);
 			return this;
 		}
+		@Override
+		public Builder forkFrom(MatchingState state) {
+			this.initialState = state;
+			return this;
+		}
 		
 		@Override
 		public MatchingEngine build() {
-			return new MatchingEngineImpl(orderFlows, riskLimitsByParty, marketObservers);
+			return new MatchingEngineImpl(orderFlows, riskLimitsByParty, defaultRiskLimits, marketObservers, executionListenersByParty, restingQuotes, matchingMode, tickSizeByPair, depthLevels, initialState);
 		}
 		
 	}
@@ -0,0 +1,148 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.tools4j.fx.make.util.IdleStrategy;
+
+/**
+ * Performs matching rounds on a single engine thread until stopped. The engine
+ * thread is the only writer of the engine state; it drains the order flows,
+ * typically {@link org.tools4j.fx.make.flow.GatewayOrderFlow gateways} fed by
+ * concurrent producers, and idles via an {@link IdleStrategy} when a round
+ * involved no orders and no quote modifications. Other threads observe the
+ * engine through its {@link MatchingEngine#getMonitor() monitor}.
+ * <p>
+ * A service is created via
+ * {@link MatchingEngine#startService(IdleStrategy, ThreadFactory)}. The class
+ * is thread safe.
+ */
+public class MatchingEngineService implements AutoCloseable {
+
+	private final MatchingEngineImpl engine;
+	private final IdleStrategy idleStrategy;
+	private final Thread thread;
+	private volatile boolean running;
+	private volatile Throwable failure;
+
+	MatchingEngineService(MatchingEngineImpl engine, IdleStrategy idleStrategy, ThreadFactory threadFactory) {
+		this.engine = Objects.requireNonNull(engine, "engine is null");
+		this.idleStrategy = Objects.requireNonNull(idleStrategy, "idleStrategy is null");
+		this.thread = Objects.requireNonNull(threadFactory, "threadFactory is null").newThread(this::run);
+		if (thread == null) {
+			throw new IllegalArgumentException("threadFactory returned null thread");
+		}
+	}
+
+	void start() {
+		running = true;
+		thread.start();
+	}
+
+	private void run() {
+		try {
+			final MatchingEngineImpl.MatchingStateImpl state = engine.newMatchingState();
+			while (running) {
+				idleStrategy.idle(state.matchRound());
+			}
+		} catch (final Throwable t) {
+			failure = t;
+			running = false;
+		}
+	}
+
+	/**
+	 * Returns true if the engine thread is running.
+	 * 
+	 * @return true if the service has not been stopped and has not failed
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Returns the exception that terminated the engine thread, if any.
+	 * 
+	 * @return the failure of the engine thread or null
+	 */
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Stops the service after the current round and waits for the engine
+	 * thread to terminate.
+	 * 
+	 * @param timeout
+	 *            the maximum time to wait
+	 * @param unit
+	 *            the time unit of the timeout argument
+	 * @return true if the engine thread has terminated
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
+		running = false;
+		thread.join(Math.max(1, unit.toMillis(timeout)));
+		return !thread.isAlive();
+	}
+
+	/**
+	 * Stops the service after the current round and waits for the engine
+	 * thread to terminate.
+	 * 
+	 * @throws IllegalStateException
+	 *             if the engine thread has terminated with an exception
+	 */
+	public void stop() {
+		running = false;
+		boolean interrupted = false;
+		while (thread.isAlive()) {
+			try {
+				thread.join();
+			} catch (final InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw new IllegalStateException("matching engine thread failed: " + failure, failure);
+		}
+	}
+
+	@Override
+	public void close() {
+		stop();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{thread=" + thread.getName() + ", running=" + running + ", idleStrategy=" + idleStrategy + "}";
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import org.tools4j.fx.make.flow.OrderFlow;
+
+/**
+ * Defines how the matching engine crosses orders.
+ */
+public enum MatchingMode {
+	/**
+	 * All orders returned by the order flows in a single call to
+	 * {@link OrderFlow#nextOrders()} are collected per asset pair, sorted by
+	 * price and crossed at the mid price of the matching orders. Orders not
+	 * matched in the round expire; only resting quotes persist across rounds.
+	 */
+	BATCH,
+	/**
+	 * Every incoming order is matched immediately against the resting book of
+	 * its asset pair with price-time priority at the price of the resting
+	 * order. The remaining quantity rests in the book and replaces the
+	 * previous resting order of the same party and side, which expires.
+	 */
+	CONTINUOUS;
+}
@@ -0,0 +1,207 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import java.util.Set;
+
+import org.tools4j.fx.make.asset.Asset;
+import org.tools4j.fx.make.asset.AssetPair;
+
+/**
+ * A read-only view of the state of a {@link MatchingEngine} for monitoring
+ * purposes, returned by {@link MatchingEngine#getMonitor()}. In contrast to
+ * {@link MatchingEngine.MatchingState} the monitor can be polled by any number
+ * of threads while matching is in progress.
+ * <p>
+ * The engine thread publishes party and top of book information in place
+ * under a sequence lock; readers copy the values into immutable views and
+ * retry if a write occurred while reading. Readers never block the engine
+ * thread, and every returned view is consistent in itself.
+ */
+public interface MatchingMonitor {
+	/**
+	 * Returns the time-step index of the last completed match, -1 before the
+	 * first round of matching has completed.
+	 * 
+	 * @return the zero-based index of the last completed round
+	 */
+	long getMatchIndex();
+
+	/**
+	 * Returns all parties for which a view is available, that is, all parties
+	 * that were involved in a deal.
+	 * 
+	 * @return the parties with deals, an unmodifiable set
+	 */
+	Set<String> getParties();
+
+	/**
+	 * Returns a consistent view of the state of the specified party.
+	 * 
+	 * @param party
+	 *            the party of interest
+	 * @return an immutable view of the party state, null if the party was not
+	 *         involved in any deal yet
+	 */
+	PartyView getPartyView(String party);
+
+	/**
+	 * Returns the top of book for the specified asset pair as left after
+	 * matching in the last round with orders for this pair, that is, the best
+	 * remaining bid and ask.
+	 * 
+	 * @param assetPair
+	 *            the asset pair of interest
+	 * @return an immutable top of book view, null if no orders have been seen
+	 *         for this asset pair yet
+	 */
+	TopOfBook getTopOfBook(AssetPair<?, ?> assetPair);
+
+	/**
+	 * Immutable view of the state of a party at a given time.
+	 */
+	interface PartyView {
+		/**
+		 * The party to which this view belongs.
+		 * 
+		 * @return the party
+		 */
+		String getParty();
+
+		/**
+		 * Returns all assets with a non-zero position.
+		 * 
+		 * @return the assets with a position, an unmodifiable set
+		 */
+		Set<Asset> getAssets();
+
+		/**
+		 * Returns the position for the given asset, zero if none.
+		 * 
+		 * @param asset
+		 *            the asset
+		 * @return the position for the asset
+		 */
+		double getPosition(Asset asset);
+
+		/**
+		 * Returns the highest position ever reached for the given asset.
+		 * 
+		 * @param asset
+		 *            the asset
+		 * @return the high watermark for the asset, never negative
+		 */
+		double getHighWaterMark(Asset asset);
+
+		/**
+		 * Returns the lowest position ever reached for the given asset.
+		 * 
+		 * @param asset
+		 *            the asset
+		 * @return the low watermark for the asset, never positive
+		 */
+		double getLowWaterMark(Asset asset);
+
+		/**
+		 * Returns the number of deals this party was involved in.
+		 * 
+		 * @return the deal count
+		 */
+		long getDealCount();
+
+		/**
+		 * Returns the net open position in the valuation currency of the
+		 * party's risk limits.
+		 * 
+		 * @return the net open position
+		 * @see MatchingEngine.PartyState#getNetOpenPosition()
+		 */
+		double getNetOpenPosition();
+
+		/**
+		 * Returns the realised PnL in the valuation currency of the party's
+		 * risk limits.
+		 * 
+		 * @return the realised PnL
+		 * @see MatchingEngine.PartyState#getRealisedPnl()
+		 */
+		double getRealisedPnl();
+
+		/**
+		 * Returns the unrealised PnL in the valuation currency of the party's
+		 * risk limits.
+		 * 
+		 * @return the unrealised PnL
+		 * @see MatchingEngine.PartyState#getUnrealisedPnl()
+		 */
+		double getUnrealisedPnl();
+	}
+
+	/**
+	 * Immutable view of best bid and offer of an asset pair.
+	 */
+	interface TopOfBook {
+		/**
+		 * The asset pair to which this view belongs.
+		 * 
+		 * @return the asset pair
+		 */
+		AssetPair<?, ?> getAssetPair();
+
+		/**
+		 * Returns the best bid price, NaN if there was no bid.
+		 * 
+		 * @return the best bid price or NaN
+		 */
+		double getBidPrice();
+
+		/**
+		 * Returns the quantity of the best bid, zero if there was no bid.
+		 * 
+		 * @return the best bid quantity
+		 */
+		long getBidQuantity();
+
+		/**
+		 * Returns the best ask price, NaN if there was no ask.
+		 * 
+		 * @return the best ask price or NaN
+		 */
+		double getAskPrice();
+
+		/**
+		 * Returns the quantity of the best ask, zero if there was no ask.
+		 * 
+		 * @return the best ask quantity
+		 */
+		long getAskQuantity();
+
+		/**
+		 * Returns the price of the last deal in this asset pair, NaN if none.
+		 * 
+		 * @return the last deal price or NaN
+		 */
+		double getLastDealPrice();
+	}
+}
@@ -0,0 +1,374 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.tools4j.fx.make.asset.Asset;
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.match.MatchingEngine.PartyState;
+
+/**
+ * Implements {@link MatchingMonitor}. Every party and every asset pair has its
+ * own slot with a sequence lock and a primitive array of values; assets are
+ * mapped to dense indices shared by all party slots.
+ * <p>
+ * The update methods must be invoked by a single thread, typically the
+ * matching engine thread; each update is a single write section. The read
+ * methods can be invoked by any thread.
+ */
+public class MatchingMonitorImpl implements MatchingMonitor {
+
+	//party fields
+	private static final int DEAL_COUNT = 0;
+	private static final int NET_OPEN_POSITION = 1;
+	private static final int REALISED_PNL = 2;
+	private static final int UNREALISED_PNL = 3;
+	private static final int PARTY_HEADER = 4;
+	//per asset fields
+	private static final int POSITION = 0;
+	private static final int HIGH_WATER_MARK = 1;
+	private static final int LOW_WATER_MARK = 2;
+	private static final int ASSET_FIELDS = 3;
+	//book fields
+	private static final int BID_PRICE = 0;
+	private static final int BID_QUANTITY = 1;
+	private static final int ASK_PRICE = 2;
+	private static final int ASK_QUANTITY = 3;
+	private static final int LAST_DEAL_PRICE = 4;
+	private static final int BOOK_FIELDS = 5;
+
+	private final AtomicLong matchIndex = new AtomicLong(-1);
+	private final Map<Asset, Integer> indexByAsset = new ConcurrentHashMap<>();
+	private final Map<String, Slot> slotByParty = new ConcurrentHashMap<>();
+	private final Map<AssetPair<?, ?>, Slot> slotByPair = new ConcurrentHashMap<>();
+	private volatile Asset[] assets = new Asset[0];
+
+	private static final class Slot {
+		private final AtomicLong sequence = new AtomicLong();
+		private volatile AtomicLongArray values;
+		public Slot(int length) {
+			this.values = new AtomicLongArray(length);
+		}
+		public long beginWrite() {
+			final long seq = sequence.get() + 1;
+			sequence.lazySet(seq);
+			return seq;
+		}
+		public void endWrite(long seq) {
+			sequence.lazySet(seq + 1);
+		}
+		public void ensureLength(int length) {
+			final AtomicLongArray cur = values;
+			if (cur.length() < length) {
+				final AtomicLongArray newValues = new AtomicLongArray(Math.max(length, 2 * cur.length()));
+				for (int i = 0; i < cur.length(); i++) {
+					newValues.lazySet(i, cur.get(i));
+				}
+				values = newValues;
+			}
+		}
+		public void set(int index, long value) {
+			values.lazySet(index, value);
+		}
+		public void set(int index, double value) {
+			values.lazySet(index, Double.doubleToRawLongBits(value));
+		}
+		public long[] read() {
+			long[] copy = null;
+			while (true) {
+				final long seq = sequence.get();
+				if ((seq & 1) == 0) {
+					final AtomicLongArray v = values;
+					if (copy == null || copy.length != v.length()) {
+						copy = new long[v.length()];
+					}
+					for (int i = 0; i < copy.length; i++) {
+						copy[i] = v.get(i);
+					}
+					if (seq == sequence.get()) {
+						return copy;
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public long getMatchIndex() {
+		return matchIndex.get();
+	}
+
+	@Override
+	public Set<String> getParties() {
+		return Collections.unmodifiableSet(slotByParty.keySet());
+	}
+
+	@Override
+	public PartyView getPartyView(String party) {
+		Objects.requireNonNull(party, "party is null");
+		final Slot slot = slotByParty.get(party);
+		if (slot == null) {
+			return null;
+		}
+		final long[] values = slot.read();
+		// assets are published before they are referenced by a party slot
+		return new PartyViewImpl(party, assets, values);
+	}
+
+	@Override
+	public TopOfBook getTopOfBook(AssetPair<?, ?> assetPair) {
+		Objects.requireNonNull(assetPair, "assetPair is null");
+		final Slot slot = slotByPair.get(assetPair);
+		return slot == null ? null : new TopOfBookImpl(assetPair, slot.read());
+	}
+
+	void updateMatchIndex(long index) {
+		matchIndex.lazySet(index);
+	}
+
+	void updateParty(PartyState partyState, AssetPair<?, ?> assetPair, double basePosition, double termsPosition) {
+		final Asset base = assetPair.getBase();
+		final Asset terms = assetPair.getTerms();
+		final int baseOffset = PARTY_HEADER + ASSET_FIELDS * getOrCreateAssetIndex(base);
+		final int termsOffset = PARTY_HEADER + ASSET_FIELDS * getOrCreateAssetIndex(terms);
+		final Slot slot = slotByParty.computeIfAbsent(partyState.getParty(), p -> new Slot(PARTY_HEADER + ASSET_FIELDS * assets.length));
+		final long seq = slot.beginWrite();
+		slot.ensureLength(Math.max(baseOffset, termsOffset) + ASSET_FIELDS);
+		setPartyHeader(slot, partyState);
+		slot.set(baseOffset + POSITION, basePosition);
+		slot.set(baseOffset + HIGH_WATER_MARK, partyState.getHighWaterMark(base));
+		slot.set(baseOffset + LOW_WATER_MARK, partyState.getLowWaterMark(base));
+		slot.set(termsOffset + POSITION, termsPosition);
+		slot.set(termsOffset + HIGH_WATER_MARK, partyState.getHighWaterMark(terms));
+		slot.set(termsOffset + LOW_WATER_MARK, partyState.getLowWaterMark(terms));
+		slot.endWrite(seq);
+	}
+
+	void updatePnl(PartyState partyState) {
+		final Slot slot = slotByParty.get(partyState.getParty());
+		if (slot != null) {
+			final long seq = slot.beginWrite();
+			setPartyHeader(slot, partyState);
+			slot.endWrite(seq);
+		}
+	}
+
+	private static void setPartyHeader(Slot slot, PartyState partyState) {
+		slot.set(DEAL_COUNT, partyState.getDealCount());
+		slot.set(NET_OPEN_POSITION, partyState.getNetOpenPosition());
+		slot.set(REALISED_PNL, partyState.getRealisedPnl());
+		slot.set(UNREALISED_PNL, partyState.getUnrealisedPnl());
+	}
+
+	void updateTopOfBook(AssetPair<?, ?> assetPair, Order bestBid, Order bestAsk) {
+		final Slot slot = getOrCreateBookSlot(assetPair);
+		final long seq = slot.beginWrite();
+		slot.set(BID_PRICE, bestBid == null ? Double.NaN : bestBid.getPrice());
+		slot.set(BID_QUANTITY, bestBid == null ? 0 : bestBid.getQuantity());
+		slot.set(ASK_PRICE, bestAsk == null ? Double.NaN : bestAsk.getPrice());
+		slot.set(ASK_QUANTITY, bestAsk == null ? 0 : bestAsk.getQuantity());
+		slot.endWrite(seq);
+	}
+
+	void updateLastDeal(Deal deal) {
+		final Slot slot = getOrCreateBookSlot(deal.getAssetPair());
+		final long seq = slot.beginWrite();
+		slot.set(LAST_DEAL_PRICE, deal.getPrice());
+		slot.endWrite(seq);
+	}
+
+	private Slot getOrCreateBookSlot(AssetPair<?, ?> assetPair) {
+		return slotByPair.computeIfAbsent(assetPair, p -> {
+			final Slot slot = new Slot(BOOK_FIELDS);
+			slot.set(BID_PRICE, Double.NaN);
+			slot.set(ASK_PRICE, Double.NaN);
+			slot.set(LAST_DEAL_PRICE, Double.NaN);
+			return slot;
+		});
+	}
+
+	private int getOrCreateAssetIndex(Asset asset) {
+		final Integer index = indexByAsset.get(asset);
+		if (index != null) {
+			return index.intValue();
+		}
+		final Asset[] cur = assets;
+		final Asset[] newAssets = Arrays.copyOf(cur, cur.length + 1);
+		newAssets[cur.length] = asset;
+		assets = newAssets;
+		indexByAsset.put(asset, cur.length);
+		return cur.length;
+	}
+
+	private static double getDouble(long[] values, int index) {
+		return Double.longBitsToDouble(values[index]);
+	}
+
+	private final class PartyViewImpl implements PartyView {
+		private final String party;
+		private final Asset[] assets;
+		private final long[] values;
+
+		public PartyViewImpl(String party, Asset[] assets, long[] values) {
+			this.party = party;
+			this.assets = assets;
+			this.values = values;
+		}
+
+		@Override
+		public String getParty() {
+			return party;
+		}
+
+		@Override
+		public Set<Asset> getAssets() {
+			final Set<Asset> result = new LinkedHashSet<>();
+			for (int i = 0; i < assets.length; i++) {
+				final int offset = PARTY_HEADER + ASSET_FIELDS * i;
+				if (offset < values.length && getDouble(values, offset + POSITION) != 0) {
+					result.add(assets[i]);
+				}
+			}
+			return Collections.unmodifiableSet(result);
+		}
+
+		private double getAssetValue(Asset asset, int field) {
+			Objects.requireNonNull(asset, "asset is null");
+			final Integer index = indexByAsset.get(asset);
+			if (index == null) {
+				return 0;
+			}
+			final int offset = PARTY_HEADER + ASSET_FIELDS * index.intValue();
+			return offset < values.length ? getDouble(values, offset + field) : 0;
+		}
+
+		@Override
+		public double getPosition(Asset asset) {
+			return getAssetValue(asset, POSITION);
+		}
+
+		@Override
+		public double getHighWaterMark(Asset asset) {
+			return getAssetValue(asset, HIGH_WATER_MARK);
+		}
+
+		@Override
+		public double getLowWaterMark(Asset asset) {
+			return getAssetValue(asset, LOW_WATER_MARK);
+		}
+
+		@Override
+		public long getDealCount() {
+			return values[DEAL_COUNT];
+		}
+
+		@Override
+		public double getNetOpenPosition() {
+			return getDouble(values, NET_OPEN_POSITION);
+		}
+
+		@Override
+		public double getRealisedPnl() {
+			return getDouble(values, REALISED_PNL);
+		}
+
+		@Override
+		public double getUnrealisedPnl() {
+			return getDouble(values, UNREALISED_PNL);
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append("PartyView{party=").append(party).append(", dealCount=").append(getDealCount());
+			for (final Asset asset : getAssets()) {
+				sb.append(", ").append(asset).append('=').append(getPosition(asset));
+			}
+			sb.append(", realisedPnl=").append(getRealisedPnl()).append(", unrealisedPnl=").append(getUnrealisedPnl());
+			return sb.append('}').toString();
+		}
+	}
+
+	private static final class TopOfBookImpl implements TopOfBook {
+		private final AssetPair<?, ?> assetPair;
+		private final long[] values;
+
+		public TopOfBookImpl(AssetPair<?, ?> assetPair, long[] values) {
+			this.assetPair = assetPair;
+			this.values = values;
+		}
+
+		@Override
+		public AssetPair<?, ?> getAssetPair() {
+			return assetPair;
+		}
+
+		@Override
+		public double getBidPrice() {
+			return getDouble(values, BID_PRICE);
+		}
+
+		@Override
+		public long getBidQuantity() {
+			return values[BID_QUANTITY];
+		}
+
+		@Override
+		public double getAskPrice() {
+			return getDouble(values, ASK_PRICE);
+		}
+
+		@Override
+		public long getAskQuantity() {
+			return values[ASK_QUANTITY];
+		}
+
+		@Override
+		public double getLastDealPrice() {
+			return getDouble(values, LAST_DEAL_PRICE);
+		}
+
+		@Override
+		public String toString() {
+			return "TopOfBook{assetPair=" + assetPair + ", bid=" + getBidQuantity() + "@" + getBidPrice() + ", ask="
+					+ getAskQuantity() + "@" + getAskPrice() + ", lastDeal=" + getLastDealPrice() + "}";
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{matchIndex=" + getMatchIndex() + ", parties=" + getParties() + "}";
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.tools4j.fx.make.execution.Order;
+
+/**
+ * Merges sorted incoming orders with the resting orders of one side of an
+ * {@link AbstractOrderBook} in priority order. Resting orders take precedence over
+ * incoming orders at the same price.
+ */
+final class MergingOrderIterator implements Iterator<Order> {
+
+	private final Iterator<Order> incoming;
+	private final AbstractOrderBook.Cursor resting;
+	private final Comparator<? super Order> priority;
+	private Order nextIncoming;
+	private boolean lastResting;
+
+	/**
+	 * Constructor with sorted incoming orders and resting orders.
+	 * 
+	 * @param incoming
+	 *            the incoming orders sorted by priority
+	 * @param resting
+	 *            cursor over resting orders, null if there are none
+	 * @param priority
+	 *            the price priority of the side
+	 */
+	MergingOrderIterator(Iterator<Order> incoming, AbstractOrderBook.Cursor resting, Comparator<? super Order> priority) {
+		this.incoming = incoming;
+		this.resting = resting;
+		this.priority = priority;
+		this.nextIncoming = incoming.hasNext() ? incoming.next() : null;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return nextIncoming != null || (resting != null && resting.hasNext());
+	}
+
+	@Override
+	public Order next() {
+		if (resting != null && resting.hasNext() && (nextIncoming == null || priority.compare(resting.peek(), nextIncoming) <= 0)) {
+			lastResting = true;
+			return resting.next();
+		}
+		if (nextIncoming == null) {
+			throw new NoSuchElementException();
+		}
+		final Order order = nextIncoming;
+		nextIncoming = incoming.hasNext() ? incoming.next() : null;
+		lastResting = false;
+		return order;
+	}
+
+	/**
+	 * Returns true if the order last returned by {@link #next()} is a resting
+	 * order of the book.
+	 * 
+	 * @return true if the last order is resting in the book
+	 */
+	boolean isLastResting() {
+		return lastResting;
+	}
+}
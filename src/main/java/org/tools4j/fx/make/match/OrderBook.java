@@ -0,0 +1,169 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import java.util.function.Consumer;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * A book of resting orders for a single asset pair. Orders are kept in price
+ * levels and in time priority within a level. Resting orders can be amended
+ * in place and cancelled by their {@link Order#getId() order ID}.
+ * <p>
+ * Orders returned by the book are live views of the resting orders; their
+ * price and quantity change when the order is amended or partially filled.
+ */
+public interface OrderBook {
+	/**
+	 * Returns the asset pair of all orders in this book.
+	 * 
+	 * @return the asset pair of this book
+	 */
+	AssetPair<?, ?> getAssetPair();
+
+	/**
+	 * Adds a resting order with the ID, party, side, price and quantity of the
+	 * given order.
+	 * 
+	 * @param order
+	 *            the order to add
+	 * @throws IllegalArgumentException
+	 *             if the asset pair differs from the book's pair or if an order
+	 *             with the same ID is already resting in the book
+	 */
+	void add(Order order);
+
+	/**
+	 * Adds a new resting order and returns its newly assigned order ID.
+	 * 
+	 * @param party
+	 *            the order party
+	 * @param side
+	 *            the order side
+	 * @param price
+	 *            the order price, not negative
+	 * @param quantity
+	 *            the order quantity, positive
+	 * @return the ID of the new order
+	 * @throws IllegalArgumentException
+	 *             if price or quantity is invalid
+	 */
+	long add(String party, Side side, double price, long quantity);
+
+	/**
+	 * Amends price and quantity of a resting order. The order keeps its time
+	 * priority if the price is unchanged and the quantity is not increased;
+	 * otherwise the order moves to the end of its new price level.
+	 * 
+	 * @param orderId
+	 *            the ID of the resting order
+	 * @param price
+	 *            the new price, not negative
+	 * @param quantity
+	 *            the new quantity, positive
+	 * @return true if the order was amended, false if no such order rests in
+	 *         this book
+	 * @throws IllegalArgumentException
+	 *             if price or quantity is invalid
+	 */
+	boolean amend(long orderId, double price, long quantity);
+
+	/**
+	 * Removes a resting order from the book.
+	 * 
+	 * @param orderId
+	 *            the ID of the resting order
+	 * @return true if the order was removed, false if no such order rests in
+	 *         this book
+	 */
+	boolean cancel(long orderId);
+
+	/**
+	 * Returns an immutable snapshot of the resting order with the given ID.
+	 * 
+	 * @param orderId
+	 *            the order ID
+	 * @return the resting order or null if no such order rests in this book
+	 */
+	Order getOrder(long orderId);
+
+	/**
+	 * Returns an immutable snapshot of the first order in priority for the
+	 * given side.
+	 * 
+	 * @param side
+	 *            the book side
+	 * @return the best order, or null if this side of the book is empty
+	 */
+	Order getBest(Side side);
+
+	/**
+	 * Returns the number of resting orders on the given side.
+	 * 
+	 * @param side
+	 *            the book side
+	 * @return the number of resting orders
+	 */
+	int getOrderCount(Side side);
+
+	/**
+	 * Returns the number of price levels on the given side.
+	 * 
+	 * @param side
+	 *            the book side
+	 * @return the number of distinct prices of resting orders
+	 */
+	int getLevelCount(Side side);
+
+	/**
+	 * Passes all resting orders of the given side to the consumer in priority
+	 * order, best price first and in time priority within a level.
+	 * 
+	 * @param side
+	 *            the book side
+	 * @param consumer
+	 *            the consumer invoked for every resting order
+	 */
+	void forEach(Side side, Consumer<? super Order> consumer);
+
+	/**
+	 * Copies price, aggregate quantity and order count of the price levels of
+	 * the given side into the provided arrays, best price first. At most as
+	 * many levels as fit into the shortest array are copied.
+	 * 
+	 * @param side
+	 *            the book side
+	 * @param prices
+	 *            array receiving the level prices
+	 * @param quantities
+	 *            array receiving the aggregate level quantities
+	 * @param orderCounts
+	 *            array receiving the number of orders per level
+	 * @return the number of levels copied into the arrays
+	 */
+	int getLevels(Side side, double[] prices, long[] quantities, int[] orderCounts);
+}
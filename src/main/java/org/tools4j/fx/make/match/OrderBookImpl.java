@@ -0,0 +1,86 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * An {@link OrderBook} with price levels in a sorted map per side. Each level
+ * holds its orders in a doubly linked FIFO list; amending an order moves the
+ * existing entry between or within levels instead of removing and re-creating
+ * it.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public class OrderBookImpl extends AbstractOrderBook {
+
+	private final TreeMap<Double, Level> bids = new TreeMap<>(Comparator.reverseOrder());
+	private final TreeMap<Double, Level> asks = new TreeMap<>();
+
+	public OrderBookImpl(AssetPair<?, ?> assetPair) {
+		super(assetPair);
+	}
+
+	@Override
+	public int getLevelCount(Side side) {
+		return levels(side).size();
+	}
+
+	@Override
+	protected Level getOrCreateLevel(Side side, double price) {
+		final TreeMap<Double, Level> levels = levels(side);
+		Level level = levels.get(price);
+		if (level == null) {
+			level = new Level(side, price);
+			levels.put(price, level);
+		}
+		return level;
+	}
+
+	@Override
+	protected void removeLevel(Level level) {
+		levels(level.side).remove(level.price);
+	}
+
+	@Override
+	protected Level getFirstLevel(Side side) {
+		final Map.Entry<Double, Level> first = levels(side).firstEntry();
+		return first == null ? null : first.getValue();
+	}
+
+	@Override
+	protected Level getNextLevel(Level level) {
+		final Map.Entry<Double, Level> next = levels(level.side).higherEntry(level.price);
+		return next == null ? null : next.getValue();
+	}
+
+	private TreeMap<Double, Level> levels(Side side) {
+		return side == Side.BUY ? bids : asks;
+	}
+}
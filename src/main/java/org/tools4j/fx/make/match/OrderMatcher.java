@@ -58,7 +58,7 @@ public final class OrderMatcher {
 	 * @return true if and only if a match is possible between the two orders
 	 */
 	public static boolean isMatchPossible(Order order1, Order order2) {
-		if (!order1.getAssetPair().equals(order2.getAssetPair())) {
+		if (order1.getAssetPair().getId() != order2.getAssetPair().getId()) {
 			return false;
 		}
 		final Order buyOrder = order1.getSide() == Side.BUY ? order1 : order2.getSide() == Side.BUY ? order2 : null;
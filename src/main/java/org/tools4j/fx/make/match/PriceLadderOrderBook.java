@@ -0,0 +1,308 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * An {@link OrderBook} for asset pairs with a fixed tick size. Each side holds
+ * its price levels in a circular array indexed by the tick offset from a
+ * moving anchor, the anchor being the best price of the side. Looking up the
+ * best level, adding orders to a level within the ladder and removing them
+ * are constant time operations; the anchor moves when a better price arrives
+ * or the best level is emptied.
+ * <p>
+ * Order prices are snapped to the tick grid when added, bids down and asks
+ * up, hence a resting order never shows a better price than it was placed
+ * with and all orders of a level have the level price. Levels too far away
+ * from the best price to fit into the ladder are kept in a sorted overflow
+ * map, and are moved into the ladder as the anchor approaches them.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public class PriceLadderOrderBook extends AbstractOrderBook {
+
+	public static final int DEFAULT_CAPACITY = 1024;
+	/** Prices within this fraction of a tick from a tick are on the tick */
+	private static final double TICK_TOLERANCE = 1e-6;
+
+	private final double tickSize;
+	private final Ladder bids;
+	private final Ladder asks;
+
+	public PriceLadderOrderBook(AssetPair<?, ?> assetPair, double tickSize) {
+		this(assetPair, tickSize, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor with asset pair, tick size and number of levels in the
+	 * ladder per side.
+	 * 
+	 * @param assetPair
+	 *            the asset pair of the book
+	 * @param tickSize
+	 *            the minimum price increment, positive
+	 * @param capacity
+	 *            the number of ticks covered by the ladder, a power of two
+	 */
+	public PriceLadderOrderBook(AssetPair<?, ?> assetPair, double tickSize, int capacity) {
+		super(assetPair);
+		if (!(tickSize > 0) | Double.isInfinite(tickSize)) {
+			throw new IllegalArgumentException("invalid tick size: " + tickSize);
+		}
+		if (capacity <= 0 | Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a positive power of two: " + capacity);
+		}
+		this.tickSize = tickSize;
+		this.bids = new Ladder(Side.BUY, capacity);
+		this.asks = new Ladder(Side.SELL, capacity);
+	}
+
+	/**
+	 * Returns the tick size of this book.
+	 * 
+	 * @return the minimum price increment
+	 */
+	public double getTickSize() {
+		return tickSize;
+	}
+
+	@Override
+	public int getLevelCount(Side side) {
+		final Ladder ladder = ladder(side);
+		return ladder.count + ladder.overflow.size();
+	}
+
+	/**
+	 * Snaps a price to the tick grid, down for bids and up for asks; prices
+	 * off a tick by floating point error only are considered on the tick and
+	 * returned unchanged.
+	 * 
+	 * @param side
+	 *            the order side
+	 * @param price
+	 *            the order price
+	 * @param tickSize
+	 *            the minimum price increment, positive
+	 * @return the price on the tick grid, not better than the given price
+	 */
+	public static double snapPrice(Side side, double price, double tickSize) {
+		final double ticks = price / tickSize;
+		final double nearest = Math.rint(ticks);
+		if (Math.abs(ticks - nearest) < TICK_TOLERANCE) {
+			return price;
+		}
+		return (side == Side.BUY ? Math.floor(ticks) : Math.ceil(ticks)) * tickSize;
+	}
+
+	@Override
+	protected double toBookPrice(Side side, double price) {
+		return snapPrice(side, price, tickSize);
+	}
+
+	@Override
+	protected Level getOrCreateLevel(Side side, double price) {
+		return ladder(side).getOrCreate(Math.round(price / tickSize));
+	}
+
+	@Override
+	protected void removeLevel(Level level) {
+		ladder(level.side).remove((TickLevel) level);
+	}
+
+	@Override
+	protected Level getFirstLevel(Side side) {
+		return ladder(side).getFirst();
+	}
+
+	@Override
+	protected Level getNextLevel(Level level) {
+		return ladder(level.side).getNext((TickLevel) level);
+	}
+
+	private Ladder ladder(Side side) {
+		return side == Side.BUY ? bids : asks;
+	}
+
+	private static final class TickLevel extends Level {
+		private final long tick;
+
+		private TickLevel(Side side, long tick, double tickSize) {
+			super(side, tick * tickSize);
+			this.tick = tick;
+		}
+	}
+
+	private final class Ladder {
+		private final Side side;
+		private final TickLevel[] slots;
+		private final int mask;
+		private final TreeMap<Long, TickLevel> overflow;
+		private int base;
+		private long anchor;
+		private int count;
+		private long worst;
+
+		private Ladder(Side side, int capacity) {
+			this.side = side;
+			this.slots = new TickLevel[capacity];
+			this.mask = capacity - 1;
+			this.overflow = side == Side.BUY ? new TreeMap<>(Comparator.reverseOrder()) : new TreeMap<>();
+		}
+
+		/** Offset from the anchor, negative for ticks better than the anchor */
+		private long distance(long tick) {
+			return side == Side.BUY ? anchor - tick : tick - anchor;
+		}
+
+		private int index(long distance) {
+			return (int) ((base + distance) & mask);
+		}
+
+		private boolean isInLadder(TickLevel level) {
+			final long distance = distance(level.tick);
+			return distance >= 0 & distance < slots.length && slots[index(distance)] == level;
+		}
+
+		TickLevel getOrCreate(long tick) {
+			if (count == 0) {
+				anchor = tick;
+				worst = 0;
+			}
+			long distance = distance(tick);
+			if (distance < 0) {
+				moveAnchorTo(tick, -distance);
+				distance = 0;
+			}
+			if (distance >= slots.length) {
+				TickLevel level = overflow.get(tick);
+				if (level == null) {
+					level = new TickLevel(side, tick, tickSize);
+					overflow.put(tick, level);
+				}
+				return level;
+			}
+			final int index = index(distance);
+			TickLevel level = slots[index];
+			if (level == null) {
+				level = new TickLevel(side, tick, tickSize);
+				slots[index] = level;
+				count++;
+				worst = Math.max(worst, distance);
+			}
+			return level;
+		}
+
+		/** Moves the anchor to a better tick, evicting levels falling out of the ladder */
+		private void moveAnchorTo(long tick, long shift) {
+			for (long distance = Math.max(0, slots.length - shift); distance <= worst; distance++) {
+				final int index = index(distance);
+				final TickLevel level = slots[index];
+				if (level != null) {
+					overflow.put(level.tick, level);
+					slots[index] = null;
+					count--;
+				}
+			}
+			base = (int) ((base - shift) & mask);
+			anchor = tick;
+			worst = Math.min(worst + shift, slots.length - 1);
+			while (worst > 0 && slots[index(worst)] == null) {
+				worst--;
+			}
+		}
+
+		void remove(TickLevel level) {
+			if (!isInLadder(level)) {
+				overflow.remove(level.tick);
+				return;
+			}
+			final long distance = distance(level.tick);
+			slots[index(distance)] = null;
+			count--;
+			if (count > 0 & distance == worst) {
+				do {
+					worst--;
+				} while (slots[index(worst)] == null);
+			}
+			if (distance == 0) {
+				advanceAnchor();
+			}
+		}
+
+		/** Moves the anchor to the next level after the best level was removed */
+		private void advanceAnchor() {
+			if (count > 0) {
+				long shift = 1;
+				while (slots[index(shift)] == null) {
+					shift++;
+				}
+				base = index(shift);
+				anchor = side == Side.BUY ? anchor - shift : anchor + shift;
+				worst -= shift;
+			} else if (!overflow.isEmpty()) {
+				anchor = overflow.firstKey();
+				worst = 0;
+			} else {
+				return;
+			}
+			//pull overflow levels now within reach of the ladder
+			while (!overflow.isEmpty()) {
+				final Map.Entry<Long, TickLevel> first = overflow.firstEntry();
+				final long distance = distance(first.getKey());
+				if (distance >= slots.length) {
+					break;
+				}
+				overflow.pollFirstEntry();
+				slots[index(distance)] = first.getValue();
+				count++;
+				worst = Math.max(worst, distance);
+			}
+		}
+
+		TickLevel getFirst() {
+			return count > 0 ? slots[base] : null;
+		}
+
+		TickLevel getNext(TickLevel level) {
+			if (isInLadder(level)) {
+				for (long distance = distance(level.tick) + 1; distance <= worst; distance++) {
+					final TickLevel next = slots[index(distance)];
+					if (next != null) {
+						return next;
+					}
+				}
+				final Map.Entry<Long, TickLevel> first = overflow.firstEntry();
+				return first == null ? null : first.getValue();
+			}
+			final Map.Entry<Long, TickLevel> next = overflow.higherEntry(level.tick);
+			return next == null ? null : next.getValue();
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.position;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.util.StringUtil;
+
+/**
+ * The result of a {@link BatchValuator}, a party by valuation currency matrix
+ * of valuations. Rows refer to parties and columns to valuation currencies.
+ * <p>
+ * The class is immutable.
+ */
+public class BatchValuation {
+
+	private final List<String> parties;
+	private final List<Currency> valuationCurrencies;
+	private final Map<String, Integer> rowByParty;
+	private final double[] values;
+
+	/**
+	 * Constructor with parties, currencies and values; the values are stored
+	 * row by row, that is, the valuation of party i in currency j is at index
+	 * {@code i * currencies + j}. The arguments are not copied.
+	 * 
+	 * @param parties
+	 *            the parties, one per row
+	 * @param valuationCurrencies
+	 *            the valuation currencies, one per column
+	 * @param values
+	 *            the valuations in row major order
+	 */
+	BatchValuation(List<String> parties, List<Currency> valuationCurrencies, double[] values) {
+		this.parties = Collections.unmodifiableList(parties);
+		this.valuationCurrencies = valuationCurrencies;
+		this.rowByParty = new HashMap<>();
+		this.values = values;
+		for (int i = 0; i < parties.size(); i++) {
+			rowByParty.put(parties.get(i), i);
+		}
+	}
+
+	/**
+	 * Returns the valued parties in row order.
+	 * 
+	 * @return the parties
+	 */
+	public List<String> getParties() {
+		return parties;
+	}
+
+	/**
+	 * Returns the valuation currencies in column order.
+	 * 
+	 * @return the valuation currencies
+	 */
+	public List<Currency> getValuationCurrencies() {
+		return valuationCurrencies;
+	}
+
+	/**
+	 * Returns the valuation of the party at the specified row in the currency
+	 * at the specified column.
+	 * 
+	 * @param partyIndex
+	 *            the index of the party in {@link #getParties()}
+	 * @param currencyIndex
+	 *            the index of the currency in {@link #getValuationCurrencies()}
+	 * @return the valuation
+	 */
+	public double getValuation(int partyIndex, int currencyIndex) {
+		if (partyIndex < 0 | partyIndex >= parties.size()) {
+			throw new IndexOutOfBoundsException("party index " + partyIndex + " is not in [0, " + parties.size() + ")");
+		}
+		if (currencyIndex < 0 | currencyIndex >= valuationCurrencies.size()) {
+			throw new IndexOutOfBoundsException("currency index " + currencyIndex + " is not in [0, " + valuationCurrencies.size() + ")");
+		}
+		return values[partyIndex * valuationCurrencies.size() + currencyIndex];
+	}
+
+	/**
+	 * Returns the valuation of the specified party in the given currency.
+	 * 
+	 * @param party
+	 *            the party
+	 * @param valuationCurrency
+	 *            one of the {@link #getValuationCurrencies() valuation
+	 *            currencies}
+	 * @return the valuation
+	 * @throws IllegalArgumentException
+	 *             if party or currency are not part of this valuation
+	 */
+	public double getValuation(String party, Currency valuationCurrency) {
+		Objects.requireNonNull(party, "party is null");
+		Objects.requireNonNull(valuationCurrency, "valuationCurrency is null");
+		final Integer row = rowByParty.get(party);
+		if (row == null) {
+			throw new IllegalArgumentException("party not valued: " + party);
+		}
+		final int column = valuationCurrencies.indexOf(valuationCurrency);
+		if (column < 0) {
+			throw new IllegalArgumentException("not a valuation currency: " + valuationCurrency);
+		}
+		return values[row * valuationCurrencies.size() + column];
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(getClass().getSimpleName()).append('{');
+		for (int i = 0; i < parties.size(); i++) {
+			sb.append(i == 0 ? "" : ", ").append(parties.get(i)).append('=').append('[');
+			for (int j = 0; j < valuationCurrencies.size(); j++) {
+				sb.append(j == 0 ? "" : ", ").append(valuationCurrencies.get(j)).append('=');
+				sb.append(StringUtil.formatQuantity((long) getValuation(i, j)));
+			}
+			sb.append(']');
+		}
+		sb.append('}');
+		return sb.toString();
+	}
+}
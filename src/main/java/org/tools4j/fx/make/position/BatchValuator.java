@@ -0,0 +1,60 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.position;
+
+import java.util.List;
+import java.util.Map;
+
+import org.tools4j.fx.make.asset.Currency;
+
+/**
+ * Values the positions of many parties in several valuation currencies at
+ * once. In contrast to a {@link Valuator} which values one party in one
+ * currency per call, all results are computed in a single pass with positions
+ * and rates held in primitive matrices.
+ */
+public interface BatchValuator {
+
+	/**
+	 * Returns the valuation currencies, in the order of the columns of the
+	 * returned {@link BatchValuation}.
+	 * 
+	 * @return the valuation currencies, never empty
+	 */
+	List<Currency> getValuationCurrencies();
+
+	/**
+	 * Values the positions of all parties in all
+	 * {@link #getValuationCurrencies() valuation currencies}.
+	 * 
+	 * @param positionsByParty
+	 *            the asset positions per party
+	 * @param marketSnapshot
+	 *            the market rates used for the valuation
+	 * @return the valuation of every party in every valuation currency
+	 * @throws IllegalArgumentException
+	 *             if no rate is present for an asset with a non-zero position
+	 */
+	BatchValuation getValuations(Map<String, ? extends AssetPositions> positionsByParty, MarketSnapshot marketSnapshot);
+}
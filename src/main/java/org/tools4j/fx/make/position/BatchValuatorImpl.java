@@ -0,0 +1,142 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.position;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import org.tools4j.fx.make.asset.Asset;
+import org.tools4j.fx.make.asset.Currency;
+
+/**
+ * Implements {@link BatchValuator}. Positions are copied into a party by asset
+ * matrix and rates into an asset by currency matrix; the valuations are the
+ * product of the two. Rows of the product are independent and can optionally
+ * be computed in parallel.
+ * <p>
+ * The class is immutable.
+ */
+public class BatchValuatorImpl implements BatchValuator {
+
+	private final List<Currency> valuationCurrencies;
+	private final boolean parallel;
+
+	public BatchValuatorImpl(Collection<? extends Currency> valuationCurrencies) {
+		this(valuationCurrencies, false);
+	}
+
+	public BatchValuatorImpl(Collection<? extends Currency> valuationCurrencies, boolean parallel) {
+		Objects.requireNonNull(valuationCurrencies, "valuationCurrencies is null");
+		if (valuationCurrencies.isEmpty()) {
+			throw new IllegalArgumentException("valuationCurrencies is empty");
+		}
+		for (final Currency currency : valuationCurrencies) {
+			Objects.requireNonNull(currency, "valuationCurrencies contains null");
+		}
+		this.valuationCurrencies = Collections.unmodifiableList(new ArrayList<>(valuationCurrencies));
+		this.parallel = parallel;
+	}
+
+	@Override
+	public List<Currency> getValuationCurrencies() {
+		return valuationCurrencies;
+	}
+
+	@Override
+	public BatchValuation getValuations(Map<String, ? extends AssetPositions> positionsByParty, MarketSnapshot marketSnapshot) {
+		Objects.requireNonNull(positionsByParty, "positionsByParty is null");
+		Objects.requireNonNull(marketSnapshot, "marketSnapshot is null");
+		final int parties = positionsByParty.size();
+		final int currencies = valuationCurrencies.size();
+		final List<String> partyList = new ArrayList<>(parties);
+		final Map<Asset, Integer> indexByAsset = new HashMap<>();
+		final List<Asset> assets = new ArrayList<>();
+
+		//positions: one sparse row per party, assets indexed on first occurrence
+		final int[][] assetIndices = new int[parties][];
+		final double[][] positions = new double[parties][];
+		for (final Map.Entry<String, ? extends AssetPositions> e : positionsByParty.entrySet()) {
+			final int row = partyList.size();
+			final AssetPositions assetPositions = Objects.requireNonNull(e.getValue(), "positions are null for party " + e.getKey());
+			final Collection<Asset> partyAssets = assetPositions.getAssets();
+			assetIndices[row] = new int[partyAssets.size()];
+			positions[row] = new double[partyAssets.size()];
+			int col = 0;
+			for (final Asset asset : partyAssets) {
+				final double position = assetPositions.getPosition(asset);
+				if (position == 0) {
+					continue;
+				}
+				Integer index = indexByAsset.get(asset);
+				if (index == null) {
+					index = assets.size();
+					indexByAsset.put(asset, index);
+					assets.add(asset);
+				}
+				assetIndices[row][col] = index;
+				positions[row][col] = position;
+				col++;
+			}
+			partyList.add(e.getKey());
+		}
+
+		//rates: asset by currency
+		final double[] rates = new double[assets.size() * currencies];
+		for (int i = 0; i < assets.size(); i++) {
+			for (int j = 0; j < currencies; j++) {
+				rates[i * currencies + j] = marketSnapshot.getRate(assets.get(i), valuationCurrencies.get(j));
+			}
+		}
+
+		//valuations = positions x rates
+		final double[] values = new double[parties * currencies];
+		final IntStream rows = IntStream.range(0, parties);
+		(parallel ? rows.parallel() : rows).forEach(row -> {
+			final int[] rowAssets = assetIndices[row];
+			final double[] rowPositions = positions[row];
+			final int offset = row * currencies;
+			for (int k = 0; k < rowAssets.length; k++) {
+				final double position = rowPositions[k];
+				if (position != 0) {
+					final int rateOffset = rowAssets[k] * currencies;
+					for (int j = 0; j < currencies; j++) {
+						values[offset + j] += position * rates[rateOffset + j];
+					}
+				}
+			}
+		});
+		return new BatchValuation(partyList, valuationCurrencies, values);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{valuationCurrencies=" + valuationCurrencies + ", parallel=" + parallel + "}";
+	}
+}
@@ -0,0 +1,248 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.position;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.tools4j.fx.make.asset.Asset;
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Thread safe and lock-free {@link PositionKeeper}. Every asset position is an
+ * independent atomic accumulator; threads updating different assets never
+ * contend and threads updating the same asset (such as the USD leg of several
+ * USD pairs) use compare-and-set without a global lock.
+ * <p>
+ * Besides {@link #updatePosition(Deal, Side)}, the class offers
+ * {@link #reserve(AssetPair, Side, double, long) check-and-reserve} to
+ * atomically claim risk capacity before a deal is done and
+ * {@link #release(AssetPair, Side, double, long) release} to give back
+ * capacity that is not used eventually. Reserved capacity is part of the
+ * position, hence a deal whose quantity was reserved must not be passed to
+ * {@link #updatePosition(Deal, Side)} again.
+ * <p>
+ * The two legs of an asset pair are updated one after the other, each of them
+ * atomically; a reader may observe the base leg updated before the terms leg.
+ * <p>
+ * The class is thread safe.
+ */
+public class ConcurrentPositionKeeper implements PositionKeeper {
+
+	private final RiskLimits riskLimits;
+	private final ConcurrentMap<Asset, AtomicLong> positionByAsset = new ConcurrentHashMap<>();
+
+	public ConcurrentPositionKeeper(RiskLimits riskLimits) {
+		this.riskLimits = Objects.requireNonNull(riskLimits, "riskLimits is null");
+	}
+
+	@Override
+	public RiskLimits getRiskLimits() {
+		return riskLimits;
+	}
+
+	@Override
+	public long getMaxPossibleFillWithoutBreachingRiskLimits(AssetPair<?, ?> assetPair, Side orderSide, double rate) {
+		Objects.requireNonNull(assetPair, "assetPair is null");
+		Objects.requireNonNull(orderSide, "orderSide is null");
+		final long baseMax = riskLimits.getMaxAllowedPositionSize(assetPair.getBase());
+		final long termsMax = riskLimits.getMaxAllowedPositionSize(assetPair.getTerms());
+		final double basePos = getPosition(assetPair.getBase());
+		final double termsPos = getPosition(assetPair.getTerms());
+		return PositionKeeperImpl.getMaxPossibleFill(orderSide, rate, baseMax, basePos, termsMax, termsPos);
+	}
+
+	/**
+	 * Atomically reserves risk capacity to fill up to {@code quantity} of an
+	 * order with the given side and rate. The positions act as counter party
+	 * to the order, that is, a BUY order reserves capacity to sell the base
+	 * asset. The reserved capacity is immediately reflected in the positions.
+	 * 
+	 * @param assetPair
+	 *            the asset pair of the order
+	 * @param orderSide
+	 *            the order side to be filled (acting as counter party)
+	 * @param rate
+	 *            the rate for transformation of base to terms asset
+	 * @param quantity
+	 *            the desired quantity, not negative
+	 * @return the reserved quantity, between zero and {@code quantity}
+	 */
+	public long reserve(AssetPair<?, ?> assetPair, Side orderSide, double rate, long quantity) {
+		Objects.requireNonNull(assetPair, "assetPair is null");
+		Objects.requireNonNull(orderSide, "orderSide is null");
+		if (quantity < 0) {
+			throw new IllegalArgumentException("quantity is negative: " + quantity);
+		}
+		final Side side = orderSide.opposite();
+		final Asset base = assetPair.getBase();
+		final Asset terms = assetPair.getTerms();
+		final long baseQty = reserve(getOrCreate(base), riskLimits.getMaxAllowedPositionSize(base), side, 1, quantity);
+		if (baseQty == 0) {
+			return 0;
+		}
+		final AtomicLong termsPosition = getOrCreate(terms);
+		final long termsQty = reserve(termsPosition, riskLimits.getMaxAllowedPositionSize(terms), side.opposite(), rate, baseQty);
+		if (termsQty < baseQty) {
+			add(getOrCreate(base), PositionKeeperImpl.getSignedQuantity(baseQty - termsQty, side.opposite()));
+		}
+		return termsQty;
+	}
+
+	/**
+	 * Releases capacity previously obtained via
+	 * {@link #reserve(AssetPair, Side, double, long)} and not used for a deal.
+	 * 
+	 * @param assetPair
+	 *            the asset pair of the order
+	 * @param orderSide
+	 *            the order side that was used when reserving the capacity
+	 * @param rate
+	 *            the rate that was used when reserving the capacity
+	 * @param quantity
+	 *            the quantity to release, not more than was reserved
+	 */
+	public void release(AssetPair<?, ?> assetPair, Side orderSide, double rate, long quantity) {
+		Objects.requireNonNull(assetPair, "assetPair is null");
+		Objects.requireNonNull(orderSide, "orderSide is null");
+		if (quantity < 0) {
+			throw new IllegalArgumentException("quantity is negative: " + quantity);
+		}
+		// releasing means acting on the order side instead of its opposite
+		add(getOrCreate(assetPair.getBase()), PositionKeeperImpl.getSignedQuantity(quantity, orderSide));
+		add(getOrCreate(assetPair.getTerms()), PositionKeeperImpl.getSignedQuantity(quantity * rate, orderSide.opposite()));
+	}
+
+	@Override
+	public void updatePosition(Deal deal, Side side) {
+		Objects.requireNonNull(deal, "deal is null");
+		Objects.requireNonNull(side, "side is null");
+		final AssetPair<?, ?> assetPair = deal.getAssetPair();
+		final long dealQty = deal.getQuantity();
+		final long reservedQty = reserve(assetPair, side.opposite(), deal.getPrice(), dealQty);
+		if (reservedQty < dealQty) {
+			release(assetPair, side.opposite(), deal.getPrice(), reservedQty);
+			throw new IllegalArgumentException(
+					"deal would breach risk limits: " + dealQty + " > " + reservedQty + " for " + deal);
+		}
+	}
+
+	/**
+	 * Reserves capacity for up to {@code quantity} units on a single asset
+	 * position, each unit changing the position by {@code unitSize} in the
+	 * direction of {@code side}.
+	 */
+	private static long reserve(AtomicLong position, long maxPosition, Side side, double unitSize, long quantity) {
+		while (true) {
+			final long bits = position.get();
+			final double pos = Double.longBitsToDouble(bits);
+			long qty = quantity;
+			if (maxPosition >= 0) {
+				final double capacity = (maxPosition - PositionKeeperImpl.getSignedQuantity(pos, side)) / unitSize;
+				qty = capacity <= 0 ? 0 : (long) Math.min(qty, capacity);
+			}
+			if (qty == 0) {
+				return 0;
+			}
+			final double newPos = pos + PositionKeeperImpl.getSignedQuantity(qty * unitSize, side);
+			if (position.compareAndSet(bits, Double.doubleToRawLongBits(newPos))) {
+				return qty;
+			}
+		}
+	}
+
+	private static void add(AtomicLong position, double increment) {
+		while (true) {
+			final long bits = position.get();
+			final double newPos = Double.longBitsToDouble(bits) + increment;
+			if (position.compareAndSet(bits, Double.doubleToRawLongBits(newPos))) {
+				return;
+			}
+		}
+	}
+
+	private AtomicLong getOrCreate(Asset asset) {
+		final AtomicLong position = positionByAsset.get(asset);
+		if (position != null) {
+			return position;
+		}
+		return positionByAsset.computeIfAbsent(asset, a -> new AtomicLong(Double.doubleToRawLongBits(0)));
+	}
+
+	@Override
+	public Set<Asset> getAssets() {
+		return Collections.unmodifiableSet(positionByAsset.keySet());
+	}
+
+	@Override
+	public double getPosition(Asset asset) {
+		final AtomicLong position = positionByAsset.get(asset);
+		return position == null ? 0 : Double.longBitsToDouble(position.get());
+	}
+
+	@Override
+	public void setPosition(Asset asset, double position) {
+		getOrCreate(Objects.requireNonNull(asset, "asset is null")).set(Double.doubleToRawLongBits(position));
+	}
+
+	@Override
+	public void resetPosition(Asset asset) {
+		// set to zero instead of removing to not lose concurrent updates
+		final AtomicLong position = positionByAsset.get(asset);
+		if (position != null) {
+			position.set(Double.doubleToRawLongBits(0));
+		}
+	}
+
+	@Override
+	public void resetPositions() {
+		for (final AtomicLong position : positionByAsset.values()) {
+			position.set(Double.doubleToRawLongBits(0));
+		}
+	}
+
+	@Override
+	public Valuator getValuator(Currency valuationCurrency) {
+		return new ValuatorImpl(valuationCurrency, this);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder(getClass().getSimpleName()).append('{');
+		for (final Map.Entry<Asset, AtomicLong> e : positionByAsset.entrySet()) {
+			sb.append(sb.length() > getClass().getSimpleName().length() + 1 ? ", " : "");
+			sb.append(e.getKey()).append('=').append(Double.longBitsToDouble(e.getValue().get()));
+		}
+		return sb.append('}').toString();
+	}
+}
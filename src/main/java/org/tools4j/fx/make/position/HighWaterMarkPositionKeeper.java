@@ -23,10 +23,11 @@
  */
 package org.tools4j.fx.make.position;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.tools4j.fx.make.asset.Asset;
 import org.tools4j.fx.make.asset.AssetPair;
@@ -38,22 +39,40 @@ import org.tools4j.fx.make.risk.RiskLimits;
 /**
  * Wrapper around {@link PositionKeeper} which additionally keeps track of the
  * high-water-marks per asset.
+ * <p>
+ * The water marks are updated lock-free, hence the class is thread safe if the
+ * delegate is, for instance a {@link ConcurrentPositionKeeper}.
  */
 public class HighWaterMarkPositionKeeper implements PositionKeeper {
 	
-	private final Map<Asset, HighLowMark> highLowMarksPerAsset = new HashMap<>();
+	private final Map<Asset, HighLowMark> highLowMarksPerAsset = new ConcurrentHashMap<>();
 	private final PositionKeeper delegate;
 	
 	private static class HighLowMark {
-		private volatile double high = 0;
-		private volatile double low = 0;
+		private final AtomicLong high = new AtomicLong(Double.doubleToRawLongBits(0));
+		private final AtomicLong low = new AtomicLong(Double.doubleToRawLongBits(0));
 		public void update(double position) {
 			if (position > 0) {
-				high = Math.max(high, position);
+				updateIf(high, position, true);
 			} else if (position < 0) {
-				low = Math.min(low, position);
+				updateIf(low, position, false);
 			}
 		}
+		private static void updateIf(AtomicLong mark, double position, boolean higher) {
+			long bits = mark.get();
+			while (higher ? position > Double.longBitsToDouble(bits) : position < Double.longBitsToDouble(bits)) {
+				if (mark.compareAndSet(bits, Double.doubleToRawLongBits(position))) {
+					return;
+				}
+				bits = mark.get();
+			}
+		}
+		public double getHigh() {
+			return Double.longBitsToDouble(high.get());
+		}
+		public double getLow() {
+			return Double.longBitsToDouble(low.get());
+		}
 	}
 	
 	public HighWaterMarkPositionKeeper(RiskLimits riskLimits) {
@@ -62,6 +81,27 @@ public class HighWaterMarkPositionKeeper implements PositionKeeper {
 	public HighWaterMarkPositionKeeper(PositionKeeper delegate) {
 		this.delegate = Objects.requireNonNull(delegate, "delegate is null");
 	}
+	/**
+	 * Constructor for a copy of the positions and water marks of the given
+	 * keeper with the specified risk limits.
+	 * 
+	 * @param riskLimits
+	 *            the risk limits of the copy
+	 * @param source
+	 *            the keeper whose positions and water marks are copied
+	 */
+	public HighWaterMarkPositionKeeper(RiskLimits riskLimits, HighWaterMarkPositionKeeper source) {
+		this(riskLimits);
+		for (final Asset asset : source.getAssets()) {
+			delegate.setPosition(asset, source.getPosition(asset));
+		}
+		source.highLowMarksPerAsset.forEach((asset, mark) -> {
+			final HighLowMark copy = new HighLowMark();
+			copy.high.set(mark.high.get());
+			copy.low.set(mark.low.get());
+			highLowMarksPerAsset.put(asset, copy);
+		});
+	}
 
 	@Override
 	public RiskLimits getRiskLimits() {
@@ -100,8 +140,7 @@ public class HighWaterMarkPositionKeeper implements PositionKeeper {
 		if (position != 0) {
 			HighLowMark waterMark = highLowMarksPerAsset.get(asset);
 			if (waterMark == null) {
-				waterMark = new HighLowMark();
-				highLowMarksPerAsset.put(asset, waterMark);
+				waterMark = highLowMarksPerAsset.computeIfAbsent(asset, a -> new HighLowMark());
 			}
 			waterMark.update(position);
 		}
@@ -109,12 +148,18 @@ public class HighWaterMarkPositionKeeper implements PositionKeeper {
 	
 	public double getHighWaterMark(Asset asset) {
 		final HighLowMark waterMark = highLowMarksPerAsset.get(asset);
-		return waterMark == null ? 0 : waterMark.high;
+		return waterMark == null ? 0 : waterMark.getHigh();
 	}
 
 	public double getLowWaterMark(Asset asset) {
 		final HighLowMark waterMark = highLowMarksPerAsset.get(asset);
-		return waterMark == null ? 0 : waterMark.low;
+		return waterMark == null ? 0 : waterMark.getLow();
+	}
+
+	@Override
+	public void setPosition(Asset asset, double position) {
+		delegate.setPosition(asset, position);
+		updateHighLowMarkFor(asset);
 	}
 
 	@Override
@@ -0,0 +1,386 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.position;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.tools4j.fx.make.asset.Asset;
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Keeps the valuation of positions in a valuation currency up to date
+ * incrementally as deals arrive and rates move. Unlike {@link Valuator}, which
+ * iterates all assets for every valuation, each update only touches the
+ * affected assets and all aggregates are read at constant cost.
+ * <p>
+ * Besides the total valuation, the net open position and the gross notional
+ * are maintained to enforce the aggregate limits of {@link RiskLimits}.
+ * <p>
+ * The valuator also keeps the cost of every position, that is, its value at
+ * the time the position was opened. Reducing a position realises the
+ * difference between the value at closing and the (average) cost; the
+ * difference between current value and cost of open positions is unrealised.
+ * Realised and unrealised PnL sum up to the total valuation as long as every
+ * asset has a known rate; deals in pairs where neither asset has a rate at the
+ * time of the deal leave the cost unchanged.
+ * <p>
+ * Assets are marked at rates of pairs quoted directly against the valuation
+ * currency; an asset without such a rate is not valued and hence does not
+ * contribute to the aggregates.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public class IncrementalValuator {
+
+	private final Currency valuationCurrency;
+	private AssetValue[] valueByAssetId = new AssetValue[0];
+	private double longValue;
+	private double shortValue;
+	private double valuation;
+	private double grossNotional;
+	private double realisedPnl;
+	private double unrealisedPnl;
+
+	private static class AssetValue {
+		private final boolean isValuationCurrency;
+		private double position;
+		private double rate;
+		private double value;
+		private double cost;
+		public AssetValue(boolean isValuationCurrency) {
+			this.isValuationCurrency = isValuationCurrency;
+			this.rate = isValuationCurrency ? 1 : Double.NaN;
+		}
+		public AssetValue(AssetValue source) {
+			this.isValuationCurrency = source.isValuationCurrency;
+			this.position = source.position;
+			this.rate = source.rate;
+			this.value = source.value;
+			this.cost = source.cost;
+		}
+		public boolean hasRate() {
+			return !Double.isNaN(rate);
+		}
+	}
+
+	public IncrementalValuator(Currency valuationCurrency) {
+		this.valuationCurrency = Objects.requireNonNull(valuationCurrency, "valuationCurrency is null");
+	}
+
+	/**
+	 * Constructor for a copy of the given valuator with its positions, rates,
+	 * costs and PnL.
+	 * 
+	 * @param source
+	 *            the valuator to copy
+	 */
+	public IncrementalValuator(IncrementalValuator source) {
+		this.valuationCurrency = source.valuationCurrency;
+		this.valueByAssetId = new AssetValue[source.valueByAssetId.length];
+		for (int i = 0; i < valueByAssetId.length; i++) {
+			if (source.valueByAssetId[i] != null) {
+				valueByAssetId[i] = new AssetValue(source.valueByAssetId[i]);
+			}
+		}
+		this.longValue = source.longValue;
+		this.shortValue = source.shortValue;
+		this.valuation = source.valuation;
+		this.grossNotional = source.grossNotional;
+		this.realisedPnl = source.realisedPnl;
+		this.unrealisedPnl = source.unrealisedPnl;
+	}
+
+	public Currency getValuationCurrency() {
+		return valuationCurrency;
+	}
+
+	/**
+	 * Returns the value of all positions in valuation currency.
+	 * 
+	 * @return the current valuation of all positions with a known rate
+	 */
+	public double getValuation() {
+		return valuation;
+	}
+
+	/**
+	 * Returns the PnL realised by closing or reducing positions, in valuation
+	 * currency.
+	 * 
+	 * @return the realised PnL
+	 */
+	public double getRealisedPnl() {
+		return realisedPnl;
+	}
+
+	/**
+	 * Returns the PnL of open positions, that is, their current value minus
+	 * their cost, in valuation currency.
+	 * 
+	 * @return the unrealised PnL of positions with a known rate
+	 */
+	public double getUnrealisedPnl() {
+		return unrealisedPnl;
+	}
+
+	/**
+	 * Returns the sum of realised and unrealised PnL in valuation currency.
+	 * 
+	 * @return the total PnL
+	 */
+	public double getPnl() {
+		return realisedPnl + unrealisedPnl;
+	}
+
+	/**
+	 * Returns the net open position in valuation currency, that is, the larger
+	 * of the sum of all long and the sum of all short positions; positions in
+	 * the valuation currency itself are excluded.
+	 * 
+	 * @return the current net open position, not negative
+	 */
+	public double getNetOpenPosition() {
+		return Math.max(longValue, shortValue);
+	}
+
+	/**
+	 * Returns the sum of the notional of all deals in valuation currency,
+	 * valued at the rates applicable at the time of the deal.
+	 * 
+	 * @return the gross notional of all deals, not negative
+	 */
+	public double getGrossNotional() {
+		return grossNotional;
+	}
+
+	/**
+	 * Update the positions for the given {@code deal}. The specified
+	 * {@code side} refers to the deal side viewed from the positions to be
+	 * updated.
+	 * 
+	 * @param deal
+	 *            the deal to incorporate into the positions
+	 * @param side
+	 *            the side from the position holder's view
+	 */
+	public void updatePosition(Deal deal, Side side) {
+		Objects.requireNonNull(deal, "deal is null");
+		Objects.requireNonNull(side, "side is null");
+		final AssetPair<?, ?> assetPair = deal.getAssetPair();
+		final AssetValue base = getOrCreate(assetPair.getBase());
+		final AssetValue terms = getOrCreate(assetPair.getTerms());
+		final double notional = getNotionalPerUnit(base, terms, deal.getPrice()) * deal.getQuantity();
+		if (!Double.isNaN(notional)) {
+			grossNotional += notional;
+		}
+		// what is received is valued the same as what is paid
+		final double baseQty = side == Side.BUY ? deal.getQuantity() : -deal.getQuantity();
+		final double baseValue = side == Side.BUY ? notional : -notional;
+		trade(base, baseQty, baseValue);
+		trade(terms, -baseQty * deal.getPrice(), -baseValue);
+	}
+
+	private void trade(AssetValue assetValue, double quantity, double value) {
+		final double position = assetValue.position;
+		double cost = assetValue.cost;
+		if (!Double.isNaN(value)) {
+			if (position == 0 || (position > 0) == (quantity > 0)) {
+				cost += value;
+			} else {
+				final double closedQty = Math.min(Math.abs(quantity), Math.abs(position));
+				final double closedValue = value * (closedQty / Math.abs(quantity));
+				final double releasedCost = cost * (closedQty / Math.abs(position));
+				realisedPnl -= closedValue + releasedCost;
+				cost = closedQty < Math.abs(position) ? cost - releasedCost : value - closedValue;
+			}
+		}
+		update(assetValue, position + quantity, assetValue.rate, cost);
+	}
+
+	/**
+	 * Updates the rate of an asset if the given asset pair is quoted against
+	 * the valuation currency; otherwise the rate is ignored.
+	 * 
+	 * @param assetPair
+	 *            the asset pair
+	 * @param rate
+	 *            the (mid) rate of the pair, ignored unless positive and finite
+	 * @return true if the unrealised PnL or the net open position changed
+	 */
+	public boolean updateRate(AssetPair<?, ?> assetPair, double rate) {
+		if (rate > 0 & rate < Double.POSITIVE_INFINITY) {
+			final double oldUnrealised = unrealisedPnl;
+			final double oldLong = longValue;
+			final double oldShort = shortValue;
+			if (valuationCurrency.equals(assetPair.getTerms())) {
+				final AssetValue base = getOrCreate(assetPair.getBase());
+				update(base, base.position, rate, base.cost);
+			} else if (valuationCurrency.equals(assetPair.getBase())) {
+				final AssetValue terms = getOrCreate(assetPair.getTerms());
+				update(terms, terms.position, 1 / rate, terms.cost);
+			}
+			return unrealisedPnl != oldUnrealised | longValue != oldLong | shortValue != oldShort;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the maximum possible quantity an order could have to be fully
+	 * filled without breaching the given aggregate limits. As for
+	 * {@link AssetPositions#getMaxPossibleFillWithoutBreachingRiskLimits(AssetPair, Side, double)},
+	 * the order side refers to the order to be filled while the positions of
+	 * this valuator act as counter party.
+	 * <p>
+	 * If the net open position is already above the limit, for instance after
+	 * rates have moved, fills are still possible as long as they do not
+	 * increase the net open position any further.
+	 * 
+	 * @param assetPair
+	 *            the asset pair to check
+	 * @param orderSide
+	 *            the order side to be filled (acting as counter party)
+	 * @param rate
+	 *            the rate for transformation of base to terms asset
+	 * @param quantity
+	 *            the desired fill quantity
+	 * @param maxNetOpenPosition
+	 *            the max net open position, -1 if unlimited
+	 * @param maxGrossNotional
+	 *            the max gross notional, -1 if unlimited
+	 * @return the maximum possible fill, between zero and {@code quantity}
+	 */
+	public long getMaxPossibleFill(AssetPair<?, ?> assetPair, Side orderSide, double rate, long quantity,
+			long maxNetOpenPosition, long maxGrossNotional) {
+		final AssetValue base = get(assetPair.getBase());
+		final AssetValue terms = get(assetPair.getTerms());
+		final double baseRate = base != null ? base.rate : rateOrNaN(assetPair.getBase());
+		final double termsRate = terms != null ? terms.rate : rateOrNaN(assetPair.getTerms());
+		long maxQty = quantity;
+		if (maxGrossNotional >= 0) {
+			final double notional = getNotionalPerUnit(baseRate, termsRate, rate);
+			if (notional > 0) {
+				maxQty = (long) Math.max(0, Math.min(maxQty, (maxGrossNotional - grossNotional) / notional));
+			}
+		}
+		if (maxNetOpenPosition >= 0 & maxQty > 0) {
+			// own side is opposite of order side as we act as counter party
+			final double baseQty = orderSide == Side.SELL ? 1 : -1;
+			final double baseValue = baseQty * (Double.isNaN(baseRate) ? rate * termsRate : baseRate);
+			final double termsValue = -baseQty * rate * (Double.isNaN(termsRate) ? baseRate / rate : termsRate);
+			if (!Double.isNaN(baseValue) & !Double.isNaN(termsValue)) {
+				final double threshold = Math.max(maxNetOpenPosition, getNetOpenPosition());
+				if (getNetOpenPositionAfter(base, baseValue * maxQty, terms, termsValue * maxQty) > threshold) {
+					// net open position is convex in the fill quantity, hence
+					// bisection finds the largest feasible quantity
+					long lo = 0;
+					long hi = maxQty;
+					while (hi - lo > 1) {
+						final long mid = (lo + hi) >>> 1;
+						if (getNetOpenPositionAfter(base, baseValue * mid, terms, termsValue * mid) <= threshold) {
+							lo = mid;
+						} else {
+							hi = mid;
+						}
+					}
+					maxQty = lo;
+				}
+			}
+		}
+		return maxQty;
+	}
+
+	private double getNetOpenPositionAfter(AssetValue base, double baseValueInc, AssetValue terms, double termsValueInc) {
+		double longVal = longValue;
+		double shortVal = shortValue;
+		if (base == null || !base.isValuationCurrency) {
+			final double value = base == null ? 0 : base.value;
+			longVal += Math.max(0, value + baseValueInc) - Math.max(0, value);
+			shortVal += Math.max(0, -value - baseValueInc) - Math.max(0, -value);
+		}
+		if (terms == null || !terms.isValuationCurrency) {
+			final double value = terms == null ? 0 : terms.value;
+			longVal += Math.max(0, value + termsValueInc) - Math.max(0, value);
+			shortVal += Math.max(0, -value - termsValueInc) - Math.max(0, -value);
+		}
+		return Math.max(longVal, shortVal);
+	}
+
+	private double rateOrNaN(Asset asset) {
+		return valuationCurrency.equals(asset) ? 1 : Double.NaN;
+	}
+
+	private static double getNotionalPerUnit(AssetValue base, AssetValue terms, double rate) {
+		return getNotionalPerUnit(base.rate, terms.rate, rate);
+	}
+
+	private static double getNotionalPerUnit(double baseRate, double termsRate, double rate) {
+		return Double.isNaN(baseRate) ? rate * termsRate : baseRate;
+	}
+
+	private AssetValue get(Asset asset) {
+		final int id = asset.id();
+		return id < valueByAssetId.length ? valueByAssetId[id] : null;
+	}
+
+	private AssetValue getOrCreate(Asset asset) {
+		final int id = asset.id();
+		if (id >= valueByAssetId.length) {
+			valueByAssetId = Arrays.copyOf(valueByAssetId, Math.max(id + 1, 2 * valueByAssetId.length));
+		}
+		AssetValue assetValue = valueByAssetId[id];
+		if (assetValue == null) {
+			assetValue = new AssetValue(valuationCurrency.equals(asset));
+			valueByAssetId[id] = assetValue;
+		}
+		return assetValue;
+	}
+
+	private void update(AssetValue assetValue, double position, double rate, double cost) {
+		final double oldValue = assetValue.value;
+		final double oldUnrealised = assetValue.hasRate() ? oldValue - assetValue.cost : 0;
+		final double newValue = Double.isNaN(rate) ? 0 : position * rate;
+		assetValue.position = position;
+		assetValue.rate = rate;
+		assetValue.value = newValue;
+		assetValue.cost = cost;
+		valuation += newValue - oldValue;
+		unrealisedPnl += (assetValue.hasRate() ? newValue - cost : 0) - oldUnrealised;
+		if (!assetValue.isValuationCurrency) {
+			longValue += Math.max(0, newValue) - Math.max(0, oldValue);
+			shortValue += Math.max(0, -newValue) - Math.max(0, -oldValue);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{valuationCurrency=" + valuationCurrency + ", valuation=" + valuation
+				+ ", realisedPnl=" + realisedPnl + ", unrealisedPnl=" + unrealisedPnl + ", netOpenPosition="
+				+ getNetOpenPosition() + ", grossNotional=" + grossNotional + "}";
+	}
+}
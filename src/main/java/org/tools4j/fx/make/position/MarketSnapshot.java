@@ -32,11 +32,25 @@ import org.tools4j.fx.make.asset.Currency;
  */
 public interface MarketSnapshot {
 	
+	/**
+	 * Returns the rate to convert the {@code from} asset into the {@code to}
+	 * asset. The rate is derived from a direct or inverse quote, or it is
+	 * triangulated through a vehicle currency if neither is present.
+	 * 
+	 * @param from
+	 *            the asset to convert from
+	 * @param to
+	 *            the asset to convert to
+	 * @return the conversion rate, 1 if from equals to
+	 * @throws IllegalArgumentException
+	 *             if no rate can be derived for the two assets
+	 */
 	double getRate(Asset from, Asset to);
 	
 	interface Builder {
 		Builder withRate(AssetPair<?,?> pair, double rate);
 		Builder withRate(Currency base, Currency terms, double rate);
+		Builder withVehicleCurrency(Currency vehicleCurrency);
 		
 		MarketSnapshot build();
 	}
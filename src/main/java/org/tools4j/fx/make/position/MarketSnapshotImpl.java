@@ -23,10 +23,9 @@
  */
 package org.tools4j.fx.make.position;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 
 import org.tools4j.fx.make.asset.Asset;
@@ -39,47 +38,164 @@ import org.tools4j.fx.make.util.StringUtil;
  * Immutable implementation of {@link MarketSnapshot}. A {@link Builder} can be used to
  * construct a market snaphot.
  * <p>
+ * Rates are stored in a dense asset by asset matrix holding direct and inverse
+ * quotes; matrix indices are looked up by {@link Asset#id() asset id}. Cross rates without direct or inverse quote are triangulated through
+ * a vehicle currency (USD by default); they are computed lazily when the first
+ * cross rate is requested and then cached for the lifetime of the snapshot.
+ * <p>
  * This class thread safe.
  */
 public class MarketSnapshotImpl implements MarketSnapshot {
 
-	private final Map<Asset, Map<Asset, Double>> marketRates = new HashMap<>();
+	private final Currency vehicleCurrency;
+	private final AssetPair<?, ?>[] pairs;
+	private final double[] pairRates;
+	private final int[] indexByAssetId;
+	private final int size;
+	private final double[] rates;
+	private volatile double[] crossRates;
 
 	public MarketSnapshotImpl(Map<? extends AssetPair<?, ?>, Double> marketRates) {
-		for (final Map.Entry<? extends AssetPair<?, ?>, Double> e : marketRates.entrySet()) {
-			final Asset base = Objects.requireNonNull(e.getKey().getBase(), "assetPair.base is null for " + e.getKey());
-			final Asset terms = Objects.requireNonNull(e.getKey().getTerms(),
-					"assetPair.terms is null for " + e.getKey());
-			final Double rate = Objects.requireNonNull(e.getValue(), "rate value is null for " + e.getKey());
-			Map<Asset, Double> rates = this.marketRates.get(base);
-			if (rates == null) {
-				rates = new HashMap<>();
-				this.marketRates.put(base, rates);
+		this(marketRates, Currency.USD);
+	}
+
+	public MarketSnapshotImpl(Map<? extends AssetPair<?, ?>, Double> marketRates, Currency vehicleCurrency) {
+		this(toPairs(marketRates), toRates(marketRates), marketRates.size(), vehicleCurrency);
+	}
+
+	/**
+	 * Constructor with pairs and rates as arrays, the rate at index i refers to
+	 * the pair at index i. The arrays are copied.
+	 * 
+	 * @param pairs
+	 *            the asset pairs
+	 * @param pairRates
+	 *            the rates for the asset pairs
+	 * @param count
+	 *            the number of pairs and rates to use from the arrays
+	 * @param vehicleCurrency
+	 *            the currency to triangulate cross rates
+	 */
+	public MarketSnapshotImpl(AssetPair<?, ?>[] pairs, double[] pairRates, int count, Currency vehicleCurrency) {
+		this.vehicleCurrency = Objects.requireNonNull(vehicleCurrency, "vehicleCurrency is null");
+		this.pairs = Arrays.copyOf(pairs, count);
+		this.pairRates = Arrays.copyOf(pairRates, count);
+		int maxId = -1;
+		for (final AssetPair<?, ?> pair : this.pairs) {
+			final Asset base = Objects.requireNonNull(pair.getBase(), "assetPair.base is null for " + pair);
+			final Asset terms = Objects.requireNonNull(pair.getTerms(), "assetPair.terms is null for " + pair);
+			maxId = Math.max(maxId, Math.max(base.id(), terms.id()));
+		}
+		this.indexByAssetId = new int[maxId + 1];
+		Arrays.fill(indexByAssetId, -1);
+		int assets = 0;
+		for (final AssetPair<?, ?> pair : this.pairs) {
+			assets = register(pair.getBase(), assets);
+			assets = register(pair.getTerms(), assets);
+		}
+		this.size = assets;
+		this.rates = new double[assets * assets];
+		Arrays.fill(rates, Double.NaN);
+		for (int i = 0; i < size; i++) {
+			rates[i * size + i] = 1;
+		}
+		for (int i = 0; i < count; i++) {
+			rates[indexOf(pairs[i].getBase()) * size + indexOf(pairs[i].getTerms())] = pairRates[i];
+		}
+		// inverse quotes where no direct quote is present
+		for (int i = 0; i < count; i++) {
+			final int inverse = indexOf(pairs[i].getTerms()) * size + indexOf(pairs[i].getBase());
+			if (Double.isNaN(rates[inverse])) {
+				rates[inverse] = 1 / pairRates[i];
 			}
-			rates.put(terms, rate);
 		}
 	}
 
+	private static AssetPair<?, ?>[] toPairs(Map<? extends AssetPair<?, ?>, Double> marketRates) {
+		return marketRates.keySet().toArray(new AssetPair<?, ?>[marketRates.size()]);
+	}
+
+	private static double[] toRates(Map<? extends AssetPair<?, ?>, Double> marketRates) {
+		final double[] rates = new double[marketRates.size()];
+		int index = 0;
+		for (final Map.Entry<? extends AssetPair<?, ?>, Double> e : marketRates.entrySet()) {
+			rates[index] = Objects.requireNonNull(e.getValue(), "rate value is null for " + e.getKey()).doubleValue();
+			index++;
+		}
+		return rates;
+	}
+
+	private int register(Asset asset, int assets) {
+		final int id = asset.id();
+		if (indexByAssetId[id] < 0) {
+			indexByAssetId[id] = assets;
+			return assets + 1;
+		}
+		return assets;
+	}
+
+	private int indexOf(Asset asset) {
+		final int id = asset.id();
+		return id < indexByAssetId.length ? indexByAssetId[id] : -1;
+	}
+
+	/**
+	 * Returns the vehicle currency used to triangulate cross rates.
+	 * 
+	 * @return the vehicle currency
+	 */
+	public Currency getVehicleCurrency() {
+		return vehicleCurrency;
+	}
+
 	public double getRate(Asset from, Asset to) {
 		Objects.requireNonNull(from, "from is null");
 		Objects.requireNonNull(to, "to is null");
-		if (from.equals(to)) {
+		final int fromIndex = indexOf(from);
+		final int toIndex = indexOf(to);
+		if (fromIndex >= 0 & toIndex >= 0) {
+			final int index = fromIndex * size + toIndex;
+			final double rate = rates[index];
+			if (!Double.isNaN(rate)) {
+				return rate;
+			}
+			final double cross = getCrossRates()[index];
+			if (!Double.isNaN(cross)) {
+				return cross;
+			}
+		} else if (from.equals(to)) {
 			return 1;
 		}
-		final Double direct = getRateOrNull(from, to);
-		if (direct != null) {
-			return direct.doubleValue();
-		}
-		final Double indirect = getRateOrNull(to, from);
-		if (indirect != null) {
-			return 1 / indirect.doubleValue();
-		}
 		throw new IllegalArgumentException("no market rate present for: " + from + "/" + to);
 	}
 
-	private Double getRateOrNull(Asset from, Asset to) {
-		final Map<Asset, Double> rates = marketRates.get(from);
-		return rates != null ? rates.get(to) : null;
+	private double[] getCrossRates() {
+		double[] cross = crossRates;
+		if (cross == null) {
+			// benign race: the result is the same no matter which thread wins
+			cross = triangulate();
+			crossRates = cross;
+		}
+		return cross;
+	}
+
+	private double[] triangulate() {
+		final double[] cross = rates.clone();
+		final int vehicle = indexOf(vehicleCurrency);
+		if (vehicle >= 0) {
+			for (int i = 0; i < size; i++) {
+				final double toVehicle = rates[i * size + vehicle];
+				if (!Double.isNaN(toVehicle)) {
+					for (int j = 0; j < size; j++) {
+						final int index = i * size + j;
+						if (Double.isNaN(cross[index])) {
+							cross[index] = toVehicle * rates[vehicle * size + j];
+						}
+					}
+				}
+			}
+		}
+		return cross;
 	}
 
 	public static Builder builder() {
@@ -88,6 +204,7 @@ public class MarketSnapshotImpl implements MarketSnapshot {
 
 	public static class Builder implements MarketSnapshot.Builder {
 		private final Map<AssetPair<?, ?>, Double> marketRates = new LinkedHashMap<>();
+		private Currency vehicleCurrency = Currency.USD;
 
 		public Builder withRate(AssetPair<?, ?> pair, double rate) {
 			marketRates.put(pair, rate);
@@ -95,11 +212,16 @@ public class MarketSnapshotImpl implements MarketSnapshot {
 		}
 
 		public Builder withRate(Currency base, Currency terms, double rate) {
-			return withRate(new CurrencyPair(base, terms), rate);
+			return withRate(CurrencyPair.valueOf(base, terms), rate);
+		}
+
+		public Builder withVehicleCurrency(Currency vehicleCurrency) {
+			this.vehicleCurrency = Objects.requireNonNull(vehicleCurrency, "vehicleCurrency is null");
+			return this;
 		}
 
 		public MarketSnapshotImpl build() {
-			return new MarketSnapshotImpl(marketRates);
+			return new MarketSnapshotImpl(marketRates, vehicleCurrency);
 		}
 
 		@Override
@@ -113,13 +235,10 @@ public class MarketSnapshotImpl implements MarketSnapshot {
 		final StringBuilder sb = new StringBuilder();
 		sb.append(getClass().getSimpleName());
 		sb.append('{');
-		boolean first = true;
-		for (final Entry<Asset, Map<Asset, Double>> e1 : marketRates.entrySet()) {
-			for (final Entry<Asset, Double> e2 : e1.getValue().entrySet()) {
-				sb.append(first ? "" : ", ");
-				sb.append(e1.getKey()).append('/').append(e2.getKey());
-				sb.append('=').append(StringUtil.formatPrice(e2.getValue()));
-			}
+		for (int i = 0; i < pairs.length; i++) {
+			sb.append(i == 0 ? "" : ", ");
+			sb.append(pairs[i].getBase()).append('/').append(pairs[i].getTerms());
+			sb.append('=').append(StringUtil.formatPrice(pairRates[i]));
 		}
 		sb.append('}');
 		return sb.toString();
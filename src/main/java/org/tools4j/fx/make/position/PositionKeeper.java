@@ -55,6 +55,8 @@ public interface PositionKeeper extends AssetPositions {
 	 * @param asset
 	 *            the asset whose position to reset
 	 */
+	void setPosition(Asset asset, double position);
+
 	void resetPosition(Asset asset);
 
 	/**
@@ -63,6 +63,10 @@ public class PositionKeeperImpl implements PositionKeeper {
 		final long termsMax = riskLimits.getMaxAllowedPositionSize(assetPair.getTerms());
 		final double basePos = getPosition(assetPair.getBase());
 		final double termsPos = getPosition(assetPair.getTerms());
+		return getMaxPossibleFill(orderSide, rate, baseMax, basePos, termsMax, termsPos);
+	}
+
+	static long getMaxPossibleFill(Side orderSide, double rate, long baseMax, double basePos, long termsMax, double termsPos) {
 		// opposite side for base because we fill the order, i.e. we act as
 		// counter party
 		final double baseQty = baseMax >= 0 ? baseMax - getSignedQuantity(basePos, orderSide.opposite()) : -1;
@@ -90,7 +94,7 @@ public class PositionKeeperImpl implements PositionKeeper {
 		incremetPosition(assetPair.getTerms(), termsQty);
 	}
 
-	private static double getSignedQuantity(double quantity, Side side) {
+	static double getSignedQuantity(double quantity, Side side) {
 		return side == Side.BUY ? quantity : -quantity;
 	}
 
@@ -114,6 +118,11 @@ public class PositionKeeperImpl implements PositionKeeper {
 		return position == null ? 0 : position.doubleValue();
 	}
 
+	@Override
+	public void setPosition(Asset asset, double position) {
+		positionByAsset.put(Objects.requireNonNull(asset, "asset is null"), position);
+	}
+
 	@Override
 	public void resetPosition(Asset asset) {
 		positionByAsset.remove(asset);
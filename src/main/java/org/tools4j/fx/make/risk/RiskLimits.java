@@ -24,9 +24,12 @@
 package org.tools4j.fx.make.risk;
 
 import org.tools4j.fx.make.asset.Asset;
+import org.tools4j.fx.make.asset.Currency;
 
 /**
- * Risk limits for positions such as maximum allowed position size.
+ * Risk limits for positions such as maximum allowed position size. Besides the
+ * per-asset limits, aggregate limits across all assets can be defined; those
+ * are expressed in the {@link #getValuationCurrency() valuation currency}.
  */
 public interface RiskLimits {
 	/**
@@ -40,6 +43,53 @@ public interface RiskLimits {
 	 */
 	long getMaxAllowedPositionSize(Asset asset);
 
+	/**
+	 * Returns the currency in which the aggregate limits are expressed, USD by
+	 * default.
+	 * 
+	 * @return the valuation currency for aggregate limits, never null
+	 */
+	default Currency getValuationCurrency() {
+		return Currency.USD;
+	}
+
+	/**
+	 * Returns the maximum net open position across all assets expressed in the
+	 * {@link #getValuationCurrency() valuation currency}, -1 if unlimited. The
+	 * net open position is the larger of the sum of all long and the sum of all
+	 * short positions, positions in the valuation currency itself excluded.
+	 * 
+	 * @return the max net open position in valuation currency, not negative
+	 *         unless unlimited (-1)
+	 */
+	default long getMaxNetOpenPosition() {
+		return -1;
+	}
+
+	/**
+	 * Returns the maximum gross notional that can be traded, that is, the sum
+	 * of the notional of all deals expressed in the
+	 * {@link #getValuationCurrency() valuation currency}, -1 if unlimited.
+	 * 
+	 * @return the max gross notional in valuation currency, not negative unless
+	 *         unlimited (-1)
+	 */
+	default long getMaxGrossNotional() {
+		return -1;
+	}
+
+	/**
+	 * Returns the maximum loss expressed in the {@link #getValuationCurrency()
+	 * valuation currency}, -1 if unlimited. Once the PnL is below the negative
+	 * max loss, only deals reducing the net open position are allowed.
+	 * 
+	 * @return the max loss in valuation currency, not negative unless
+	 *         unlimited (-1)
+	 */
+	default long getMaxLoss() {
+		return -1;
+	}
+
 	/**
 	 * Unlimited risk limits for all assets.
 	 */
@@ -66,6 +116,54 @@ public interface RiskLimits {
 		 */
 		Builder withMaxAllowedPositionSize(Asset asset, long maxPositionSize);
 
+		/**
+		 * The currency in which aggregate limits are expressed.
+		 * 
+		 * @param valuationCurrency
+		 *            the valuation currency for aggregate limits
+		 * @throws NullPointerException
+		 *             if valuationCurrency is null
+		 * @return this builder for chained method invocation
+		 */
+		Builder withValuationCurrency(Currency valuationCurrency);
+
+		/**
+		 * The maximum net open position across all assets in valuation
+		 * currency, non-negative except -1 for unlimited.
+		 * 
+		 * @param maxNetOpenPosition
+		 *            the max net open position, non-negative unless unlimited
+		 *            (-1)
+		 * @throws IllegalArgumentException
+		 *             if {@code maxNetOpenPosition < -1}
+		 * @return this builder for chained method invocation
+		 */
+		Builder withMaxNetOpenPosition(long maxNetOpenPosition);
+
+		/**
+		 * The maximum gross notional of all deals in valuation currency,
+		 * non-negative except -1 for unlimited.
+		 * 
+		 * @param maxGrossNotional
+		 *            the max gross notional, non-negative unless unlimited (-1)
+		 * @throws IllegalArgumentException
+		 *             if {@code maxGrossNotional < -1}
+		 * @return this builder for chained method invocation
+		 */
+		Builder withMaxGrossNotional(long maxGrossNotional);
+
+		/**
+		 * The maximum loss in valuation currency, non-negative except -1 for
+		 * unlimited.
+		 * 
+		 * @param maxLoss
+		 *            the max loss, non-negative unless unlimited (-1)
+		 * @throws IllegalArgumentException
+		 *             if {@code maxLoss < -1}
+		 * @return this builder for chained method invocation
+		 */
+		Builder withMaxLoss(long maxLoss);
+
 		/**
 		 * Returns a new immutable settings instance.
 		 * 
@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Objects;
 
 import org.tools4j.fx.make.asset.Asset;
+import org.tools4j.fx.make.asset.Currency;
 
 /**
  * Immutable implementation of {@link RiskLimits}.
@@ -35,18 +36,57 @@ import org.tools4j.fx.make.asset.Asset;
 public class RiskLimitsImpl implements RiskLimits {
 
 	private final Map<Asset, Long> maxPositionSizeByAsset;
+	private final Currency valuationCurrency;
+	private final long maxNetOpenPosition;
+	private final long maxGrossNotional;
+	private final long maxLoss;
 
 	public RiskLimitsImpl(Map<? extends Asset, Long> maxPositionSizeByAsset) {
+		this(maxPositionSizeByAsset, Currency.USD, -1, -1);
+	}
+	public RiskLimitsImpl(Map<? extends Asset, Long> maxPositionSizeByAsset, Currency valuationCurrency, long maxNetOpenPosition, long maxGrossNotional) {
+		this(maxPositionSizeByAsset, valuationCurrency, maxNetOpenPosition, maxGrossNotional, -1);
+	}
+	public RiskLimitsImpl(Map<? extends Asset, Long> maxPositionSizeByAsset, Currency valuationCurrency, long maxNetOpenPosition, long maxGrossNotional, long maxLoss) {
 		this.maxPositionSizeByAsset = new HashMap<>(maxPositionSizeByAsset);
+		this.valuationCurrency = Objects.requireNonNull(valuationCurrency, "valuationCurrency is null");
+		this.maxNetOpenPosition = validateLimit("max net open position", maxNetOpenPosition);
+		this.maxGrossNotional = validateLimit("max gross notional", maxGrossNotional);
+		this.maxLoss = validateLimit("max loss", maxLoss);
 	}
 	public long getMaxAllowedPositionSize(Asset asset) {
 		final Long masPositionSize = maxPositionSizeByAsset.get(asset);
 		return masPositionSize == null ? -1 : masPositionSize.longValue();
 	}
+	@Override
+	public Currency getValuationCurrency() {
+		return valuationCurrency;
+	}
+	@Override
+	public long getMaxNetOpenPosition() {
+		return maxNetOpenPosition;
+	}
+	@Override
+	public long getMaxGrossNotional() {
+		return maxGrossNotional;
+	}
+	@Override
+	public long getMaxLoss() {
+		return maxLoss;
+	}
+	
+	private static long validateLimit(String name, long limit) {
+		if (limit < -1) {
+			throw new IllegalArgumentException(name + " is < -1: " + limit);
+		}
+		return limit;
+	}
 	
 	@Override
 	public String toString() {
-		return getClass().getName() + "[maxPositionSizeByAsset=" + maxPositionSizeByAsset + "}"; 
+		return getClass().getName() + "[maxPositionSizeByAsset=" + maxPositionSizeByAsset + ", valuationCurrency="
+				+ valuationCurrency + ", maxNetOpenPosition=" + maxNetOpenPosition + ", maxGrossNotional="
+				+ maxGrossNotional + ", maxLoss=" + maxLoss + "}"; 
 	}
 	
 	public static Builder builder() {
@@ -56,6 +96,10 @@ public class RiskLimitsImpl implements RiskLimits {
 	public static class Builder implements RiskLimits.Builder {
 		
 		private final Map<Asset, Long> maxPositionSizeByAsset = new HashMap<>();
+		private Currency valuationCurrency = Currency.USD;
+		private long maxNetOpenPosition = -1;
+		private long maxGrossNotional = -1;
+		private long maxLoss = -1;
 
 		@Override
 		public Builder withMaxAllowedPositionSize(Asset asset, long maxPositionSize) {
@@ -71,9 +115,33 @@ public class RiskLimitsImpl implements RiskLimits {
 			return this;
 		}
 
+		@Override
+		public Builder withValuationCurrency(Currency valuationCurrency) {
+			this.valuationCurrency = Objects.requireNonNull(valuationCurrency, "valuationCurrency is null");
+			return this;
+		}
+
+		@Override
+		public Builder withMaxNetOpenPosition(long maxNetOpenPosition) {
+			this.maxNetOpenPosition = validateLimit("max net open position", maxNetOpenPosition);
+			return this;
+		}
+
+		@Override
+		public Builder withMaxGrossNotional(long maxGrossNotional) {
+			this.maxGrossNotional = validateLimit("max gross notional", maxGrossNotional);
+			return this;
+		}
+
+		@Override
+		public Builder withMaxLoss(long maxLoss) {
+			this.maxLoss = validateLimit("max loss", maxLoss);
+			return this;
+		}
+
 		@Override
 		public RiskLimits build() {
-			return new RiskLimitsImpl(maxPositionSizeByAsset);
+			return new RiskLimitsImpl(maxPositionSizeByAsset, valuationCurrency, maxNetOpenPosition, maxGrossNotional, maxLoss);
 		}
 		
 		@Override
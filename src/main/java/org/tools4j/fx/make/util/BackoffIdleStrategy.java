@@ -0,0 +1,87 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An {@link IdleStrategy} spinning first, then yielding and finally parking
+ * the thread with exponentially increasing park times.
+ * <p>
+ * The class is NOT thread safe.
+ */
+public class BackoffIdleStrategy implements IdleStrategy {
+
+	private final long maxSpins;
+	private final long maxYields;
+	private final long minParkNanos;
+	private final long maxParkNanos;
+	private long spins;
+	private long yields;
+	private long parkNanos;
+
+	public BackoffIdleStrategy() {
+		this(100, 10, 1000, 1000000);
+	}
+
+	public BackoffIdleStrategy(long maxSpins, long maxYields, long minParkNanos, long maxParkNanos) {
+		if (maxSpins < 0 | maxYields < 0) {
+			throw new IllegalArgumentException("maxSpins and maxYields must not be negative: " + maxSpins + ", " + maxYields);
+		}
+		if (minParkNanos < 1 | maxParkNanos < minParkNanos) {
+			throw new IllegalArgumentException("invalid park range: " + minParkNanos + ".." + maxParkNanos);
+		}
+		this.maxSpins = maxSpins;
+		this.maxYields = maxYields;
+		this.minParkNanos = minParkNanos;
+		this.maxParkNanos = maxParkNanos;
+		reset();
+	}
+
+	@Override
+	public void idle() {
+		if (spins < maxSpins) {
+			spins++;
+		} else if (yields < maxYields) {
+			yields++;
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(parkNanos);
+			parkNanos = Math.min(2 * parkNanos, maxParkNanos);
+		}
+	}
+
+	@Override
+	public void reset() {
+		spins = 0;
+		yields = 0;
+		parkNanos = minParkNanos;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{maxSpins=" + maxSpins + ", maxYields=" + maxYields + ", minParkNanos="
+				+ minParkNanos + ", maxParkNanos=" + maxParkNanos + "}";
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.util;
+
+/**
+ * Strategy for a thread polling for work, such as the matching engine thread
+ * draining inbound orders, to idle when no work was done.
+ * <p>
+ * Idle strategies keep state and must only be used by a single thread.
+ */
+public interface IdleStrategy {
+	/**
+	 * Idles if no work was done in the last duty cycle and resets the strategy
+	 * otherwise.
+	 * 
+	 * @param workCount
+	 *            the amount of work done in the last duty cycle
+	 */
+	default void idle(int workCount) {
+		if (workCount > 0) {
+			reset();
+		} else {
+			idle();
+		}
+	}
+
+	/**
+	 * Idles once; successive invocations may idle progressively longer.
+	 */
+	void idle();
+
+	/**
+	 * Resets the strategy after work was done.
+	 */
+	void reset();
+	
+	/**
+	 * Idle strategy spinning without any back off. Lowest latency but burns a
+	 * full core.
+	 */
+	IdleStrategy BUSY_SPIN = new IdleStrategy() {
+		@Override
+		public void idle() {
+			//spin
+		}
+		@Override
+		public void reset() {
+			//no state
+		}
+		@Override
+		public String toString() {
+			return "BUSY_SPIN";
+		}
+	};
+
+	/**
+	 * Idle strategy yielding the thread when idle.
+	 */
+	IdleStrategy YIELDING = new IdleStrategy() {
+		@Override
+		public void idle() {
+			Thread.yield();
+		}
+		@Override
+		public void reset() {
+			//no state
+		}
+		@Override
+		public String toString() {
+			return "YIELDING";
+		}
+	};
+}
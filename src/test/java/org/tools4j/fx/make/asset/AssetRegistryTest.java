@@ -0,0 +1,113 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.asset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AssetRegistry}.
+ */
+public class AssetRegistryTest {
+
+	@Test
+	public void shouldUseOrdinalAsCurrencyId() {
+		for (final Currency currency : Currency.values()) {
+			assertEquals("unexpected id for " + currency, currency.ordinal(), currency.id());
+			assertSame("unexpected asset for id " + currency.id(), currency, AssetRegistry.getAsset(currency.id()));
+			assertSame("unexpected currency for " + currency, currency, AssetRegistry.valueOf(AssetType.CURRENCY, currency.name()));
+		}
+	}
+
+	@Test
+	public void shouldInternNamedAssets() {
+		// when
+		final Asset goog = AssetRegistry.valueOf(AssetType.EQUITY, "GOOG");
+		final Asset gold = AssetRegistry.valueOf(AssetType.COMMODITY, "GOLD");
+		final Asset goldEquity = AssetRegistry.valueOf(AssetType.EQUITY, "GOLD");
+
+		// then
+		assertSame("should be interned", goog, AssetRegistry.valueOf(AssetType.EQUITY, "GOOG"));
+		assertSame("should be interned", gold, AssetRegistry.valueOf(AssetType.COMMODITY, "GOLD"));
+		assertNotEquals("should differ by type", gold, goldEquity);
+		assertEquals("unexpected type", AssetType.COMMODITY, gold.type());
+		assertEquals("unexpected name", "GOOG", goog.name());
+		assertSame("unexpected asset for id", goog, AssetRegistry.getAsset(goog.id()));
+		assertTrue("id should be dense", goog.id() >= Currency.values().length & goog.id() < AssetRegistry.getAssetCount());
+	}
+
+	@Test
+	public void shouldInternCurrencyPairs() {
+		// when
+		final CurrencyPair audUsd = CurrencyPair.valueOf(Currency.AUD, Currency.USD);
+
+		// then
+		assertSame("should be interned", audUsd, CurrencyPair.valueOf(Currency.AUD, Currency.USD));
+		assertSame("should be interned", audUsd, CurrencyPair.toMarketConvention(Currency.AUD));
+		assertSame("should be interned", audUsd, CurrencyPair.toMarketConvention(Currency.USD, Currency.AUD));
+		assertSame("should be interned", audUsd, AssetRegistry.intern(new CurrencyPair(Currency.AUD, Currency.USD)));
+		assertSame("unexpected pair for id", audUsd, AssetRegistry.getPair(audUsd.getId()));
+	}
+
+	@Test
+	public void shouldAssignSameIdToEqualPairs() {
+		// given
+		final CurrencyPair usdSgd1 = new CurrencyPair(Currency.USD, Currency.SGD);
+		final CurrencyPair usdSgd2 = new CurrencyPair(Currency.USD, Currency.SGD);
+		final CurrencyPair sgdUsd = new CurrencyPair(Currency.SGD, Currency.USD);
+		final AssetPriceSymbol<Asset> googUsd = new AssetPriceSymbol<>(AssetRegistry.valueOf(AssetType.EQUITY, "GOOG"), Currency.USD);
+
+		// then
+		assertEquals("equal pairs should have same id", usdSgd1.getId(), usdSgd2.getId());
+		assertNotEquals("inverse pair should have different id", usdSgd1.getId(), sgdUsd.getId());
+		assertNotEquals("different pairs should have different id", usdSgd1.getId(), googUsd.getId());
+		assertTrue("id should be dense", googUsd.getId() < AssetRegistry.getPairCount());
+	}
+
+	@Test
+	public void shouldComparePairsBeforeAndAfterRegistration() {
+		// given
+		final CurrencyPair usdNok1 = new CurrencyPair(Currency.USD, Currency.NOK);
+		final CurrencyPair usdNok2 = new CurrencyPair(Currency.USD, Currency.NOK);
+		final CurrencyPair usdSek = new CurrencyPair(Currency.USD, Currency.SEK);
+
+		// then: unregistered pairs compare by asset
+		assertEquals("pairs should be equal", usdNok1, usdNok2);
+		assertNotEquals("pairs should differ", usdNok1, usdSek);
+
+		// when
+		usdNok1.getId();
+		usdNok2.getId();
+		usdSek.getId();
+
+		// then: registered pairs compare by id
+		assertEquals("pairs should be equal", usdNok1, usdNok2);
+		assertNotEquals("pairs should differ", usdNok1, usdSek);
+		assertNotEquals("inverse pair should differ", usdNok1, new CurrencyPair(Currency.NOK, Currency.USD));
+	}
+}
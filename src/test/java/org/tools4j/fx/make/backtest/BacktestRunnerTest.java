@@ -0,0 +1,155 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.flow.TickData;
+import org.tools4j.fx.make.flow.TickFileIndex;
+import org.tools4j.fx.make.market.MidMarketMaker;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Unit test for {@link BacktestRunner}, {@link BacktestResults} and
+ * {@link ResultTable}.
+ */
+public class BacktestRunnerTest {
+
+	private static final double TOLERANCE = 1e-6;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+	private final CurrencyPair usdJpy = CurrencyPair.toMarketConvention(Currency.JPY);
+
+	private File writeCsv(String name, long seed, double mid, double pip, int months, int ticksPerMonth) throws IOException {
+		final Random random = new Random(seed);
+		final StringBuilder sb = new StringBuilder("Time,Ask,Bid,AskVolume,BidVolume\n");
+		for (int month = 1; month <= months; month++) {
+			for (int i = 0; i < ticksPerMonth; i++) {
+				mid += (random.nextInt(7) - 3) * pip;
+				sb.append(String.format(Locale.ROOT, "2014-%02d-%02d %02d:%02d:00.000,%.5f,%.5f,%.2f,%.2f\n", month, 1 + i / 600, (i / 60) % 10, i % 60, mid + pip, mid - pip, 0.5 + random.nextInt(4), 0.5 + random.nextInt(4)));
+			}
+		}
+		final File file = folder.newFile(name);
+		Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.US_ASCII));
+		return file;
+	}
+
+	@Test
+	public void shouldAggregateMonthPartitions() throws IOException {
+		// given
+		final File audFile = writeCsv("AUDUSD.csv", 1, 0.7500, 0.0001, 3, 400);
+		final File jpyFile = writeCsv("USDJPY.csv", 2, 120.00, 0.01, 3, 400);
+		final BacktestRunner runner = BacktestRunner.builder("Mid", MidMarketMaker::new)//
+				.addFile(audUsd, audFile)//
+				.addFile(usdJpy, jpyFile)//
+				.withSpreadPips(3)//
+				.forPeriods(YearMonth.of(2014, 2), YearMonth.of(2014, 12))//
+				.build();
+
+		// when
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		final BacktestResults results = runner.run(pool);
+		pool.shutdown();
+
+		// then
+		final YearMonth feb = YearMonth.of(2014, 2);
+		final YearMonth mar = YearMonth.of(2014, 3);
+		Assert.assertEquals("unexpected partition count", 4, results.size());
+		Assert.assertEquals("unexpected periods", Arrays.asList(feb, mar), results.getPeriods());
+		Assert.assertEquals("unexpected spread", 0.0003, runner.getSpread(audUsd), TOLERANCE);
+		Assert.assertEquals("unexpected spread", 0.03, runner.getSpread(usdJpy), TOLERANCE);
+		final ResultTable pnl = results.getPnlTable();
+		final ResultTable deals = results.getDealCountTable();
+		final ResultTable high = results.getHighWaterMarkTable();
+		Assert.assertEquals("unexpected rows", Arrays.asList(audUsd, usdJpy), pnl.getRows());
+		double pnlTotal = 0;
+		for (final CurrencyPair pair : Arrays.asList(audUsd, usdJpy)) {
+			final TickFileIndex index = TickFileIndex.build(pair == audUsd ? audFile : jpyFile);
+			double pnlRow = 0;
+			long dealsRow = 0;
+			double highRow = Double.NEGATIVE_INFINITY;
+			for (final YearMonth period : Arrays.asList(feb, mar)) {
+				final TickData tickData = index.load(pair, period);
+				final SweepResult expected = SweepRunner.run(tickData, "Mid", MidMarketMaker::new, runner.getSpread(pair), 1000000, RiskLimits.UNLIMITED, Currency.USD);
+				Assert.assertTrue("expected deals for " + pair + " in " + period, expected.getDealCount() > 0);
+				Assert.assertEquals("unexpected pnl for " + pair + " in " + period, expected.getPnl(), pnl.getValue(pair, period), TOLERANCE);
+				Assert.assertEquals("unexpected deals for " + pair + " in " + period, expected.getDealCount(), deals.getValue(pair, period), 0);
+				pnlRow += expected.getPnl();
+				dealsRow += expected.getDealCount();
+				highRow = Math.max(highRow, expected.getHighWaterMark());
+			}
+			Assert.assertEquals("unexpected pnl total for " + pair, pnlRow, pnl.getRowTotal(pair), TOLERANCE);
+			Assert.assertEquals("unexpected deal total for " + pair, dealsRow, deals.getRowTotal(pair), 0);
+			Assert.assertEquals("unexpected high water mark for " + pair, highRow, high.getRowTotal(pair), TOLERANCE);
+			pnlTotal += pnlRow;
+		}
+		Assert.assertEquals("unexpected pnl total", pnlTotal, pnl.getTotal(), TOLERANCE);
+		Assert.assertEquals("unexpected table line count", 4, pnl.toString().split("\n").length);
+	}
+
+	@Test
+	public void shouldReturnNaNForMissingCells() {
+		// given
+		final BacktestResults results = new BacktestResults(Arrays.asList(audUsd, usdJpy));
+		final YearMonth jan = YearMonth.of(2014, 1);
+		final YearMonth feb = YearMonth.of(2014, 2);
+		results.add(audUsd, jan, new SweepResult("Mid", 0.0002, 1000000, Currency.USD, 100, 10, 2000000, -1000000, 20));
+		results.add(usdJpy, feb, new SweepResult("Mid", 0.02, 1000000, Currency.USD, -50, 4, 1000000, -3000000, 8));
+
+		// when
+		final ResultTable low = results.getLowWaterMarkTable();
+		final ResultTable pnl = results.getPnlTable();
+
+		// then
+		Assert.assertTrue("expected NaN for missing cell", Double.isNaN(pnl.getValue(audUsd, feb)));
+		Assert.assertEquals("unexpected column total", 100, pnl.getColumnTotal(jan), 0);
+		Assert.assertEquals("unexpected total", 50, pnl.getTotal(), 0);
+		Assert.assertEquals("unexpected low water mark", -3000000, low.getTotal(), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectDuplicatePartition() {
+		final BacktestResults results = new BacktestResults(Arrays.asList(audUsd));
+		final SweepResult result = new SweepResult("Mid", 0.0002, 1000000, Currency.USD, 100, 10, 2000000, -1000000, 20);
+		results.add(audUsd, YearMonth.of(2014, 1), result);
+		results.add(audUsd, YearMonth.of(2014, 1), result);
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.flow.TickData;
+import org.tools4j.fx.make.market.MidMarketMaker;
+import org.tools4j.fx.make.market.PosTrendingMarketMaker;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Unit test for {@link ForkRunner}.
+ */
+public class ForkRunnerTest {
+
+	private static final double TOLERANCE = 1e-6;
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+
+	@Test
+	public void shouldContinueUnchangedBranchLikeStraightRun() throws IOException {
+		// given
+		final TickData tickData = TickData.load(audUsd, "AUDUSD", new StringReader(SweepRunnerTest.randomWalkCsv(7, 600)));
+		final ForkRunner runner = ForkRunner.builder(tickData, "Maker", PosTrendingMarketMaker::new, 0.0002, 1000000)//
+				.forkAtIndex(300)//
+				.addBranch("same", PosTrendingMarketMaker::new, 0.0002, 1000000)//
+				.addBranch("wide", PosTrendingMarketMaker::new, 0.0006, 1000000)//
+				.addBranch("mid", MidMarketMaker::new, 0.0002, 1000000)//
+				.build();
+
+		// when
+		final ForkJoinPool pool = new ForkJoinPool(3);
+		final List<SweepResult> results = runner.run(pool);
+		pool.shutdown();
+
+		// then
+		final SweepResult straight = SweepRunner.run(tickData, "Maker", PosTrendingMarketMaker::new, 0.0002, 1000000, RiskLimits.UNLIMITED, Currency.USD);
+		final SweepResult same = results.get(0);
+		Assert.assertEquals("unexpected result count", 3, results.size());
+		Assert.assertEquals("unexpected branch name", "same", same.getMaker());
+		Assert.assertEquals("unexpected deal count", straight.getDealCount(), same.getDealCount());
+		Assert.assertEquals("unexpected pnl", straight.getPnl(), same.getPnl(), TOLERANCE);
+		Assert.assertEquals("unexpected high water mark", straight.getHighWaterMark(), same.getHighWaterMark(), TOLERANCE);
+		Assert.assertEquals("unexpected low water mark", straight.getLowWaterMark(), same.getLowWaterMark(), TOLERANCE);
+		Assert.assertEquals("unexpected match rounds", straight.getMatchRounds(), same.getMatchRounds());
+		Assert.assertEquals("unexpected spread", 0.0006, results.get(1).getSpread(), 0);
+		Assert.assertNotEquals("wider spread should change the deals", straight.getDealCount(), results.get(1).getDealCount());
+	}
+
+	@Test
+	public void shouldShareTrunkDealsWithAllBranches() throws IOException {
+		// given
+		final TickData tickData = TickData.load(audUsd, "AUDUSD", new StringReader(SweepRunnerTest.randomWalkCsv(11, 400)));
+		final ForkRunner runner = ForkRunner.builder(tickData, "Maker", MidMarketMaker::new, 0.0002, 1000000)//
+				.forkAt(tickData.getTime(tickData.size() - 1))//
+				.addBranch("a", MidMarketMaker::new, 0.0002, 1000000)//
+				.addBranch("b", MidMarketMaker::new, 0.0010, 3000000)//
+				.build();
+		final TickData.Builder trunkTicks = TickData.builder(audUsd, "AUDUSD");
+		for (int i = 0; i < tickData.size() - 1; i++) {
+			trunkTicks.add(tickData.getTime(i), tickData.getBid(i), tickData.getAsk(i), tickData.getBidVolume(i), tickData.getAskVolume(i));
+		}
+		final SweepResult trunk = SweepRunner.run(trunkTicks.build(), "Maker", MidMarketMaker::new, 0.0002, 1000000, RiskLimits.UNLIMITED, Currency.USD);
+		final SweepResult straight = SweepRunner.run(tickData, "Maker", MidMarketMaker::new, 0.0002, 1000000, RiskLimits.UNLIMITED, Currency.USD);
+
+		// when
+		final List<SweepResult> results = runner.run();
+
+		// then: only the last tick is matched by the branches
+		Assert.assertEquals("unexpected fork index", tickData.size() - 1, runner.getForkIndex());
+		Assert.assertTrue("expected trunk deals", trunk.getDealCount() > 0);
+		Assert.assertEquals("unexpected deal count", straight.getDealCount(), results.get(0).getDealCount());
+		Assert.assertEquals("unexpected pnl", straight.getPnl(), results.get(0).getPnl(), TOLERANCE);
+		for (final SweepResult result : results) {
+			Assert.assertTrue("expected trunk deals in " + result, result.getDealCount() >= trunk.getDealCount());
+			Assert.assertTrue("expected trunk high water mark in " + result, result.getHighWaterMark() >= trunk.getHighWaterMark());
+			Assert.assertTrue("expected trunk low water mark in " + result, result.getLowWaterMark() <= trunk.getLowWaterMark());
+		}
+	}
+}
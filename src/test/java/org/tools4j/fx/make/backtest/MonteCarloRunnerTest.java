@@ -0,0 +1,73 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.market.MidMarketMaker;
+
+/**
+ * Unit test for {@link MonteCarloRunner}.
+ */
+public class MonteCarloRunnerTest {
+
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+
+	@Test
+	public void shouldProduceSameStatisticsIndependentOfThreads() {
+		// given
+		final JumpDiffusionGenerator generator = JumpDiffusionGenerator.builder(audUsd)//
+				.withPathLength(300)//
+				.withStart(0, 0.75)//
+				.withDiffusion(0, 0.0002)//
+				.withJumps(0.02, 0, 0.001)//
+				.withRelativeSpread(0.0002)//
+				.build();
+		final MonteCarloRunner runner = MonteCarloRunner.builder(generator, "Mid", MidMarketMaker::new, 0.0001, 1000000)//
+				.withPaths(40)//
+				.withSeed(123)//
+				.build();
+
+		// when
+		final ForkJoinPool single = new ForkJoinPool(1);
+		final ForkJoinPool parallel = new ForkJoinPool(4);
+		final PnlStatistics serialStats = runner.run(single);
+		final PnlStatistics parallelStats = runner.run(parallel);
+		single.shutdown();
+		parallel.shutdown();
+
+		// then
+		Assert.assertEquals("unexpected path count", 40, parallelStats.getPathCount());
+		Assert.assertTrue("expected deals", parallelStats.getMeanDealCount() > 0);
+		Assert.assertTrue("expected pnl dispersion", parallelStats.getStandardDeviation() > 0);
+		Assert.assertEquals("unexpected mean", serialStats.getMean(), parallelStats.getMean(), 0);
+		Assert.assertEquals("unexpected standard deviation", serialStats.getStandardDeviation(), parallelStats.getStandardDeviation(), 0);
+		Assert.assertEquals("unexpected median", serialStats.getMedian(), parallelStats.getMedian(), 0);
+		Assert.assertEquals("unexpected mean deal count", serialStats.getMeanDealCount(), parallelStats.getMeanDealCount(), 0);
+	}
+}
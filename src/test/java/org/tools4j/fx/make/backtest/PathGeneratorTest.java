@@ -0,0 +1,129 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.SplittableRandom;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.flow.TickData;
+
+/**
+ * Unit test for {@link BlockBootstrapGenerator} and
+ * {@link JumpDiffusionGenerator}.
+ */
+public class PathGeneratorTest {
+
+	private static final double TOLERANCE = 1e-9;
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+
+	@Test
+	public void shouldReproduceHistoryWithSingleBlock() throws IOException {
+		// given
+		final TickData history = TickData.load(audUsd, "AUDUSD", new StringReader(SweepRunnerTest.randomWalkCsv(3, 200)));
+		final BlockBootstrapGenerator generator = new BlockBootstrapGenerator(history, history.size() - 1, history.size());
+
+		// when
+		final TickData path = generator.generate("path", new SplittableRandom(1));
+
+		// then
+		Assert.assertEquals("unexpected size", history.size(), path.size());
+		for (int i = 0; i < path.size(); i++) {
+			Assert.assertEquals("unexpected time", history.getTime(i), path.getTime(i));
+			Assert.assertEquals("unexpected bid", history.getBid(i), path.getBid(i), TOLERANCE);
+			Assert.assertEquals("unexpected ask", history.getAsk(i), path.getAsk(i), TOLERANCE);
+			Assert.assertEquals("unexpected bid volume", history.getBidVolume(i), path.getBidVolume(i));
+		}
+	}
+
+	@Test
+	public void shouldBootstrapReproducibleBlocks() throws IOException {
+		// given
+		final TickData history = TickData.load(audUsd, "AUDUSD", new StringReader(SweepRunnerTest.randomWalkCsv(3, 200)));
+		final BlockBootstrapGenerator generator = new BlockBootstrapGenerator(history, 10, 1000);
+
+		// when
+		final TickData path1 = generator.generate("path", new SplittableRandom(5));
+		final TickData path2 = generator.generate("path", new SplittableRandom(5));
+		final TickData path3 = generator.generate("path", new SplittableRandom(6));
+
+		// then
+		Assert.assertEquals("unexpected size", 1000, path1.size());
+		Assert.assertEquals("same seed should give same path", path1.getBid(999), path2.getBid(999), 0);
+		Assert.assertNotEquals("different seed should give different path", path1.getBid(999), path3.getBid(999), 0);
+		for (int i = 1; i < path1.size(); i++) {
+			Assert.assertTrue("ticks should be ascending", path1.getTime(i) >= path1.getTime(i - 1));
+			Assert.assertTrue("bid should be below ask", path1.getBid(i) < path1.getAsk(i));
+		}
+	}
+
+	@Test
+	public void shouldCalibrateJumpDiffusion() {
+		// given
+		final double volatility = 0.0001;
+		final JumpDiffusionGenerator original = JumpDiffusionGenerator.builder(audUsd)//
+				.withPathLength(50000)//
+				.withStart(0, 0.75)//
+				.withTickInterval(500)//
+				.withDiffusion(0, volatility)//
+				.withJumps(0.01, 0.002, 0.0005)//
+				.withRelativeSpread(0.0002)//
+				.build();
+		final TickData history = original.generate("history", new SplittableRandom(7));
+
+		// when
+		final JumpDiffusionGenerator calibrated = JumpDiffusionGenerator.calibrate(history, 1000).build();
+
+		// then
+		Assert.assertEquals("unexpected tick interval", 500, calibrated.getTickIntervalMillis());
+		Assert.assertEquals("unexpected volatility", volatility, calibrated.getVolatility(), volatility * 0.05);
+		Assert.assertEquals("unexpected jump intensity", 0.01, calibrated.getJumpIntensity(), 0.003);
+		Assert.assertEquals("unexpected jump mean", 0.002, calibrated.getJumpMean(), 0.0003);
+		Assert.assertEquals("unexpected relative spread", 0.0002, calibrated.getRelativeSpread(), 1e-9);
+		Assert.assertEquals("unexpected path length", 1000, calibrated.generate("path", new SplittableRandom(1)).size());
+	}
+
+	@Test
+	public void shouldGenerateConstantMidWithoutDiffusionAndJumps() {
+		// given
+		final JumpDiffusionGenerator generator = JumpDiffusionGenerator.builder(audUsd)//
+				.withPathLength(10)//
+				.withStart(1000, 0.75)//
+				.withRelativeSpread(0.0002)//
+				.build();
+
+		// when
+		final TickData path = generator.generate("path", new SplittableRandom(1));
+
+		// then
+		Assert.assertEquals("unexpected size", 10, path.size());
+		Assert.assertEquals("unexpected last time", 10000, path.getTime(9));
+		Assert.assertEquals("unexpected bid", 0.75 * 0.9999, path.getBid(9), TOLERANCE);
+		Assert.assertEquals("unexpected ask", 0.75 * 1.0001, path.getAsk(9), TOLERANCE);
+	}
+}
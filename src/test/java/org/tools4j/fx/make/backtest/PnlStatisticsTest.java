@@ -0,0 +1,66 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+
+/**
+ * Unit test for {@link PnlStatistics}.
+ */
+public class PnlStatisticsTest {
+
+	private static final double TOLERANCE = 1e-9;
+
+	private final PnlStatistics statistics = new PnlStatistics(Currency.USD, //
+			new double[] {40, -30, 10, 0, -10, 20, 30, 50, 60, 70, 80}, //
+			new long[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11});
+
+	@Test
+	public void shouldComputeMoments() {
+		Assert.assertEquals("unexpected path count", 11, statistics.getPathCount());
+		Assert.assertEquals("unexpected mean", 29.090909090909, statistics.getMean(), 1e-9);
+		Assert.assertEquals("unexpected standard deviation", 34.771985, statistics.getStandardDeviation(), 1e-6);
+		Assert.assertEquals("unexpected mean deal count", 6, statistics.getMeanDealCount(), TOLERANCE);
+		Assert.assertEquals("unexpected min", -30, statistics.getMin(), TOLERANCE);
+		Assert.assertEquals("unexpected max", 80, statistics.getMax(), TOLERANCE);
+	}
+
+	@Test
+	public void shouldInterpolatePercentiles() {
+		Assert.assertEquals("unexpected median", 30, statistics.getMedian(), TOLERANCE);
+		Assert.assertEquals("unexpected percentile", -30, statistics.getPercentile(0), TOLERANCE);
+		Assert.assertEquals("unexpected percentile", 80, statistics.getPercentile(100), TOLERANCE);
+		Assert.assertEquals("unexpected percentile", -20, statistics.getPercentile(5), TOLERANCE);
+	}
+
+	@Test
+	public void shouldComputeTailRisk() {
+		Assert.assertEquals("unexpected value at risk", 20, statistics.getValueAtRisk(0.95), TOLERANCE);
+		Assert.assertEquals("unexpected expected shortfall", 30, statistics.getExpectedShortfall(0.95), TOLERANCE);
+		Assert.assertEquals("unexpected expected shortfall", 20, statistics.getExpectedShortfall(0.8), TOLERANCE);
+		Assert.assertEquals("unexpected probability of loss", 2.0 / 11, statistics.getProbabilityOfLoss(), TOLERANCE);
+	}
+}
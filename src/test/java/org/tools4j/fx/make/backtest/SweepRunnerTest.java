@@ -0,0 +1,121 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.backtest;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.flow.CsvOrderFlow;
+import org.tools4j.fx.make.flow.TickData;
+import org.tools4j.fx.make.market.MidMarketMaker;
+import org.tools4j.fx.make.market.PosTrendingMarketMaker;
+import org.tools4j.fx.make.match.MatchingEngine.MatchingState;
+import org.tools4j.fx.make.match.MatchingEngine.PartyState;
+import org.tools4j.fx.make.match.MatchingEngineImpl;
+import org.tools4j.fx.make.position.BatchValuatorImpl;
+import org.tools4j.fx.make.position.PositionKeeperImpl;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Unit test for {@link SweepRunner}.
+ */
+public class SweepRunnerTest {
+
+	private static final double TOLERANCE = 1e-6;
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+
+	static String randomWalkCsv(long seed, int ticks) {
+		final Random random = new Random(seed);
+		final StringBuilder sb = new StringBuilder("Time,Ask,Bid,AskVolume,BidVolume\n");
+		double mid = 0.7500;
+		for (int i = 0; i < ticks; i++) {
+			mid += (random.nextInt(7) - 3) * 0.0001;
+			final int minute = i / 60;
+			final int second = i % 60;
+			sb.append(String.format(Locale.ROOT, "2015-07-01 %02d:%02d:%02d.000,%.5f,%.5f,%.2f,%.2f\n", 10 + minute / 60, minute % 60, second, mid + 0.0001, mid - 0.0001, 0.5 + random.nextInt(4), 0.5 + random.nextInt(4)));
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void shouldSweepCartesianProductLikeSerialCsvRuns() throws IOException {
+		// given
+		final String csv = randomWalkCsv(42, 600);
+		final TickData tickData = TickData.load(audUsd, "AUDUSD", new StringReader(csv));
+		final SweepRunner runner = SweepRunner.builder(tickData)//
+				.addMaker("Mid", MidMarketMaker::new)//
+				.addMaker("PosTrending", PosTrendingMarketMaker::new)//
+				.addSpreads(0.0002, 0.0004)//
+				.addMaxQuantities(1000000, 3000000)//
+				.build();
+
+		// when
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		final List<SweepResult> results = runner.run(pool);
+		pool.shutdown();
+
+		// then
+		Assert.assertEquals("unexpected configuration count", 8, runner.getConfigurationCount());
+		Assert.assertEquals("unexpected result count", 8, results.size());
+		Assert.assertEquals("unexpected table line count", 9, SweepResult.toTable(results).split("\n").length);
+		int index = 0;
+		for (final String maker : new String[] {"Mid", "PosTrending"}) {
+			for (final double spread : new double[] {0.0002, 0.0004}) {
+				for (final long maxQuantity : new long[] {1000000, 3000000}) {
+					final SweepResult result = results.get(index++);
+					Assert.assertEquals("unexpected maker", maker, result.getMaker());
+					Assert.assertEquals("unexpected spread", spread, result.getSpread(), 0);
+					Assert.assertEquals("unexpected max quantity", maxQuantity, result.getMaxQuantity());
+					final MatchingState expected = MatchingEngineImpl.builder()//
+							.addOrderFlow(CsvOrderFlow.builder(audUsd, "AUDUSD", new StringReader(csv)).build())//
+							.addMarketMaker(maker.equals("Mid") ? //
+									new MidMarketMaker(new PositionKeeperImpl(RiskLimits.UNLIMITED), audUsd, maker, spread, maxQuantity) : //
+									new PosTrendingMarketMaker(new PositionKeeperImpl(RiskLimits.UNLIMITED), audUsd, maker, spread, maxQuantity))//
+							.build().matchAll();
+					final PartyState partyState = expected.getPartyState(maker);
+					final double pnl = new BatchValuatorImpl(Collections.singletonList(Currency.USD)).getValuations(Collections.singletonMap(maker, partyState.getAssetPositions()), expected.getMarketSnapshot()).getValuation(maker, Currency.USD);
+					Assert.assertTrue("expected deals for " + result, result.getDealCount() > 0);
+					Assert.assertEquals("unexpected deal count for " + result, partyState.getDealCount(), result.getDealCount());
+					Assert.assertEquals("unexpected pnl for " + result, pnl, result.getPnl(), TOLERANCE);
+					Assert.assertEquals("unexpected high water mark for " + result, partyState.getHighWaterMark(Currency.AUD), result.getHighWaterMark(), TOLERANCE);
+					Assert.assertEquals("unexpected low water mark for " + result, partyState.getLowWaterMark(Currency.AUD), result.getLowWaterMark(), TOLERANCE);
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectMakerNamedLikeTickData() throws IOException {
+		SweepRunner.builder(TickData.load(audUsd, "AUDUSD", new StringReader(randomWalkCsv(1, 10)))).addMaker("AUDUSD", MidMarketMaker::new);
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.flow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.OrderImpl;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * Unit test for {@link GatewayOrderFlow}.
+ */
+public class GatewayOrderFlowTest {
+
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+
+	@Test
+	public void shouldRejectOrdersWhenFull() {
+		// given
+		final GatewayOrderFlow gateway = new GatewayOrderFlow(4, 3);
+		for (int i = 0; i < 4; i++) {
+			Assert.assertTrue("offer should succeed", gateway.offer(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7130, 1000000)));
+		}
+
+		// when
+		final boolean offered = gateway.offer(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7130, 1000000));
+
+		// then
+		Assert.assertFalse("offer should fail", offered);
+		Assert.assertEquals("unexpected batch size", 3, gateway.nextOrders().size());
+		Assert.assertTrue("offer should succeed", gateway.offer(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7130, 1000000)));
+		Assert.assertEquals("unexpected batch size", 2, gateway.nextOrders().size());
+		Assert.assertEquals("unexpected batch size", 0, gateway.nextOrders().size());
+	}
+
+	@Test
+	public void shouldDrainOrdersOfConcurrentProducers() throws InterruptedException {
+		// given
+		final int producers = 4;
+		final int ordersPerProducer = 20000;
+		final GatewayOrderFlow gateway = new GatewayOrderFlow(1024, 64);
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			final String party = "P" + p;
+			final Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (final InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < ordersPerProducer; i++) {
+					final Order order = new OrderImpl(audUsd, party, Side.BUY, 0.7130, i + 1);
+					while (!gateway.offer(order)) {
+						Thread.yield();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		// when
+		start.countDown();
+		final long[] lastQuantity = new long[producers];
+		int received = 0;
+		while (received < producers * ordersPerProducer) {
+			for (final Order order : gateway.nextOrders()) {
+				final int p = Integer.parseInt(order.getParty().substring(1));
+				// then: orders of each producer arrive in publication order
+				Assert.assertEquals("unexpected quantity for " + order.getParty(), lastQuantity[p] + 1, order.getQuantity());
+				lastQuantity[p] = order.getQuantity();
+				received++;
+			}
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+
+		// then
+		Assert.assertEquals("gateway should be empty", 0, gateway.size());
+		Assert.assertTrue("no more orders expected", gateway.nextOrders().isEmpty());
+		for (int p = 0; p < producers; p++) {
+			Assert.assertEquals("unexpected last quantity", ordersPerProducer, lastQuantity[p]);
+		}
+	}
+}
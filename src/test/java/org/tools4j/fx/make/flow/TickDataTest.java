@@ -0,0 +1,103 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.flow;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.Order;
+
+/**
+ * Unit test for {@link TickData} and {@link TickDataOrderFlow}.
+ */
+public class TickDataTest {
+
+	private static final String CSV = "Time,Ask,Bid,AskVolume,BidVolume\n" + //
+			"2015-07-01 11:47:19.707,1.11022,1.11018,2.25,4.12\n" + //
+			"2015-07-01 11:47:20.214,1.11022,1.11018,0,0\n" + //
+			"2015-07-01 11:47:20.750,1.11021,1.11018,1.5,0\n" + //
+			"2015-08-03 00:00:00.001,1.11021,1.11019,1.5,1\n";
+
+	private final CurrencyPair eurUsd = CurrencyPair.toMarketConvention(Currency.EUR);
+
+	@Test
+	public void shouldLoadCsvAndSkipTicksWithoutVolume() throws IOException {
+		// when
+		final TickData tickData = TickData.load(eurUsd, "EURUSD", new StringReader(CSV));
+
+		// then
+		Assert.assertEquals("unexpected size", 3, tickData.size());
+		Assert.assertEquals("unexpected time", 1435751239707L, tickData.getTime(0));
+		Assert.assertEquals("unexpected bid", 1.11018, tickData.getBid(0), 0);
+		Assert.assertEquals("unexpected ask", 1.11022, tickData.getAsk(0), 0);
+		Assert.assertEquals("unexpected bid volume", 4120000, tickData.getBidVolume(0));
+		Assert.assertEquals("unexpected ask volume", 2250000, tickData.getAskVolume(0));
+		Assert.assertEquals("unexpected bid volume", 0, tickData.getBidVolume(1));
+		Assert.assertEquals("unexpected time", 1438560000001L, tickData.getTime(2));
+	}
+
+	@Test
+	public void shouldSeekByTime() throws IOException {
+		// given
+		final TickData tickData = TickData.load(eurUsd, "EURUSD", new StringReader(CSV));
+
+		// then
+		Assert.assertEquals("unexpected index", 0, tickData.indexOf(0));
+		Assert.assertEquals("unexpected index", 1, tickData.indexOf(1435751239708L));
+		Assert.assertEquals("unexpected index", 2, tickData.indexOf(1438560000001L));
+		Assert.assertEquals("unexpected index", 3, tickData.indexOf(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void shouldReplaySameOrdersAsCsvOrderFlow() throws IOException {
+		// given
+		final TickData tickData = TickData.load(eurUsd, "EURUSD", new StringReader(CSV));
+		final OrderFlow csvFlow = CsvOrderFlow.builder(eurUsd, "EURUSD", new StringReader(CSV)).build();
+		final TickDataOrderFlow tickFlow = tickData.orderFlow();
+
+		// when: skip tick without volume in csv flow
+		csvFlow.nextOrders();
+		csvFlow.nextOrders();
+		final List<Order> expected = csvFlow.nextOrders();
+		final List<Order> actual = tickData.orderFlow(1, 2).nextOrders();
+
+		// then
+		Assert.assertEquals("unexpected order count", expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals("unexpected party", expected.get(i).getParty(), actual.get(i).getParty());
+			Assert.assertEquals("unexpected side", expected.get(i).getSide(), actual.get(i).getSide());
+			Assert.assertEquals("unexpected price", expected.get(i).getPrice(), actual.get(i).getPrice(), 0);
+			Assert.assertEquals("unexpected quantity", expected.get(i).getQuantity(), actual.get(i).getQuantity());
+		}
+		Assert.assertEquals("unexpected order count", 2, tickFlow.nextOrders().size());
+		Assert.assertEquals("unexpected order count", 1, tickFlow.nextOrders().size());
+		Assert.assertEquals("unexpected order count", 2, tickFlow.nextOrders().size());
+		Assert.assertTrue("flow should be exhausted", tickFlow.nextOrders().isEmpty());
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.flow;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+
+/**
+ * Unit test for {@link TickFileIndex}.
+ */
+public class TickFileIndexTest {
+
+	private static final String CSV = "Time,Ask,Bid,AskVolume,BidVolume\n" + //
+			"2015-06-30 23:59:59.999,1.11022,1.11018,2.25,4.12\n" + //
+			"2015-07-01 11:47:19.707,1.11022,1.11018,2.25,4.12\n" + //
+			"2015-07-01 11:47:20.750,1.11021,1.11018,1.5,0\n" + //
+			"2015-07-31 23:59:59.999,1.11021,1.11019,1.5,1\n" + //
+			"2015-09-01 00:00:00.000,1.11025,1.11020,1,1";
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final CurrencyPair eurUsd = CurrencyPair.toMarketConvention(Currency.EUR);
+
+	private File writeCsv() throws IOException {
+		final File file = folder.newFile("EURUSD.csv");
+		Files.write(file.toPath(), CSV.getBytes(StandardCharsets.US_ASCII));
+		return file;
+	}
+
+	@Test
+	public void shouldIndexMonths() throws IOException {
+		// when
+		final TickFileIndex index = TickFileIndex.build(writeCsv());
+
+		// then
+		final YearMonth june = YearMonth.of(2015, 6);
+		final YearMonth july = YearMonth.of(2015, 7);
+		final YearMonth september = YearMonth.of(2015, 9);
+		Assert.assertEquals("unexpected months", Arrays.asList(june, july, september), index.getMonths());
+		Assert.assertEquals("unexpected offset", CSV.indexOf("2015-06"), index.getOffset(june));
+		Assert.assertEquals("unexpected offset", CSV.indexOf("2015-07"), index.getOffset(july));
+		Assert.assertEquals("unexpected length", CSV.indexOf("2015-09") - CSV.indexOf("2015-07"), index.getLength(july));
+		Assert.assertEquals("unexpected length", CSV.length() - CSV.indexOf("2015-09"), index.getLength(september));
+		Assert.assertEquals("unexpected line count", 1, index.getLineCount(june));
+		Assert.assertEquals("unexpected line count", 3, index.getLineCount(july));
+		Assert.assertEquals("unexpected line count", 1, index.getLineCount(september));
+		Assert.assertFalse("should not contain August", index.contains(YearMonth.of(2015, 8)));
+	}
+
+	@Test
+	public void shouldLoadMonthSlice() throws IOException {
+		// given
+		final File file = writeCsv();
+		final TickFileIndex index = TickFileIndex.build(file);
+		final TickData all;
+		try (final FileReader reader = new FileReader(file)) {
+			all = TickData.load(eurUsd, "all", reader);
+		}
+
+		// when
+		final TickData july = index.load(eurUsd, YearMonth.of(2015, 7));
+
+		// then
+		Assert.assertEquals("unexpected name", "EURUSD.csv[2015-07]", july.getName());
+		Assert.assertEquals("unexpected size", 3, july.size());
+		for (int i = 0; i < july.size(); i++) {
+			Assert.assertEquals("unexpected time", all.getTime(i + 1), july.getTime(i));
+			Assert.assertEquals("unexpected bid", all.getBid(i + 1), july.getBid(i), 0);
+			Assert.assertEquals("unexpected ask volume", all.getAskVolume(i + 1), july.getAskVolume(i));
+		}
+		Assert.assertEquals("unexpected size", 1, index.load(eurUsd, YearMonth.of(2015, 9)).size());
+	}
+
+	@Test(expected = IOException.class)
+	public void shouldRejectDescendingMonths() throws IOException {
+		// given
+		final File file = folder.newFile("unsorted.csv");
+		Files.write(file.toPath(), CSV.replace("2015-06-30", "2015-08-30").getBytes(StandardCharsets.US_ASCII));
+
+		// when
+		TickFileIndex.build(file);
+	}
+}
@@ -0,0 +1,177 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.DealImpl;
+import org.tools4j.fx.make.execution.ExecutionReportImpl;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.position.PositionKeeperImpl;
+import org.tools4j.fx.make.risk.RiskLimits;
+import org.tools4j.fx.make.risk.RiskLimitsImpl;
+
+/**
+ * Unit test for ladder quoting of {@link AbstractPositionAwareMarketMaker}.
+ */
+public class AbstractPositionAwareMarketMakerTest {
+
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+
+	private static class RecordingQuoteManager implements QuoteManager {
+		final List<String> actions = new ArrayList<>();
+		long lastId;
+		@Override
+		public long placeQuote(AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity) {
+			lastId++;
+			actions.add("place:" + lastId + ":" + side);
+			return lastId;
+		}
+		@Override
+		public void placeQuote(long quoteId, AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity) {
+			actions.add("place:" + quoteId + ":" + side);
+		}
+		@Override
+		public boolean amendQuote(long quoteId, double price, long quantity) {
+			actions.add("amend:" + quoteId);
+			return true;
+		}
+		@Override
+		public boolean cancelQuote(long quoteId) {
+			actions.add("cancel:" + quoteId);
+			return true;
+		}
+	}
+
+	@Test
+	public void shouldQuoteLadderOrders() {
+		// given
+		final MidMarketMaker marketMaker = new MidMarketMaker(new PositionKeeperImpl(RiskLimits.UNLIMITED), audUsd, "MM", 0.0002, 1000000);
+		marketMaker.setLadder(3, 0.0001);
+		marketMaker.onDeal(new DealImpl(audUsd, 0.7130, 100000, 1, "ANZ", 2, "UBS"));
+
+		// when
+		final List<Order> orders = marketMaker.nextOrders();
+
+		// then
+		Assert.assertEquals("unexpected order count", 6, orders.size());
+		Assert.assertEquals("unexpected price", 0.7129, orders.get(0).getPrice(), 1e-9);
+		Assert.assertEquals("unexpected price", 0.7127, orders.get(2).getPrice(), 1e-9);
+		Assert.assertEquals("unexpected side", Side.SELL, orders.get(3).getSide());
+		Assert.assertEquals("unexpected price", 0.7133, orders.get(5).getPrice(), 1e-9);
+	}
+
+	@Test
+	public void shouldSendAllLevelsEachRoundWithoutQuoteManager() {
+		// given
+		final MidMarketMaker marketMaker = new MidMarketMaker(new PositionKeeperImpl(RiskLimits.UNLIMITED), audUsd, "MM", 0.0002, 1000000);
+		marketMaker.setLadder(3, 0.0001);
+		marketMaker.onDeal(new DealImpl(audUsd, 0.7130, 100000, 1, "ANZ", 2, "UBS"));
+
+		// when + then: first round
+		Assert.assertEquals("unexpected order count", 6, marketMaker.nextOrders().size());
+
+		// when + then: not due without market update
+		Assert.assertEquals("unexpected order count", 0, marketMaker.nextOrders().size());
+
+		// when + then: market update with unchanged mid
+		marketMaker.onDeal(new DealImpl(audUsd, 0.7130, 100000, 3, "ANZ", 4, "UBS"));
+		Assert.assertEquals("unexpected order count", 6, marketMaker.nextOrders().size());
+
+		// when: mid moves up by one level
+		marketMaker.onDeal(new DealImpl(audUsd, 0.7131, 100000, 5, "ANZ", 6, "UBS"));
+		final List<Order> orders = marketMaker.nextOrders();
+
+		// then: all levels again, not only the changed ones
+		Assert.assertEquals("unexpected order count", 6, orders.size());
+		Assert.assertEquals("unexpected price", 0.7130, orders.get(0).getPrice(), 1e-9);
+		Assert.assertEquals("unexpected price", 0.7134, orders.get(5).getPrice(), 1e-9);
+	}
+
+	@Test
+	public void shouldAmendOnlyChangedLevels() {
+		// given
+		final RecordingQuoteManager quoteManager = new RecordingQuoteManager();
+		final MidMarketMaker marketMaker = new MidMarketMaker(new PositionKeeperImpl(RiskLimits.UNLIMITED), audUsd, "MM", 0.0002, 1000000);
+		marketMaker.setLadder(3, 0.0001);
+		marketMaker.setQuoteManager(quoteManager);
+		marketMaker.onDeal(new DealImpl(audUsd, 0.7130, 100000, 1, "ANZ", 2, "UBS"));
+
+		// when
+		marketMaker.nextOrders();
+
+		// then
+		Assert.assertEquals("unexpected actions", 6, quoteManager.actions.size());
+
+		// when: mid moves up by one level
+		quoteManager.actions.clear();
+		marketMaker.onDeal(new DealImpl(audUsd, 0.7131, 100000, 3, "ANZ", 4, "UBS"));
+		marketMaker.nextOrders();
+
+		// then: only the outermost levels move to the new top bid and outer offer
+		Assert.assertEquals("unexpected actions", "[amend:3, amend:4]", quoteManager.actions.toString());
+
+		// when: top offer fully filled without mid change
+		quoteManager.actions.clear();
+		marketMaker.onExecution(new ExecutionReportImpl(new DealImpl(audUsd, 0.7132, 1000000, 7, "CS", 5, "MM"), Side.SELL, 0));
+		marketMaker.onDeal(new DealImpl(audUsd, 0.7131, 100000, 8, "ANZ", 9, "UBS"));
+		marketMaker.nextOrders();
+
+		// then: the filled level is replenished with a new quote
+		Assert.assertEquals("unexpected actions", "[place:7:SELL]", quoteManager.actions.toString());
+	}
+
+	@Test
+	public void shouldCancelOuterLevelsWhenConstrained() {
+		// given
+		final RecordingQuoteManager quoteManager = new RecordingQuoteManager();
+		final RiskLimits riskLimits = RiskLimitsImpl.builder().withMaxAllowedPositionSize(Currency.AUD, 2500000).build();
+		final MidMarketMaker marketMaker = new MidMarketMaker(new PositionKeeperImpl(riskLimits), audUsd, "MM", 0.0002, 1000000);
+		marketMaker.setLadder(3, 0.0001);
+		marketMaker.setQuoteManager(quoteManager);
+		marketMaker.onDeal(new DealImpl(audUsd, 0.7130, 100000, 1, "ANZ", 2, "UBS"));
+
+		// when
+		marketMaker.nextOrders();
+
+		// then: 2.5M can be bought and sold, the third levels are half size
+		Assert.assertEquals("unexpected actions", 6, quoteManager.actions.size());
+
+		// when: MM bought 2M with its top bid, mid unchanged
+		quoteManager.actions.clear();
+		marketMaker.onExecution(new ExecutionReportImpl(new DealImpl(audUsd, 0.7129, 2000000, 1, "MM", 9, "CS"), Side.BUY, 0));
+		marketMaker.onDeal(new DealImpl(audUsd, 0.7130, 100000, 3, "ANZ", 4, "UBS"));
+		marketMaker.nextOrders();
+
+		// then: the filled top bid is replaced with a reduced level, the third bid is cancelled, the third offer increased
+		Assert.assertEquals("unexpected actions", "[amend:2, cancel:3, amend:6]", quoteManager.actions.toString());
+	}
+}
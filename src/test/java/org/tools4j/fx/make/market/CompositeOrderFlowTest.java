@@ -0,0 +1,316 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.DealImpl;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.OrderImpl;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.flow.OrderFlow;
+
+/**
+ * Unit test for {@link CompositeOrderFlow} and {@link CompositeMarketMaker}.
+ */
+public class CompositeOrderFlowTest {
+
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+	private final CurrencyPair eurUsd = CurrencyPair.toMarketConvention(Currency.EUR);
+
+	private static class CountingFlow implements OrderFlow {
+		int calls;
+		@Override
+		public List<Order> nextOrders() {
+			calls++;
+			return Collections.emptyList();
+		}
+	}
+
+	private static class CountingMaker extends CountingFlow implements MarketMaker {
+		private final AssetPair<?, ?> assetPair;
+		public CountingMaker(AssetPair<?, ?> assetPair) {
+			this.assetPair = assetPair;
+		}
+		@Override
+		public Set<? extends AssetPair<?, ?>> getAssetPairs() {
+			return Collections.singleton(assetPair);
+		}
+		@Override
+		public void onOrder(Order order) {
+			//ignore
+		}
+		@Override
+		public void onDeal(Deal deal) {
+			//ignore
+		}
+		@Override
+		public void onBest(Order order) {
+			//ignore
+		}
+	}
+
+	@Test
+	public void shouldOnlyAskMakersWithPendingUpdates() {
+		// given
+		final CountingFlow flow = new CountingFlow();
+		final CountingMaker audMaker = new CountingMaker(audUsd);
+		final CountingMaker eurMaker = new CountingMaker(eurUsd);
+		final CompositeOrderFlow composite = new CompositeOrderFlow(flow, audMaker, eurMaker);
+
+		// when: makers are initially due
+		composite.nextOrders();
+		composite.nextOrders();
+
+		// then
+		assertEquals("unexpected flow calls", 2, flow.calls);
+		assertEquals("unexpected maker calls", 1, audMaker.calls);
+		assertEquals("unexpected maker calls", 1, eurMaker.calls);
+
+		// when
+		composite.markUpdated(audUsd);
+		composite.markUpdated(audUsd);
+		composite.nextOrders();
+
+		// then
+		assertEquals("unexpected flow calls", 3, flow.calls);
+		assertEquals("unexpected maker calls", 2, audMaker.calls);
+		assertEquals("unexpected maker calls", 1, eurMaker.calls);
+	}
+
+	@Test
+	public void shouldOnlyAskUnderlyingMakersWithPendingUpdates() {
+		// given
+		final CountingMaker audMaker = new CountingMaker(audUsd);
+		final CountingMaker eurMaker = new CountingMaker(eurUsd);
+		final CompositeMarketMaker composite = new CompositeMarketMaker(audMaker, eurMaker);
+		composite.nextOrders();
+
+		// when
+		composite.onDeal(new DealImpl(eurUsd, 1.1, 1000000, 1, "A", 2, "B"));
+		composite.nextOrders();
+
+		// then
+		assertEquals("unexpected maker calls", 1, audMaker.calls);
+		assertEquals("unexpected maker calls", 2, eurMaker.calls);
+
+		// when
+		composite.onBest(new OrderImpl(audUsd, "A", Side.BUY, 0.75, 1000000));
+		composite.nextOrders();
+
+		// then
+		assertEquals("unexpected maker calls", 2, audMaker.calls);
+		assertEquals("unexpected maker calls", 2, eurMaker.calls);
+	}
+
+	@Test
+	public void shouldGatherConcurrentOrdersAndHoldBackEventsOnMissedDeadline() throws InterruptedException {
+		// given
+		final QuotingMaker audMaker = new QuotingMaker(audUsd);
+		final QuotingMaker eurMaker = new QuotingMaker(eurUsd);
+		final CompositeMarketMaker composite = new CompositeMarketMaker(audMaker, eurMaker);
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			composite.setConcurrentQuoting(executor, 10, TimeUnit.SECONDS);
+
+			// when
+			final List<Order> first = composite.nextOrders();
+
+			// then: gathered in maker order
+			assertEquals("unexpected orders", "[AUD/USD:1, EUR/USD:1]", toString(first));
+
+			// when: AUD maker blocks
+			audMaker.gate = new CountDownLatch(1);
+			composite.setConcurrentQuoting(executor, 20, TimeUnit.MILLISECONDS);
+			composite.onDeal(new DealImpl(audUsd, 0.75, 1000000, 1, "A", 2, "B"));
+			composite.onDeal(new DealImpl(eurUsd, 1.1, 1000000, 3, "A", 4, "B"));
+			final List<Order> second = composite.nextOrders();
+
+			// then: no AUD orders
+			assertEquals("unexpected orders", "[EUR/USD:2]", toString(second));
+
+			// when: AUD maker still busy
+			composite.onDeal(new DealImpl(audUsd, 0.75, 1000000, 5, "A", 6, "B"));
+			final List<Order> third = composite.nextOrders();
+
+			// then: AUD maker not invoked and second AUD deal held back while busy
+			assertEquals("unexpected orders", "[]", toString(third));
+			assertEquals("unexpected missed deadlines", 2, composite.getMissedDeadlines());
+			assertEquals("unexpected maker calls", 2, audMaker.calls);
+			assertEquals("unexpected maker deals", 1, audMaker.deals);
+			assertEquals("unexpected maker deals", 1, eurMaker.deals);
+
+			// when: AUD maker completes after the deadline of its round
+			audMaker.finished = new CountDownLatch(1);
+			audMaker.gate.countDown();
+			audMaker.finished.await();
+			composite.setConcurrentQuoting(executor, 10, TimeUnit.SECONDS);
+			final List<Order> fourth = composite.nextOrders();
+
+			// then: stale orders are discarded, held back events delivered and maker invoked again
+			assertEquals("unexpected orders", "[AUD/USD:3]", toString(fourth));
+			assertEquals("unexpected maker calls", 3, audMaker.calls);
+			assertEquals("unexpected maker deals", 2, audMaker.deals);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldKeepRestingQuotesOnMissedDeadlineAndApplyOnlyFreshQuotes() throws InterruptedException {
+		// given
+		final RecordingQuoteManager quoteManager = new RecordingQuoteManager();
+		final QuotingMaker audMaker = new QuotingMaker(audUsd);
+		final CompositeMarketMaker composite = new CompositeMarketMaker(audMaker);
+		composite.setQuoteManager(quoteManager);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			composite.setConcurrentQuoting(executor, 10, TimeUnit.SECONDS);
+
+			// when
+			final List<Order> first = composite.nextOrders();
+
+			// then: quote placed on the calling thread with the ID known to the maker
+			final long quoteId = audMaker.quoteId;
+			assertEquals("unexpected orders", "[]", toString(first));
+			assertEquals("unexpected actions", "[place:" + quoteId + "@1.0]", quoteManager.actions.toString());
+
+			// when: maker blocks
+			quoteManager.actions.clear();
+			audMaker.gate = new CountDownLatch(1);
+			composite.setConcurrentQuoting(executor, 20, TimeUnit.MILLISECONDS);
+			composite.onDeal(new DealImpl(audUsd, 0.75, 1000000, 1, "A", 2, "B"));
+			composite.nextOrders();
+			composite.nextOrders();
+
+			// then: resting quote left alone
+			assertEquals("unexpected actions", "[]", quoteManager.actions.toString());
+			assertEquals("unexpected missed deadlines", 2, composite.getMissedDeadlines());
+
+			// when: maker completes after the deadline and amends its quote to a stale price
+			audMaker.finished = new CountDownLatch(1);
+			audMaker.gate.countDown();
+			audMaker.finished.await();
+			composite.setConcurrentQuoting(executor, 10, TimeUnit.SECONDS);
+			composite.nextOrders();
+
+			// then: only the amendment of the maker invoked again reaches the quote manager
+			assertEquals("unexpected maker calls", 3, audMaker.calls);
+			assertEquals("unexpected quote ID", quoteId, audMaker.quoteId);
+			assertEquals("unexpected actions", "[amend:" + quoteId + "@3.0]", quoteManager.actions.toString());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static String toString(List<Order> orders) {
+		return orders.stream().map(o -> o.getAssetPair() + ":" + o.getQuantity()).collect(Collectors.toList()).toString();
+	}
+
+	private static class RecordingQuoteManager implements QuoteManager {
+		final List<String> actions = new ArrayList<>();
+		@Override
+		public long placeQuote(AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity) {
+			final long quoteId = Order.ID_GENERATOR.incrementAndGet();
+			placeQuote(quoteId, assetPair, party, side, price, quantity);
+			return quoteId;
+		}
+		@Override
+		public void placeQuote(long quoteId, AssetPair<?, ?> assetPair, String party, Side side, double price, long quantity) {
+			actions.add("place:" + quoteId + "@" + price);
+		}
+		@Override
+		public boolean amendQuote(long quoteId, double price, long quantity) {
+			actions.add("amend:" + quoteId + "@" + price);
+			return true;
+		}
+		@Override
+		public boolean cancelQuote(long quoteId) {
+			actions.add("cancel:" + quoteId);
+			return true;
+		}
+	}
+
+	private static class QuotingMaker extends CountingMaker {
+		private final AssetPair<?, ?> assetPair;
+		volatile CountDownLatch gate;
+		volatile CountDownLatch finished;
+		QuoteManager quoteManager;
+		long quoteId = -1;
+		int deals;
+		public QuotingMaker(AssetPair<?, ?> assetPair) {
+			super(assetPair);
+			this.assetPair = assetPair;
+		}
+		@Override
+		public List<Order> nextOrders() {
+			super.nextOrders();
+			final CountDownLatch latch = gate;
+			if (latch != null) {
+				try {
+					latch.await();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			final List<Order> orders;
+			if (quoteManager == null) {
+				orders = Collections.singletonList(new OrderImpl(assetPair, "MM", Side.BUY, 1.0, calls));
+			} else {
+				if (quoteId < 0 || !quoteManager.amendQuote(quoteId, calls, 1000000)) {
+					quoteId = quoteManager.placeQuote(assetPair, "MM", Side.BUY, calls, 1000000);
+				}
+				orders = Collections.emptyList();
+			}
+			final CountDownLatch done = finished;
+			if (done != null) {
+				done.countDown();
+			}
+			return orders;
+		}
+		@Override
+		public void setQuoteManager(QuoteManager quoteManager) {
+			this.quoteManager = quoteManager;
+		}
+		@Override
+		public void onDeal(Deal deal) {
+			deals++;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.DealImpl;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.OrderImpl;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.position.PositionKeeperImpl;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Unit test for {@link MarketEventRouter}.
+ */
+public class MarketEventRouterTest {
+
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+	private final CurrencyPair eurUsd = CurrencyPair.toMarketConvention(Currency.EUR);
+
+	private static class RecordingObserver implements MarketObserver {
+		private final AssetPair<?, ?> assetPair;
+		private final EventType eventType;
+		final List<String> events = new ArrayList<>();
+		public RecordingObserver(AssetPair<?, ?> assetPair, EventType eventType) {
+			this.assetPair = assetPair;
+			this.eventType = eventType;
+		}
+		@Override
+		public boolean isSubscribed(AssetPair<?, ?> assetPair, EventType eventType) {
+			return (this.assetPair == null || this.assetPair.equals(assetPair)) && (this.eventType == null || this.eventType == eventType);
+		}
+		@Override
+		public void onOrder(Order order) {
+			events.add("ORDER:" + order.getAssetPair());
+		}
+		@Override
+		public void onBest(Order order) {
+			events.add("BEST:" + order.getAssetPair());
+		}
+		@Override
+		public void onDeal(Deal deal) {
+			events.add("DEAL:" + deal.getAssetPair());
+		}
+	}
+
+	@Test
+	public void shouldRouteToSubscribersOnly() {
+		// given
+		final RecordingObserver all = new RecordingObserver(null, null);
+		final RecordingObserver audOnly = new RecordingObserver(audUsd, null);
+		final RecordingObserver dealsOnly = new RecordingObserver(null, MarketObserver.EventType.DEAL);
+		final MarketEventRouter router = new MarketEventRouter(all, audOnly, dealsOnly);
+		final Order audOrder = new OrderImpl(audUsd, "A", Side.BUY, 0.75, 1000000);
+		final Order eurOrder = new OrderImpl(eurUsd, "A", Side.SELL, 1.10, 1000000);
+
+		// when
+		router.onOrder(audOrder);
+		router.onBest(audOrder);
+		router.onOrder(eurOrder);
+		router.onDeal(new DealImpl(eurUsd, 1.10, 1000000, 1, "A", 2, "B"));
+		router.onDeal(new DealImpl(audUsd, 0.75, 1000000, 3, "A", 4, "B"));
+
+		// then
+		assertEquals("unexpected events", "[ORDER:AUD/USD, BEST:AUD/USD, ORDER:EUR/USD, DEAL:EUR/USD, DEAL:AUD/USD]", all.events.toString());
+		assertEquals("unexpected events", "[ORDER:AUD/USD, BEST:AUD/USD, DEAL:AUD/USD]", audOnly.events.toString());
+		assertEquals("unexpected events", "[DEAL:EUR/USD, DEAL:AUD/USD]", dealsOnly.events.toString());
+	}
+
+	@Test
+	public void shouldSubscribeMakerToBestAndDealsOfItsPair() {
+		// given
+		final MarketMaker maker = new MidMarketMaker(new PositionKeeperImpl(RiskLimits.UNLIMITED), audUsd, 0.0002, 1000000);
+		final MarketEventRouter router = new MarketEventRouter(maker);
+
+		// then
+		assertFalse("unexpected subscription", router.isSubscribed(audUsd, MarketObserver.EventType.ORDER));
+		assertTrue("unexpected subscription", router.isSubscribed(audUsd, MarketObserver.EventType.BEST));
+		assertTrue("unexpected subscription", router.isSubscribed(audUsd, MarketObserver.EventType.DEAL));
+		assertFalse("unexpected subscription", router.isSubscribed(eurUsd, MarketObserver.EventType.DEAL));
+	}
+}
@@ -0,0 +1,151 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.DealImpl;
+import org.tools4j.fx.make.execution.OrderImpl;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.flow.TickData;
+import org.tools4j.fx.make.flow.TickDataOrderFlow;
+import org.tools4j.fx.make.market.MarketObserver.EventType;
+import org.tools4j.fx.make.match.MatchingEngineImpl;
+
+/**
+ * Unit test for {@link MarketIndicators} and {@link DecayingSum}.
+ */
+public class MarketIndicatorsTest {
+
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+	private final CurrencyPair eurUsd = CurrencyPair.toMarketConvention(Currency.EUR);
+	private long time;
+
+	@Test
+	public void shouldDecayWithHalfLife() {
+		// given
+		final DecayingSum sum = new DecayingSum(1, TimeUnit.SECONDS);
+
+		// when
+		sum.add(8, 0);
+
+		// then
+		assertEquals("unexpected sum", 8, sum.getSum(0), 1e-12);
+		assertEquals("unexpected sum", 4, sum.getSum(1000000000L), 1e-12);
+		assertEquals("unexpected sum", 1, sum.getSum(3000000000L), 1e-12);
+	}
+
+	@Test
+	public void shouldClassifyDealsAndTrackVolatility() {
+		// given
+		final MarketIndicators indicators = new MarketIndicators(audUsd, 10, 1, TimeUnit.SECONDS, () -> time);
+		indicators.onBest(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7130, 1000000));
+		indicators.onBest(new OrderImpl(audUsd, "UBS", Side.SELL, 0.7134, 1000000));
+
+		// when: buy initiated deal at the offer, then sell initiated at the bid
+		indicators.onDeal(new DealImpl(audUsd, 0.7134, 3000000, 1, "CS", 2, "UBS"));
+		indicators.onDeal(new DealImpl(audUsd, 0.7130, 1000000, 3, "ANZ", 4, "CS"));
+
+		// then
+		assertEquals("unexpected imbalance", 0.5, indicators.getTradeImbalance(), 1e-12);
+		assertEquals("unexpected volatility", Double.NaN, indicators.getVolatility(), 0);
+		assertEquals("unexpected average price", 0.7134 - 0.0004 * 2 / 11, indicators.getAveragePrice(), 1e-12);
+
+		// when
+		indicators.onDeal(new DealImpl(audUsd, 0.7134, 1000000, 5, "CS", 6, "UBS"));
+
+		// then
+		final double r1 = Math.log(0.7130 / 0.7134);
+		final double r2 = Math.log(0.7134 / 0.7130);
+		final double mean = (r1 + r2) / 2;
+		assertEquals("unexpected volatility", Math.sqrt((r1 - mean) * (r1 - mean) + (r2 - mean) * (r2 - mean)), indicators.getVolatility(), 1e-12);
+	}
+
+	@Test
+	public void shouldMeasureQuoteRate() {
+		// given
+		final MarketIndicators indicators = new MarketIndicators(audUsd, 10, 100, TimeUnit.MILLISECONDS, () -> time);
+
+		// when: 1000 quotes per second for 2 seconds
+		for (int i = 0; i < 2000; i++) {
+			time += 1000000;
+			indicators.onBest(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7130, 1000000));
+		}
+
+		// then
+		assertEquals("unexpected quote rate", 1000, indicators.getQuoteRate(), 10);
+		assertTrue("should subscribe to deals", indicators.isSubscribed(audUsd, EventType.DEAL));
+		assertTrue("should not subscribe to other pairs", !indicators.isSubscribed(eurUsd, EventType.DEAL));
+		assertTrue("should not subscribe to orders", !indicators.isSubscribed(audUsd, EventType.ORDER));
+	}
+
+	@Test
+	public void shouldMeasureQuoteRateInTickTime() {
+		// given: a bid and an offer every millisecond for 10 half lives
+		final TickData.Builder ticks = TickData.builder(audUsd, "AUDUSD");
+		for (int i = 0; i < 10000; i++) {
+			ticks.add(1500000000000L + i, 0.7130, 0.7134, 1000000, 1000000);
+		}
+		final TickData tickData = ticks.build();
+
+		// when
+		final double rate = replayQuoteRate(tickData);
+
+		// then: 2000 quotes per second regardless of the replay speed
+		assertEquals("unexpected quote rate", 2000, rate, 20);
+		assertEquals("unexpected quote rate in second replay", rate, replayQuoteRate(tickData), 0);
+	}
+
+	private double replayQuoteRate(TickData tickData) {
+		final TickDataOrderFlow tickFlow = tickData.orderFlow();
+		final MarketIndicators indicators = new MarketIndicators(audUsd, tickFlow::getTimeNanos);
+		MatchingEngineImpl.builder().addOrderFlow(tickFlow).addMarketObserver(indicators).build().matchAll();
+		return indicators.getQuoteRate();
+	}
+
+	@Test
+	public void shouldWidenSpreadWithVolatility() {
+		// given
+		final MarketIndicators indicators = new MarketIndicators(audUsd, 10, 1, TimeUnit.SECONDS, () -> time);
+		final VolatilitySpread spread = new VolatilitySpread(0.0002, indicators, 2);
+
+		// then: base spread without volatility
+		assertEquals("unexpected spread", 0.0002, spread.getSpread(0.7132), 0);
+
+		// when
+		indicators.onDeal(new DealImpl(audUsd, 0.7130, 1000000, 1, "CS", 2, "UBS"));
+		indicators.onDeal(new DealImpl(audUsd, 0.7134, 1000000, 3, "CS", 4, "UBS"));
+		indicators.onDeal(new DealImpl(audUsd, 0.7130, 1000000, 5, "CS", 6, "UBS"));
+
+		// then
+		assertEquals("unexpected spread", 0.0002 + 2 * indicators.getVolatility() * 0.7132, spread.getSpread(0.7132), 1e-15);
+		assertTrue("spread should widen", spread.getSpread(0.7132) > 0.0002);
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.DealImpl;
+import org.tools4j.fx.make.execution.OrderImpl;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.position.MarketSnapshot;
+
+/**
+ * Unit test for {@link MidMarketRates}.
+ */
+public class MidMarketRatesTest {
+
+	private final CurrencyPair audUsd = new CurrencyPair(Currency.AUD, Currency.USD);
+	private final CurrencyPair usdJpy = new CurrencyPair(Currency.USD, Currency.JPY);
+	private final MidMarketRates rates = new MidMarketRates();
+
+	@Test
+	public void shouldReturnMidOfBestOrDeal() {
+		// when
+		rates.onBest(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7130, 1000000));
+		rates.onBest(new OrderImpl(audUsd, "UBS", Side.SELL, 0.7134, 1000000));
+
+		// then
+		assertEquals("unexpected mid rate", 0.7132, rates.getMidRate(audUsd), 1e-12);
+		assertEquals("unexpected mid rate", Double.NaN, rates.getMidRate(usdJpy), 0);
+
+		// when
+		rates.onDeal(new DealImpl(usdJpy, 123.92, 1000000, 1, "ANZ", 2, "UBS"));
+
+		// then
+		assertEquals("unexpected mid rate", 123.92, rates.getMidRate(usdJpy), 0);
+		assertEquals("unexpected snapshot rate", 0.7132 * 123.92, rates.getMarketSnapshot().getRate(Currency.AUD, Currency.JPY), 1e-9);
+	}
+
+	@Test
+	public void shouldMaterialiseSnapshotOnlyAfterChange() {
+		// given
+		rates.onDeal(new DealImpl(audUsd, 0.7132, 1000000, 1, "ANZ", 2, "UBS"));
+		final MarketSnapshot first = rates.getMarketSnapshot();
+
+		// when
+		final MarketSnapshot unchanged = rates.getMarketSnapshot();
+
+		// then
+		assertSame("snapshot should be cached", first, unchanged);
+
+		// when
+		rates.onDeal(new DealImpl(audUsd, 0.7140, 1000000, 3, "ANZ", 4, "UBS"));
+		final MarketSnapshot changed = rates.getMarketSnapshot();
+
+		// then
+		assertNotSame("snapshot should be new", first, changed);
+		assertEquals("old snapshot should be unchanged", 0.7132, first.getRate(Currency.AUD, Currency.USD), 0);
+		assertEquals("unexpected new rate", 0.7140, changed.getRate(Currency.AUD, Currency.USD), 0);
+	}
+}
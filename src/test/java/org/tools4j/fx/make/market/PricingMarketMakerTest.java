@@ -0,0 +1,128 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.DealImpl;
+import org.tools4j.fx.make.execution.ExecutionReportImpl;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.position.PositionKeeper;
+import org.tools4j.fx.make.position.PositionKeeperImpl;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Unit test for {@link PricingMarketMaker} and its predefined configurations.
+ */
+public class PricingMarketMakerTest {
+
+	private static final double TOLERANCE = 1e-9;
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+
+	@Test
+	public void shouldQuoteZeroAndInfinityWithoutMid() {
+		// given
+		final PricingMarketMaker marketMaker = PricingMarketMaker.builder(new PositionKeeperImpl(RiskLimits.UNLIMITED), audUsd)//
+				.withSpread(0.0002).withMaxQuantity(1000000).withPositionSkew().build();
+
+		// when
+		final List<Order> orders = marketMaker.nextOrders();
+
+		// then
+		Assert.assertEquals("unexpected bid", 0, orders.get(0).getPrice(), 0);
+		Assert.assertEquals("unexpected ask", Double.POSITIVE_INFINITY, orders.get(1).getPrice(), 0);
+		Assert.assertTrue("no quotes due without market update", marketMaker.nextOrders().isEmpty());
+	}
+
+	@Test
+	public void shouldSkewByPosition() {
+		// given
+		final PositionKeeper positionKeeper = new PositionKeeperImpl(RiskLimits.UNLIMITED);
+		final PricingMarketMaker marketMaker = new SkewedMarketMaker(positionKeeper, audUsd, "MM", 0.0002, 1000000);
+		marketMaker.onExecution(new ExecutionReportImpl(new DealImpl(audUsd, 0.7130, 3000000, 1, "MM", 2, "UBS"), Side.BUY, 0));
+		marketMaker.onDeal(new DealImpl(audUsd, 0.7130, 100000, 3, "ANZ", 4, "UBS"));
+
+		// when
+		final List<Order> orders = marketMaker.nextOrders();
+
+		// then: long position, bid wider than offer
+		final double skew = Math.pow(1.15, Math.log(3));
+		Assert.assertEquals("unexpected bid", 0.7130 - 0.0001 * skew, orders.get(0).getPrice(), 1e-7);
+		Assert.assertEquals("unexpected ask", 0.7130 + 0.0001 / skew, orders.get(1).getPrice(), 1e-7);
+	}
+
+	@Test
+	public void shouldRestoreSnapshotIntoNewMaker() {
+		// given
+		final PricingMarketMaker marketMaker = new PosTrendingMarketMaker(new PositionKeeperImpl(RiskLimits.UNLIMITED), audUsd, "MM", 0.0002, 1000000);
+		marketMaker.onExecution(new ExecutionReportImpl(new DealImpl(audUsd, 0.7130, 3000000, 1, "MM", 2, "UBS"), Side.BUY, 0));
+		marketMaker.onDeal(new DealImpl(audUsd, 0.7131, 100000, 3, "ANZ", 4, "UBS"));
+		final MakerState state = marketMaker.snapshotState();
+		final List<Order> expected = marketMaker.nextOrders();
+		marketMaker.onExecution(new ExecutionReportImpl(new DealImpl(audUsd, 0.7131, 1000000, 5, "MM", 6, "UBS"), Side.BUY, 0));
+
+		// when
+		final PositionKeeper positionKeeper = new PositionKeeperImpl(RiskLimits.UNLIMITED);
+		final PricingMarketMaker restored = new PosTrendingMarketMaker(positionKeeper, audUsd, "MM", 0.0002, 1000000);
+		restored.restoreState(state);
+		final List<Order> orders = restored.nextOrders();
+
+		// then: same quotes as the original at snapshot time
+		Assert.assertEquals("unexpected position", 3000000, positionKeeper.getPosition(Currency.AUD), 0);
+		Assert.assertEquals("unexpected order count", expected.size(), orders.size());
+		for (int i = 0; i < orders.size(); i++) {
+			Assert.assertEquals("unexpected price", expected.get(i).getPrice(), orders.get(i).getPrice(), 0);
+			Assert.assertEquals("unexpected quantity", expected.get(i).getQuantity(), orders.get(i).getQuantity());
+		}
+		Assert.assertTrue("no quotes due without market update", restored.nextOrders().isEmpty());
+	}
+
+	@Test
+	public void shouldSkewByTrend() {
+		// given
+		final PricingMarketMaker trending = new TrendingMarketMaker(new PositionKeeperImpl(RiskLimits.UNLIMITED), audUsd, "MM", 0.0002, 1000000);
+		final PricingMarketMaker following = PricingMarketMaker.builder(new PositionKeeperImpl(RiskLimits.UNLIMITED), audUsd)//
+				.withParty("MM").withSpread(0.0002).withMaxQuantity(1000000).withTrendSkew(true).build();
+		for (final PricingMarketMaker marketMaker : new PricingMarketMaker[] {trending, following}) {
+			marketMaker.onExecution(new ExecutionReportImpl(new DealImpl(audUsd, 0.7130, 100000, 1, "MM", 2, "UBS"), Side.BUY, 0));
+			marketMaker.onDeal(new DealImpl(audUsd, 0.7130, 100000, 3, "ANZ", 4, "UBS"));
+		}
+
+		// when
+		final List<Order> trendingOrders = trending.nextOrders();
+		final List<Order> followingOrders = following.nextOrders();
+
+		// then: one update since own fill
+		final double skew = Math.pow(1.05, 9);
+		Assert.assertEquals("unexpected bid", 0.7130 - 0.0001 * skew, trendingOrders.get(0).getPrice(), TOLERANCE);
+		Assert.assertEquals("unexpected ask", 0.7130 + 0.0001 / skew, trendingOrders.get(1).getPrice(), TOLERANCE);
+		Assert.assertEquals("unexpected bid", 0.7130 - 0.0001 / skew, followingOrders.get(0).getPrice(), TOLERANCE);
+		Assert.assertEquals("unexpected ask", 0.7130 + 0.0001 * skew, followingOrders.get(1).getPrice(), TOLERANCE);
+	}
+}
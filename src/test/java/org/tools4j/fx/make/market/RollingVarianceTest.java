@@ -0,0 +1,96 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link RollingVariance} and {@link Ewma}.
+ */
+public class RollingVarianceTest {
+
+	@Test
+	public void shouldMatchVarianceOfWindow() {
+		// given
+		final int window = 20;
+		final RollingVariance variance = new RollingVariance(window);
+		final double[] values = new double[1000];
+		final Random rnd = new Random(42);
+
+		for (int i = 0; i < values.length; i++) {
+			// when
+			values[i] = 0.7 + 0.01 * rnd.nextGaussian();
+			variance.update(values[i]);
+
+			// then
+			final int from = Math.max(0, i + 1 - window);
+			final int n = i + 1 - from;
+			double mean = 0;
+			for (int j = from; j <= i; j++) {
+				mean += values[j] / n;
+			}
+			double sumSq = 0;
+			for (int j = from; j <= i; j++) {
+				sumSq += (values[j] - mean) * (values[j] - mean);
+			}
+			assertEquals("unexpected count", n, variance.getCount());
+			assertEquals("unexpected mean", mean, variance.getMean(), 1e-12);
+			if (n >= 2) {
+				assertEquals("unexpected variance", sumSq / (n - 1), variance.getVariance(), 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void shouldReturnNaNForLessThanTwoValues() {
+		// given
+		final RollingVariance variance = new RollingVariance(5);
+
+		// when
+		variance.update(1.0);
+
+		// then
+		assertEquals("unexpected variance", Double.NaN, variance.getVariance(), 0);
+		assertEquals("unexpected mean", 1.0, variance.getMean(), 0);
+	}
+
+	@Test
+	public void shouldSmoothExponentially() {
+		// given: length 3 corresponds to alpha 0.5
+		final Ewma ewma = Ewma.withLength(3);
+
+		// when
+		ewma.update(1);
+		ewma.update(3);
+		ewma.update(5);
+
+		// then
+		assertEquals("unexpected average", 3.5, ewma.getValue(), 0);
+		assertEquals("unexpected count", 3, ewma.getCount());
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.market;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+
+/**
+ * Unit test for {@link SkewTable}.
+ */
+public class SkewTableTest {
+
+	private static final double TOLERANCE = 1e-5;
+
+	@Test
+	public void shouldMatchExactPositionSkew() {
+		// given
+		final long maxQuantity = 1000000;
+		final SkewTable skewTable = SkewTable.forMaker(CurrencyPair.toMarketConvention(Currency.AUD), maxQuantity);
+
+		for (final double pos : new double[] {0, 500000, -1000000, 1234567, -7654321, 33333333, 63999999, 64000000, 250000000}) {
+			// when
+			final double log = Math.max(0, Math.log(Math.abs(pos) / maxQuantity));
+
+			// then
+			assertEquals("unexpected increasing skew for " + pos, Math.pow(1.15, log), skewTable.getIncreasingPositionSkew(pos), TOLERANCE);
+			assertEquals("unexpected decreasing skew for " + pos, Math.pow(1.15, -log), skewTable.getDecreasingPositionSkew(pos), TOLERANCE);
+		}
+	}
+
+	@Test
+	public void shouldScaleJpyPositions() {
+		// given
+		final SkewTable skewTable = SkewTable.forMaker(CurrencyPair.toMarketConvention(Currency.JPY), 1000000);
+
+		// then
+		assertEquals("unexpected scale", 100000000, skewTable.getPositionScale(), 0);
+		assertEquals("unexpected skew", 1, skewTable.getIncreasingPositionSkew(50000000), 0);
+		assertEquals("unexpected skew", Math.pow(1.15, Math.log(2)), skewTable.getIncreasingPositionSkew(-200000000), TOLERANCE);
+	}
+
+	@Test
+	public void shouldLookupTrendSkew() {
+		// given
+		final SkewTable skewTable = new SkewTable(1000000);
+
+		for (int updates = 0; updates < 12; updates++) {
+			// when
+			final double expectedInc = updates < 10 ? Math.pow(1.05, 10 - updates) : 1;
+			final double expectedDec = updates < 10 ? Math.pow(1.05, updates - 10) : 1;
+
+			// then
+			assertEquals("unexpected increasing skew", expectedInc, skewTable.getIncreasingTrendSkew(updates), 1e-12);
+			assertEquals("unexpected decreasing skew", expectedDec, skewTable.getDecreasingTrendSkew(updates), 1e-12);
+		}
+	}
+}
@@ -54,6 +54,8 @@ import org.tools4j.fx.make.market.MarketPrinter.Mode;
 import org.tools4j.fx.make.market.PosTrendingMarketMaker;
 import org.tools4j.fx.make.match.MatchingEngine.PartyState;
 import org.tools4j.fx.make.position.AssetPositions;
+import org.tools4j.fx.make.position.BatchValuation;
+import org.tools4j.fx.make.position.BatchValuatorImpl;
 import org.tools4j.fx.make.position.MarketSnapshot;
 import org.tools4j.fx.make.position.PositionKeeperImpl;
 import org.tools4j.fx.make.risk.RiskLimits;
@@ -191,6 +193,11 @@ public class MatchingEngineCsvTest {
 		final MarketSnapshot marketSnapshot = state.getMarketSnapshot(); 
 		System.out.println(marketSnapshot);
 		System.out.println("match rounds=" + state.getMatchIndex());
+		final Map<String, AssetPositions> positionsByParty = new LinkedHashMap<>();
+		for (final String party : state.getParties()) {
+			positionsByParty.put(party, state.getPartyState(party).getAssetPositions());
+		}
+		final BatchValuation valuation = new BatchValuatorImpl(Arrays.asList(base, terms, Currency.USD)).getValuations(positionsByParty, marketSnapshot);
 		for (final String party : sort(state.getParties())) {
 			System.out.println("==== " + party + " ====");
 			final PartyState partyState = state.getPartyState(party);
@@ -199,8 +206,8 @@ public class MatchingEngineCsvTest {
 			System.out.println(pos);
 			System.out.println("high/low[" + base + "]:" + partyState.getHighWaterMark(base) + ".." + partyState.getLowWaterMark(base));
 			System.out.println("high/low[" + terms + "]:" + partyState.getHighWaterMark(terms) + ".." + partyState.getLowWaterMark(terms));
-			final double valBase = pos.getValuator(base).getValuation(marketSnapshot);
-			final double valTerms = pos.getValuator(terms).getValuation(marketSnapshot);
+			final double valBase = valuation.getValuation(party, base);
+			final double valTerms = valuation.getValuation(party, terms);
 			System.out.println("value[" + base + "]=" + valBase + "\t= " + (valBase / partyState.getDealCount()) + " per deal");
 			System.out.println("value[" + terms + "]=" + valTerms + "\t= " + (valTerms / partyState.getDealCount()) + " per deal");
 		}
@@ -210,7 +217,7 @@ public class MatchingEngineCsvTest {
 			pnls = new ArrayList<>();
 			PNL_USD.put(currencyPair, pnls);
 		}
-		pnls.add(state.getPartyState(partyName).getAssetPositions().getValuator(Currency.USD).getValuation(marketSnapshot));
+		pnls.add(valuation.getValuation(partyName, Currency.USD));
 	}
 	
 	private static final Collection<String> sort(final Collection<? extends String> parties) {
@@ -24,20 +24,41 @@
 package org.tools4j.fx.make.match;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestName;
+import org.tools4j.fx.make.asset.AssetPair;
 import org.tools4j.fx.make.asset.Currency;
 import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.ExecutionReport;
 import org.tools4j.fx.make.execution.Order;
 import org.tools4j.fx.make.execution.OrderImpl;
 import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.flow.GatewayOrderFlow;
 import org.tools4j.fx.make.flow.ListOrderFlow;
 import org.tools4j.fx.make.flow.OrderFlow;
+import org.tools4j.fx.make.market.DepthUpdate;
+import org.tools4j.fx.make.market.MarketMaker;
+import org.tools4j.fx.make.market.MarketObserver;
 import org.tools4j.fx.make.market.MarketPrinter;
+import org.tools4j.fx.make.market.MidMarketMaker;
+import org.tools4j.fx.make.position.PositionKeeper;
+import org.tools4j.fx.make.position.PositionKeeperImpl;
+import org.tools4j.fx.make.risk.RiskLimits;
+import org.tools4j.fx.make.risk.RiskLimitsImpl;
+import org.tools4j.fx.make.util.BackoffIdleStrategy;
 
 /**
  * Unit test for {@link MatchingEngine} and {@link MatchingEngineImpl}.
@@ -95,6 +116,543 @@ public class MatchingEngineTest {
 		Assert.assertEquals("unexpected position size", -1000000 * .7134, getPosition(state, "CS", Currency.USD), 0);
 	}
 
+	@Test
+	public void shouldLimitNetOpenPosition() {
+		// given
+		final List<Order> orders = new ArrayList<>();
+		orders.add(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7134, 2000000));
+		orders.add(new OrderImpl(audUsd, "UBS", Side.SELL, 0.7132, 2000000));
+		final OrderFlow orderFlow = new ListOrderFlow(orders);
+		final MatchingEngine engine = MatchingEngineImpl.builder()//
+				.addOrderFlow(orderFlow)//
+				.setRiskLimits("ANZ", RiskLimitsImpl.builder().withMaxNetOpenPosition(1000000).build())//
+				.addMarketObserver(printer)//
+				.build();
+
+		// when
+		final MatchingEngine.MatchingState state = engine.matchAll();
+
+		// then
+		Assert.assertEquals("unexpected position size", 1401934, getPosition(state, "ANZ", Currency.AUD), 0);
+		Assert.assertEquals("unexpected position size", -1401934, getPosition(state, "UBS", Currency.AUD), 0);
+		Assert.assertTrue("net open position breached", state.getPartyState("ANZ").getNetOpenPosition() <= 1000000);
+		Assert.assertEquals("unexpected gross notional", 1401934 * .7133, state.getPartyState("UBS").getGrossNotional(), 1e-6);
+	}
+
+	@Test
+	public void shouldStopOutOnMaxLoss() {
+		// given
+		final Iterator<List<Order>> rounds = Arrays.asList(//
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7134, 1000000), new OrderImpl(audUsd, "UBS", Side.SELL, 0.7132, 1000000)), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "CS", Side.BUY, 0.6901, 1000000), new OrderImpl(audUsd, "UBS", Side.SELL, 0.6899, 1000000)), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.6901, 500000), new OrderImpl(audUsd, "UBS", Side.SELL, 0.6899, 500000)), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "CS", Side.BUY, 0.6901, 500000), new OrderImpl(audUsd, "ANZ", Side.SELL, 0.6899, 500000))//
+		).iterator();
+		final OrderFlow orderFlow = () -> rounds.hasNext() ? rounds.next() : Collections.<Order>emptyList();
+		final MatchingEngine engine = MatchingEngineImpl.builder()//
+				.addOrderFlow(orderFlow)//
+				.setRiskLimits("ANZ", RiskLimitsImpl.builder().withMaxLoss(10000).build())//
+				.addMarketObserver(printer)//
+				.build();
+
+		// when
+		final MatchingEngine.MatchingState state = engine.matchFirst().matchNext();
+
+		// then
+		Assert.assertEquals("unexpected unrealised pnl", 1000000 * (0.69 - 0.7133), state.getPartyState("ANZ").getUnrealisedPnl(), 1e-6);
+
+		// when: ANZ stopped out for increasing, but not for reducing the position
+		state.matchNext().matchNext();
+
+		// then
+		Assert.assertEquals("unexpected position size", 500000, getPosition(state, "ANZ", Currency.AUD), 0);
+		Assert.assertEquals("unexpected realised pnl", 500000 * (0.69 - 0.7133), state.getPartyState("ANZ").getRealisedPnl(), 1e-6);
+		Assert.assertEquals("unexpected unrealised pnl", 500000 * (0.69 - 0.7133), state.getPartyState("ANZ").getUnrealisedPnl(), 1e-6);
+	}
+
+	@Test
+	public void shouldContinueForkedStateLikeStraightRun() {
+		// given: first two rounds of the stop out scenario
+		final Iterator<List<Order>> trunkRounds = Arrays.asList(//
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7134, 1000000), new OrderImpl(audUsd, "UBS", Side.SELL, 0.7132, 1000000)), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "CS", Side.BUY, 0.6901, 1000000), new OrderImpl(audUsd, "UBS", Side.SELL, 0.6899, 1000000))//
+		).iterator();
+		final Iterator<List<Order>> branchRounds = Arrays.asList(//
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.6901, 500000), new OrderImpl(audUsd, "UBS", Side.SELL, 0.6899, 500000)), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "CS", Side.BUY, 0.6901, 500000), new OrderImpl(audUsd, "ANZ", Side.SELL, 0.6899, 500000))//
+		).iterator();
+		final MatchingEngine.MatchingState trunk = MatchingEngineImpl.builder()//
+				.addOrderFlow(() -> trunkRounds.hasNext() ? trunkRounds.next() : Collections.<Order>emptyList())//
+				.setRiskLimits("ANZ", RiskLimitsImpl.builder().withMaxLoss(10000).build())//
+				.addMarketObserver(printer)//
+				.build().matchFirst().matchNext();
+
+		// when: forked engine without explicit ANZ risk limits continues with the last two rounds
+		final MatchingEngine.MatchingState state = MatchingEngineImpl.builder()//
+				.addOrderFlow(() -> branchRounds.hasNext() ? branchRounds.next() : Collections.<Order>emptyList())//
+				.addMarketObserver(printer)//
+				.forkFrom(trunk)//
+				.build().matchFirst().matchNext();
+
+		// then: ANZ still stopped out for increasing the position, PnL as in straight run
+		Assert.assertEquals("unexpected match index", trunk.getMatchIndex() + 2, state.getMatchIndex());
+		Assert.assertEquals("unexpected position size", 500000, getPosition(state, "ANZ", Currency.AUD), 0);
+		Assert.assertEquals("unexpected deal count", 2, state.getPartyState("ANZ").getDealCount());
+		Assert.assertEquals("unexpected high water mark", 1000000, state.getPartyState("ANZ").getHighWaterMark(Currency.AUD), 0);
+		Assert.assertEquals("unexpected realised pnl", 500000 * (0.69 - 0.7133), state.getPartyState("ANZ").getRealisedPnl(), 1e-6);
+		Assert.assertEquals("unexpected unrealised pnl", 500000 * (0.69 - 0.7133), state.getPartyState("ANZ").getUnrealisedPnl(), 1e-6);
+		Assert.assertEquals("unexpected position size", -2000000, getPosition(state, "UBS", Currency.AUD), 0);
+
+		// then: trunk state unchanged
+		Assert.assertEquals("unexpected position size", 1000000, getPosition(trunk, "ANZ", Currency.AUD), 0);
+		Assert.assertEquals("unexpected deal count", 1, trunk.getPartyState("ANZ").getDealCount());
+	}
+
+	@Test
+	public void shouldValueNewExposureAtCurrentRates() {
+		// given
+		final CurrencyPair eurUsd = CurrencyPair.toMarketConvention(Currency.EUR);
+		final CurrencyPair eurAud = new CurrencyPair(Currency.EUR, Currency.AUD);
+		final Iterator<List<Order>> rounds = Arrays.asList(//
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.75, 1000000), new OrderImpl(audUsd, "UBS", Side.SELL, 0.75, 1000000)), //
+				Arrays.<Order>asList(new OrderImpl(eurUsd, "ANZ", Side.BUY, 1.10, 1000000), new OrderImpl(eurUsd, "UBS", Side.SELL, 1.10, 1000000)), //
+				Arrays.<Order>asList(new OrderImpl(eurAud, "CS", Side.BUY, 1.50, 1000000), new OrderImpl(eurAud, "DB", Side.SELL, 1.50, 1000000))//
+		).iterator();
+		final OrderFlow orderFlow = () -> rounds.hasNext() ? rounds.next() : Collections.<Order>emptyList();
+		final MatchingEngine engine = MatchingEngineImpl.builder()//
+				.addOrderFlow(orderFlow)//
+				.addMarketObserver(printer)//
+				.build();
+
+		// when
+		final MatchingEngine.MatchingState state = engine.matchAll();
+
+		// then: CS and DB trade EUR/AUD valued at the EUR/USD and AUD/USD rates
+		Assert.assertEquals("unexpected gross notional", 1100000, state.getPartyState("CS").getGrossNotional(), 1e-6);
+		Assert.assertEquals("unexpected net open position", 1500000 * 0.75, state.getPartyState("CS").getNetOpenPosition(), 1e-6);
+		Assert.assertEquals("unexpected unrealised pnl", 1100000 - 1500000 * 0.75, state.getPartyState("CS").getUnrealisedPnl(), 1e-6);
+		Assert.assertEquals("unexpected unrealised pnl", 1500000 * 0.75 - 1100000, state.getPartyState("DB").getUnrealisedPnl(), 1e-6);
+	}
+
+	@Test
+	public void shouldSendExecutionReportsToOwner() {
+		// given
+		final Order anzBid = new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7134, 1000000);
+		final Order ubsAsk = new OrderImpl(audUsd, "UBS", Side.SELL, 0.7132, 400000);
+		final Order csAsk = new OrderImpl(audUsd, "CS", Side.SELL, 0.7133, 600000);
+		final List<ExecutionReport> anzReports = new ArrayList<>();
+		final List<ExecutionReport> ubsReports = new ArrayList<>();
+		final MatchingEngine engine = MatchingEngineImpl.builder()//
+				.addOrderFlow(new ListOrderFlow(Arrays.asList(anzBid, ubsAsk, csAsk)))//
+				.addExecutionListener("ANZ", anzReports::add)//
+				.addExecutionListener("UBS", ubsReports::add)//
+				.addMarketObserver(printer)//
+				.build();
+
+		// when
+		engine.matchFirst();
+
+		// then: the ANZ order is filled twice, the remaining order keeping its id
+		Assert.assertEquals("unexpected number of ANZ reports", 2, anzReports.size());
+		Assert.assertEquals("unexpected order id", anzBid.getId(), anzReports.get(0).getOrderId());
+		Assert.assertEquals("unexpected order id", anzBid.getId(), anzReports.get(1).getOrderId());
+		Assert.assertEquals("unexpected side", Side.BUY, anzReports.get(0).getSide());
+		Assert.assertEquals("unexpected filled quantity", 400000, anzReports.get(0).getFilledQuantity());
+		Assert.assertEquals("unexpected leaves quantity", 600000, anzReports.get(0).getLeavesQuantity());
+		Assert.assertEquals("unexpected price", 0.7133, anzReports.get(0).getPrice(), 1e-9);
+		Assert.assertEquals("unexpected filled quantity", 600000, anzReports.get(1).getFilledQuantity());
+		Assert.assertEquals("unexpected leaves quantity", 0, anzReports.get(1).getLeavesQuantity());
+		Assert.assertEquals("unexpected price", 0.71335, anzReports.get(1).getPrice(), 1e-9);
+
+		// then: UBS only receives its own fill
+		Assert.assertEquals("unexpected number of UBS reports", 1, ubsReports.size());
+		Assert.assertEquals("unexpected order id", ubsAsk.getId(), ubsReports.get(0).getOrderId());
+		Assert.assertEquals("unexpected side", Side.SELL, ubsReports.get(0).getSide());
+		Assert.assertTrue("order should be fully filled", ubsReports.get(0).isFullyFilled());
+	}
+
+	@Test
+	public void shouldAmendAndFillRestingQuotes() {
+		// given
+		final Iterator<List<Order>> rounds = Arrays.asList(//
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7130, 500000), new OrderImpl(audUsd, "UBS", Side.SELL, 0.7136, 500000)), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "CS", Side.SELL, 0.7130, 300000))//
+		).iterator();
+		final OrderFlow orderFlow = () -> rounds.hasNext() ? rounds.next() : Collections.<Order>emptyList();
+		final MarketMaker marketMaker = new MidMarketMaker(new PositionKeeperImpl(RiskLimits.UNLIMITED), audUsd, "MM", 0.0002, 1000000);
+		final List<Order> orders = new ArrayList<>();
+		final MarketObserver recorder = new MarketObserver() {
+			@Override
+			public void onOrder(Order order) {
+				orders.add(order);
+			}
+			@Override
+			public void onBest(Order order) {
+				// ignored
+			}
+			@Override
+			public void onDeal(Deal deal) {
+				// ignored
+			}
+		};
+		final MatchingEngine engine = MatchingEngineImpl.builder()//
+				.addOrderFlow(orderFlow)//
+				.addMarketMaker(marketMaker)//
+				.setRestingQuotes(true)//
+				.addMarketObserver(printer)//
+				.addMarketObserver(recorder)//
+				.build();
+
+		// when: initial quotes without mid
+		final MatchingEngine.MatchingState state = engine.matchFirst();
+		final OrderBook book = state.getOrderBook(audUsd);
+		final Order bid = book.getBest(Side.BUY);
+
+		// then
+		Assert.assertEquals("unexpected bid count", 1, book.getOrderCount(Side.BUY));
+		Assert.assertEquals("unexpected bid", 0, bid.getPrice(), 0);
+
+		// when: quotes amended around mid, then hit by CS
+		state.matchNext();
+
+		// then
+		final Order amendedBid = book.getBest(Side.BUY);
+		Assert.assertEquals("bid should be amended in place", bid.getId(), amendedBid.getId());
+		Assert.assertEquals("unexpected bid", 0.7132, amendedBid.getPrice(), 1e-9);
+		Assert.assertEquals("unexpected remaining quantity", 700000, amendedBid.getQuantity());
+		Assert.assertEquals("snapshot should not change", 0, bid.getPrice(), 0);
+		Assert.assertTrue("observed orders should not change", orders.stream().anyMatch(o -> o.getId() == bid.getId() && o.getPrice() == 0));
+		Assert.assertEquals("unexpected ask", 0.7134, book.getBest(Side.SELL).getPrice(), 1e-9);
+		Assert.assertEquals("unexpected position size", 300000, getPosition(state, "MM", Currency.AUD), 0);
+		Assert.assertEquals("unexpected position size", -300000, getPosition(state, "CS", Currency.AUD), 0);
+	}
+
+	@Test
+	public void shouldSendExecutionReportsToMakerAddedAsObserver() {
+		// given
+		final PositionKeeper positionKeeper = new PositionKeeperImpl(RiskLimits.UNLIMITED);
+		final MarketMaker marketMaker = new MidMarketMaker(positionKeeper, audUsd, "MM", 0.0002, 1000000);
+		final MatchingEngine.Builder builder = MatchingEngineImpl.builder()//
+				.addOrderFlow(marketMaker)//
+				.addMarketObserver(marketMaker);
+
+		// when
+		final MatchingEngine.MatchingState state = matchMakerHitByCs(builder);
+
+		// then
+		Assert.assertEquals("unexpected position size", 300000, getPosition(state, "MM", Currency.AUD), 0);
+		Assert.assertEquals("unexpected maker position size", 300000, positionKeeper.getPosition(Currency.AUD), 0);
+	}
+
+	@Test
+	public void shouldSendExecutionReportsToMakerOnlyOnce() {
+		// given
+		final PositionKeeper positionKeeper = new PositionKeeperImpl(RiskLimits.UNLIMITED);
+		final MarketMaker marketMaker = new MidMarketMaker(positionKeeper, audUsd, "MM", 0.0002, 1000000);
+		final MatchingEngine.Builder builder = MatchingEngineImpl.builder()//
+				.addMarketMaker(marketMaker)//
+				.addMarketObserver(marketMaker)//
+				.addExecutionListener("MM", marketMaker);
+
+		// when
+		final MatchingEngine.MatchingState state = matchMakerHitByCs(builder);
+
+		// then
+		Assert.assertEquals("unexpected position size", 300000, getPosition(state, "MM", Currency.AUD), 0);
+		Assert.assertEquals("unexpected maker position size", 300000, positionKeeper.getPosition(Currency.AUD), 0);
+	}
+
+	private MatchingEngine.MatchingState matchMakerHitByCs(MatchingEngine.Builder builder) {
+		final Iterator<List<Order>> rounds = Arrays.asList(//
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7130, 500000), new OrderImpl(audUsd, "UBS", Side.SELL, 0.7136, 500000)), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "CS", Side.SELL, 0.7130, 300000))//
+		).iterator();
+		final OrderFlow orderFlow = () -> rounds.hasNext() ? rounds.next() : Collections.<Order>emptyList();
+		return builder//
+				.addOrderFlow(orderFlow)//
+				.setRestingQuotes(true)//
+				.addMarketObserver(printer)//
+				.build()//
+				.matchAll();
+	}
+
+	@Test
+	public void shouldMatchContinuously() {
+		// given
+		final Order anzBid = new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7135, 1200000);
+		final Iterator<List<Order>> rounds = Arrays.asList(//
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7130, 1000000), new OrderImpl(audUsd, "UBS", Side.SELL, 0.7136, 1000000), new OrderImpl(audUsd, "CS", Side.SELL, 0.7134, 500000)), //
+				Arrays.<Order>asList(anzBid), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "UBS", Side.SELL, 0.7135, 200000))//
+		).iterator();
+		final OrderFlow orderFlow = () -> rounds.hasNext() ? rounds.next() : Collections.<Order>emptyList();
+		final List<ExecutionReport> anzReports = new ArrayList<>();
+		final MatchingEngine engine = MatchingEngineImpl.builder()//
+				.addOrderFlow(orderFlow)//
+				.setMatchingMode(MatchingMode.CONTINUOUS)//
+				.addExecutionListener("ANZ", anzReports::add)//
+				.addMarketObserver(printer)//
+				.build();
+
+		// when: nothing crosses
+		final MatchingEngine.MatchingState state = engine.matchFirst();
+		final OrderBook book = state.getOrderBook(audUsd);
+
+		// then
+		Assert.assertEquals("unexpected bid count", 1, book.getOrderCount(Side.BUY));
+		Assert.assertEquals("unexpected ask count", 2, book.getOrderCount(Side.SELL));
+		Assert.assertEquals("unexpected best ask", 0.7134, book.getBest(Side.SELL).getPrice(), 0);
+
+		// when: ANZ replaces its bid and lifts the CS offer at the resting price
+		state.matchNext();
+
+		// then
+		Assert.assertEquals("unexpected position size", 500000, getPosition(state, "ANZ", Currency.AUD), 0);
+		Assert.assertEquals("unexpected position size", -500000 * 0.7134, getPosition(state, "ANZ", Currency.USD), 1e-6);
+		Assert.assertEquals("unexpected bid count", 1, book.getOrderCount(Side.BUY));
+		Assert.assertEquals("unexpected best bid", anzBid.getId(), book.getBest(Side.BUY).getId());
+		Assert.assertEquals("unexpected best bid", 700000, book.getBest(Side.BUY).getQuantity());
+		Assert.assertEquals("unexpected ask count", 1, book.getOrderCount(Side.SELL));
+
+		// when: UBS replaces its offer and hits the ANZ bid
+		state.matchNext();
+
+		// then
+		Assert.assertEquals("unexpected position size", 700000, getPosition(state, "ANZ", Currency.AUD), 0);
+		Assert.assertEquals("unexpected position size", -200000, getPosition(state, "UBS", Currency.AUD), 0);
+		Assert.assertEquals("unexpected ask count", 0, book.getOrderCount(Side.SELL));
+		Assert.assertEquals("unexpected best bid", 500000, book.getBest(Side.BUY).getQuantity());
+		Assert.assertEquals("unexpected number of ANZ reports", 2, anzReports.size());
+		Assert.assertEquals("unexpected order id", anzBid.getId(), anzReports.get(1).getOrderId());
+		Assert.assertEquals("unexpected leaves quantity", 500000, anzReports.get(1).getLeavesQuantity());
+		Assert.assertEquals("unexpected price", 0.7135, anzReports.get(1).getPrice(), 0);
+	}
+
+	@Test
+	public void shouldCancelRemainderStoppedByRiskLimits() {
+		// given
+		final Iterator<List<Order>> rounds = Arrays.asList(//
+				Arrays.<Order>asList(new OrderImpl(audUsd, "UBS", Side.SELL, 0.7132, 2000000)), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7134, 2000000)), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7131, 100000)), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "CS", Side.SELL, 0.7130, 300000))//
+		).iterator();
+		final OrderFlow orderFlow = () -> rounds.hasNext() ? rounds.next() : Collections.<Order>emptyList();
+		final MatchingEngine engine = MatchingEngineImpl.builder()//
+				.addOrderFlow(orderFlow)//
+				.setMatchingMode(MatchingMode.CONTINUOUS)//
+				.setRiskLimits("ANZ", RiskLimitsImpl.builder().withMaxNetOpenPosition(1000000).build())//
+				.addMarketObserver(printer)//
+				.build();
+		final MatchingEngine.MatchingState state = engine.matchFirst();
+		final OrderBook book = state.getOrderBook(audUsd);
+
+		// when: ANZ lifts the UBS offer until stopped by its limits
+		state.matchNext();
+
+		// then: the ANZ remainder is cancelled instead of resting crossed
+		final double anzPosition = getPosition(state, "ANZ", Currency.AUD);
+		Assert.assertTrue("ANZ should be partially filled", anzPosition > 0 & anzPosition < 2000000);
+		Assert.assertTrue("net open position breached", state.getPartyState("ANZ").getNetOpenPosition() <= 1000000);
+		Assert.assertEquals("unexpected bid count", 0, book.getOrderCount(Side.BUY));
+		Assert.assertEquals("unexpected ask count", 1, book.getOrderCount(Side.SELL));
+		Assert.assertEquals("unexpected best ask", 2000000 - anzPosition, book.getBest(Side.SELL).getQuantity(), 0);
+
+		// when: ANZ bids below the offer, then CS hits the ANZ bid
+		state.matchNext();
+		state.matchNext();
+
+		// then: ANZ cannot buy more, the CS order is cancelled instead of resting crossed
+		Assert.assertEquals("unexpected position size", anzPosition, getPosition(state, "ANZ", Currency.AUD), 0);
+		Assert.assertNull("CS should not have dealt", state.getPartyState("CS"));
+		Assert.assertEquals("unexpected bid count", 1, book.getOrderCount(Side.BUY));
+		Assert.assertEquals("unexpected ask count", 1, book.getOrderCount(Side.SELL));
+		Assert.assertEquals("unexpected best ask", 0.7132, book.getBest(Side.SELL).getPrice(), 0);
+	}
+
+	@Test
+	public void shouldMatchWithPriceLadder() {
+		// given
+		final List<Order> orders = Arrays.<Order>asList(//
+				new OrderImpl(audUsd, "ANZ", Side.BUY, 0.71340, 1000000), //
+				new OrderImpl(audUsd, "UBS", Side.SELL, 0.71320, 400000), //
+				new OrderImpl(audUsd, "CS", Side.SELL, 0.71330, 800000), //
+				new OrderImpl(audUsd, "CS", Side.BUY, 0.71310, 800000));
+		final MatchingEngine sorted = MatchingEngineImpl.builder().addOrderFlow(new ListOrderFlow(orders)).build();
+		final MatchingEngine ladder = MatchingEngineImpl.builder().addOrderFlow(new ListOrderFlow(orders)).setTickSize(audUsd, 0.00001).build();
+
+		// when
+		final MatchingEngine.MatchingState sortedState = sorted.matchAll();
+		final MatchingEngine.MatchingState ladderState = ladder.matchAll();
+
+		// then
+		for (final String party : Arrays.asList("ANZ", "UBS", "CS")) {
+			Assert.assertEquals("unexpected position size for " + party, getPosition(sortedState, party, Currency.AUD), getPosition(ladderState, party, Currency.AUD), 0);
+			Assert.assertEquals("unexpected position size for " + party, getPosition(sortedState, party, Currency.USD), getPosition(ladderState, party, Currency.USD), 1e-6);
+		}
+		Assert.assertEquals("unexpected position size", 1000000, getPosition(ladderState, "ANZ", Currency.AUD), 0);
+		Assert.assertNull("unmatched orders should expire", ladderState.getOrderBook(audUsd).getBest(Side.BUY));
+	}
+
+	@Test
+	public void shouldMatchOffTickOrdersOnSnappedPrices() {
+		// given
+		final double tickSize = 0.0001;
+		final List<Order> orders = Arrays.<Order>asList(//
+				new OrderImpl(audUsd, "ANZ", Side.BUY, 0.71341, 1000000), //
+				new OrderImpl(audUsd, "CS", Side.BUY, 0.71349, 500000), //
+				new OrderImpl(audUsd, "UBS", Side.SELL, 0.71322, 400000), //
+				new OrderImpl(audUsd, "DB", Side.SELL, 0.71331, 800000), //
+				new OrderImpl(audUsd, "NAB", Side.SELL, 0.71338, 600000));
+		final List<Order> snapped = orders.stream()//
+				.map(o -> new OrderImpl(o.getAssetPair(), o.getParty(), o.getSide(), PriceLadderOrderBook.snapPrice(o.getSide(), o.getPrice(), tickSize), o.getQuantity()))//
+				.collect(Collectors.toList());
+		final List<String> ladderDeals = new ArrayList<>();
+		final List<String> sortedDeals = new ArrayList<>();
+		final MatchingEngine ladder = MatchingEngineImpl.builder()//
+				.addOrderFlow(new ListOrderFlow(orders))//
+				.setTickSize(audUsd, tickSize)//
+				.addMarketObserver(dealRecorder(ladderDeals))//
+				.build();
+		final MatchingEngine sorted = MatchingEngineImpl.builder()//
+				.addOrderFlow(new ListOrderFlow(snapped))//
+				.addMarketObserver(dealRecorder(sortedDeals))//
+				.build();
+
+		// when
+		ladder.matchAll();
+		sorted.matchAll();
+
+		// then: bids floored, asks ceiled, same deals in both paths
+		Assert.assertEquals("unexpected deals", Arrays.asList(//
+				"ANZ/UBS:400000@0.71335", "ANZ/DB:600000@0.71340", "CS/DB:200000@0.71340", "CS/NAB:300000@0.71340"), sortedDeals);
+		Assert.assertEquals("ladder deals should equal sorted deals", sortedDeals, ladderDeals);
+	}
+
+	private static MarketObserver dealRecorder(List<String> deals) {
+		return new MarketObserver() {
+			@Override
+			public void onOrder(Order order) {
+				// ignored
+			}
+			@Override
+			public void onBest(Order order) {
+				// ignored
+			}
+			@Override
+			public void onDeal(Deal deal) {
+				deals.add(deal.getBuyParty() + "/" + deal.getSellParty() + ":" + deal.getQuantity() + "@" + String.format(Locale.ROOT, "%.5f", deal.getPrice()));
+			}
+		};
+	}
+
+	@Test
+	public void shouldPublishConflatedDepthUpdates() {
+		// given
+		final Iterator<List<Order>> rounds = Arrays.asList(//
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7130, 1000000), new OrderImpl(audUsd, "UBS", Side.SELL, 0.7136, 1000000), new OrderImpl(audUsd, "CS", Side.SELL, 0.7134, 500000), new OrderImpl(audUsd, "CS", Side.SELL, 0.7134, 300000)), //
+				Arrays.<Order>asList(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7135, 1200000))//
+		).iterator();
+		final OrderFlow orderFlow = () -> rounds.hasNext() ? rounds.next() : Collections.<Order>emptyList();
+		final List<DepthUpdate> updates = new ArrayList<>();
+		final MarketObserver depthObserver = new MarketObserver() {
+			@Override
+			public boolean isSubscribed(AssetPair<?, ?> assetPair, EventType eventType) {
+				return eventType == EventType.DEPTH;
+			}
+			@Override
+			public void onDepth(DepthUpdate depthUpdate) {
+				updates.add(depthUpdate);
+			}
+			@Override
+			public void onOrder(Order order) {
+				Assert.fail("not subscribed to orders");
+			}
+			@Override
+			public void onBest(Order order) {
+				Assert.fail("not subscribed to best orders");
+			}
+			@Override
+			public void onDeal(Deal deal) {
+				Assert.fail("not subscribed to deals");
+			}
+		};
+		final MatchingEngine engine = MatchingEngineImpl.builder()//
+				.addOrderFlow(orderFlow)//
+				.setMatchingMode(MatchingMode.CONTINUOUS)//
+				.setDepthLevels(1)//
+				.addMarketObserver(depthObserver)//
+				.build();
+
+		// when: CS replaces its offer within the round
+		final MatchingEngine.MatchingState state = engine.matchFirst();
+
+		// then: one update per side with the conflated top level
+		Assert.assertEquals("unexpected number of updates", 2, updates.size());
+		assertDepth(updates.get(0), Side.BUY, 0.7130, 1000000, 1);
+		assertDepth(updates.get(1), Side.SELL, 0.7134, 300000, 1);
+
+		// when: ANZ replaces its bid and lifts the CS offer
+		updates.clear();
+		state.matchNext();
+
+		// then: new top levels and removed old top levels
+		Assert.assertEquals("unexpected number of updates", 4, updates.size());
+		assertDepth(updates.get(0), Side.BUY, 0.7135, 900000, 1);
+		assertDepth(updates.get(1), Side.BUY, 0.7130, 0, 0);
+		assertDepth(updates.get(2), Side.SELL, 0.7134, 0, 0);
+		assertDepth(updates.get(3), Side.SELL, 0.7136, 1000000, 1);
+		Assert.assertTrue("level should be removed", updates.get(1).isRemoved());
+
+		// when: nothing changes
+		updates.clear();
+		state.matchNext();
+
+		// then
+		Assert.assertEquals("unexpected number of updates", 0, updates.size());
+	}
+
+	@Test
+	public void shouldMatchGatewayOrdersOnEngineThread() throws InterruptedException {
+		// given
+		final GatewayOrderFlow gateway = new GatewayOrderFlow();
+		final CountDownLatch filled = new CountDownLatch(1);
+		final List<ExecutionReport> reports = new CopyOnWriteArrayList<>();
+		final MatchingEngine engine = MatchingEngineImpl.builder()//
+				.addOrderFlow(gateway)//
+				.setMatchingMode(MatchingMode.CONTINUOUS)//
+				.addExecutionListener("UBS", report -> {
+					reports.add(report);
+					filled.countDown();
+				})//
+				.build();
+		final MatchingEngineService service = engine.startService(new BackoffIdleStrategy(), r -> new Thread(r, testName.getMethodName()));
+
+		// when: producer threads publish bid and offer
+		final Thread anz = new Thread(() -> gateway.offer(new OrderImpl(audUsd, "ANZ", Side.BUY, 0.7135, 1000000)));
+		anz.start();
+		anz.join();
+		final Thread ubs = new Thread(() -> gateway.offer(new OrderImpl(audUsd, "UBS", Side.SELL, 0.7134, 400000)));
+		ubs.start();
+		ubs.join();
+
+		// then
+		Assert.assertTrue("no fill received", filled.await(10, TimeUnit.SECONDS));
+		service.stop();
+		Assert.assertFalse("service should be stopped", service.isRunning());
+		Assert.assertEquals("unexpected price", 0.7135, reports.get(0).getPrice(), 0);
+		Assert.assertEquals("unexpected quantity", 400000, reports.get(0).getFilledQuantity());
+		Assert.assertEquals("unexpected last deal price", 0.7135, engine.getMonitor().getTopOfBook(audUsd).getLastDealPrice(), 0);
+		Assert.assertTrue("idle rounds should not advance the match index", engine.getMonitor().getMatchIndex() <= 1);
+	}
+
+	private static void assertDepth(DepthUpdate update, Side side, double price, long quantity, int orderCount) {
+		Assert.assertEquals("unexpected side", side, update.getSide());
+		Assert.assertEquals("unexpected price", price, update.getPrice(), 0);
+		Assert.assertEquals("unexpected quantity", quantity, update.getQuantity());
+		Assert.assertEquals("unexpected order count", orderCount, update.getOrderCount());
+	}
+
 	private static final double getPosition(MatchingEngine.MatchingState state, String party, Currency ccy) {
 		return state.getPartyState(party).getAssetPositions().getPosition(ccy);
 	}
@@ -0,0 +1,119 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.OrderImpl;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.flow.OrderFlow;
+import org.tools4j.fx.make.match.MatchingMonitor.PartyView;
+import org.tools4j.fx.make.match.MatchingMonitor.TopOfBook;
+
+/**
+ * Unit test for {@link MatchingMonitor} and {@link MatchingMonitorImpl}.
+ */
+public class MatchingMonitorTest {
+
+	private static final int ROUNDS = 20000;
+	private static final long QUANTITY = 1000;
+	private static final double PRICE = 0.75;
+
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+
+	private OrderFlow newOrderFlow(int rounds) {
+		final AtomicLong round = new AtomicLong();
+		return () -> round.incrementAndGet() <= rounds ? Arrays.<Order>asList(//
+				new OrderImpl(audUsd, "ANZ", Side.BUY, PRICE, QUANTITY),//
+				new OrderImpl(audUsd, "UBS", Side.SELL, PRICE, 2 * QUANTITY)//
+		) : Collections.<Order>emptyList();
+	}
+
+	@Test
+	public void shouldPublishPartyViewAndTopOfBook() {
+		// given
+		final MatchingEngine engine = MatchingEngineImpl.builder().addOrderFlow(newOrderFlow(3)).build();
+
+		// when
+		engine.matchAll();
+		final MatchingMonitor monitor = engine.getMonitor();
+		final PartyView anz = monitor.getPartyView("ANZ");
+		final TopOfBook book = monitor.getTopOfBook(audUsd);
+
+		// then
+		Assert.assertEquals("unexpected match index", 3, monitor.getMatchIndex());
+		Assert.assertEquals("unexpected parties", 2, monitor.getParties().size());
+		Assert.assertNull("unexpected party view", monitor.getPartyView("CS"));
+		Assert.assertEquals("unexpected deal count", 3, anz.getDealCount());
+		Assert.assertEquals("unexpected position", 3 * QUANTITY, anz.getPosition(Currency.AUD), 0);
+		Assert.assertEquals("unexpected position", -3 * QUANTITY * PRICE, anz.getPosition(Currency.USD), 1e-9);
+		Assert.assertEquals("unexpected high water mark", 3 * QUANTITY, anz.getHighWaterMark(Currency.AUD), 0);
+		Assert.assertEquals("unexpected position", 0, anz.getPosition(Currency.EUR), 0);
+		Assert.assertTrue("bid should be filled", Double.isNaN(book.getBidPrice()));
+		Assert.assertEquals("unexpected best ask", PRICE, book.getAskPrice(), 0);
+		Assert.assertEquals("unexpected best ask quantity", QUANTITY, book.getAskQuantity());
+		Assert.assertEquals("unexpected last deal", PRICE, book.getLastDealPrice(), 0);
+	}
+
+	@Test
+	public void shouldReadConsistentViewsWhileMatching() throws InterruptedException {
+		// given
+		final MatchingEngine engine = MatchingEngineImpl.builder().addOrderFlow(newOrderFlow(ROUNDS)).build();
+		final MatchingMonitor monitor = engine.getMonitor();
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicLong reads = new AtomicLong();
+		final AtomicLong inconsistent = new AtomicLong();
+		final Thread reader = new Thread(() -> {
+			while (!done.get()) {
+				final PartyView view = monitor.getPartyView("ANZ");
+				if (view != null) {
+					final double aud = view.getPosition(Currency.AUD);
+					final double usd = view.getPosition(Currency.USD);
+					if (aud != view.getDealCount() * QUANTITY || Math.abs(usd + aud * PRICE) > 1e-6) {
+						inconsistent.incrementAndGet();
+					}
+					reads.incrementAndGet();
+				}
+			}
+		});
+
+		// when
+		reader.start();
+		engine.matchAll();
+		done.set(true);
+		reader.join();
+
+		// then
+		Assert.assertEquals("inconsistent views read: " + inconsistent + " of " + reads, 0, inconsistent.get());
+		Assert.assertEquals("unexpected deal count", ROUNDS, monitor.getPartyView("ANZ").getDealCount());
+	}
+}
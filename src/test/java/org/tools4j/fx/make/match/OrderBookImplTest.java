@@ -0,0 +1,132 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.OrderImpl;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * Unit test for {@link OrderBookImpl}.
+ */
+public class OrderBookImplTest {
+
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+	private final OrderBookImpl book = new OrderBookImpl(audUsd);
+
+	@Test
+	public void shouldSortByPriceAndTime() {
+		// given
+		final long first = book.add("ANZ", Side.BUY, 0.7130, 1000000);
+		final long better = book.add("UBS", Side.BUY, 0.7131, 1000000);
+		final long second = book.add("CS", Side.BUY, 0.7130, 2000000);
+		book.add("CS", Side.SELL, 0.7135, 1000000);
+
+		// when
+		final List<Long> ids = new ArrayList<>();
+		book.forEach(Side.BUY, o -> ids.add(o.getId()));
+
+		// then
+		Assert.assertEquals("unexpected priority", Arrays.asList(better, first, second), ids);
+		Assert.assertEquals("unexpected best bid", better, book.getBest(Side.BUY).getId());
+		Assert.assertEquals("unexpected bid count", 3, book.getOrderCount(Side.BUY));
+		Assert.assertEquals("unexpected bid levels", 2, book.getLevelCount(Side.BUY));
+		Assert.assertEquals("unexpected ask count", 1, book.getOrderCount(Side.SELL));
+	}
+
+	@Test
+	public void shouldAmendInPlace() {
+		// given
+		final long first = book.add("ANZ", Side.SELL, 0.7135, 1000000);
+		final long second = book.add("UBS", Side.SELL, 0.7135, 1000000);
+		final Order order = book.getOrder(first);
+
+		// when: reducing quantity keeps priority
+		Assert.assertTrue("should amend", book.amend(first, 0.7135, 500000));
+
+		// then
+		Assert.assertEquals("should amend existing order", first, book.getBest(Side.SELL).getId());
+		Assert.assertEquals("unexpected quantity", 500000, book.getBest(Side.SELL).getQuantity());
+		Assert.assertEquals("snapshot should not change", 1000000, order.getQuantity());
+
+		// when: increasing quantity loses priority
+		book.amend(first, 0.7135, 2000000);
+
+		// then
+		Assert.assertEquals("unexpected best ask", second, book.getBest(Side.SELL).getId());
+		Assert.assertEquals("unexpected ask levels", 1, book.getLevelCount(Side.SELL));
+
+		// when: moving to a better price
+		book.amend(first, 0.7134, 2000000);
+
+		// then
+		Assert.assertEquals("unexpected best ask", first, book.getBest(Side.SELL).getId());
+		Assert.assertEquals("unexpected price", 0.7134, book.getBest(Side.SELL).getPrice(), 0);
+		Assert.assertEquals("unexpected ask levels", 2, book.getLevelCount(Side.SELL));
+		Assert.assertEquals("unexpected ask count", 2, book.getOrderCount(Side.SELL));
+	}
+
+	@Test
+	public void shouldCancelAndFill() {
+		// given
+		final long bid = book.add("ANZ", Side.BUY, 0.7130, 1000000);
+		final Order ask = new OrderImpl(audUsd, "UBS", Side.SELL, 0.7135, 1000000);
+		book.add(ask);
+
+		// when
+		final boolean cancelled = book.cancel(bid);
+		final long remaining = book.fill(book.getOrder(ask.getId()), 400000);
+
+		// then
+		Assert.assertTrue("should cancel", cancelled);
+		Assert.assertFalse("should not cancel twice", book.cancel(bid));
+		Assert.assertFalse("should not amend cancelled", book.amend(bid, 0.7131, 1000000));
+		Assert.assertNull("unexpected best bid", book.getBest(Side.BUY));
+		Assert.assertEquals("unexpected bid levels", 0, book.getLevelCount(Side.BUY));
+		Assert.assertEquals("unexpected remaining", 600000, remaining);
+		Assert.assertEquals("unexpected remaining", 600000, book.getBest(Side.SELL).getQuantity());
+
+		// when
+		book.fill(book.getOrder(ask.getId()), 600000);
+
+		// then
+		Assert.assertNull("order should be removed", book.getOrder(ask.getId()));
+		Assert.assertEquals("unexpected ask count", 0, book.getOrderCount(Side.SELL));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectDuplicateId() {
+		final Order order = new OrderImpl(audUsd, "UBS", Side.SELL, 0.7135, 1000000);
+		book.add(order);
+		book.add(order);
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.match;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.Side;
+
+/**
+ * Unit test for {@link PriceLadderOrderBook}.
+ */
+public class PriceLadderOrderBookTest {
+
+	private static final double TICK = 0.00001;
+
+	private final CurrencyPair audUsd = CurrencyPair.toMarketConvention(Currency.AUD);
+
+	@Test
+	public void shouldMoveAnchorWithBestPrice() {
+		// given
+		final PriceLadderOrderBook book = new PriceLadderOrderBook(audUsd, TICK, 8);
+		final long first = book.add("ANZ", Side.BUY, 0.71300, 1000000);
+		book.add("UBS", Side.BUY, 0.71290, 1000000);
+		book.add("CS", Side.BUY, 0.71300, 500000);
+
+		// when: better bid moves the anchor up, 0.71290 into the overflow
+		final long better = book.add("CS", Side.BUY, 0.71302, 2000000);
+
+		// then
+		Assert.assertEquals("unexpected best bid", better, book.getBest(Side.BUY).getId());
+		Assert.assertEquals("unexpected bid levels", 3, book.getLevelCount(Side.BUY));
+		Assert.assertEquals("unexpected bid count", 4, book.getOrderCount(Side.BUY));
+
+		// when: best levels removed, the anchor moves down to the overflow level
+		book.cancel(better);
+		book.cancel(first);
+		book.fill(book.getBest(Side.BUY), 500000);
+
+		// then
+		Assert.assertEquals("unexpected best bid", 0.71290, book.getBest(Side.BUY).getPrice(), 0);
+		Assert.assertEquals("unexpected bid levels", 1, book.getLevelCount(Side.BUY));
+	}
+
+	@Test
+	public void shouldMatchTreeBookPriority() {
+		// given
+		final Random rnd = new Random(42);
+		final AbstractOrderBook ladder = new PriceLadderOrderBook(audUsd, TICK, 16);
+		final AbstractOrderBook tree = new OrderBookImpl(audUsd);
+		final List<Long> ids = new ArrayList<>();
+
+		// when
+		for (int i = 0; i < 5000; i++) {
+			final int op = rnd.nextInt(4);
+			if (op <= 1 || ids.isEmpty()) {
+				final Side side = rnd.nextBoolean() ? Side.BUY : Side.SELL;
+				final double price = (71300 + rnd.nextInt(41) - 20) * TICK;
+				final long id = tree.add("P" + rnd.nextInt(5), side, price, 1 + rnd.nextInt(1000));
+				ladder.add(tree.getOrder(id));
+				ids.add(id);
+			} else {
+				final long id = ids.remove(rnd.nextInt(ids.size()));
+				if (op == 2) {
+					final double price = (71300 + rnd.nextInt(41) - 20) * TICK;
+					final long quantity = 1 + rnd.nextInt(1000);
+					Assert.assertEquals("unexpected amend result", tree.amend(id, price, quantity), ladder.amend(id, price, quantity));
+					ids.add(id);
+				} else {
+					Assert.assertEquals("unexpected cancel result", tree.cancel(id), ladder.cancel(id));
+				}
+			}
+
+			// then
+			for (final Side side : Side.values()) {
+				Assert.assertEquals("unexpected orders for " + side, toIds(tree, side), toIds(ladder, side));
+				Assert.assertEquals("unexpected levels for " + side, tree.getLevelCount(side), ladder.getLevelCount(side));
+			}
+		}
+	}
+
+	private static List<Long> toIds(OrderBook book, Side side) {
+		final List<Long> ids = new ArrayList<>();
+		book.forEach(side, o -> ids.add(o.getId()));
+		return ids;
+	}
+
+	@Test
+	public void shouldFillFromCursorWhileIterating() {
+		// given
+		final PriceLadderOrderBook book = new PriceLadderOrderBook(audUsd, TICK, 4);
+		for (int i = 0; i < 10; i++) {
+			book.add("P" + i, Side.SELL, 0.71300 + i * 2 * TICK, 1000);
+		}
+		final AbstractOrderBook.Cursor cursor = book.cursor(Side.SELL);
+		final List<Double> prices = new ArrayList<>();
+
+		// when
+		while (cursor.hasNext()) {
+			final Order order = cursor.next();
+			prices.add(order.getPrice());
+			book.fill(order, order.getQuantity());
+		}
+
+		// then
+		Assert.assertEquals("unexpected number of orders", 10, prices.size());
+		for (int i = 1; i < prices.size(); i++) {
+			Assert.assertTrue("unexpected order: " + prices, prices.get(i - 1) < prices.get(i));
+		}
+		Assert.assertNull("book should be empty", book.getBest(Side.SELL));
+		Assert.assertEquals("unexpected level count", 0, book.getLevelCount(Side.SELL));
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.position;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.DealImpl;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Unit test for {@link BatchValuator} and {@link BatchValuatorImpl}.
+ */
+public class BatchValuatorTest {
+
+	private static final double TOLERANCE = 1e-6;
+	private static final int PARTIES = 100;
+	private final CurrencyPair audUsd = new CurrencyPair(Currency.AUD, Currency.USD);
+	private final CurrencyPair eurUsd = new CurrencyPair(Currency.EUR, Currency.USD);
+	private final CurrencyPair usdJpy = new CurrencyPair(Currency.USD, Currency.JPY);
+	private final CurrencyPair eurAud = new CurrencyPair(Currency.EUR, Currency.AUD);
+
+	private final Map<String, PositionKeeper> positionsByParty = new LinkedHashMap<>();
+	private MarketSnapshot snapshot;
+
+	@Before
+	public void beforeEach() {
+		snapshot = MarketSnapshot.builder().withRate(audUsd, 0.76).withRate(eurUsd, 1.22).withRate(usdJpy, 112.5).build();
+		for (int i = 0; i < PARTIES; i++) {
+			final PositionKeeper positionKeeper = new PositionKeeperImpl(RiskLimits.UNLIMITED);
+			final long qty = 100000 * (i + 1);
+			positionKeeper.updatePosition(new DealImpl(audUsd, 0.75, qty, 1, "A", 2, "B"), Side.BUY);
+			positionKeeper.updatePosition(new DealImpl(eurAud, 1.25, qty / 2, 3, "A", 4, "B"), i % 2 == 0 ? Side.BUY : Side.SELL);
+			positionKeeper.updatePosition(new DealImpl(usdJpy, 110.0, qty / 4, 5, "A", 6, "B"), Side.SELL);
+			positionsByParty.put("party-" + i, positionKeeper);
+		}
+		positionsByParty.put("flat", new PositionKeeperImpl(RiskLimits.UNLIMITED));
+	}
+
+	@Test
+	public void shouldMatchValuatorImpl() {
+		// given
+		final BatchValuator batchValuator = new BatchValuatorImpl(Arrays.asList(Currency.USD, Currency.EUR, Currency.JPY));
+
+		// when
+		final BatchValuation valuation = batchValuator.getValuations(positionsByParty, snapshot);
+
+		// then
+		assertValuation(valuation);
+	}
+
+	@Test
+	public void shouldMatchValuatorImplInParallel() {
+		// given
+		final BatchValuator batchValuator = new BatchValuatorImpl(Arrays.asList(Currency.USD, Currency.EUR, Currency.JPY), true);
+
+		// when
+		final BatchValuation valuation = batchValuator.getValuations(positionsByParty, snapshot);
+
+		// then
+		assertValuation(valuation);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldThrowExceptionForUnknownCurrency() {
+		// given
+		final BatchValuation valuation = new BatchValuatorImpl(Arrays.asList(Currency.USD)).getValuations(positionsByParty, snapshot);
+
+		// when
+		valuation.getValuation("flat", Currency.EUR);
+	}
+
+	private void assertValuation(BatchValuation valuation) {
+		assertEquals("unexpected party count", PARTIES + 1, valuation.getParties().size());
+		for (final Map.Entry<String, PositionKeeper> e : positionsByParty.entrySet()) {
+			for (final Currency currency : valuation.getValuationCurrencies()) {
+				final double expected = e.getValue().getValuator(currency).getValuation(snapshot);
+				assertEquals("unexpected valuation for " + e.getKey() + " in " + currency, expected, valuation.getValuation(e.getKey(), currency), Math.abs(expected) * TOLERANCE);
+			}
+		}
+		assertEquals("unexpected valuation", 0, valuation.getValuation("flat", Currency.USD), 0);
+	}
+}
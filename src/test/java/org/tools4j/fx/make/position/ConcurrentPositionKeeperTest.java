@@ -0,0 +1,189 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.position;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.AssetPair;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.Deal;
+import org.tools4j.fx.make.execution.DealImpl;
+import org.tools4j.fx.make.execution.Order;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.risk.RiskLimits;
+import org.tools4j.fx.make.risk.RiskLimitsImpl;
+
+/**
+ * Unit test for {@link ConcurrentPositionKeeper}.
+ */
+public class ConcurrentPositionKeeperTest {
+
+	private static final double TOLERANCE = 0;
+	private static final String BUY_PARTY = "ConcurrentPositionKeeperTest.BUY";
+	private static final String SELL_PARTY = "ConcurrentPositionKeeperTest.SELL";
+	private static final int THREADS = 4;
+	private final CurrencyPair audUsd = new CurrencyPair(Currency.AUD, Currency.USD);
+	private final CurrencyPair eurUsd = new CurrencyPair(Currency.EUR, Currency.USD);
+	private final CurrencyPair gbpUsd = new CurrencyPair(Currency.GBP, Currency.USD);
+	private final CurrencyPair nzdUsd = new CurrencyPair(Currency.NZD, Currency.USD);
+
+	private ConcurrentPositionKeeper positionKeeper;
+
+	@Before
+	public void beforeEach() {
+		final RiskLimits riskLimits = RiskLimitsImpl.builder()//
+				.withMaxAllowedPositionSize(Currency.AUD, 2000000)//
+				.withMaxAllowedPositionSize(Currency.USD, 1500000)//
+				.build();
+		positionKeeper = new ConcurrentPositionKeeper(riskLimits);
+	}
+
+	@Test
+	public void shouldUpdatePositionSellThenBuy() {
+		// when
+		positionKeeper.updatePosition(createDeal(audUsd, 0.75, 1000000), Side.SELL);
+		positionKeeper.updatePosition(createDeal(audUsd, 0.70, 1000000), Side.BUY);
+
+		// then
+		assertEquals("unexpected AUD position", 0, positionKeeper.getPosition(Currency.AUD), TOLERANCE);
+		assertEquals("unexpected USD position", 50000, positionKeeper.getPosition(Currency.USD), TOLERANCE);
+	}
+
+	@Test
+	public void shouldBlockDealBreachingLimits() {
+		// given
+		positionKeeper.updatePosition(createDeal(audUsd, 0.80, 1000000), Side.BUY);
+
+		// when
+		try {
+			positionKeeper.updatePosition(createDeal(audUsd, 0.80, 1000000), Side.BUY);
+			Assert.fail("expected: " + IllegalArgumentException.class.getSimpleName());
+		} catch (IllegalArgumentException e) {
+			// then: deal breaches USD risk limit
+		}
+
+		// then: position unchanged
+		assertEquals("unexpected AUD position", 1000000, positionKeeper.getPosition(Currency.AUD), TOLERANCE);
+		assertEquals("unexpected USD position", -800000, positionKeeper.getPosition(Currency.USD), TOLERANCE);
+	}
+
+	@Test
+	public void shouldReserveAndRelease() {
+		// when: reserve for filling a SELL order, i.e. buying AUD
+		final long reserved = positionKeeper.reserve(audUsd, Side.SELL, 0.80, 3000000);
+
+		// then: limited by USD
+		assertEquals("unexpected reserved quantity", 1875000, reserved);
+		assertEquals("unexpected AUD position", 1875000, positionKeeper.getPosition(Currency.AUD), TOLERANCE);
+		assertEquals("unexpected USD position", -1500000, positionKeeper.getPosition(Currency.USD), TOLERANCE);
+		assertEquals("no capacity left", 0, positionKeeper.reserve(audUsd, Side.SELL, 0.80, 1));
+
+		// when
+		positionKeeper.release(audUsd, Side.SELL, 0.80, 875000);
+
+		// then
+		assertEquals("unexpected AUD position", 1000000, positionKeeper.getPosition(Currency.AUD), TOLERANCE);
+		assertEquals("unexpected USD position", -800000, positionKeeper.getPosition(Currency.USD), TOLERANCE);
+	}
+
+	@Test
+	public void shouldUpdateSharedLegConcurrently() throws Exception {
+		// given
+		positionKeeper = new ConcurrentPositionKeeper(RiskLimits.UNLIMITED);
+		final CurrencyPair[] pairs = { audUsd, eurUsd, gbpUsd, nzdUsd };
+		final int dealsPerThread = 10000;
+
+		// when
+		runConcurrently(t -> {
+			for (int i = 0; i < dealsPerThread; i++) {
+				positionKeeper.updatePosition(createDeal(pairs[t], 1.0, 1000), Side.BUY);
+			}
+		});
+
+		// then
+		for (final CurrencyPair pair : pairs) {
+			assertEquals("unexpected position for " + pair.getBase(), dealsPerThread * 1000.0, positionKeeper.getPosition(pair.getBase()), TOLERANCE);
+		}
+		assertEquals("unexpected USD position", -THREADS * dealsPerThread * 1000.0, positionKeeper.getPosition(Currency.USD), TOLERANCE);
+	}
+
+	@Test
+	public void shouldNeverReserveBeyondLimitConcurrently() throws Exception {
+		// given: USD limit of 1.5M shared by all pairs
+		final CurrencyPair[] pairs = { audUsd, eurUsd, gbpUsd, nzdUsd };
+		final long[] reserved = new long[THREADS];
+
+		// when
+		runConcurrently(t -> {
+			long qty;
+			while ((qty = positionKeeper.reserve(pairs[t], Side.SELL, 1.0, 1000)) > 0) {
+				reserved[t] += qty;
+			}
+		});
+
+		// then
+		long total = 0;
+		for (final long qty : reserved) {
+			total += qty;
+		}
+		assertEquals("unexpected total reserved", 1500000, total);
+		assertEquals("unexpected USD position", -1500000, positionKeeper.getPosition(Currency.USD), TOLERANCE);
+	}
+
+	private interface ThreadTask {
+		void run(int thread);
+	}
+
+	private static void runConcurrently(ThreadTask task) throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				final int thread = t;
+				futures.add(executor.submit(() -> task.run(thread)));
+			}
+			for (final Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Deal createDeal(AssetPair<?, ?> assetPair, double price, long qty) {
+		return new DealImpl(assetPair, price, qty, Order.ID_GENERATOR.incrementAndGet(), BUY_PARTY,
+				Order.ID_GENERATOR.incrementAndGet(), SELL_PARTY);
+	}
+}
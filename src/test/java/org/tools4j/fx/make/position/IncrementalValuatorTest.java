@@ -0,0 +1,185 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 fx-market-making (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.fx.make.position;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tools4j.fx.make.asset.Currency;
+import org.tools4j.fx.make.asset.CurrencyPair;
+import org.tools4j.fx.make.execution.DealImpl;
+import org.tools4j.fx.make.execution.Side;
+import org.tools4j.fx.make.risk.RiskLimits;
+
+/**
+ * Unit test for {@link IncrementalValuator}.
+ */
+public class IncrementalValuatorTest {
+
+	private static final double TOLERANCE = 1e-6;
+	private final String buyParty = "IncrementalValuatorTest.BUY";
+	private final String sellParty = "IncrementalValuatorTest.SELL";
+	private final CurrencyPair audUsd = new CurrencyPair(Currency.AUD, Currency.USD);
+	private final CurrencyPair eurUsd = new CurrencyPair(Currency.EUR, Currency.USD);
+	private final CurrencyPair eurAud = new CurrencyPair(Currency.EUR, Currency.AUD);
+
+	private IncrementalValuator valuator;
+
+	@Before
+	public void beforeEach() {
+		valuator = new IncrementalValuator(Currency.USD);
+		valuator.updateRate(audUsd, 0.76);
+		valuator.updateRate(eurUsd, 1.22);
+		valuator.updatePosition(new DealImpl(audUsd, 0.75, 1000000, 1, buyParty, 2, sellParty), Side.BUY);
+		valuator.updatePosition(new DealImpl(eurAud, 1.25, 1000000, 3, buyParty, 4, sellParty), Side.BUY);
+		valuator.updatePosition(new DealImpl(eurUsd, 1.20, 500000, 5, buyParty, 6, sellParty), Side.BUY);
+	}
+
+	@Test
+	public void shouldMaintainAggregates() {
+		// then: AUD=-250000, USD=-1350000, EUR=1500000
+		assertEquals("unexpected valuation", 290000, valuator.getValuation(), TOLERANCE);
+		assertEquals("unexpected net open position", 1500000 * 1.22, valuator.getNetOpenPosition(), TOLERANCE);
+		assertEquals("unexpected gross notional", 760000 + 1220000 + 610000, valuator.getGrossNotional(), TOLERANCE);
+	}
+
+	@Test
+	public void shouldRevalueOnRateChange() {
+		// when
+		valuator.updateRate(eurUsd, 1.10);
+		valuator.updateRate(audUsd, 0.80);
+
+		// then
+		assertEquals("unexpected valuation", 1500000 * 1.10 - 250000 * 0.80 - 1350000, valuator.getValuation(), TOLERANCE);
+		assertEquals("unexpected net open position", 1500000 * 1.10, valuator.getNetOpenPosition(), TOLERANCE);
+		assertEquals("gross notional should be unaffected", 2590000, valuator.getGrossNotional(), TOLERANCE);
+
+		// when: cross rates are ignored
+		valuator.updateRate(eurAud, 1.5);
+
+		// then
+		assertEquals("unexpected valuation", 1500000 * 1.10 - 250000 * 0.80 - 1350000, valuator.getValuation(), TOLERANCE);
+	}
+
+	@Test
+	public void shouldSumUpPnlToValuation() {
+		// then: started flat, hence all value is PnL
+		assertEquals("unexpected pnl", valuator.getValuation(), valuator.getPnl(), TOLERANCE);
+
+		// when
+		valuator.updateRate(eurUsd, 1.10);
+		valuator.updatePosition(new DealImpl(eurUsd, 1.10, 700000, 7, buyParty, 8, sellParty), Side.SELL);
+
+		// then
+		assertEquals("unexpected pnl", valuator.getValuation(), valuator.getPnl(), TOLERANCE);
+	}
+
+	@Test
+	public void shouldRealiseAndMarkPnl() {
+		// given
+		final IncrementalValuator valuator = new IncrementalValuator(Currency.USD);
+		valuator.updateRate(audUsd, 0.75);
+		valuator.updatePosition(new DealImpl(audUsd, 0.75, 1000000, 1, buyParty, 2, sellParty), Side.BUY);
+
+		// when
+		valuator.updateRate(audUsd, 0.80);
+
+		// then
+		assertEquals("unexpected realised pnl", 0, valuator.getRealisedPnl(), TOLERANCE);
+		assertEquals("unexpected unrealised pnl", 50000, valuator.getUnrealisedPnl(), TOLERANCE);
+
+		// when: partially closing
+		valuator.updatePosition(new DealImpl(audUsd, 0.80, 400000, 3, buyParty, 4, sellParty), Side.SELL);
+
+		// then
+		assertEquals("unexpected realised pnl", 20000, valuator.getRealisedPnl(), TOLERANCE);
+		assertEquals("unexpected unrealised pnl", 30000, valuator.getUnrealisedPnl(), TOLERANCE);
+
+		// when: closing and flipping, then moving the rate
+		valuator.updatePosition(new DealImpl(audUsd, 0.80, 1000000, 5, buyParty, 6, sellParty), Side.SELL);
+		valuator.updateRate(audUsd, 0.70);
+
+		// then: short 400000 AUD opened at 0.80
+		assertEquals("unexpected realised pnl", 50000, valuator.getRealisedPnl(), TOLERANCE);
+		assertEquals("unexpected unrealised pnl", 40000, valuator.getUnrealisedPnl(), TOLERANCE);
+		assertEquals("unexpected pnl", valuator.getValuation(), valuator.getPnl(), TOLERANCE);
+	}
+
+	@Test
+	public void shouldMatchValuatorImpl() {
+		// given
+		final PositionKeeper positionKeeper = new PositionKeeperImpl(RiskLimits.UNLIMITED);
+		positionKeeper.updatePosition(new DealImpl(audUsd, 0.75, 1000000, 1, buyParty, 2, sellParty), Side.BUY);
+		positionKeeper.updatePosition(new DealImpl(eurAud, 1.25, 1000000, 3, buyParty, 4, sellParty), Side.BUY);
+		positionKeeper.updatePosition(new DealImpl(eurUsd, 1.20, 500000, 5, buyParty, 6, sellParty), Side.BUY);
+		final MarketSnapshot snapshot = MarketSnapshot.builder().withRate(audUsd, 0.76).withRate(eurUsd, 1.22).build();
+
+		// when
+		final double expected = positionKeeper.getValuator(Currency.USD).getValuation(snapshot);
+
+		// then
+		assertEquals("unexpected valuation", expected, valuator.getValuation(), TOLERANCE);
+	}
+
+	@Test
+	public void shouldLimitFillByNetOpenPosition() {
+		// when: increasing EUR position
+		final long increasing = valuator.getMaxPossibleFill(eurUsd, Side.SELL, 1.22, 1000000, 2000000, -1);
+		// then
+		assertEquals("unexpected fill quantity", 139344, increasing);
+
+		// when: reducing EUR position
+		final long reducing = valuator.getMaxPossibleFill(eurUsd, Side.BUY, 1.22, 1000000, 2000000, -1);
+		// then
+		assertEquals("unexpected fill quantity", 1000000, reducing);
+
+		// when: reducing and then flipping EUR position
+		final long flipping = valuator.getMaxPossibleFill(eurUsd, Side.BUY, 1.22, 3000000, 2000000, -1);
+		// then
+		assertEquals("unexpected fill quantity", 2983606, flipping);
+	}
+
+	@Test
+	public void shouldNotIncreaseNetOpenPositionAboveBreachedLimit() {
+		// when: limit already breached
+		final long increasing = valuator.getMaxPossibleFill(eurUsd, Side.SELL, 1.22, 1000000, 1000000, -1);
+		final long reducing = valuator.getMaxPossibleFill(eurUsd, Side.BUY, 1.22, 1000000, 1000000, -1);
+
+		// then
+		assertEquals("unexpected fill quantity", 0, increasing);
+		assertEquals("unexpected fill quantity", 1000000, reducing);
+	}
+
+	@Test
+	public void shouldLimitFillByGrossNotional() {
+		// when
+		final long buy = valuator.getMaxPossibleFill(eurUsd, Side.SELL, 1.22, 1000000, -1, 3000000);
+		final long sell = valuator.getMaxPossibleFill(eurUsd, Side.BUY, 1.22, 1000000, -1, 3000000);
+
+		// then
+		assertEquals("unexpected fill quantity", 336065, buy);
+		assertEquals("unexpected fill quantity", 336065, sell);
+	}
+}
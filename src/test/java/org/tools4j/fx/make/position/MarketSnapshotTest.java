@@ -120,6 +120,45 @@ public class MarketSnapshotTest {
 		}
 	}
 
+	@Test
+	public void shouldTriangulateCrossRates() {
+		// when
+		final double eurJpy = snapshot.getRate(Currency.EUR, Currency.JPY);
+		final double jpyEur = snapshot.getRate(Currency.JPY, Currency.EUR);
+		final double audCad = snapshot.getRate(Currency.AUD, Currency.CAD);
+		// then
+		assertEquals("unexpected EUR/JPY rate", 1.1010 * 123.92, eurJpy, 1e-12);
+		assertEquals("unexpected JPY/EUR rate", 1 / 123.92 / 1.1010, jpyEur, 1e-12);
+		assertEquals("unexpected AUD/CAD rate", 0.7307 * 1.3089, audCad, 1e-12);
+	}
+
+	@Test
+	public void shouldTriangulateThroughConfiguredVehicleCurrency() {
+		// given
+		final MarketSnapshot eurVehicle = MarketSnapshot.builder()//
+				.withRate(new CurrencyPair(Currency.EUR, Currency.GBP), 0.72)//
+				.withRate(new CurrencyPair(Currency.EUR, Currency.CHF), 1.08)//
+				.withRate(new CurrencyPair(Currency.USD, Currency.CHF), 0.97)//
+				.withVehicleCurrency(Currency.EUR)//
+				.build();
+
+		// when
+		final double gbpChf = eurVehicle.getRate(Currency.GBP, Currency.CHF);
+		// then
+		assertEquals("unexpected GBP/CHF rate", 1 / 0.72 * 1.08, gbpChf, 1e-12);
+		// when
+		final double directOverCross = eurVehicle.getRate(Currency.USD, Currency.CHF);
+		// then
+		assertEquals("direct rate should take precedence", 0.97, directOverCross, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldThrowExceptionIfCrossRateNotFound() {
+		// when: NZD is only quoted against AUD, not against USD
+		snapshot.getRate(Currency.NZD, Currency.EUR);
+		// then: exception
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void shouldThrowExceptionIfRateNotFound() {
 		// when